@@ -0,0 +1,221 @@
+package com.napier.sem;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code adaptiveFetch} class picks the JDBC fetch size of one cursor from what it observes:
+ * how wide the rows are and how fast the consumer takes them.
+ * <p>
+ * With {@code useCursorFetch=true} on the connection URL and a positive fetch size, Connector/J
+ * opens a server-side cursor and fetches that many rows per round trip, instead of buffering the
+ * whole result before the first {@code next()} returns.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Samples the width of every {@link #SAMPLE_EVERY}th mapped row, using the
+ *       {@link resultCache#rowBytes(Object)} estimate</li>
+ *   <li>Accumulates the time the consumer spends per row, where the caller can measure it</li>
+ *   <li>Sizes each fetch to about {@link #TARGET_BYTES} of rows and {@link #TARGET_NANOS} of
+ *       consumer work, between {@link #MIN_ROWS} and {@link #MAX_ROWS}</li>
+ *   <li>Remembers the last size per query, so the next run starts from it</li>
+ * </ul>
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>{@link #start(String)} begins a cursor with the size learned for the query, or {@link #INITIAL_ROWS}</li>
+ *   <li>The caller sets {@link #size()} on the statement before {@code executeQuery()}</li>
+ *   <li>{@link #observe(ResultSet, Object)} after each row resizes the cursor when the estimate
+ *       changes; a publisher instead calls {@link #row(Object)} and {@link #consumed(long)} and
+ *       sets the size itself, capped by demand</li>
+ *   <li>{@link #finish()} records the size for the next run</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>A consumer too fast to measure does not limit the size; only the row width does</li>
+ *   <li>A new size takes effect at the cursor's next round trip; rows already fetched are unaffected</li>
+ *   <li>The learned sizes are cleared rather than grown past {@link #MAX_LEARNED} queries</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * adaptiveFetch fetch = adaptiveFetch.start(query);
+ * stmt.setFetchSize(fetch.size());
+ * ResultSet rset = stmt.executeQuery();
+ * while (rset.next()) {
+ *     populationSummary row = mapper.map(rset);
+ *     popsums.add(row);
+ *     fetch.observe(rset, row);
+ * }
+ * fetch.finish();
+ * }</pre>
+ */
+public class adaptiveFetch {
+
+    /**
+     * Smallest fetch size chosen.
+     */
+    public static final int MIN_ROWS = 16;
+
+    /**
+     * Largest fetch size chosen.
+     */
+    public static final int MAX_ROWS = 1_000;
+
+    /**
+     * Fetch size of a query with nothing learned yet.
+     */
+    public static final int INITIAL_ROWS = 128;
+
+    /**
+     * Rows buffered per fetch are kept to about this many bytes.
+     */
+    public static final long TARGET_BYTES = 64 * 1024;
+
+    /**
+     * Rows buffered per fetch are kept to about this much consumer time, so a slow consumer
+     * does not hold a large batch.
+     */
+    public static final long TARGET_NANOS = 50_000_000L;
+
+    /**
+     * One row in this many is measured, starting with the first; the size is re-estimated at each.
+     */
+    static final int SAMPLE_EVERY = 32;
+
+    /**
+     * Most queries whose size is remembered.
+     */
+    static final int MAX_LEARNED = 256;
+
+    private static final ConcurrentHashMap<String, Integer> learned = new ConcurrentHashMap<>();
+    private static final AtomicLong cursors = new AtomicLong();
+    private static final AtomicLong resizes = new AtomicLong();
+
+    private final String query;
+    private long rows = 0;
+    private long sampledRows = 0;
+    private long sampledBytes = 0;
+    private long consumerNanos = 0;
+    private int size;
+    private int applied;
+
+    private adaptiveFetch(String query, int size) {
+        this.query = query;
+        this.size = size;
+        this.applied = size;
+    }
+
+    /**
+     * Begins sizing one cursor.
+     *
+     * @param query SQL text or another stable name for the query
+     * @return the sizer, starting from the query's learned size
+     */
+    public static adaptiveFetch start(String query) {
+        cursors.incrementAndGet();
+        return new adaptiveFetch(query, learned.getOrDefault(query, INITIAL_ROWS));
+    }
+
+    /**
+     * The current fetch size estimate.
+     *
+     * @return rows per round trip
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Counts a mapped row, measuring its width if it is a sample row.
+     *
+     * @param row the mapped row
+     */
+    public void row(Object row) {
+        if (rows++ % SAMPLE_EVERY != 0) return;
+        sampledRows++;
+        sampledBytes += resultCache.rowBytes(row);
+        estimate();
+    }
+
+    /**
+     * Adds time the consumer spent on rows.
+     *
+     * @param nanos consumer time
+     */
+    public void consumed(long nanos) {
+        consumerNanos += nanos;
+    }
+
+    /**
+     * Counts a mapped row and, if the estimate changed, sets the new size on the cursor.
+     *
+     * @param rset cursor the row was read from
+     * @param row  the mapped row
+     * @throws SQLException if the fetch size cannot be set
+     */
+    public void observe(ResultSet rset, Object row) throws SQLException {
+        row(row);
+        if (size != applied) {
+            rset.setFetchSize(size);
+            applied = size;
+        }
+    }
+
+    /**
+     * Records the current size as the starting size of the query's next cursor.
+     */
+    public void finish() {
+        if (rows == 0) return;
+        if (learned.size() >= MAX_LEARNED) learned.clear();
+        learned.put(query, size);
+    }
+
+    private void estimate() {
+        long width = Math.max(1, sampledBytes / sampledRows);
+        long bySize = TARGET_BYTES / width;
+        long bySpeed = consumerNanos > 0 ? TARGET_NANOS * rows / consumerNanos : MAX_ROWS;
+        int next = (int) Math.max(MIN_ROWS, Math.min(MAX_ROWS, Math.min(bySize, bySpeed)));
+        if (next != size) resizes.incrementAndGet();
+        size = next;
+    }
+
+    /**
+     * Number of cursors sized.
+     *
+     * @return cursor count
+     */
+    public static long cursors() {
+        return cursors.get();
+    }
+
+    /**
+     * Number of times a cursor's estimate changed.
+     *
+     * @return resize count
+     */
+    public static long resizes() {
+        return resizes.get();
+    }
+
+    /**
+     * One-line summary for the end of a run.
+     *
+     * @return summary text
+     */
+    public static String summary() {
+        return String.format("Adaptive fetch: %d cursors, %d resizes", cursors(), resizes());
+    }
+
+    /**
+     * Forgets learned sizes and resets the counters.
+     */
+    static void clear() {
+        learned.clear();
+        cursors.set(0);
+        resizes.set(0);
+    }
+}
@@ -0,0 +1,442 @@
+package com.napier.sem;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The {@code asyncReports} class offers every DAO query as a {@link CompletableFuture}, so callers
+ * can overlap report fetches with each other and with their own work instead of blocking on JDBC.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Mirrors each static {@code get*} method of the DAO classes with the same name and arguments</li>
+ *   <li>Runs the calls on a dedicated executor of {@link #THREADS} daemon threads with a queue of
+ *       {@link #QUEUE_CAPACITY}, so blocking JDBC never lands on {@code ForkJoinPool.commonPool()}</li>
+ *   <li>Runs each call under its own {@link reportDeadline}, named after the DAO method</li>
+ *   <li>Keeps the DAO behaviour: results still go through {@link resultCache}, and identical calls
+ *       in flight at once share one query</li>
+ * </ul>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>If the queue is full, the returned future fails with {@link RejectedExecutionException}
+ *       rather than blocking the caller</li>
+ *   <li>If {@code populationApp.con} is {@code null}, futures complete with an empty list, as the DAO methods return</li>
+ *   <li>Calls share {@code populationApp.con}; the driver serialises statements on one connection, so
+ *       the overlap is with the caller's work and with cache hits rather than inside MySQL</li>
+ *   <li>Continuations without an executor run on the JDBC threads; pass an executor to the
+ *       {@code *Async} composition methods for heavy follow-up work</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * CompletableFuture<ArrayList<countryReport>> countries = asyncReports.getAllCountriesByPopulation(42);
+ * CompletableFuture<ArrayList<capitalCityReport>> capitals = asyncReports.getAllCapitalCitiesByPopulation(42);
+ * int rows = countries.thenCombine(capitals, (a, b) -> a.size() + b.size()).join();
+ * }</pre>
+ */
+public class asyncReports {
+
+    /**
+     * Threads running JDBC calls.
+     */
+    public static final int THREADS = 4;
+
+    /**
+     * Calls that may wait for a thread before new ones are rejected.
+     */
+    public static final int QUEUE_CAPACITY = 256;
+
+    private static final AtomicInteger threadNumber = new AtomicInteger();
+
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS,
+            60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                Thread t = new Thread(r, "report-jdbc-" + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+    private static final AtomicLong submitted = new AtomicLong();
+    private static final AtomicLong rejected = new AtomicLong();
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs a DAO call on the JDBC executor under the default {@link reportDeadline}.
+     *
+     * @param report name recorded if the call times out
+     * @param call   the DAO call
+     * @param <T>    result type
+     * @return a future for the call's result; failed if the executor rejected it
+     */
+    public static <T> CompletableFuture<T> submit(String report, Supplier<T> call) {
+        try {
+            CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> reportDeadline.run(report, call), executor);
+            submitted.incrementAndGet();
+            return future;
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * The JDBC executor, for other classes that run blocking JDBC work such as {@link rowPublisher}.
+     *
+     * @return the executor
+     */
+    static Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Number of calls accepted by the executor.
+     *
+     * @return submitted count
+     */
+    public static long submitted() {
+        return submitted.get();
+    }
+
+    /**
+     * Number of calls rejected because the queue was full.
+     *
+     * @return rejected count
+     */
+    public static long rejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Summarises the executor, e.g. {@code "Async reports: 28 submitted, 0 rejected, 4 threads"}.
+     *
+     * @return a one-line summary
+     */
+    public static String summary() {
+        return String.format("Async reports: %d submitted, %d rejected, %d threads",
+                submitted(), rejected(), THREADS);
+    }
+
+    /**
+     * Resets the counters.
+     */
+    static void resetCounters() {
+        submitted.set(0);
+        rejected.set(0);
+    }
+
+    // Country Reports
+
+    /**
+     * Runs {@link countryReport#getAllCountriesByPopulation(int)} on the JDBC executor.
+     *
+     * @param limit maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<countryReport>> getAllCountriesByPopulation(int limit) {
+        return submit("countryReport.getAllCountriesByPopulation", () -> countryReport.getAllCountriesByPopulation(limit));
+    }
+
+    /**
+     * Runs {@link countryReport#getCountriesByContinent(String, int)} on the JDBC executor.
+     *
+     * @param continent continent name
+     * @param limit     maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<countryReport>> getCountriesByContinent(String continent, int limit) {
+        return submit("countryReport.getCountriesByContinent", () -> countryReport.getCountriesByContinent(continent, limit));
+    }
+
+    /**
+     * Runs {@link countryReport#getCountriesByRegion(String, int)} on the JDBC executor.
+     *
+     * @param region region name
+     * @param limit  maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<countryReport>> getCountriesByRegion(String region, int limit) {
+        return submit("countryReport.getCountriesByRegion", () -> countryReport.getCountriesByRegion(region, limit));
+    }
+
+    /**
+     * Runs {@link countryReport#getTopCountriesByPopulation(int)} on the JDBC executor.
+     *
+     * @param limit maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<countryReport>> getTopCountriesByPopulation(int limit) {
+        return submit("countryReport.getTopCountriesByPopulation", () -> countryReport.getTopCountriesByPopulation(limit));
+    }
+
+    /**
+     * Runs {@link countryReport#getTopCountriesByContinent(String, int)} on the JDBC executor.
+     *
+     * @param continent continent name
+     * @param limit     maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<countryReport>> getTopCountriesByContinent(String continent, int limit) {
+        return submit("countryReport.getTopCountriesByContinent", () -> countryReport.getTopCountriesByContinent(continent, limit));
+    }
+
+    /**
+     * Runs {@link countryReport#getTopCountriesByRegion(String, int)} on the JDBC executor.
+     *
+     * @param region region name
+     * @param limit  maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<countryReport>> getTopCountriesByRegion(String region, int limit) {
+        return submit("countryReport.getTopCountriesByRegion", () -> countryReport.getTopCountriesByRegion(region, limit));
+    }
+
+    // City Reports
+
+    /**
+     * Runs {@link cityReport#getAllCitiesByPopulation(int)} on the JDBC executor.
+     *
+     * @param limit maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<cityReport>> getAllCitiesByPopulation(int limit) {
+        return submit("cityReport.getAllCitiesByPopulation", () -> cityReport.getAllCitiesByPopulation(limit));
+    }
+
+    /**
+     * Runs {@link cityReport#getCitiesByContinent(String, int)} on the JDBC executor.
+     *
+     * @param continent continent name
+     * @param limit     maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<cityReport>> getCitiesByContinent(String continent, int limit) {
+        return submit("cityReport.getCitiesByContinent", () -> cityReport.getCitiesByContinent(continent, limit));
+    }
+
+    /**
+     * Runs {@link cityReport#getCitiesByRegion(String, int)} on the JDBC executor.
+     *
+     * @param region region name
+     * @param limit  maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<cityReport>> getCitiesByRegion(String region, int limit) {
+        return submit("cityReport.getCitiesByRegion", () -> cityReport.getCitiesByRegion(region, limit));
+    }
+
+    /**
+     * Runs {@link cityReport#getCitiesByCountry(String, int)} on the JDBC executor.
+     *
+     * @param country country name
+     * @param limit   maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<cityReport>> getCitiesByCountry(String country, int limit) {
+        return submit("cityReport.getCitiesByCountry", () -> cityReport.getCitiesByCountry(country, limit));
+    }
+
+    /**
+     * Runs {@link cityReport#getCitiesByDistrict(String, int)} on the JDBC executor.
+     *
+     * @param district district name
+     * @param limit    maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<cityReport>> getCitiesByDistrict(String district, int limit) {
+        return submit("cityReport.getCitiesByDistrict", () -> cityReport.getCitiesByDistrict(district, limit));
+    }
+
+    /**
+     * Runs {@link cityReport#getTopCitiesInWorld(int)} on the JDBC executor.
+     *
+     * @param limit maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<cityReport>> getTopCitiesInWorld(int limit) {
+        return submit("cityReport.getTopCitiesInWorld", () -> cityReport.getTopCitiesInWorld(limit));
+    }
+
+    /**
+     * Runs {@link cityReport#getTopCitiesByContinent(String, int)} on the JDBC executor.
+     *
+     * @param continent continent name
+     * @param limit     maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<cityReport>> getTopCitiesByContinent(String continent, int limit) {
+        return submit("cityReport.getTopCitiesByContinent", () -> cityReport.getTopCitiesByContinent(continent, limit));
+    }
+
+    /**
+     * Runs {@link cityReport#getTopCitiesByRegion(String, int)} on the JDBC executor.
+     *
+     * @param region region name
+     * @param limit  maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<cityReport>> getTopCitiesByRegion(String region, int limit) {
+        return submit("cityReport.getTopCitiesByRegion", () -> cityReport.getTopCitiesByRegion(region, limit));
+    }
+
+    /**
+     * Runs {@link cityReport#getTopCitiesByDistrict(String, int)} on the JDBC executor.
+     *
+     * @param district district name
+     * @param limit    maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<cityReport>> getTopCitiesByDistrict(String district, int limit) {
+        return submit("cityReport.getTopCitiesByDistrict", () -> cityReport.getTopCitiesByDistrict(district, limit));
+    }
+
+    /**
+     * Runs {@link cityReport#getTopCitiesByCountry(String, int)} on the JDBC executor.
+     *
+     * @param country country name
+     * @param limit   maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<cityReport>> getTopCitiesByCountry(String country, int limit) {
+        return submit("cityReport.getTopCitiesByCountry", () -> cityReport.getTopCitiesByCountry(country, limit));
+    }
+
+    // Capital City Reports
+
+    /**
+     * Runs {@link capitalCityReport#getAllCapitalCitiesByPopulation(int)} on the JDBC executor.
+     *
+     * @param limit maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<capitalCityReport>> getAllCapitalCitiesByPopulation(int limit) {
+        return submit("capitalCityReport.getAllCapitalCitiesByPopulation", () -> capitalCityReport.getAllCapitalCitiesByPopulation(limit));
+    }
+
+    /**
+     * Runs {@link capitalCityReport#getCapitalCitiesByContinent(String, int)} on the JDBC executor.
+     *
+     * @param continent continent name
+     * @param limit     maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<capitalCityReport>> getCapitalCitiesByContinent(String continent, int limit) {
+        return submit("capitalCityReport.getCapitalCitiesByContinent", () -> capitalCityReport.getCapitalCitiesByContinent(continent, limit));
+    }
+
+    /**
+     * Runs {@link capitalCityReport#getCapitalCitiesByRegion(String, int)} on the JDBC executor.
+     *
+     * @param region region name
+     * @param limit  maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<capitalCityReport>> getCapitalCitiesByRegion(String region, int limit) {
+        return submit("capitalCityReport.getCapitalCitiesByRegion", () -> capitalCityReport.getCapitalCitiesByRegion(region, limit));
+    }
+
+    /**
+     * Runs {@link capitalCityReport#getTopCapitalCitiesInWorld(int)} on the JDBC executor.
+     *
+     * @param limit maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<capitalCityReport>> getTopCapitalCitiesInWorld(int limit) {
+        return submit("capitalCityReport.getTopCapitalCitiesInWorld", () -> capitalCityReport.getTopCapitalCitiesInWorld(limit));
+    }
+
+    /**
+     * Runs {@link capitalCityReport#getTopCapitalCitiesByContinent(String, int)} on the JDBC executor.
+     *
+     * @param continent continent name
+     * @param limit     maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<capitalCityReport>> getTopCapitalCitiesByContinent(String continent, int limit) {
+        return submit("capitalCityReport.getTopCapitalCitiesByContinent", () -> capitalCityReport.getTopCapitalCitiesByContinent(continent, limit));
+    }
+
+    /**
+     * Runs {@link capitalCityReport#getTopCapitalCitiesByRegion(String, int)} on the JDBC executor.
+     *
+     * @param region region name
+     * @param limit  maximum number of rows
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<capitalCityReport>> getTopCapitalCitiesByRegion(String region, int limit) {
+        return submit("capitalCityReport.getTopCapitalCitiesByRegion", () -> capitalCityReport.getTopCapitalCitiesByRegion(region, limit));
+    }
+
+    // Population Reports
+
+    /**
+     * Runs {@link populationReport#getPopulationByContinent()} on the JDBC executor.
+     *
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<populationReport>> getPopulationByContinent() {
+        return submit("populationReport.getPopulationByContinent", () -> populationReport.getPopulationByContinent());
+    }
+
+    /**
+     * Runs {@link populationReport#getPopulationByRegion()} on the JDBC executor.
+     *
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<populationReport>> getPopulationByRegion() {
+        return submit("populationReport.getPopulationByRegion", () -> populationReport.getPopulationByRegion());
+    }
+
+    /**
+     * Runs {@link populationReport#getPopulationByCountry()} on the JDBC executor.
+     *
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<populationReport>> getPopulationByCountry() {
+        return submit("populationReport.getPopulationByCountry", () -> populationReport.getPopulationByCountry());
+    }
+
+    // Population Summary Report
+
+    /**
+     * Runs {@link populationSummary#getAllPopulationSummary()} on the JDBC executor.
+     *
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<populationSummary>> getAllPopulationSummary() {
+        return submit("populationSummary.getAllPopulationSummary", () -> populationSummary.getAllPopulationSummary());
+    }
+
+    // Language Report
+
+    /**
+     * Runs {@link languageReport#getAllLanguageReport()} on the JDBC executor.
+     *
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<languageReport>> getAllLanguageReport() {
+        return submit("languageReport.getAllLanguageReport", () -> languageReport.getAllLanguageReport());
+    }
+
+    // Top Language Report
+
+    /**
+     * Runs {@link topLanguageReport#getTopLanguagesByContinentAndRegion(int)} on the JDBC executor.
+     *
+     * @param k languages kept per continent and region
+     * @return a future for the DAO method's result
+     */
+    public static CompletableFuture<ArrayList<topLanguageReport>> getTopLanguagesByContinentAndRegion(int k) {
+        return submit("topLanguageReport.getTopLanguagesByContinentAndRegion", () -> topLanguageReport.getTopLanguagesByContinentAndRegion(k));
+    }
+}
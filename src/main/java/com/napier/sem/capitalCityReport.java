@@ -14,7 +14,7 @@ import java.util.ArrayList;
  * <p>
  * Responsibilities:
  * <ul>
- *   <li>Acts as a simple container for capital city data retrieved from the database</li>
+ *   <li>Acts as an immutable container for capital city data retrieved from the database, safe to share from {@link resultCache}</li>
  *   <li>Provides static methods to query capital city data at different scopes:
  *       <ul>
  *         <li>All capital cities in the world</li>
@@ -28,8 +28,10 @@ import java.util.ArrayList;
  * <p>
  * Workflow:
  * <ol>
- *   <li>SQL queries are executed via JDBC using {@code populationApp.con}</li>
- *   <li>Results are mapped into {@code capitalCityReport} objects</li>
+ *   <li>Repeated queries are answered from {@link resultCache} until a table they read changes or the entry expires</li>
+ *   <li>SQL queries read each country's capital id via JDBC using {@code populationApp.con}</li>
+ *   <li>Capital names and populations are resolved through {@link capitalIndex}, with no join on {@code city}</li>
+ *   <li>Results are ranked by population and mapped into {@code capitalCityReport} objects</li>
  *   <li>Collections of these objects are returned for further processing</li>
  *   <li>Output methods format the data into Markdown tables and write them to files</li>
  * </ol>
@@ -52,22 +54,39 @@ import java.util.ArrayList;
  * capitalCityReport.outputCapitalCityReport(capitals, "TopCapitalsEurope.md");
  * }</pre>
  */
+@mappedRow
 public class capitalCityReport {
 
     /**
      * The name of the capital city.
      */
-    public String name;
+    @column("name")
+    public final String name;
 
     /**
      * The country in which the capital city is located.
      */
-    public String country;
+    @column(value = "country_name", pooled = true)
+    public final String country;
 
     /**
      * The population of the capital city.
      */
-    public int population;
+    @column("population")
+    public final int population;
+
+    /**
+     * Creates a capital city row.
+     *
+     * @param name       capital city name
+     * @param country    name of the country it is the capital of
+     * @param population capital city population
+     */
+    public capitalCityReport(String name, String country, int population) {
+        this.name = name;
+        this.country = country;
+        this.population = population;
+    }
 
 
     /**
@@ -77,8 +96,8 @@ public class capitalCityReport {
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
      *   <li>Caps the requested {@code limit} at a maximum of 42 for reproducibility</li>
-     *   <li>Executes a SQL query joining {@code city} and {@code country} tables to identify capitals</li>
-     *   <li>Maps each result row into a {@link capitalCityReport} object</li>
+     *   <li>Executes a SQL query reading each country's capital id from the {@code country} table only</li>
+     *   <li>Resolves each capital through {@link capitalIndex} and keeps the most populated</li>
      *   <li>Collects and returns the results as an {@code ArrayList}</li>
      * </ul>
      * <p>
@@ -97,26 +116,26 @@ public class capitalCityReport {
         if (populationApp.con == null) return capitals;
 
         int cappedLimit = Math.min(limit, 42);
-        try (PreparedStatement pstmt = populationApp.con.prepareStatement("""
-        SELECT city.name AS capital_name, country.name AS country_name, city.population
-        FROM city
-        JOIN country ON city.id = country.capital
-        ORDER BY city.population DESC
-        LIMIT ?;
+        resultCache.key key = resultCache.key("capitalCityReport.getAllCapitalCitiesByPopulation", cappedLimit);
+        ArrayList<capitalCityReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+        SELECT name AS country_name, capital
+        FROM country
     """)) {
-            pstmt.setInt(1, cappedLimit);
             ResultSet rset = pstmt.executeQuery();
+            ArrayList<String> countries = new ArrayList<>();
+            worldSnapshot.intColumn capitalIds = new worldSnapshot.intColumn();
             while (rset.next()) {
-                capitalCityReport c = new capitalCityReport();
-                c.name = rset.getString("capital_name");
-                c.country = rset.getString("country_name");
-                c.population = rset.getInt("population");
-                capitals.add(c);
+                countries.add(rset.getString("country_name"));
+                capitalIds.add(rset.getInt("capital"));
             }
+            capitals.addAll(rankCapitals(countries, capitalIds.toArray(), capitalIndex.get(), cappedLimit));
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, capitals, e);
         }
-        return capitals;
+        return resultCache.store(key, capitals, tableVersions.COUNTRY, tableVersions.CITY);
     }
 
     /**
@@ -126,10 +145,11 @@ public class capitalCityReport {
      * Workflow:
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
+     *   <li>Returns an empty list without querying if {@link scopeRegistry} knows no such continent</li>
      *   <li>Caps the requested {@code limit} at a maximum of 42 for reproducibility</li>
-     *   <li>Executes a SQL query joining {@code city} and {@code country} tables,
+     *   <li>Executes a SQL query reading each country's capital id from the {@code country} table only,
      *       filtering by the given continent</li>
-     *   <li>Maps each result row into a {@link capitalCityReport} object</li>
+     *   <li>Resolves each capital through {@link capitalIndex} and keeps the most populated</li>
      *   <li>Collects and returns the results as an {@code ArrayList}</li>
      * </ul>
      * <p>
@@ -147,30 +167,31 @@ public class capitalCityReport {
     public static ArrayList<capitalCityReport> getCapitalCitiesByContinent(String continent, int limit) {
         ArrayList<capitalCityReport> capitals = new ArrayList<>();
         if (populationApp.con == null) return capitals;
+        if (!scopeRegistry.mayExist(scopeRegistry.CONTINENT, continent)) return capitals;
 
         int cappedLimit = Math.min(limit, 42);
-        try (PreparedStatement pstmt = populationApp.con.prepareStatement("""
-        SELECT city.name AS capital_name, country.name AS country_name, city.population
-        FROM city
-        JOIN country ON city.id = country.capital
-        WHERE country.continent = ?
-        ORDER BY city.population DESC
-        LIMIT ?;
+        resultCache.key key = resultCache.key("capitalCityReport.getCapitalCitiesByContinent", continent, cappedLimit);
+        ArrayList<capitalCityReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+        SELECT name AS country_name, capital
+        FROM country
+        WHERE continent = ?
     """)) {
             pstmt.setString(1, continent);
-            pstmt.setInt(2, cappedLimit);
             ResultSet rset = pstmt.executeQuery();
+            ArrayList<String> countries = new ArrayList<>();
+            worldSnapshot.intColumn capitalIds = new worldSnapshot.intColumn();
             while (rset.next()) {
-                capitalCityReport c = new capitalCityReport();
-                c.name = rset.getString("capital_name");
-                c.country = rset.getString("country_name");
-                c.population = rset.getInt("population");
-                capitals.add(c);
+                countries.add(rset.getString("country_name"));
+                capitalIds.add(rset.getInt("capital"));
             }
+            capitals.addAll(rankCapitals(countries, capitalIds.toArray(), capitalIndex.get(), cappedLimit));
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, capitals, e);
         }
-        return capitals;
+        return resultCache.store(key, capitals, tableVersions.COUNTRY, tableVersions.CITY);
     }
 
     /**
@@ -180,10 +201,11 @@ public class capitalCityReport {
      * Workflow:
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
+     *   <li>Returns an empty list without querying if {@link scopeRegistry} knows no such region</li>
      *   <li>Caps the requested {@code limit} at a maximum of 42 for reproducibility</li>
-     *   <li>Executes a SQL query joining {@code city} and {@code country} tables,
+     *   <li>Executes a SQL query reading each country's capital id from the {@code country} table only,
      *       filtering by the given region</li>
-     *   <li>Maps each result row into a {@link capitalCityReport} object</li>
+     *   <li>Resolves each capital through {@link capitalIndex} and keeps the most populated</li>
      *   <li>Collects and returns the results as an {@code ArrayList}</li>
      * </ul>
      * <p>
@@ -201,30 +223,31 @@ public class capitalCityReport {
     public static ArrayList<capitalCityReport> getCapitalCitiesByRegion(String region, int limit) {
         ArrayList<capitalCityReport> capitals = new ArrayList<>();
         if (populationApp.con == null) return capitals;
+        if (!scopeRegistry.mayExist(scopeRegistry.REGION, region)) return capitals;
 
         int cappedLimit = Math.min(limit, 42);
-        try (PreparedStatement pstmt = populationApp.con.prepareStatement("""
-        SELECT city.name AS capital_name, country.name AS country_name, city.population
-        FROM city
-        JOIN country ON city.id = country.capital
-        WHERE country.region = ?
-        ORDER BY city.population DESC
-        LIMIT ?;
+        resultCache.key key = resultCache.key("capitalCityReport.getCapitalCitiesByRegion", region, cappedLimit);
+        ArrayList<capitalCityReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+        SELECT name AS country_name, capital
+        FROM country
+        WHERE region = ?
     """)) {
             pstmt.setString(1, region);
-            pstmt.setInt(2, cappedLimit);
             ResultSet rset = pstmt.executeQuery();
+            ArrayList<String> countries = new ArrayList<>();
+            worldSnapshot.intColumn capitalIds = new worldSnapshot.intColumn();
             while (rset.next()) {
-                capitalCityReport c = new capitalCityReport();
-                c.name = rset.getString("capital_name");
-                c.country = rset.getString("country_name");
-                c.population = rset.getInt("population");
-                capitals.add(c);
+                countries.add(rset.getString("country_name"));
+                capitalIds.add(rset.getInt("capital"));
             }
+            capitals.addAll(rankCapitals(countries, capitalIds.toArray(), capitalIndex.get(), cappedLimit));
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, capitals, e);
         }
-        return capitals;
+        return resultCache.store(key, capitals, tableVersions.COUNTRY, tableVersions.CITY);
     }
 
     /**
@@ -235,10 +258,8 @@ public class capitalCityReport {
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
      *   <li>Caps the requested {@code limit} at a maximum of 10 for reproducibility</li>
-     *   <li>Executes a SQL query joining {@code city} and {@code country} tables
-     *       to identify capital cities</li>
-     *   <li>Orders results by population (largest first)</li>
-     *   <li>Maps each result row into a {@link capitalCityReport} object</li>
+     *   <li>Executes a SQL query reading each country's capital id from the {@code country} table only</li>
+     *   <li>Resolves each capital through {@link capitalIndex} and keeps the most populated</li>
      *   <li>Collects and returns the results as an {@code ArrayList}</li>
      * </ul>
      * <p>
@@ -257,26 +278,26 @@ public class capitalCityReport {
         if (populationApp.con == null) return capitals;
 
         int cappedLimit = Math.min(limit, 10);
-        try (PreparedStatement pstmt = populationApp.con.prepareStatement("""
-        SELECT city.name AS capital_name, country.name AS country_name, city.population
-        FROM city
-        JOIN country ON city.id = country.capital
-        ORDER BY city.population DESC
-        LIMIT ?;
+        resultCache.key key = resultCache.key("capitalCityReport.getTopCapitalCitiesInWorld", cappedLimit);
+        ArrayList<capitalCityReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+        SELECT name AS country_name, capital
+        FROM country
     """)) {
-            pstmt.setInt(1, cappedLimit);
             ResultSet rset = pstmt.executeQuery();
+            ArrayList<String> countries = new ArrayList<>();
+            worldSnapshot.intColumn capitalIds = new worldSnapshot.intColumn();
             while (rset.next()) {
-                capitalCityReport c = new capitalCityReport();
-                c.name = rset.getString("capital_name");
-                c.country = rset.getString("country_name");
-                c.population = rset.getInt("population");
-                capitals.add(c);
+                countries.add(rset.getString("country_name"));
+                capitalIds.add(rset.getInt("capital"));
             }
+            capitals.addAll(rankCapitals(countries, capitalIds.toArray(), capitalIndex.get(), cappedLimit));
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, capitals, e);
         }
-        return capitals;
+        return resultCache.store(key, capitals, tableVersions.COUNTRY, tableVersions.CITY);
     }
 
     /**
@@ -286,11 +307,11 @@ public class capitalCityReport {
      * Workflow:
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
+     *   <li>Returns an empty list without querying if {@link scopeRegistry} knows no such continent</li>
      *   <li>Caps the requested {@code limit} at a maximum of 10 for reproducibility</li>
-     *   <li>Executes a SQL query joining {@code city} and {@code country} tables,
+     *   <li>Executes a SQL query reading each country's capital id from the {@code country} table only,
      *       filtering by the given continent</li>
-     *   <li>Orders results by population (largest first)</li>
-     *   <li>Maps each result row into a {@link capitalCityReport} object</li>
+     *   <li>Resolves each capital through {@link capitalIndex} and keeps the most populated</li>
      *   <li>Collects and returns the results as an {@code ArrayList}</li>
      * </ul>
      * <p>
@@ -308,30 +329,31 @@ public class capitalCityReport {
     public static ArrayList<capitalCityReport> getTopCapitalCitiesByContinent(String continent, int limit) {
         ArrayList<capitalCityReport> capitals = new ArrayList<>();
         if (populationApp.con == null) return capitals;
+        if (!scopeRegistry.mayExist(scopeRegistry.CONTINENT, continent)) return capitals;
 
         int cappedLimit = Math.min(limit, 10);
-        try (PreparedStatement pstmt = populationApp.con.prepareStatement("""
-        SELECT city.name AS capital_name, country.name AS country_name, city.population
-        FROM city
-        JOIN country ON city.id = country.capital
-        WHERE country.continent = ?
-        ORDER BY city.population DESC
-        LIMIT ?;
+        resultCache.key key = resultCache.key("capitalCityReport.getTopCapitalCitiesByContinent", continent, cappedLimit);
+        ArrayList<capitalCityReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+        SELECT name AS country_name, capital
+        FROM country
+        WHERE continent = ?
     """)) {
             pstmt.setString(1, continent);
-            pstmt.setInt(2, cappedLimit);
             ResultSet rset = pstmt.executeQuery();
+            ArrayList<String> countries = new ArrayList<>();
+            worldSnapshot.intColumn capitalIds = new worldSnapshot.intColumn();
             while (rset.next()) {
-                capitalCityReport c = new capitalCityReport();
-                c.name = rset.getString("capital_name");
-                c.country = rset.getString("country_name");
-                c.population = rset.getInt("population");
-                capitals.add(c);
+                countries.add(rset.getString("country_name"));
+                capitalIds.add(rset.getInt("capital"));
             }
+            capitals.addAll(rankCapitals(countries, capitalIds.toArray(), capitalIndex.get(), cappedLimit));
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, capitals, e);
         }
-        return capitals;
+        return resultCache.store(key, capitals, tableVersions.COUNTRY, tableVersions.CITY);
     }
 
     /**
@@ -341,11 +363,11 @@ public class capitalCityReport {
      * Workflow:
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
+     *   <li>Returns an empty list without querying if {@link scopeRegistry} knows no such region</li>
      *   <li>Caps the requested {@code limit} at a maximum of 10 for reproducibility</li>
-     *   <li>Executes a SQL query joining {@code city} and {@code country} tables,
+     *   <li>Executes a SQL query reading each country's capital id from the {@code country} table only,
      *       filtering by the given region</li>
-     *   <li>Orders results by population (largest first)</li>
-     *   <li>Maps each result row into a {@link capitalCityReport} object</li>
+     *   <li>Resolves each capital through {@link capitalIndex} and keeps the most populated</li>
      *   <li>Collects and returns the results as an {@code ArrayList}</li>
      * </ul>
      * <p>
@@ -363,30 +385,60 @@ public class capitalCityReport {
     public static ArrayList<capitalCityReport> getTopCapitalCitiesByRegion(String region, int limit) {
         ArrayList<capitalCityReport> capitals = new ArrayList<>();
         if (populationApp.con == null) return capitals;
+        if (!scopeRegistry.mayExist(scopeRegistry.REGION, region)) return capitals;
 
         int cappedLimit = Math.min(limit, 10);
-        try (PreparedStatement pstmt = populationApp.con.prepareStatement("""
-        SELECT city.name AS capital_name, country.name AS country_name, city.population
-        FROM city
-        JOIN country ON city.id = country.capital
-        WHERE country.region = ?
-        ORDER BY city.population DESC
-        LIMIT ?;
+        resultCache.key key = resultCache.key("capitalCityReport.getTopCapitalCitiesByRegion", region, cappedLimit);
+        ArrayList<capitalCityReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+        SELECT name AS country_name, capital
+        FROM country
+        WHERE region = ?
     """)) {
             pstmt.setString(1, region);
-            pstmt.setInt(2, cappedLimit);
             ResultSet rset = pstmt.executeQuery();
+            ArrayList<String> countries = new ArrayList<>();
+            worldSnapshot.intColumn capitalIds = new worldSnapshot.intColumn();
             while (rset.next()) {
-                capitalCityReport c = new capitalCityReport();
-                c.name = rset.getString("capital_name");
-                c.country = rset.getString("country_name");
-                c.population = rset.getInt("population");
-                capitals.add(c);
+                countries.add(rset.getString("country_name"));
+                capitalIds.add(rset.getInt("capital"));
             }
+            capitals.addAll(rankCapitals(countries, capitalIds.toArray(), capitalIndex.get(), cappedLimit));
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, capitals, e);
+        }
+        return resultCache.store(key, capitals, tableVersions.COUNTRY, tableVersions.CITY);
+    }
+
+    /**
+     * Resolves the capital of each country through a {@link capitalIndex} and keeps the
+     * {@code limit} most populated capitals, largest first.
+     * <p>
+     * Countries without a known capital are skipped, as the inner join on {@code city.id = country.capital} did.
+     *
+     * @param countries  country names
+     * @param capitalIds capital city id of each country, parallel to {@code countries}
+     * @param index      capital lookup
+     * @param limit      maximum number of capitals to keep
+     * @return ranked capital cities
+     */
+    static ArrayList<capitalCityReport> rankCapitals(ArrayList<String> countries, int[] capitalIds,
+                                                     capitalIndex index, int limit) {
+        topNHeap heap = topNHeap.forThread();
+        heap.reset(limit);
+        for (int i = 0; i < capitalIds.length; i++) {
+            if (index.isCapital(capitalIds[i])) heap.offer(index.population(capitalIds[i]), i);
+        }
+
+        ArrayList<capitalCityReport> ranked = new ArrayList<>();
+        for (int i : heap.drainDescending()) {
+            capitalCityReport c = new capitalCityReport(index.name(capitalIds[i]), countries.get(i),
+                    index.population(capitalIds[i]));
+            ranked.add(c);
         }
-        return capitals;
+        return ranked;
     }
 
     /**
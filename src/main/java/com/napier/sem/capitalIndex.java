@@ -0,0 +1,188 @@
+package com.napier.sem;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The {@code capitalIndex} class resolves a capital city id to its name and population
+ * without joining {@code city} in each report query.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Holds capital names and populations in dense arrays indexed directly by city id</li>
+ *   <li>Marks capital city ids in a bitset, telling "not a capital" apart from missing data</li>
+ *   <li>Lets {@link countryReport} and {@link capitalCityReport} read only the {@code country} table</li>
+ * </ul>
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>{@link #get()} loads every capital city once per connection and table version</li>
+ *   <li>DAO methods read {@code country.capital} and look the id up with {@link #name(int)}
+ *       and {@link #population(int)}</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>City ids are dense auto-increment ints, so the arrays are sized by the largest capital id</li>
+ *   <li>Ids that are negative, out of range or not a capital resolve to {@code null} / {@code 0},
+ *       as a {@code LEFT JOIN} would</li>
+ *   <li>A new {@code populationApp.con}, or a change to {@code city} or {@code country} seen by
+ *       {@link tableVersions}, triggers a reload</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * capitalIndex capitals = capitalIndex.get();
+ * String capital = capitals.name(rset.getInt("capital"));
+ * }</pre>
+ */
+public class capitalIndex {
+
+    /**
+     * Index shared by every DAO method.
+     */
+    private static capitalIndex current = null;
+
+    /**
+     * Connection {@link #current} was loaded from.
+     */
+    private static Connection loadedFrom = null;
+
+    /**
+     * Versions of {@code city} and {@code country} {@link #current} was loaded at.
+     */
+    private static long[] loadedAt = null;
+
+    /**
+     * Capital city names, indexed by city id.
+     */
+    private final String[] nameById;
+
+    /**
+     * Capital city populations, indexed by city id.
+     */
+    private final int[] populationById;
+
+    /**
+     * City ids that are a capital.
+     */
+    private final BitSet capitals;
+
+    /**
+     * Creates an index over the given capital cities.
+     *
+     * @param ids         capital city ids
+     * @param names       capital city names, parallel to {@code ids}
+     * @param populations capital city populations, parallel to {@code ids}
+     */
+    capitalIndex(int[] ids, String[] names, int[] populations) {
+        int max = -1;
+        for (int id : ids) max = Math.max(max, id);
+        nameById = new String[max + 1];
+        populationById = new int[max + 1];
+        capitals = new BitSet(max + 1);
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] < 0) continue;
+            nameById[ids[i]] = names[i];
+            populationById[ids[i]] = populations[i];
+            capitals.set(ids[i]);
+        }
+    }
+
+    /**
+     * Returns the index for the current connection, loading it on first use.
+     * <p>
+     * Workflow:
+     * <ul>
+     *   <li>Checks if a valid database connection exists; returns an empty index if not</li>
+     *   <li>Reuses the loaded index while {@code populationApp.con} and the versions of
+     *       {@code city} and {@code country} are unchanged</li>
+     *   <li>Otherwise reads the id, name and population of every city that is a capital</li>
+     * </ul>
+     * <p>
+     * Edge-case handling:
+     * <ul>
+     *   <li>If SQL execution fails, the error message is logged and an empty index is returned;
+     *       the next call tries again</li>
+     *   <li>An index read during the record pass of a {@link queryBatch} is empty and not kept</li>
+     * </ul>
+     *
+     * @return the capital index; never {@code null}
+     */
+    public static synchronized capitalIndex get() {
+        Connection con = populationApp.con;
+        if (con == null) return empty();
+        // Read before the query, so a change landing during the load triggers another one
+        long[] versions = {tableVersions.version(tableVersions.CITY), tableVersions.version(tableVersions.COUNTRY)};
+        if (current != null && loadedFrom == con && Arrays.equals(loadedAt, versions)) return current;
+
+        worldSnapshot.intColumn ids = new worldSnapshot.intColumn();
+        worldSnapshot.intColumn populations = new worldSnapshot.intColumn();
+        ArrayList<String> names = new ArrayList<>();
+        try (PreparedStatement pstmt = statementCache.prepare(con, """
+        SELECT id, name, population
+        FROM city
+        WHERE id IN (SELECT capital FROM country)
+    """)) {
+            ResultSet rset = pstmt.executeQuery();
+            while (rset.next()) {
+                ids.add(rset.getInt("id"));
+                names.add(rset.getString("name"));
+                populations.add(rset.getInt("population"));
+            }
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+            return empty();
+        }
+
+        capitalIndex loaded = new capitalIndex(ids.toArray(), names.toArray(new String[0]), populations.toArray());
+        if (queryBatch.recording()) return loaded;
+        current = loaded;
+        loadedFrom = con;
+        loadedAt = versions;
+        return current;
+    }
+
+    /**
+     * Returns an index that knows no capitals.
+     *
+     * @return an empty index
+     */
+    static capitalIndex empty() {
+        return new capitalIndex(new int[0], new String[0], new int[0]);
+    }
+
+    /**
+     * Returns whether a city id is a capital.
+     *
+     * @param cityId city id, e.g. {@code country.capital}
+     * @return {@code true} if the city is some country's capital
+     */
+    public boolean isCapital(int cityId) {
+        return cityId >= 0 && capitals.get(cityId);
+    }
+
+    /**
+     * Returns the name of a capital city.
+     *
+     * @param cityId city id, e.g. {@code country.capital}
+     * @return the city name, or {@code null} if the id is not a capital
+     */
+    public String name(int cityId) {
+        return isCapital(cityId) ? nameById[cityId] : null;
+    }
+
+    /**
+     * Returns the population of a capital city.
+     *
+     * @param cityId city id, e.g. {@code country.capital}
+     * @return the city population, or {@code 0} if the id is not a capital
+     */
+    public int population(int cityId) {
+        return isCapital(cityId) ? populationById[cityId] : 0;
+    }
+}
@@ -14,7 +14,7 @@ import java.util.ArrayList;
  * <p>
  * Responsibilities:
  * <ul>
- *   <li>Acts as a simple container for city data retrieved from the database</li>
+ *   <li>Acts as an immutable container for city data retrieved from the database, safe to share from {@link resultCache}</li>
  *   <li>Provides static methods to query city data at different scopes:
  *       <ul>
  *         <li>All cities in the world</li>
@@ -30,8 +30,9 @@ import java.util.ArrayList;
  * <p>
  * Workflow:
  * <ol>
+ *   <li>Repeated queries are answered from {@link resultCache} until a table they read changes or the entry expires</li>
  *   <li>SQL queries are executed via JDBC using {@code populationApp.con}</li>
- *   <li>Results are mapped into {@code cityReport} objects</li>
+ *   <li>Results are mapped into {@code cityReport} objects by the generated {@code cityReportMapper}, which reads columns by index</li>
  *   <li>Collections of these objects are returned for further processing</li>
  *   <li>Output methods format the data into Markdown tables and write them to files</li>
  * </ol>
@@ -54,27 +55,47 @@ import java.util.ArrayList;
  * cityReport.outputCityReport(cities, "TopCitiesAsia.md");
  * }</pre>
  */
-public class cityReport extends populationApp {
+@mappedRow
+public class cityReport {
 
     /**
      * The name of the city.
      */
-    public String name;
+    @column("name")
+    public final String name;
 
     /**
      * The country in which the city is located.
      */
-    public String country;
+    @column(value = "country_name", pooled = true)
+    public final String country;
 
     /**
      * The district or administrative region of the city.
      */
-    public String district;
+    @column(value = "district", pooled = true)
+    public final String district;
 
     /**
      * The population of the city.
      */
-    public int population;
+    @column("population")
+    public final int population;
+
+    /**
+     * Creates a city row.
+     *
+     * @param name       city name
+     * @param country    name of the country the city is in
+     * @param district   district of the city
+     * @param population city population
+     */
+    public cityReport(String name, String country, String district, int population) {
+        this.name = name;
+        this.country = country;
+        this.district = district;
+        this.population = population;
+    }
 
     /**
      * Retrieves all cities in the world ordered by population in descending order,
@@ -105,27 +126,27 @@ public class cityReport extends populationApp {
         if (populationApp.con == null) return cities;
 
         int cappedLimit = Math.min(limit, 42);
-        try (PreparedStatement pstmt = populationApp.con.prepareStatement("""
+        resultCache.key key = resultCache.key("cityReport.getAllCitiesByPopulation", cappedLimit);
+        ArrayList<cityReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
         SELECT city.name, country.name AS country_name,
                city.district, city.population
         FROM city
         JOIN country ON city.countrycode = country.code
         ORDER BY city.population DESC
-        LIMIT 42;
+        LIMIT 42
     """)) {
             ResultSet rset = pstmt.executeQuery();
+            cityReportMapper mapper = new cityReportMapper(rset);
             while (rset.next()) {
-                cityReport c = new cityReport();
-                c.name = rset.getString("name");
-                c.country = rset.getString("country_name");
-                c.district = rset.getString("district");
-                c.population = rset.getInt("population");
-                cities.add(c);
+                cities.add(mapper.map(rset));
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, cities, e);
         }
-        return cities;
+        return resultCache.store(key, cities, tableVersions.CITY, tableVersions.COUNTRY);
     }
 
     /**
@@ -136,6 +157,7 @@ public class cityReport extends populationApp {
      * Workflow:
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
+     *   <li>Returns an empty list without querying if {@link scopeRegistry} knows no such continent</li>
      *   <li>Caps the requested {@code limit} at a maximum of 42 for reproducibility</li>
      *   <li>Executes a SQL query joining {@code city} and {@code country} tables,
      *       filtering by the given continent</li>
@@ -158,31 +180,32 @@ public class cityReport extends populationApp {
     public static ArrayList<cityReport> getCitiesByContinent(String continent, int limit) {
         ArrayList<cityReport> cities = new ArrayList<>();
         if (populationApp.con == null) return cities;
+        if (!scopeRegistry.mayExist(scopeRegistry.CONTINENT, continent)) return cities;
 
         int cappedLimit = Math.min(limit, 42);
-        try (PreparedStatement pstmt = populationApp.con.prepareStatement("""
+        resultCache.key key = resultCache.key("cityReport.getCitiesByContinent", continent, cappedLimit);
+        ArrayList<cityReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
         SELECT city.name, country.name AS country_name,
                city.district, city.population
         FROM city
         JOIN country ON city.countrycode = country.code
         WHERE country.continent = ?
         ORDER BY city.population DESC
-        LIMIT 42;
+        LIMIT 42
     """)) {
             pstmt.setString(1, continent);
             ResultSet rset = pstmt.executeQuery();
+            cityReportMapper mapper = new cityReportMapper(rset);
             while (rset.next()) {
-                cityReport c = new cityReport();
-                c.name = rset.getString("name");
-                c.country = rset.getString("country_name");
-                c.district = rset.getString("district");
-                c.population = rset.getInt("population");
-                cities.add(c);
+                cities.add(mapper.map(rset));
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, cities, e);
         }
-        return cities;
+        return resultCache.store(key, cities, tableVersions.CITY, tableVersions.COUNTRY);
     }
 
     /**
@@ -193,6 +216,7 @@ public class cityReport extends populationApp {
      * Workflow:
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
+     *   <li>Returns an empty list without querying if {@link scopeRegistry} knows no such region</li>
      *   <li>Caps the requested {@code limit} at a maximum of 42 for reproducibility</li>
      *   <li>Executes a SQL query joining {@code city} and {@code country} tables,
      *       filtering by the given region</li>
@@ -215,31 +239,32 @@ public class cityReport extends populationApp {
     public static ArrayList<cityReport> getCitiesByRegion(String region, int limit) {
         ArrayList<cityReport> cities = new ArrayList<>();
         if (populationApp.con == null) return cities;
+        if (!scopeRegistry.mayExist(scopeRegistry.REGION, region)) return cities;
 
         int cappedLimit = Math.min(limit, 42);
-        try (PreparedStatement pstmt = populationApp.con.prepareStatement("""
+        resultCache.key key = resultCache.key("cityReport.getCitiesByRegion", region, cappedLimit);
+        ArrayList<cityReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
         SELECT city.name, country.name AS country_name,
                city.district, city.population
         FROM city
         JOIN country ON city.countrycode = country.code
         WHERE country.region = ?
         ORDER BY city.population DESC
-        LIMIT 42;
+        LIMIT 42
     """)) {
             pstmt.setString(1, region);
             ResultSet rset = pstmt.executeQuery();
+            cityReportMapper mapper = new cityReportMapper(rset);
             while (rset.next()) {
-                cityReport c = new cityReport();
-                c.name = rset.getString("name");
-                c.country = rset.getString("country_name");
-                c.district = rset.getString("district");
-                c.population = rset.getInt("population");
-                cities.add(c);
+                cities.add(mapper.map(rset));
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, cities, e);
         }
-        return cities;
+        return resultCache.store(key, cities, tableVersions.CITY, tableVersions.COUNTRY);
     }
 
     /**
@@ -250,6 +275,7 @@ public class cityReport extends populationApp {
      * Workflow:
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
+     *   <li>Returns an empty list without querying if {@link scopeRegistry} knows no such country</li>
      *   <li>Caps the requested {@code limit} at a maximum of 42 for reproducibility</li>
      *   <li>Executes a SQL query joining {@code city} and {@code country} tables,
      *       filtering by the given country name</li>
@@ -272,31 +298,32 @@ public class cityReport extends populationApp {
     public static ArrayList<cityReport> getCitiesByCountry(String country, int limit) {
         ArrayList<cityReport> cities = new ArrayList<>();
         if (populationApp.con == null) return cities;
+        if (!scopeRegistry.mayExist(scopeRegistry.COUNTRY, country)) return cities;
 
         int cappedLimit = Math.min(limit, 42);
-        try (PreparedStatement pstmt = populationApp.con.prepareStatement("""
+        resultCache.key key = resultCache.key("cityReport.getCitiesByCountry", country, cappedLimit);
+        ArrayList<cityReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
         SELECT city.name, country.name AS country_name,
                city.district, city.population
         FROM city
         JOIN country ON city.countrycode = country.code
         WHERE country.name = ?
         ORDER BY city.population DESC
-        LIMIT 42;
+        LIMIT 42
     """)) {
             pstmt.setString(1, country);
             ResultSet rset = pstmt.executeQuery();
+            cityReportMapper mapper = new cityReportMapper(rset);
             while (rset.next()) {
-                cityReport c = new cityReport();
-                c.name = rset.getString("name");
-                c.country = rset.getString("country_name");
-                c.district = rset.getString("district");
-                c.population = rset.getInt("population");
-                cities.add(c);
+                cities.add(mapper.map(rset));
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, cities, e);
         }
-        return cities;
+        return resultCache.store(key, cities, tableVersions.CITY, tableVersions.COUNTRY);
     }
 
     /**
@@ -307,6 +334,7 @@ public class cityReport extends populationApp {
      * Workflow:
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
+     *   <li>Returns an empty list without querying if {@link scopeRegistry} knows no such district</li>
      *   <li>Caps the requested {@code limit} at a maximum of 42 for reproducibility</li>
      *   <li>Executes a SQL query joining {@code city} and {@code country} tables,
      *       filtering by the given district</li>
@@ -329,31 +357,32 @@ public class cityReport extends populationApp {
     public static ArrayList<cityReport> getCitiesByDistrict(String district, int limit) {
         ArrayList<cityReport> cities = new ArrayList<>();
         if (populationApp.con == null) return cities;
+        if (!scopeRegistry.mayExist(scopeRegistry.DISTRICT, district)) return cities;
 
         int cappedLimit = Math.min(limit, 42);
-        try (PreparedStatement pstmt = populationApp.con.prepareStatement("""
+        resultCache.key key = resultCache.key("cityReport.getCitiesByDistrict", district, cappedLimit);
+        ArrayList<cityReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
         SELECT city.name, country.name AS country_name,
                city.district, city.population
         FROM city
         JOIN country ON city.countrycode = country.code
         WHERE city.district = ?
         ORDER BY city.population DESC
-        LIMIT 42;
+        LIMIT 42
     """)) {
             pstmt.setString(1, district);
             ResultSet rset = pstmt.executeQuery();
+            cityReportMapper mapper = new cityReportMapper(rset);
             while (rset.next()) {
-                cityReport c = new cityReport();
-                c.name = rset.getString("name");
-                c.country = rset.getString("country_name");
-                c.district = rset.getString("district");
-                c.population = rset.getInt("population");
-                cities.add(c);
+                cities.add(mapper.map(rset));
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, cities, e);
         }
-        return cities;
+        return resultCache.store(key, cities, tableVersions.CITY, tableVersions.COUNTRY);
     }
 
     /**
@@ -386,28 +415,28 @@ public class cityReport extends populationApp {
         if (populationApp.con == null) return cities;
 
         int cappedLimit = Math.min(limit, 10);
-        try (PreparedStatement pstmt = populationApp.con.prepareStatement("""
+        resultCache.key key = resultCache.key("cityReport.getTopCitiesInWorld", cappedLimit);
+        ArrayList<cityReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
         SELECT city.name, country.name AS country_name,
                city.district, city.population
         FROM city
         JOIN country ON city.countrycode = country.code
         ORDER BY city.population DESC
-        LIMIT ?;
+        LIMIT ?
     """)) {
             pstmt.setInt(1, cappedLimit);
             ResultSet rset = pstmt.executeQuery();
+            cityReportMapper mapper = new cityReportMapper(rset);
             while (rset.next()) {
-                cityReport c = new cityReport();
-                c.name = rset.getString("name");
-                c.country = rset.getString("country_name");
-                c.district = rset.getString("district");
-                c.population = rset.getInt("population");
-                cities.add(c);
+                cities.add(mapper.map(rset));
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, cities, e);
         }
-        return cities;
+        return resultCache.store(key, cities, tableVersions.CITY, tableVersions.COUNTRY);
     }
 
     /**
@@ -418,6 +447,7 @@ public class cityReport extends populationApp {
      * Workflow:
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
+     *   <li>Returns an empty list without querying if {@link scopeRegistry} knows no such continent</li>
      *   <li>Caps the requested {@code limit} at a maximum of 10 for reproducibility</li>
      *   <li>Executes a SQL query joining {@code city} and {@code country} tables,
      *       filtering by the given continent</li>
@@ -440,32 +470,33 @@ public class cityReport extends populationApp {
     public static ArrayList<cityReport> getTopCitiesByContinent(String continent, int limit) {
         ArrayList<cityReport> cities = new ArrayList<>();
         if (populationApp.con == null) return cities;
+        if (!scopeRegistry.mayExist(scopeRegistry.CONTINENT, continent)) return cities;
 
         int cappedLimit = Math.min(limit, 10);
-        try (PreparedStatement pstmt = populationApp.con.prepareStatement("""
+        resultCache.key key = resultCache.key("cityReport.getTopCitiesByContinent", continent, cappedLimit);
+        ArrayList<cityReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
         SELECT city.name, country.name AS country_name,
                city.district, city.population
         FROM city
         JOIN country ON city.countrycode = country.code
         WHERE country.continent = ?
         ORDER BY city.population DESC
-        LIMIT ?;
+        LIMIT ?
     """)) {
             pstmt.setString(1, continent);
             pstmt.setInt(2, cappedLimit);
             ResultSet rset = pstmt.executeQuery();
+            cityReportMapper mapper = new cityReportMapper(rset);
             while (rset.next()) {
-                cityReport c = new cityReport();
-                c.name = rset.getString("name");
-                c.country = rset.getString("country_name");
-                c.district = rset.getString("district");
-                c.population = rset.getInt("population");
-                cities.add(c);
+                cities.add(mapper.map(rset));
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, cities, e);
         }
-        return cities;
+        return resultCache.store(key, cities, tableVersions.CITY, tableVersions.COUNTRY);
     }
 
     /**
@@ -476,6 +507,7 @@ public class cityReport extends populationApp {
      * Workflow:
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
+     *   <li>Returns an empty list without querying if {@link scopeRegistry} knows no such region</li>
      *   <li>Caps the requested {@code limit} at a maximum of 10 for reproducibility</li>
      *   <li>Executes a SQL query joining {@code city} and {@code country} tables,
      *       filtering by the given region</li>
@@ -498,32 +530,33 @@ public class cityReport extends populationApp {
     public static ArrayList<cityReport> getTopCitiesByRegion(String region, int limit) {
         ArrayList<cityReport> cities = new ArrayList<>();
         if (populationApp.con == null) return cities;
+        if (!scopeRegistry.mayExist(scopeRegistry.REGION, region)) return cities;
 
         int cappedLimit = Math.min(limit, 10);
-        try (PreparedStatement pstmt = populationApp.con.prepareStatement("""
+        resultCache.key key = resultCache.key("cityReport.getTopCitiesByRegion", region, cappedLimit);
+        ArrayList<cityReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
         SELECT city.name, country.name AS country_name,
                city.district, city.population
         FROM city
         JOIN country ON city.countrycode = country.code
         WHERE country.region = ?
         ORDER BY city.population DESC
-        LIMIT ?;
+        LIMIT ?
     """)) {
             pstmt.setString(1, region);
             pstmt.setInt(2, cappedLimit);
             ResultSet rset = pstmt.executeQuery();
+            cityReportMapper mapper = new cityReportMapper(rset);
             while (rset.next()) {
-                cityReport c = new cityReport();
-                c.name = rset.getString("name");
-                c.country = rset.getString("country_name");
-                c.district = rset.getString("district");
-                c.population = rset.getInt("population");
-                cities.add(c);
+                cities.add(mapper.map(rset));
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, cities, e);
         }
-        return cities;
+        return resultCache.store(key, cities, tableVersions.CITY, tableVersions.COUNTRY);
     }
 
     /**
@@ -534,6 +567,7 @@ public class cityReport extends populationApp {
      * Workflow:
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
+     *   <li>Returns an empty list without querying if {@link scopeRegistry} knows no such district</li>
      *   <li>Caps the requested {@code limit} at a maximum of 10 for reproducibility</li>
      *   <li>Executes a SQL query joining {@code city} and {@code country} tables,
      *       filtering by the given district</li>
@@ -556,32 +590,33 @@ public class cityReport extends populationApp {
     public static ArrayList<cityReport> getTopCitiesByDistrict(String district, int limit) {
         ArrayList<cityReport> cities = new ArrayList<>();
         if (populationApp.con == null) return cities;
+        if (!scopeRegistry.mayExist(scopeRegistry.DISTRICT, district)) return cities;
 
         int cappedLimit = Math.min(limit, 10);
-        try (PreparedStatement pstmt = populationApp.con.prepareStatement("""
+        resultCache.key key = resultCache.key("cityReport.getTopCitiesByDistrict", district, cappedLimit);
+        ArrayList<cityReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
         SELECT city.name, country.name AS country_name,
                city.district, city.population
         FROM city
         JOIN country ON city.countrycode = country.code
         WHERE city.district = ?
         ORDER BY city.population DESC
-        LIMIT ?;
+        LIMIT ?
     """)) {
             pstmt.setString(1, district);
             pstmt.setInt(2, cappedLimit);
             ResultSet rset = pstmt.executeQuery();
+            cityReportMapper mapper = new cityReportMapper(rset);
             while (rset.next()) {
-                cityReport c = new cityReport();
-                c.name = rset.getString("name");
-                c.country = rset.getString("country_name");
-                c.district = rset.getString("district");
-                c.population = rset.getInt("population");
-                cities.add(c);
+                cities.add(mapper.map(rset));
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, cities, e);
         }
-        return cities;
+        return resultCache.store(key, cities, tableVersions.CITY, tableVersions.COUNTRY);
     }
 
     /**
@@ -592,6 +627,7 @@ public class cityReport extends populationApp {
      * Workflow:
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
+     *   <li>Returns an empty list without querying if {@link scopeRegistry} knows no such country</li>
      *   <li>Caps the requested {@code limit} at a maximum of 10 for reproducibility</li>
      *   <li>Executes a SQL query joining {@code city} and {@code country} tables,
      *       filtering by the given country name</li>
@@ -614,32 +650,33 @@ public class cityReport extends populationApp {
     public static ArrayList<cityReport> getTopCitiesByCountry(String country, int limit) {
         ArrayList<cityReport> cities = new ArrayList<>();
         if (populationApp.con == null) return cities;
+        if (!scopeRegistry.mayExist(scopeRegistry.COUNTRY, country)) return cities;
 
         int cappedLimit = Math.min(limit, 10);
-        try (PreparedStatement pstmt = populationApp.con.prepareStatement("""
+        resultCache.key key = resultCache.key("cityReport.getTopCitiesByCountry", country, cappedLimit);
+        ArrayList<cityReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
         SELECT city.name, country.name AS country_name,
                city.district, city.population
         FROM city
         JOIN country ON city.countrycode = country.code
         WHERE country.name = ?
         ORDER BY city.population DESC
-        LIMIT ?;
+        LIMIT ?
     """)) {
             pstmt.setString(1, country);
             pstmt.setInt(2, cappedLimit);
             ResultSet rset = pstmt.executeQuery();
+            cityReportMapper mapper = new cityReportMapper(rset);
             while (rset.next()) {
-                cityReport c = new cityReport();
-                c.name = rset.getString("name");
-                c.country = rset.getString("country_name");
-                c.district = rset.getString("district");
-                c.population = rset.getInt("population");
-                cities.add(c);
+                cities.add(mapper.map(rset));
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, cities, e);
         }
-        return cities;
+        return resultCache.store(key, cities, tableVersions.CITY, tableVersions.COUNTRY);
     }
 
     /**
@@ -0,0 +1,33 @@
+package com.napier.sem;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names the result set column a field of a {@link mappedRow} class is read from.
+ * <p>
+ * The field's type picks the getter: {@code String}, {@code int}, {@code long},
+ * {@code double} or {@code boolean}. Fields without this annotation are passed to the
+ * mapper by the DAO (e.g. a capital name resolved through {@link capitalIndex}).
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface column {
+
+    /**
+     * Column label as it appears in the SELECT, e.g. {@code "country_name"}.
+     *
+     * @return the label
+     */
+    String value();
+
+    /**
+     * Whether the value is a categorical string repeated across rows (country, district,
+     * continent, region), shared through {@link stringPool}.
+     *
+     * @return {@code true} to pool the value
+     */
+    boolean pooled() default false;
+}
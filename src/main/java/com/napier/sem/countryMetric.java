@@ -0,0 +1,74 @@
+package com.napier.sem;
+
+/**
+ * The {@code countryMetric} enum lists the country columns the snapshot engine can rank by,
+ * both stored ({@code country} table) and derived at snapshot load.
+ * <p>
+ * Derived metrics:
+ * <ul>
+ *   <li>{@link #DENSITY}: population per square kilometre of surface area</li>
+ *   <li>{@link #GNP_PER_CAPITA}: GNP in US dollars per inhabitant ({@code GNP} is stored in millions)</li>
+ *   <li>{@link #URBANISATION}: share of the population living in the country's cities, from the city rollup</li>
+ * </ul>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>Missing values ({@code NULL} columns, zero population or area) are {@code NaN} and never ranked</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * ArrayList<countryReport> densest = snapshotEngine.getTopCountriesByMetric(countryMetric.DENSITY, 10);
+ * }</pre>
+ */
+public enum countryMetric {
+
+    /**
+     * Country population.
+     */
+    POPULATION("Population"),
+
+    /**
+     * Surface area in square kilometres.
+     */
+    SURFACE_AREA("Surface Area"),
+
+    /**
+     * Population per square kilometre.
+     */
+    DENSITY("Density"),
+
+    /**
+     * Gross national product in millions of US dollars.
+     */
+    GNP("GNP"),
+
+    /**
+     * Gross national product per inhabitant in US dollars.
+     */
+    GNP_PER_CAPITA("GNP per Capita"),
+
+    /**
+     * Life expectancy in years.
+     */
+    LIFE_EXPECTANCY("Life Expectancy"),
+
+    /**
+     * Share of the population living in cities, between 0 and 1.
+     */
+    URBANISATION("Urbanisation"),
+
+    /**
+     * Year of independence.
+     */
+    INDEPENDENCE_YEAR("Independence Year");
+
+    /**
+     * Display name of the metric, e.g. for report headings.
+     */
+    public final String label;
+
+    countryMetric(String label) {
+        this.label = label;
+    }
+}
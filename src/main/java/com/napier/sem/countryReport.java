@@ -16,7 +16,7 @@ import java.util.ArrayList;
  * <p>
  * Responsibilities:
  * <ul>
- *   <li>Acts as a container for country data retrieved from the database</li>
+ *   <li>Acts as an immutable container for country data retrieved from the database, safe to share from {@link resultCache}</li>
  *   <li>Provides static methods to query country data at different scopes:
  *       <ul>
  *         <li>All countries by population</li>
@@ -31,8 +31,9 @@ import java.util.ArrayList;
  * <p>
  * Workflow:
  * <ol>
+ *   <li>Repeated queries are answered from {@link resultCache} until a table they read changes or the entry expires</li>
  *   <li>SQL queries are executed via JDBC using {@code populationApp.con}</li>
- *   <li>Results are mapped into {@code countryReport} objects</li>
+ *   <li>Results are mapped into {@code countryReport} objects by the generated {@code countryReportMapper}, which reads columns by index</li>
  *   <li>Collections of these objects are returned for further processing</li>
  *   <li>Output methods format the data into Markdown tables and write them to files</li>
  * </ol>
@@ -55,37 +56,67 @@ import java.util.ArrayList;
  * countryReport.outputCountryReport(countries, "TopCountriesAsia.md");
  * }</pre>
  */
-public class countryReport extends populationApp {
+@mappedRow
+public class countryReport {
 
     /**
      * The ISO code representing the country.
      */
-    public String code;
+    @column("code")
+    public final String code;
 
     /**
      * The name of the country.
      */
-    public String name;
+    @column("name")
+    public final String name;
 
     /**
      * The continent on which the country is located.
      */
-    public String continent;
+    @column(value = "continent", pooled = true)
+    public final String continent;
 
     /**
      * The region within the continent where the country is situated.
      */
-    public String region;
+    @column(value = "region", pooled = true)
+    public final String region;
 
     /**
      * The total population of the country.
      */
-    public int population;
+    @column("population")
+    public final int population;
 
     /**
      * The capital city of the country.
      */
-    public String capital;
+    public final String capital;
+
+    /**
+     * Creates a country row.
+     *
+     * @param code       ISO country code
+     * @param name       country name
+     * @param continent  continent of the country
+     * @param region     region of the country
+     * @param population country population
+     * @param capital    name of the capital city, or {@code null} if none
+     */
+    public countryReport(String code,
+                          String name,
+                          String continent,
+                          String region,
+                          int population,
+                          String capital) {
+        this.code = code;
+        this.name = name;
+        this.continent = continent;
+        this.region = region;
+        this.population = population;
+        this.capital = capital;
+    }
 
     /**
      * Retrieves a list of countries worldwide, ordered by population in descending order.
@@ -95,15 +126,16 @@ public class countryReport extends populationApp {
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
      *   <li>Caps the requested {@code limit} at a maximum of 42 for reproducibility</li>
-     *   <li>Executes a SQL query joining {@code country} and {@code city} tables</li>
+     *   <li>Executes a SQL query over the {@code country} table only</li>
      *   <li>Orders results by population (largest first)</li>
-     *   <li>Maps each result row into a {@link countryReport} object</li>
+     *   <li>Maps each result row into a {@link countryReport} object, resolving the capital
+     *       name through {@link capitalIndex}</li>
      *   <li>Collects and returns the results as an {@code ArrayList}</li>
      * </ul>
      * <p>
      * Edge-case handling:
      * <ul>
-     *   <li>If {@code con} is {@code null}, an empty list is returned</li>
+     *   <li>If {@code populationApp.con} is {@code null}, an empty list is returned</li>
      *   <li>If SQL execution fails, the error message is logged and partial/empty results may be returned</li>
      * </ul>
      *
@@ -113,33 +145,31 @@ public class countryReport extends populationApp {
      */
     public static ArrayList<countryReport> getAllCountriesByPopulation(int limit) {
         ArrayList<countryReport> countries = new ArrayList<>();
-        if (con == null) return countries;
+        if (populationApp.con == null) return countries;
 
         int cappedLimit = Math.min(limit, 42);
-        try (PreparedStatement pstmt = con.prepareStatement("""
-        SELECT country.code, country.name, country.continent, country.region,
-               country.population, city.name AS capital_name
+        resultCache.key key = resultCache.key("countryReport.getAllCountriesByPopulation", cappedLimit);
+        ArrayList<countryReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+        SELECT code, name, continent, region, population, capital
         FROM country
-        LEFT JOIN city ON country.capital = city.id
-        ORDER BY country.population DESC
-        LIMIT ?;
+        ORDER BY population DESC
+        LIMIT ?
     """)) {
             pstmt.setInt(1, cappedLimit);
+            capitalIndex capitals = capitalIndex.get();
             ResultSet rset = pstmt.executeQuery();
+            countryReportMapper mapper = new countryReportMapper(rset);
+            int capitalColumn = rset.findColumn("capital");
             while (rset.next()) {
-                countryReport c = new countryReport();
-                c.code = rset.getString("code");
-                c.name = rset.getString("name");
-                c.continent = rset.getString("continent");
-                c.region = rset.getString("region");
-                c.population = rset.getInt("population");
-                c.capital = rset.getString("capital_name");
-                countries.add(c);
+                countries.add(mapper.map(rset, capitals.name(rset.getInt(capitalColumn))));
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, countries, e);
         }
-        return countries;
+        return resultCache.store(key, countries, tableVersions.COUNTRY, tableVersions.CITY);
     }
 
     /**
@@ -150,17 +180,19 @@ public class countryReport extends populationApp {
      * Workflow:
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
+     *   <li>Returns an empty list without querying if {@link scopeRegistry} knows no such continent</li>
      *   <li>Caps the requested {@code limit} at a maximum of 42 for reproducibility</li>
-     *   <li>Executes a SQL query joining {@code country} and {@code city} tables,
+     *   <li>Executes a SQL query over the {@code country} table only,
      *       filtering by the given continent</li>
      *   <li>Orders results by population (largest first)</li>
-     *   <li>Maps each result row into a {@link countryReport} object</li>
+     *   <li>Maps each result row into a {@link countryReport} object, resolving the capital
+     *       name through {@link capitalIndex}</li>
      *   <li>Collects and returns the results as an {@code ArrayList}</li>
      * </ul>
      * <p>
      * Edge-case handling:
      * <ul>
-     *   <li>If {@code con} is {@code null}, an empty list is returned</li>
+     *   <li>If {@code populationApp.con} is {@code null}, an empty list is returned</li>
      *   <li>If SQL execution fails, the error message is logged and partial/empty results may be returned</li>
      * </ul>
      *
@@ -171,35 +203,34 @@ public class countryReport extends populationApp {
      */
     public static ArrayList<countryReport> getCountriesByContinent(String continent, int limit) {
         ArrayList<countryReport> countries = new ArrayList<>();
-        if (con == null) return countries;
+        if (populationApp.con == null) return countries;
+        if (!scopeRegistry.mayExist(scopeRegistry.CONTINENT, continent)) return countries;
 
         int cappedLimit = Math.min(limit, 42);
-        try (PreparedStatement pstmt = con.prepareStatement("""
-        SELECT country.code, country.name, country.continent, country.region,
-               country.population, city.name AS capital_name
+        resultCache.key key = resultCache.key("countryReport.getCountriesByContinent", continent, cappedLimit);
+        ArrayList<countryReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+        SELECT code, name, continent, region, population, capital
         FROM country
-        LEFT JOIN city ON country.capital = city.id
-        WHERE country.continent = ?
-        ORDER BY country.population DESC
-        LIMIT ?;
+        WHERE continent = ?
+        ORDER BY population DESC
+        LIMIT ?
     """)) {
             pstmt.setString(1, continent);
             pstmt.setInt(2, cappedLimit);
+            capitalIndex capitals = capitalIndex.get();
             ResultSet rset = pstmt.executeQuery();
+            countryReportMapper mapper = new countryReportMapper(rset);
+            int capitalColumn = rset.findColumn("capital");
             while (rset.next()) {
-                countryReport c = new countryReport();
-                c.code = rset.getString("code");
-                c.name = rset.getString("name");
-                c.continent = rset.getString("continent");
-                c.region = rset.getString("region");
-                c.population = rset.getInt("population");
-                c.capital = rset.getString("capital_name");
-                countries.add(c);
+                countries.add(mapper.map(rset, capitals.name(rset.getInt(capitalColumn))));
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, countries, e);
         }
-        return countries;
+        return resultCache.store(key, countries, tableVersions.COUNTRY, tableVersions.CITY);
     }
 
     /**
@@ -210,17 +241,19 @@ public class countryReport extends populationApp {
      * Workflow:
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
+     *   <li>Returns an empty list without querying if {@link scopeRegistry} knows no such region</li>
      *   <li>Caps the requested {@code limit} at a maximum of 42 for reproducibility</li>
-     *   <li>Executes a SQL query joining {@code country} and {@code city} tables,
+     *   <li>Executes a SQL query over the {@code country} table only,
      *       filtering by the given region</li>
      *   <li>Orders results by population (largest first)</li>
-     *   <li>Maps each result row into a {@link countryReport} object</li>
+     *   <li>Maps each result row into a {@link countryReport} object, resolving the capital
+     *       name through {@link capitalIndex}</li>
      *   <li>Collects and returns the results as an {@code ArrayList}</li>
      * </ul>
      * <p>
      * Edge-case handling:
      * <ul>
-     *   <li>If {@code con} is {@code null}, an empty list is returned</li>
+     *   <li>If {@code populationApp.con} is {@code null}, an empty list is returned</li>
      *   <li>If SQL execution fails, the error message is logged and partial/empty results may be returned</li>
      * </ul>
      *
@@ -231,35 +264,34 @@ public class countryReport extends populationApp {
      */
     public static ArrayList<countryReport> getCountriesByRegion(String region, int limit) {
         ArrayList<countryReport> countries = new ArrayList<>();
-        if (con == null) return countries;
+        if (populationApp.con == null) return countries;
+        if (!scopeRegistry.mayExist(scopeRegistry.REGION, region)) return countries;
 
         int cappedLimit = Math.min(limit, 42);
-        try (PreparedStatement pstmt = con.prepareStatement("""
-        SELECT country.code, country.name, country.continent, country.region,
-               country.population, city.name AS capital_name
+        resultCache.key key = resultCache.key("countryReport.getCountriesByRegion", region, cappedLimit);
+        ArrayList<countryReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+        SELECT code, name, continent, region, population, capital
         FROM country
-        LEFT JOIN city ON country.capital = city.id
-        WHERE country.region = ?
-        ORDER BY country.population DESC
-        LIMIT ?;
+        WHERE region = ?
+        ORDER BY population DESC
+        LIMIT ?
     """)) {
             pstmt.setString(1, region);
             pstmt.setInt(2, cappedLimit);
+            capitalIndex capitals = capitalIndex.get();
             ResultSet rset = pstmt.executeQuery();
+            countryReportMapper mapper = new countryReportMapper(rset);
+            int capitalColumn = rset.findColumn("capital");
             while (rset.next()) {
-                countryReport c = new countryReport();
-                c.code = rset.getString("code");
-                c.name = rset.getString("name");
-                c.continent = rset.getString("continent");
-                c.region = rset.getString("region");
-                c.population = rset.getInt("population");
-                c.capital = rset.getString("capital_name");
-                countries.add(c);
+                countries.add(mapper.map(rset, capitals.name(rset.getInt(capitalColumn))));
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, countries, e);
         }
-        return countries;
+        return resultCache.store(key, countries, tableVersions.COUNTRY, tableVersions.CITY);
     }
 
     /**
@@ -271,15 +303,16 @@ public class countryReport extends populationApp {
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
      *   <li>Caps the requested {@code limit} at a maximum of 10 for reproducibility</li>
-     *   <li>Executes a SQL query joining {@code country} and {@code city} tables</li>
+     *   <li>Executes a SQL query over the {@code country} table only</li>
      *   <li>Orders results by population (largest first)</li>
-     *   <li>Maps each result row into a {@link countryReport} object</li>
+     *   <li>Maps each result row into a {@link countryReport} object, resolving the capital
+     *       name through {@link capitalIndex}</li>
      *   <li>Collects and returns the results as an {@code ArrayList}</li>
      * </ul>
      * <p>
      * Edge-case handling:
      * <ul>
-     *   <li>If {@code con} is {@code null}, an empty list is returned</li>
+     *   <li>If {@code populationApp.con} is {@code null}, an empty list is returned</li>
      *   <li>If SQL execution fails, the error message is logged and partial/empty results may be returned</li>
      * </ul>
      *
@@ -289,33 +322,31 @@ public class countryReport extends populationApp {
      */
     public static ArrayList<countryReport> getTopCountriesByPopulation(int limit) {
         ArrayList<countryReport> countries = new ArrayList<>();
-        if (con == null) return countries;
+        if (populationApp.con == null) return countries;
 
         int cappedLimit = Math.min(limit, 10);
-        try (PreparedStatement pstmt = con.prepareStatement("""
-        SELECT country.code, country.name, country.continent, country.region,
-               country.population, city.name AS capital_name
+        resultCache.key key = resultCache.key("countryReport.getTopCountriesByPopulation", cappedLimit);
+        ArrayList<countryReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+        SELECT code, name, continent, region, population, capital
         FROM country
-        LEFT JOIN city ON country.capital = city.id
-        ORDER BY country.population DESC
-        LIMIT ?;
+        ORDER BY population DESC
+        LIMIT ?
     """)) {
             pstmt.setInt(1, cappedLimit);
+            capitalIndex capitals = capitalIndex.get();
             ResultSet rset = pstmt.executeQuery();
+            countryReportMapper mapper = new countryReportMapper(rset);
+            int capitalColumn = rset.findColumn("capital");
             while (rset.next()) {
-                countryReport c = new countryReport();
-                c.code = rset.getString("code");
-                c.name = rset.getString("name");
-                c.continent = rset.getString("continent");
-                c.region = rset.getString("region");
-                c.population = rset.getInt("population");
-                c.capital = rset.getString("capital_name");
-                countries.add(c);
+                countries.add(mapper.map(rset, capitals.name(rset.getInt(capitalColumn))));
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, countries, e);
         }
-        return countries;
+        return resultCache.store(key, countries, tableVersions.COUNTRY, tableVersions.CITY);
     }
 
     /**
@@ -326,17 +357,19 @@ public class countryReport extends populationApp {
      * Workflow:
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
+     *   <li>Returns an empty list without querying if {@link scopeRegistry} knows no such continent</li>
      *   <li>Caps the requested {@code limit} at a maximum of 10 for reproducibility</li>
-     *   <li>Executes a SQL query joining {@code country} and {@code city} tables,
+     *   <li>Executes a SQL query over the {@code country} table only,
      *       filtering by the given continent</li>
      *   <li>Orders results by population (largest first)</li>
-     *   <li>Maps each result row into a {@link countryReport} object</li>
+     *   <li>Maps each result row into a {@link countryReport} object, resolving the capital
+     *       name through {@link capitalIndex}</li>
      *   <li>Collects and returns the results as an {@code ArrayList}</li>
      * </ul>
      * <p>
      * Edge-case handling:
      * <ul>
-     *   <li>If {@code con} is {@code null}, an empty list is returned</li>
+     *   <li>If {@code populationApp.con} is {@code null}, an empty list is returned</li>
      *   <li>If SQL execution fails, the error message is logged and partial/empty results may be returned</li>
      * </ul>
      *
@@ -347,35 +380,34 @@ public class countryReport extends populationApp {
      */
     public static ArrayList<countryReport> getTopCountriesByContinent(String continent, int limit) {
         ArrayList<countryReport> countries = new ArrayList<>();
-        if (con == null) return countries;
+        if (populationApp.con == null) return countries;
+        if (!scopeRegistry.mayExist(scopeRegistry.CONTINENT, continent)) return countries;
 
         int cappedLimit = Math.min(limit, 10);
-        try (PreparedStatement pstmt = con.prepareStatement("""
-        SELECT country.code, country.name, country.continent, country.region,
-               country.population, city.name AS capital_name
+        resultCache.key key = resultCache.key("countryReport.getTopCountriesByContinent", continent, cappedLimit);
+        ArrayList<countryReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+        SELECT code, name, continent, region, population, capital
         FROM country
-        LEFT JOIN city ON country.capital = city.id
-        WHERE country.continent = ?
-        ORDER BY country.population DESC
-        LIMIT ?;
+        WHERE continent = ?
+        ORDER BY population DESC
+        LIMIT ?
     """)) {
             pstmt.setString(1, continent);
             pstmt.setInt(2, cappedLimit);
+            capitalIndex capitals = capitalIndex.get();
             ResultSet rset = pstmt.executeQuery();
+            countryReportMapper mapper = new countryReportMapper(rset);
+            int capitalColumn = rset.findColumn("capital");
             while (rset.next()) {
-                countryReport c = new countryReport();
-                c.code = rset.getString("code");
-                c.name = rset.getString("name");
-                c.continent = rset.getString("continent");
-                c.region = rset.getString("region");
-                c.population = rset.getInt("population");
-                c.capital = rset.getString("capital_name");
-                countries.add(c);
+                countries.add(mapper.map(rset, capitals.name(rset.getInt(capitalColumn))));
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, countries, e);
         }
-        return countries;
+        return resultCache.store(key, countries, tableVersions.COUNTRY, tableVersions.CITY);
     }
 
     /**
@@ -386,17 +418,19 @@ public class countryReport extends populationApp {
      * Workflow:
      * <ul>
      *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
+     *   <li>Returns an empty list without querying if {@link scopeRegistry} knows no such region</li>
      *   <li>Caps the requested {@code limit} at a maximum of 10 for reproducibility</li>
-     *   <li>Executes a SQL query joining {@code country} and {@code city} tables,
+     *   <li>Executes a SQL query over the {@code country} table only,
      *       filtering by the given region</li>
      *   <li>Orders results by population (largest first)</li>
-     *   <li>Maps each result row into a {@link countryReport} object</li>
+     *   <li>Maps each result row into a {@link countryReport} object, resolving the capital
+     *       name through {@link capitalIndex}</li>
      *   <li>Collects and returns the results as an {@code ArrayList}</li>
      * </ul>
      * <p>
      * Edge-case handling:
      * <ul>
-     *   <li>If {@code con} is {@code null}, an empty list is returned</li>
+     *   <li>If {@code populationApp.con} is {@code null}, an empty list is returned</li>
      *   <li>If SQL execution fails, the error message is logged and partial/empty results may be returned</li>
      * </ul>
      *
@@ -407,35 +441,34 @@ public class countryReport extends populationApp {
      */
     public static ArrayList<countryReport> getTopCountriesByRegion(String region, int limit) {
         ArrayList<countryReport> countries = new ArrayList<>();
-        if (con == null) return countries;
+        if (populationApp.con == null) return countries;
+        if (!scopeRegistry.mayExist(scopeRegistry.REGION, region)) return countries;
 
         int cappedLimit = Math.min(limit, 10);
-        try (PreparedStatement pstmt = con.prepareStatement("""
-        SELECT country.code, country.name, country.continent, country.region,
-               country.population, city.name AS capital_name
+        resultCache.key key = resultCache.key("countryReport.getTopCountriesByRegion", region, cappedLimit);
+        ArrayList<countryReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+        SELECT code, name, continent, region, population, capital
         FROM country
-        LEFT JOIN city ON country.capital = city.id
-        WHERE country.region = ?
-        ORDER BY country.population DESC
-        LIMIT ?;
+        WHERE region = ?
+        ORDER BY population DESC
+        LIMIT ?
     """)) {
             pstmt.setString(1, region);
             pstmt.setInt(2, cappedLimit);
+            capitalIndex capitals = capitalIndex.get();
             ResultSet rset = pstmt.executeQuery();
+            countryReportMapper mapper = new countryReportMapper(rset);
+            int capitalColumn = rset.findColumn("capital");
             while (rset.next()) {
-                countryReport c = new countryReport();
-                c.code = rset.getString("code");
-                c.name = rset.getString("name");
-                c.continent = rset.getString("continent");
-                c.region = rset.getString("region");
-                c.population = rset.getInt("population");
-                c.capital = rset.getString("capital_name");
-                countries.add(c);
+                countries.add(mapper.map(rset, capitals.name(rset.getInt(capitalColumn))));
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, countries, e);
         }
-        return countries;
+        return resultCache.store(key, countries, tableVersions.COUNTRY, tableVersions.CITY);
     }
 
 
@@ -0,0 +1,749 @@
+package com.napier.sem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code diskCache} class is the second tier of {@link resultCache}: query results kept in
+ * an append-only log on local disk, so a restarted batch run answers unchanged reports without
+ * querying MySQL.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Appends each stored result to {@code results.log} as one checksummed record holding the
+ *       query key, the {@code CHECKSUM TABLE} value of every table it read, and its rows</li>
+ *   <li>Keeps an in-memory index from key to the latest record, saved to {@code results.idx} on close</li>
+ *   <li>Reads records back through a memory mapping of the log</li>
+ *   <li>Serves a record only while every table checksum still matches, so a changed table is never
+ *       answered from disk, even after a restart</li>
+ *   <li>Compacts the log in the background, dropping stale and superseded records; the
+ *       compacting thread reads checksums over its own connection, since a JDBC connection
+ *       must not be used by two threads at once</li>
+ * </ul>
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>{@link #open(Path)} loads the index and recovers records appended after it was saved</li>
+ *   <li>{@link #read(String)} returns a record's rows and tables, or {@code null}</li>
+ *   <li>{@link #write(String, List, String...)} appends a record and points the index at it</li>
+ *   <li>{@link #close()} saves the index</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>Every method does nothing while the cache is not open, so unit runs never touch the disk</li>
+ *   <li>A torn or corrupt record at the end of the log (e.g. after a crash) is cut off on open</li>
+ *   <li>A missing or unreadable index is rebuilt by scanning the log</li>
+ *   <li>If a table checksum cannot be computed, nothing is written and nothing is served;
+ *       compaction keeps such records, since it cannot tell whether they are stale</li>
+ *   <li>Only strings and the report row classes are stored, each as a type tag followed by its
+ *       fields in a fixed order written out in {@link #writeRow(DataOutputStream, Object)}; a
+ *       result holding any other type is not written, and an unknown tag makes a record unreadable</li>
+ *   <li>If no second connection can be opened, the background compaction is skipped</li>
+ *   <li>The log is capped at {@link #MAX_LOG_BYTES}, so it always fits in one mapping</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * diskCache.open(Paths.get(diskCache.DEFAULT_DIR));
+ * diskCache.write(key.text(), cities, tableVersions.CITY, tableVersions.COUNTRY);
+ * diskCache.stored s = diskCache.read(key.text());
+ * diskCache.close();
+ * }</pre>
+ */
+public class diskCache {
+
+    /**
+     * Default directory of the log and index.
+     */
+    public static final String DEFAULT_DIR = "./cache/results";
+
+    static final String LOG = "results.log";
+    static final String INDEX = "results.idx";
+
+    /**
+     * Largest size the log may grow to; writes beyond it are skipped until a compaction.
+     */
+    static final long MAX_LOG_BYTES = 1L << 30;
+
+    /**
+     * Unreachable bytes the log must hold, and exceed the live bytes by, before a write starts a compaction.
+     */
+    static final long COMPACT_MIN_GARBAGE = 1L << 20;
+
+    private static final int RECORD_MAGIC = 0x52435232;
+    private static final int INDEX_MAGIC = 0x52434931;
+    private static final int HEADER = 8;
+    private static final int TRAILER = 4;
+
+    private static Path dir;
+    private static FileChannel log;
+    private static MappedByteBuffer mapped;
+    private static long logLength;
+    private static long liveBytes;
+
+    /**
+     * Latest record per key: {@code {offset, length}}.
+     */
+    private static HashMap<String, long[]> index = new HashMap<>();
+
+    private static Thread compactor;
+
+    /**
+     * Opens the connection a background compaction reads checksums over; it is closed afterwards.
+     */
+    static volatile Supplier<Connection> compactionConnection = populationApp::connectAgain;
+
+    /**
+     * Type tags of the rows a record may hold.
+     */
+    private static final byte STRING = 0, CITY = 1, COUNTRY = 2, CAPITAL = 3, POPULATION = 4,
+            SUMMARY = 5, LANGUAGE = 6, TOP_LANGUAGE = 7;
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong stale = new AtomicLong();
+    private static final AtomicLong writes = new AtomicLong();
+    private static final AtomicLong compactions = new AtomicLong();
+    private static final AtomicLong reclaimedBytes = new AtomicLong();
+
+    /**
+     * A result read back from disk.
+     */
+    public static final class stored {
+
+        /**
+         * The cached rows.
+         */
+        public final ArrayList<Object> rows;
+
+        /**
+         * Tables the query read.
+         */
+        public final String[] tables;
+
+        stored(ArrayList<Object> rows, String[] tables) {
+            this.rows = rows;
+            this.tables = tables;
+        }
+    }
+
+    /**
+     * The parsed head of a record body.
+     */
+    private static final class header {
+        final String key;
+        final String[] tables;
+        final long[] stamps;
+        final DataInputStream rest;
+
+        header(String key, String[] tables, long[] stamps, DataInputStream rest) {
+            this.key = key;
+            this.tables = tables;
+            this.stamps = stamps;
+            this.rest = rest;
+        }
+    }
+
+    /**
+     * Opens (or creates) the cache in a directory, closing any cache already open.
+     *
+     * @param directory directory of the log and index
+     * @return {@code true} if the cache is open
+     */
+    public static synchronized boolean open(Path directory) {
+        close();
+        try {
+            Files.createDirectories(directory);
+            dir = directory;
+            log = FileChannel.open(directory.resolve(LOG),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            logLength = log.size();
+            remap();
+            long covered = readIndex();
+            if (covered > logLength) {
+                index.clear();
+                covered = 0;
+            }
+            recover(covered);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+            release();
+            return false;
+        }
+    }
+
+    /**
+     * Saves the index and closes the log.
+     */
+    public static synchronized void close() {
+        if (log == null) return;
+        try {
+            writeIndex();
+            log.force(true);
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+        release();
+    }
+
+    /**
+     * Whether the cache is open.
+     *
+     * @return {@code true} between {@link #open(Path)} and {@link #close()}
+     */
+    public static synchronized boolean isOpen() {
+        return log != null;
+    }
+
+    /**
+     * Reads the latest record of a key, if its tables are unchanged.
+     *
+     * @param key query key, e.g. from {@code resultCache.key.text()}
+     * @return the stored result, or {@code null} if absent, stale or unreadable
+     */
+    public static synchronized stored read(String key) {
+        if (log == null) return null;
+        long[] at = index.get(key);
+        if (at == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        try {
+            header h = header(at[0], at[1]);
+            if (h == null || !h.key.equals(key)) {
+                drop(key);
+                misses.incrementAndGet();
+                return null;
+            }
+            int state = check(h);
+            if (state <= 0) {
+                if (state < 0) {
+                    drop(key);
+                    stale.incrementAndGet();
+                }
+                misses.incrementAndGet();
+                return null;
+            }
+            ArrayList<Object> rows = readRows(h.rest);
+            hits.incrementAndGet();
+            return new stored(rows, h.tables);
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+            drop(key);
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Appends a result to the log, stamped with the current checksum of each table it read.
+     *
+     * @param key    query key
+     * @param rows   result rows
+     * @param tables tables the query read, e.g. {@link tableVersions#CITY}
+     * @return {@code true} if the record was written
+     */
+    public static synchronized boolean write(String key, List<?> rows, String... tables) {
+        if (log == null) return false;
+        long[] stamps = new long[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            Long sum = tableVersions.checksum(tables[i]);
+            if (sum == null) return false;
+            stamps[i] = sum;
+        }
+        try {
+            byte[] body = encode(key, tables, stamps, rows);
+            int length = HEADER + body.length + TRAILER;
+            if (logLength + length > MAX_LOG_BYTES) return false;
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            ByteBuffer buf = ByteBuffer.allocate(length);
+            buf.putInt(RECORD_MAGIC).putInt(body.length).put(body).putInt((int) crc.getValue()).flip();
+            long position = logLength;
+            while (buf.hasRemaining()) position += log.write(buf, position);
+            long[] previous = index.put(key, new long[]{logLength, length});
+            if (previous != null) liveBytes -= previous[1];
+            liveBytes += length;
+            logLength += length;
+            writes.incrementAndGet();
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+            return false;
+        }
+        long garbage = logLength - liveBytes;
+        if (garbage > COMPACT_MIN_GARBAGE && garbage > liveBytes) compactInBackground();
+        return true;
+    }
+
+    /**
+     * Rewrites the log with only the latest, still valid record of each key, reading checksums
+     * over {@code populationApp.con}.
+     *
+     * @return number of records dropped as stale or unreadable
+     */
+    public static int compact() {
+        return compact(populationApp.con);
+    }
+
+    /**
+     * Rewrites the log with only the latest, still valid record of each key.
+     *
+     * @param con connection to read table checksums over
+     * @return number of records dropped as stale or unreadable
+     */
+    static synchronized int compact(Connection con) {
+        if (log == null) return 0;
+        Path tmp = dir.resolve(LOG + ".tmp");
+        HashMap<String, long[]> kept = new HashMap<>();
+        int dropped = 0;
+        long position = 0;
+        try {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (Map.Entry<String, long[]> e : index.entrySet()) {
+                    long[] at = e.getValue();
+                    header h = header(at[0], at[1]);
+                    if (h == null || !h.key.equals(e.getKey()) || check(h, con) < 0) {
+                        dropped++;
+                        continue;
+                    }
+                    ByteBuffer slice = mapped.duplicate();
+                    slice.position((int) at[0]).limit((int) (at[0] + at[1]));
+                    long start = position;
+                    while (slice.hasRemaining()) position += out.write(slice, position);
+                    kept.put(e.getKey(), new long[]{start, at[1]});
+                }
+                out.force(true);
+            }
+            long before = logLength;
+            log.close();
+            mapped = null;
+            Files.deleteIfExists(dir.resolve(INDEX));
+            Files.move(tmp, dir.resolve(LOG), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log = FileChannel.open(dir.resolve(LOG), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            logLength = log.size();
+            index = kept;
+            liveBytes = logLength;
+            remap();
+            writeIndex();
+            compactions.incrementAndGet();
+            reclaimedBytes.addAndGet(before - logLength);
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+            Path current = dir;
+            release();
+            open(current);
+        }
+        return dropped;
+    }
+
+    /**
+     * Starts a compaction on a daemon thread with its own connection, unless one is already running.
+     *
+     * @return the compacting thread, or {@code null} if the cache is not open
+     */
+    public static synchronized Thread compactInBackground() {
+        if (log == null) return null;
+        if (compactor != null && compactor.isAlive()) return compactor;
+        compactor = new Thread(diskCache::compactOwnConnection, "disk-cache-compactor");
+        compactor.setDaemon(true);
+        compactor.start();
+        return compactor;
+    }
+
+    private static void compactOwnConnection() {
+        Connection con = compactionConnection.get();
+        if (con == null) {
+            System.out.println("Error: no connection for disk cache compaction");
+            return;
+        }
+        try {
+            compact(con);
+        } finally {
+            statementCache.closeAll(con);
+            try {
+                con.close();
+            } catch (Exception e) {
+                System.out.println("Error: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Number of reads answered from disk.
+     *
+     * @return hit count
+     */
+    public static long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Number of reads that found no usable record.
+     *
+     * @return miss count
+     */
+    public static long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Number of records found stale because a table changed.
+     *
+     * @return stale record count
+     */
+    public static long stale() {
+        return stale.get();
+    }
+
+    /**
+     * Number of records appended.
+     *
+     * @return write count
+     */
+    public static long writes() {
+        return writes.get();
+    }
+
+    /**
+     * Number of completed compactions.
+     *
+     * @return compaction count
+     */
+    public static long compactions() {
+        return compactions.get();
+    }
+
+    /**
+     * Current size of the log.
+     *
+     * @return bytes
+     */
+    public static synchronized long logBytes() {
+        return logLength;
+    }
+
+    /**
+     * Resets the counters.
+     */
+    static void resetCounters() {
+        hits.set(0);
+        misses.set(0);
+        stale.set(0);
+        writes.set(0);
+        compactions.set(0);
+        reclaimedBytes.set(0);
+    }
+
+    /**
+     * Summarises the counters, e.g.
+     * {@code "Disk cache: 24 hits, 4 misses, 1 stale, 4 writes, 1 compactions (12.3 KiB reclaimed), 96.1 KiB log"}.
+     *
+     * @return a one-line summary
+     */
+    public static String summary() {
+        return String.format("Disk cache: %d hits, %d misses, %d stale, %d writes, %d compactions (%.1f KiB reclaimed), %.1f KiB log",
+                hits(), misses(), stale(), writes(), compactions(), reclaimedBytes.get() / 1024.0, logBytes() / 1024.0);
+    }
+
+    /**
+     * Compares the stamps of a record with the current table checksums.
+     *
+     * @return 1 if all match, -1 if one differs, 0 if a checksum is unknown
+     */
+    private static int check(header h) {
+        return check(h, populationApp.con);
+    }
+
+    private static int check(header h, Connection con) {
+        int state = 1;
+        for (int i = 0; i < h.tables.length; i++) {
+            Long sum = tableVersions.checksum(con, h.tables[i]);
+            if (sum == null) state = 0;
+            else if (sum != h.stamps[i]) return -1;
+        }
+        return state;
+    }
+
+    private static void drop(String key) {
+        long[] at = index.remove(key);
+        if (at != null) liveBytes -= at[1];
+    }
+
+    /**
+     * Reads and verifies the record at an offset; returns its parsed head, or {@code null} if it is invalid.
+     */
+    private static header header(long offset, long length) throws IOException {
+        byte[] body = body(offset, length);
+        if (body == null) return null;
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        String key = in.readUTF();
+        int n = in.readInt();
+        String[] tables = new String[n];
+        long[] stamps = new long[n];
+        for (int i = 0; i < n; i++) {
+            tables[i] = in.readUTF();
+            stamps[i] = in.readLong();
+        }
+        return new header(key, tables, stamps, in);
+    }
+
+    /**
+     * Copies a record body out of the mapping after checking its framing and CRC.
+     */
+    private static byte[] body(long offset, long length) throws IOException {
+        if (length < HEADER + TRAILER || offset + length > logLength) return null;
+        if (mapped == null || offset + length > mapped.capacity()) remap();
+        ByteBuffer b = mapped.duplicate();
+        b.position((int) offset);
+        if (b.getInt() != RECORD_MAGIC) return null;
+        int size = b.getInt();
+        if (size != length - HEADER - TRAILER) return null;
+        byte[] body = new byte[size];
+        b.get(body);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return b.getInt() == (int) crc.getValue() ? body : null;
+    }
+
+    /**
+     * Indexes the records after {@code from}, cutting the log at the first invalid one.
+     */
+    private static void recover(long from) throws IOException {
+        long position = from;
+        while (position + HEADER + TRAILER <= logLength) {
+            ByteBuffer b = mapped.duplicate();
+            b.position((int) position);
+            if (b.getInt() != RECORD_MAGIC) break;
+            long length = HEADER + (long) b.getInt() + TRAILER;
+            if (length < HEADER + TRAILER) break;
+            header h = header(position, length);
+            if (h == null) break;
+            index.put(h.key, new long[]{position, length});
+            position += length;
+        }
+        if (position < logLength) {
+            log.truncate(position);
+            logLength = position;
+            remap();
+        }
+        liveBytes = 0;
+        for (long[] at : index.values()) liveBytes += at[1];
+    }
+
+    private static void remap() throws IOException {
+        mapped = logLength == 0 ? null : log.map(FileChannel.MapMode.READ_ONLY, 0, logLength);
+    }
+
+    /**
+     * Loads the index file; returns the log length it covers, or 0 if there is no usable index.
+     */
+    private static long readIndex() {
+        index.clear();
+        Path file = dir.resolve(INDEX);
+        if (!Files.exists(file)) return 0;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            if (in.readInt() != INDEX_MAGIC) return 0;
+            long covered = in.readLong();
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                String key = in.readUTF();
+                index.put(key, new long[]{in.readLong(), in.readLong()});
+            }
+            return covered;
+        } catch (IOException e) {
+            index.clear();
+            return 0;
+        }
+    }
+
+    /**
+     * Saves the index next to the log, replacing the old one atomically.
+     */
+    private static void writeIndex() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeLong(logLength);
+            out.writeInt(index.size());
+            for (Map.Entry<String, long[]> e : index.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeLong(e.getValue()[0]);
+                out.writeLong(e.getValue()[1]);
+            }
+        }
+        Path tmp = dir.resolve(INDEX + ".tmp");
+        Files.write(tmp, bytes.toByteArray());
+        Files.move(tmp, dir.resolve(INDEX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void release() {
+        try {
+            if (log != null) log.close();
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+        log = null;
+        mapped = null;
+        index = new HashMap<>();
+        logLength = 0;
+        liveBytes = 0;
+    }
+
+    private static byte[] encode(String key, String[] tables, long[] stamps, List<?> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(key);
+            out.writeInt(tables.length);
+            for (int i = 0; i < tables.length; i++) {
+                out.writeUTF(tables[i]);
+                out.writeLong(stamps[i]);
+            }
+            out.writeInt(rows.size());
+            for (Object row : rows) writeRow(out, row);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a row as its type tag and then its fields, in the order listed here; {@link #readRow}
+     * reads them back in the same order.
+     */
+    private static void writeRow(DataOutputStream out, Object row) throws IOException {
+        if (row instanceof String) {
+            out.writeByte(STRING);
+            out.writeUTF((String) row);
+        } else if (row instanceof cityReport) {
+            cityReport c = (cityReport) row;
+            out.writeByte(CITY);
+            writeString(out, c.name);
+            writeString(out, c.country);
+            writeString(out, c.district);
+            out.writeInt(c.population);
+        } else if (row instanceof countryReport) {
+            countryReport c = (countryReport) row;
+            out.writeByte(COUNTRY);
+            writeString(out, c.code);
+            writeString(out, c.name);
+            writeString(out, c.continent);
+            writeString(out, c.region);
+            out.writeInt(c.population);
+            writeString(out, c.capital);
+        } else if (row instanceof capitalCityReport) {
+            capitalCityReport c = (capitalCityReport) row;
+            out.writeByte(CAPITAL);
+            writeString(out, c.name);
+            writeString(out, c.country);
+            out.writeInt(c.population);
+        } else if (row instanceof populationReport) {
+            populationReport p = (populationReport) row;
+            out.writeByte(POPULATION);
+            writeString(out, p.name);
+            out.writeLong(p.totalPopulation);
+            out.writeLong(p.cityPopulation);
+            out.writeDouble(p.cityPercentage);
+            out.writeLong(p.nonCityPopulation);
+            out.writeDouble(p.nonCityPercentage);
+        } else if (row instanceof populationSummary) {
+            populationSummary p = (populationSummary) row;
+            out.writeByte(SUMMARY);
+            writeString(out, p.name);
+            out.writeLong(p.population);
+            writeString(out, p.level);
+        } else if (row instanceof languageReport) {
+            languageReport l = (languageReport) row;
+            out.writeByte(LANGUAGE);
+            writeString(out, l.language);
+            out.writeLong(l.speakers);
+            out.writeDouble(l.percentage);
+        } else if (row instanceof topLanguageReport) {
+            topLanguageReport t = (topLanguageReport) row;
+            out.writeByte(TOP_LANGUAGE);
+            writeString(out, t.level);
+            writeString(out, t.scope);
+            out.writeInt(t.rank);
+            writeString(out, t.language);
+            out.writeLong(t.speakers);
+            out.writeLong(t.officialSpeakers);
+            out.writeLong(t.unofficialSpeakers);
+        } else {
+            throw new IOException("Rows of " + (row == null ? "null" : row.getClass().getName())
+                    + " are not stored on disk");
+        }
+    }
+
+    private static ArrayList<Object> readRows(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        ArrayList<Object> rows = new ArrayList<>(n);
+        for (int r = 0; r < n; r++) rows.add(readRow(in));
+        return rows;
+    }
+
+    /**
+     * Reads a row written by {@link #writeRow(DataOutputStream, Object)}; pooled columns are
+     * interned through {@link stringPool}, as the row mappers do.
+     */
+    private static Object readRow(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case STRING:
+                return in.readUTF();
+            case CITY:
+                return new cityReport(readString(in), stringPool.intern(readString(in)),
+                        stringPool.intern(readString(in)), in.readInt());
+            case COUNTRY:
+                return new countryReport(readString(in), readString(in), stringPool.intern(readString(in)),
+                        stringPool.intern(readString(in)), in.readInt(), readString(in));
+            case CAPITAL:
+                return new capitalCityReport(readString(in), stringPool.intern(readString(in)), in.readInt());
+            case POPULATION:
+                return new populationReport(readString(in), in.readLong(), in.readLong(), in.readDouble(),
+                        in.readLong(), in.readDouble());
+            case SUMMARY:
+                return new populationSummary(readString(in), in.readLong(), readString(in));
+            case LANGUAGE:
+                return new languageReport(readString(in), in.readLong(), in.readDouble());
+            case TOP_LANGUAGE:
+                topLanguageReport t = new topLanguageReport();
+                t.level = readString(in);
+                t.scope = readString(in);
+                t.rank = in.readInt();
+                t.language = readString(in);
+                t.speakers = in.readLong();
+                t.officialSpeakers = in.readLong();
+                t.unofficialSpeakers = in.readLong();
+                return t;
+            default:
+                throw new IOException("Unknown row type " + type + " in cached result");
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
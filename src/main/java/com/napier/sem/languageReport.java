@@ -16,7 +16,7 @@ import java.util.ArrayList;
  * <p>
  * Responsibilities:
  * <ul>
- *   <li>Acts as a simple container for language data retrieved from the database</li>
+ *   <li>Acts as an immutable container for language data retrieved from the database, safe to share from {@link resultCache}</li>
  *   <li>Provides static methods to query language data for a fixed set of target languages:
  *       <ul>
  *         <li>Chinese</li>
@@ -31,11 +31,12 @@ import java.util.ArrayList;
  * <p>
  * Workflow:
  * <ol>
+ *   <li>Repeated queries are answered from {@link resultCache} until a table they read changes or the entry expires</li>
  *   <li>SQL queries are executed via JDBC using {@code populationApp.con}</li>
  *   <li>World population is calculated from the {@code country} table</li>
  *   <li>Speakers for target languages are aggregated from the {@code countrylanguage} table</li>
  *   <li>Percentages are computed relative to the world population</li>
- *   <li>Results are mapped into {@code languageReport} objects</li>
+ *   <li>Results are mapped into {@code languageReport} objects by the generated {@code languageReportMapper}, which reads columns by index</li>
  *   <li>Output methods format the data into Markdown tables and write them to files</li>
  * </ol>
  * <p>
@@ -57,22 +58,38 @@ import java.util.ArrayList;
  * languageReport.outputLanguageReport(languages, "GlobalLanguages.md");
  * }</pre>
  */
+@mappedRow
 public class languageReport {
 
     /**
      * The name of the language.
      */
-    public String language;
+    @column("Language")
+    public final String language;
 
     /**
      * The total number of people who speak the language.
      */
-    public long speakers;
+    @column("Speakers")
+    public final long speakers;
 
     /**
      * The percentage of the world's population that speaks this language.
      */
-    public double percentage;
+    public final double percentage;
+
+    /**
+     * Creates a language row.
+     *
+     * @param language   language name
+     * @param speakers   number of speakers
+     * @param percentage percentage of the world population
+     */
+    public languageReport(String language, long speakers, double percentage) {
+        this.language = language;
+        this.speakers = speakers;
+        this.percentage = percentage;
+    }
 
     /**
      * Retrieves the language report for Chinese, English, Hindi, Spanish, and Arabic,
@@ -100,13 +117,17 @@ public class languageReport {
      */
     public static ArrayList<languageReport> getAllLanguageReport() {
         ArrayList<languageReport> reports = new ArrayList<>();
+        if (populationApp.con == null) return reports;
+        resultCache.key key = resultCache.key("languageReport.getAllLanguageReport");
+        ArrayList<languageReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
 
         try {
             Connection con = populationApp.con; // use the shared connection
 
             // Step 1: Get world population
             long worldPopulation = 0;
-            try (PreparedStatement stmtWorld = con.prepareStatement(
+            try (PreparedStatement stmtWorld = statementCache.prepare(con, 
                     "SELECT SUM(Population) AS WorldPopulation FROM country")) {
                 ResultSet rsWorld = stmtWorld.executeQuery();
                 if (rsWorld.next()) {
@@ -122,7 +143,7 @@ public class languageReport {
                     "GROUP BY cl.Language " +
                     "ORDER BY Speakers DESC";
 
-            try (PreparedStatement stmt = con.prepareStatement(sql)) {
+            try (PreparedStatement stmt = statementCache.prepare(con, sql)) {
                 stmt.setString(1, "Chinese");
                 stmt.setString(2, "English");
                 stmt.setString(3, "Hindi");
@@ -130,22 +151,23 @@ public class languageReport {
                 stmt.setString(5, "Arabic");
 
                 ResultSet rs = stmt.executeQuery();
+                languageReportMapper mapper = new languageReportMapper(rs);
+                int speakersColumn = rs.findColumn("Speakers");
                 while (rs.next()) {
-                    languageReport lr = new languageReport();
-                    lr.language = rs.getString("Language");
-                    lr.speakers = rs.getLong("Speakers");
-                    lr.percentage = (worldPopulation > 0)
-                            ? (double) lr.speakers / worldPopulation * 100
+                    long speakers = rs.getLong(speakersColumn);
+                    double percentage = (worldPopulation > 0)
+                            ? (double) speakers / worldPopulation * 100
                             : 0.0;
-                    reports.add(lr);
+                    reports.add(mapper.map(rs, percentage));
                 }
             }
 
         } catch (Exception e) {
             e.printStackTrace();
+            return resultCache.abandon(key, reports, e);
         }
 
-        return reports;
+        return resultCache.store(key, reports, tableVersions.COUNTRYLANGUAGE, tableVersions.COUNTRY);
     }
 
     /**
@@ -0,0 +1,26 @@
+package com.napier.sem;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a report row class whose {@link column}-annotated fields are read from a JDBC result set.
+ * <p>
+ * Row classes are immutable: their instance fields are final and set by one constructor
+ * taking every field in declaration order. At compile time {@link rowMapperProcessor}
+ * generates a package-private {@code <Row>Mapper} class that resolves each column label to an
+ * index once per result set and then builds every row through that constructor.
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * ResultSet rset = pstmt.executeQuery();
+ * cityReportMapper mapper = new cityReportMapper(rset);
+ * while (rset.next()) cities.add(mapper.map(rset));
+ * }</pre>
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface mappedRow {
+}
@@ -1,7 +1,10 @@
 package com.napier.sem;
 
+import java.nio.file.Paths;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * The {@code populationApp} class serves as the main entry point for generating
@@ -11,6 +14,8 @@ import java.util.ArrayList;
  * <ul>
  *   <li>Establishes a JDBC connection to the MySQL database</li>
  *   <li>Retrieves country population data via DAO methods</li>
+ *   <li>Routes each report to the in-memory snapshot engine or MySQL through {@link reportRouter}</li>
+ *   <li>Bounds each report's time in MySQL with a {@link reportDeadline}</li>
  *   <li>Outputs formatted Markdown reports to the /reports directory</li>
  * </ul>
  * <p>
@@ -24,6 +29,11 @@ public class populationApp {
      */
     public static Connection con = null;
 
+    /**
+     * Host and port {@link #con} was opened to, so a background task can open its own connection.
+     */
+    static volatile String location = null;
+
     /**
      * Main method that drives the application workflow:
      * <ol>
@@ -44,150 +54,289 @@ public class populationApp {
         // Defaults to the Docker service values if environment variables are missing
         if (dbHost == null || dbHost.isEmpty()) dbHost = "db";
         if (dbPort == null || dbPort.isEmpty()) dbPort = "3306";
+        // Longest time one report may spend in MySQL before it is cancelled and marked as failed
+        String deadline = System.getenv("REPORT_DEADLINE_MILLIS");
+        if (deadline != null && !deadline.isEmpty()) reportDeadline.setDefaultMillis(Long.parseLong(deadline));
 
         String dbLocation = dbHost + ":" + dbPort;
         app.connect(dbLocation, 3000);
 
+        // With CONSISTENT_RUN=true, reads every report below inside one read-only consistent
+        // snapshot and pins the data version for the run manifest
+        boolean consistent = "true".equalsIgnoreCase(System.getenv(reportRun.ENV));
+        reportRun.begin(consistent);
+
+        // Opens the on-disk result cache so unchanged reports from earlier runs skip MySQL,
+        // and drops records of changed tables in the background; its CHECKSUM TABLE stamps read
+        // the latest data rather than the snapshot, so a consistent run leaves it closed
+        if (!consistent) {
+            diskCache.open(Paths.get(diskCache.DEFAULT_DIR));
+            diskCache.compactInBackground();
+        }
+
+        // Loads every scope name so queries for unknown names are skipped
+        scopeRegistry.load();
+
+        // Loads the in-memory snapshot; reportRouter sends each report to it or to MySQL
+        snapshotEngine.load();
+
+        // Fetches every report MySQL will answer in one multi-statement round trip;
+        // without a snapshot that is all of them, otherwise only the language distribution
+        reportDeadline.run("QueryBatch", () -> queryBatch.prefetch(snapshotEngine.snapshot == null ? databaseReports()
+                : List.of(languageReport::getAllLanguageReport)));
+
         // Report Generation Section
 
         // Country Reports
 
         // All countries in the world (limit 42)
-        ArrayList<countryReport> countriesWorld = countryReport.getAllCountriesByPopulation(42);
+        ArrayList<countryReport> countriesWorld = reportRouter.route("CountryPopulation", reportRouter.WORLD, null,
+                () -> snapshotEngine.getAllCountriesByPopulation(42), () -> countryReport.getAllCountriesByPopulation(42));
         countryReport.outputCountryReport(countriesWorld, "CountryPopulation.md");
 
         // All countries in a continent (limit 42)
-        ArrayList<countryReport> countriesContinent = countryReport.getCountriesByContinent("Asia", 42);
+        ArrayList<countryReport> countriesContinent = reportRouter.route("CountryPopulation_Asia", scopeRegistry.CONTINENT, "Asia",
+                () -> snapshotEngine.getCountriesByContinent("Asia", 42), () -> countryReport.getCountriesByContinent("Asia", 42));
         countryReport.outputCountryReport(countriesContinent, "CountryPopulation_Asia.md");
 
         // All countries in a region (limit 42)
-        ArrayList<countryReport> countriesRegion = countryReport.getCountriesByRegion("Eastern Europe", 42);
+        ArrayList<countryReport> countriesRegion = reportRouter.route("CountryPopulation_EasternEurope", scopeRegistry.REGION, "Eastern Europe",
+                () -> snapshotEngine.getCountriesByRegion("Eastern Europe", 42), () -> countryReport.getCountriesByRegion("Eastern Europe", 42));
         countryReport.outputCountryReport(countriesRegion, "CountryPopulation_EasternEurope.md");
 
         // Top N populated countries in the world (limit 10)
-        ArrayList<countryReport> topCountriesWorld = countryReport.getTopCountriesByPopulation(10);
+        ArrayList<countryReport> topCountriesWorld = reportRouter.route("TopCountriesWorld", reportRouter.WORLD, null,
+                () -> snapshotEngine.getTopCountriesByPopulation(10), () -> countryReport.getTopCountriesByPopulation(10));
         countryReport.outputCountryReport(topCountriesWorld, "TopCountriesWorld.md");
 
         // Top N populated countries in a continent (limit 10)
-        ArrayList<countryReport> topCountriesContinent = countryReport.getTopCountriesByContinent("Africa", 10);
+        ArrayList<countryReport> topCountriesContinent = reportRouter.route("TopCountries_Africa", scopeRegistry.CONTINENT, "Africa",
+                () -> snapshotEngine.getTopCountriesByContinent("Africa", 10), () -> countryReport.getTopCountriesByContinent("Africa", 10));
         countryReport.outputCountryReport(topCountriesContinent, "TopCountries_Africa.md");
 
         // Top N populated countries in a region (limit 10)
-        ArrayList<countryReport> topCountriesRegion = countryReport.getTopCountriesByRegion("South America", 10);
+        ArrayList<countryReport> topCountriesRegion = reportRouter.route("TopCountries_SouthAmerica", scopeRegistry.REGION, "South America",
+                () -> snapshotEngine.getTopCountriesByRegion("South America", 10), () -> countryReport.getTopCountriesByRegion("South America", 10));
         countryReport.outputCountryReport(topCountriesRegion, "TopCountries_SouthAmerica.md");
 
 
         // City Reports
 
         // All cities in the world (limit 42)
-        ArrayList<cityReport> cities = cityReport.getAllCitiesByPopulation(42);
+        ArrayList<cityReport> cities = reportRouter.route("CityPopulation", reportRouter.WORLD, null,
+                () -> snapshotEngine.getAllCitiesByPopulation(42), () -> cityReport.getAllCitiesByPopulation(42));
         cityReport.outputCityReport(cities, "CityPopulation.md");
 
         // All cities in a continent (Asia, limit 42)
-        ArrayList<cityReport> citiesContinent = cityReport.getCitiesByContinent("Asia", 42);
+        ArrayList<cityReport> citiesContinent = reportRouter.route("CitiesByContinent", scopeRegistry.CONTINENT, "Asia",
+                () -> snapshotEngine.getCitiesByContinent("Asia", 42), () -> cityReport.getCitiesByContinent("Asia", 42));
         cityReport.outputCityReport(citiesContinent, "CitiesByContinent.md");
 
         // All cities in a region (Eastern Asia, limit 42)
-        ArrayList<cityReport> citiesRegion = cityReport.getCitiesByRegion("Eastern Asia", 42);
+        ArrayList<cityReport> citiesRegion = reportRouter.route("CitiesByRegion", scopeRegistry.REGION, "Eastern Asia",
+                () -> snapshotEngine.getCitiesByRegion("Eastern Asia", 42), () -> cityReport.getCitiesByRegion("Eastern Asia", 42));
         cityReport.outputCityReport(citiesRegion, "CitiesByRegion.md");
 
         // All cities in a specific country (China, limit 42)
-        ArrayList<cityReport> citiesCountry = cityReport.getCitiesByCountry("China", 42);
+        ArrayList<cityReport> citiesCountry = reportRouter.route("CitiesByCountry", scopeRegistry.COUNTRY, "China",
+                () -> snapshotEngine.getCitiesByCountry("China", 42), () -> cityReport.getCitiesByCountry("China", 42));
         cityReport.outputCityReport(citiesCountry, "CitiesByCountry.md");
 
         // All cities in a district (California, limit 42)
-        ArrayList<cityReport> citiesDistrict = cityReport.getCitiesByDistrict("California", 42);
+        ArrayList<cityReport> citiesDistrict = reportRouter.route("CitiesByDistrict", scopeRegistry.DISTRICT, "California",
+                () -> snapshotEngine.getCitiesByDistrict("California", 42), () -> cityReport.getCitiesByDistrict("California", 42));
         cityReport.outputCityReport(citiesDistrict, "CitiesByDistrict.md");
 
 
         // Top N City Reports
 
         // Top N populated cities in the world (limit 10)
-        ArrayList<cityReport> topCitiesWorld = cityReport.getTopCitiesInWorld(10);
+        ArrayList<cityReport> topCitiesWorld = reportRouter.route("TopCitiesWorld", reportRouter.WORLD, null,
+                () -> snapshotEngine.getTopCitiesInWorld(10), () -> cityReport.getTopCitiesInWorld(10));
         cityReport.outputCityReport(topCitiesWorld, "TopCitiesWorld.md");
 
         // Top N populated cities in a continent (Europe, limit 10)
-        ArrayList<cityReport> topCitiesContinent = cityReport.getTopCitiesByContinent("Europe", 10);
+        ArrayList<cityReport> topCitiesContinent = reportRouter.route("TopCitiesContinent", scopeRegistry.CONTINENT, "Europe",
+                () -> snapshotEngine.getTopCitiesByContinent("Europe", 10), () -> cityReport.getTopCitiesByContinent("Europe", 10));
         cityReport.outputCityReport(topCitiesContinent, "TopCitiesContinent.md");
 
         // Top N populated cities in a region (Western Europe, limit 10)
-        ArrayList<cityReport> topCitiesRegion = cityReport.getTopCitiesByRegion("Western Europe", 10);
+        ArrayList<cityReport> topCitiesRegion = reportRouter.route("TopCitiesRegion", scopeRegistry.REGION, "Western Europe",
+                () -> snapshotEngine.getTopCitiesByRegion("Western Europe", 10), () -> cityReport.getTopCitiesByRegion("Western Europe", 10));
         cityReport.outputCityReport(topCitiesRegion, "TopCitiesRegion.md");
 
         // Top N populated cities in a specific country (Germany, limit 10)
-        ArrayList<cityReport> topCitiesCountry = cityReport.getTopCitiesByCountry("Germany", 10);
+        ArrayList<cityReport> topCitiesCountry = reportRouter.route("TopCitiesCountry", scopeRegistry.COUNTRY, "Germany",
+                () -> snapshotEngine.getTopCitiesByCountry("Germany", 10), () -> cityReport.getTopCitiesByCountry("Germany", 10));
         cityReport.outputCityReport(topCitiesCountry, "TopCitiesCountry.md");
 
         // Top N populated cities in a district (Bavaria, limit 10)
-        ArrayList<cityReport> topCitiesDistrict = cityReport.getTopCitiesByDistrict("Bavaria", 10);
+        ArrayList<cityReport> topCitiesDistrict = reportRouter.route("TopCitiesDistrict", scopeRegistry.DISTRICT, "Bavaria",
+                () -> snapshotEngine.getTopCitiesByDistrict("Bavaria", 10), () -> cityReport.getTopCitiesByDistrict("Bavaria", 10));
         cityReport.outputCityReport(topCitiesDistrict, "TopCitiesDistrict.md");
 
 
         // Capital City Reports
 
         // All capital cities in the world (limit 42)
-        ArrayList<capitalCityReport> capitalsWorld = capitalCityReport.getAllCapitalCitiesByPopulation(42);
+        ArrayList<capitalCityReport> capitalsWorld = reportRouter.route("CapitalCitiesWorld", reportRouter.WORLD, null,
+                () -> snapshotEngine.getAllCapitalCitiesByPopulation(42), () -> capitalCityReport.getAllCapitalCitiesByPopulation(42));
         capitalCityReport.outputCapitalCityReport(capitalsWorld, "CapitalCitiesWorld.md");
 
         // All capital cities in a continent (Asia, limit 42)
-        ArrayList<capitalCityReport> capitalsContinent = capitalCityReport.getCapitalCitiesByContinent("Asia", 42);
+        ArrayList<capitalCityReport> capitalsContinent = reportRouter.route("CapitalCitiesByContinent", scopeRegistry.CONTINENT, "Asia",
+                () -> snapshotEngine.getCapitalCitiesByContinent("Asia", 42), () -> capitalCityReport.getCapitalCitiesByContinent("Asia", 42));
         capitalCityReport.outputCapitalCityReport(capitalsContinent, "CapitalCitiesByContinent.md");
 
         // All capital cities in a region (Eastern Asia, limit 42)
-        ArrayList<capitalCityReport> capitalsRegion = capitalCityReport.getCapitalCitiesByRegion("Eastern Asia", 42);
+        ArrayList<capitalCityReport> capitalsRegion = reportRouter.route("CapitalCitiesByRegion", scopeRegistry.REGION, "Eastern Asia",
+                () -> snapshotEngine.getCapitalCitiesByRegion("Eastern Asia", 42), () -> capitalCityReport.getCapitalCitiesByRegion("Eastern Asia", 42));
         capitalCityReport.outputCapitalCityReport(capitalsRegion, "CapitalCitiesByRegion.md");
 
         // Top N populated capital cities in the world (limit 10)
-        ArrayList<capitalCityReport> topCapitalsWorld = capitalCityReport.getTopCapitalCitiesInWorld(10);
+        ArrayList<capitalCityReport> topCapitalsWorld = reportRouter.route("TopCapitalCitiesWorld", reportRouter.WORLD, null,
+                () -> snapshotEngine.getTopCapitalCitiesInWorld(10), () -> capitalCityReport.getTopCapitalCitiesInWorld(10));
         capitalCityReport.outputCapitalCityReport(topCapitalsWorld, "TopCapitalCitiesWorld.md");
 
         // Top N populated capital cities in a continent (Europe, limit 10)
-        ArrayList<capitalCityReport> topCapitalsContinent = capitalCityReport.getTopCapitalCitiesByContinent("Europe", 10);
+        ArrayList<capitalCityReport> topCapitalsContinent = reportRouter.route("TopCapitalCitiesContinent", scopeRegistry.CONTINENT, "Europe",
+                () -> snapshotEngine.getTopCapitalCitiesByContinent("Europe", 10), () -> capitalCityReport.getTopCapitalCitiesByContinent("Europe", 10));
         capitalCityReport.outputCapitalCityReport(topCapitalsContinent, "TopCapitalCitiesContinent.md");
 
         // Top N populated capital cities in a region (Western Europe, limit 10)
-        ArrayList<capitalCityReport> topCapitalsRegion = capitalCityReport.getTopCapitalCitiesByRegion("Western Europe", 10);
+        ArrayList<capitalCityReport> topCapitalsRegion = reportRouter.route("TopCapitalCitiesRegion", scopeRegistry.REGION, "Western Europe",
+                () -> snapshotEngine.getTopCapitalCitiesByRegion("Western Europe", 10), () -> capitalCityReport.getTopCapitalCitiesByRegion("Western Europe", 10));
         capitalCityReport.outputCapitalCityReport(topCapitalsRegion, "TopCapitalCitiesRegion.md");
 
 
         // Population Reports
 
         // Population by continent
-        ArrayList<populationReport> popsContinent = populationReport.getPopulationByContinent();
+        ArrayList<populationReport> popsContinent = reportRouter.route("PopulationByContinent", reportRouter.WORLD, null,
+                () -> snapshotEngine.getPopulationByContinent(), () -> populationReport.getPopulationByContinent());
         populationReport.outputPopReport(popsContinent, "PopulationByContinent.md");
 
         // Population by region
-        ArrayList<populationReport> popsRegion = populationReport.getPopulationByRegion();
+        ArrayList<populationReport> popsRegion = reportRouter.route("PopulationByRegion", reportRouter.WORLD, null,
+                () -> snapshotEngine.getPopulationByRegion(), () -> populationReport.getPopulationByRegion());
         populationReport.outputPopReport(popsRegion, "PopulationByRegion.md");
 
         // Population by country
-        ArrayList<populationReport> popsCountry = populationReport.getPopulationByCountry();
+        ArrayList<populationReport> popsCountry = reportRouter.route("PopulationByCountry", reportRouter.WORLD, null,
+                () -> snapshotEngine.getPopulationByCountry(), () -> populationReport.getPopulationByCountry());
         populationReport.outputPopReport(popsCountry, "PopulationByCountry.md");
 
         // Population Summary Report
 
         // Overall population summary
-        ArrayList<populationSummary> popsums = populationSummary.getAllPopulationSummary();
+        ArrayList<populationSummary> popsums = reportRouter.route("PopulationSummary", reportRouter.WORLD, null,
+                () -> snapshotEngine.getAllPopulationSummary(), () -> populationSummary.getAllPopulationSummary());
         populationSummary.outputPopSummary(popsums, "PopulationSummary.md");
 
         // Language Report
 
         // Language distribution report
-        ArrayList<languageReport> langs = languageReport.getAllLanguageReport();
+        ArrayList<languageReport> langs = reportDeadline.run("LanguageReport", languageReport::getAllLanguageReport);
         languageReport.outputLanguageReport(langs, "LanguageReport.md");
 
+        // Top 5 languages in every continent and region (one file per level)
+        reportRun.writes("TopLanguagesByContinent", "TopLanguagesByRegion");
+        ArrayList<topLanguageReport> topLangs = reportRouter.route("TopLanguagesByContinent", reportRouter.WORLD, null,
+                () -> snapshotEngine.getTopLanguagesByContinentAndRegion(5), () -> topLanguageReport.getTopLanguagesByContinentAndRegion(5));
+        topLanguageReport.outputTopLanguageReport(topLangs, topLanguageReport.CONTINENT, "TopLanguagesByContinent.md");
+        topLanguageReport.outputTopLanguageReport(topLangs, topLanguageReport.REGION, "TopLanguagesByRegion.md");
+
+        // Ad-hoc Reports
+
+        // Catalog reports, answered from the in-memory snapshot or, without one, from MySQL
+        if (snapshotEngine.snapshot != null || con != null) {
+            reportCatalog.runAll();
+        }
+
+        // Which backend answered each routed report, and why
+        reportRouter.outputDecisionLog("RouterDecisions.md");
+
+        // Ends the run's transaction and records its mode, data version and reports
+        reportRun.end();
+        reportRun.outputManifest("RunManifest.md");
+
+        System.out.println("Queries avoided for unknown scope names: " + scopeRegistry.avoidedQueries());
+        System.out.println(statementCache.summary());
+        System.out.println(resultCache.summary());
+        System.out.println(diskCache.summary());
+        System.out.println(queryBatch.summary());
+        System.out.println(reportDeadline.summary());
+        System.out.println(stringPool.summary());
+        System.out.println(adaptiveFetch.summary());
+        System.out.println(snapshotEngine.summary());
 
         // Disconnects from the database
         app.disconnect();
     }
 
+    /**
+     * Lists the DAO call behind every report in {@link #main(String[])}, with the same arguments,
+     * for {@link queryBatch#prefetch(List)}.
+     *
+     * @return the DAO calls
+     */
+    static List<Supplier<?>> databaseReports() {
+        return List.of(
+                () -> countryReport.getAllCountriesByPopulation(42),
+                () -> countryReport.getCountriesByContinent("Asia", 42),
+                () -> countryReport.getCountriesByRegion("Eastern Europe", 42),
+                () -> countryReport.getTopCountriesByPopulation(10),
+                () -> countryReport.getTopCountriesByContinent("Africa", 10),
+                () -> countryReport.getTopCountriesByRegion("South America", 10),
+                () -> cityReport.getAllCitiesByPopulation(42),
+                () -> cityReport.getCitiesByContinent("Asia", 42),
+                () -> cityReport.getCitiesByRegion("Eastern Asia", 42),
+                () -> cityReport.getCitiesByCountry("China", 42),
+                () -> cityReport.getCitiesByDistrict("California", 42),
+                () -> cityReport.getTopCitiesInWorld(10),
+                () -> cityReport.getTopCitiesByContinent("Europe", 10),
+                () -> cityReport.getTopCitiesByRegion("Western Europe", 10),
+                () -> cityReport.getTopCitiesByCountry("Germany", 10),
+                () -> cityReport.getTopCitiesByDistrict("Bavaria", 10),
+                () -> capitalCityReport.getAllCapitalCitiesByPopulation(42),
+                () -> capitalCityReport.getCapitalCitiesByContinent("Asia", 42),
+                () -> capitalCityReport.getCapitalCitiesByRegion("Eastern Asia", 42),
+                () -> capitalCityReport.getTopCapitalCitiesInWorld(10),
+                () -> capitalCityReport.getTopCapitalCitiesByContinent("Europe", 10),
+                () -> capitalCityReport.getTopCapitalCitiesByRegion("Western Europe", 10),
+                () -> populationReport.getPopulationByContinent(),
+                () -> populationReport.getPopulationByRegion(),
+                () -> populationReport.getPopulationByCountry(),
+                () -> populationSummary.getAllPopulationSummary(),
+                () -> languageReport.getAllLanguageReport(),
+                () -> topLanguageReport.getTopLanguagesByContinentAndRegion(5));
+    }
+
+    /**
+     * JDBC URL of the world database, with the driver options the reports rely on.
+     * <p>
+     * With {@code allowMultiQueries=true}, Connector/J client-prepares any SQL containing
+     * {@code ;}, which also turns off {@code useServerPrepStmts} and {@code useCursorFetch} for
+     * it; only {@link queryBatch} sends multi-statement SQL, and no DAO statement ends in {@code ;}.
+     *
+     * @param location host and port of the database (e.g., "db:3306")
+     * @return the URL
+     */
+    static String url(String location) {
+        return "jdbc:mysql://" + location + "/world?useSSL=false&allowPublicKeyRetrieval=true"
+                + "&useServerPrepStmts=true&allowMultiQueries=true&useCursorFetch=true";
+    }
+
     /**
      * Establishes a JDBC connection to the MySQL database.
      * <p>
      * Workflow:
      * <ul>
      *   <li>Loads the MySQL JDBC driver</li>
-     *   <li>Attempts to connect to the database at the specified location</li>
+     *   <li>Attempts to connect to the database at the specified location, with server-side
+     *       prepared statements enabled so {@link statementCache} reuses server plans, and
+     *       multiple statements per request allowed for {@link queryBatch}, and cursor fetching
+     *       so a statement with a fetch size set (e.g. by {@link rowPublisher}) reads its rows in chunks</li>
      *   <li>Retries connection multiple times if initial attempts fail</li>
      * </ul>
      * <p>
@@ -214,10 +363,8 @@ public class populationApp {
             System.out.println("Connecting to database at " + location + "...");
             try {
                 Thread.sleep(delay); // Waits before attempting connection
-                con = DriverManager.getConnection(
-                        "jdbc:mysql://" + location + "/world?useSSL=false&allowPublicKeyRetrieval=true",
-                        "root", "example"
-                );
+                con = DriverManager.getConnection(url(location), "root", "example");
+                populationApp.location = location;
                 System.out.println("Successfully connected");
                 Thread.sleep(5000); // Stabilises the connection before proceeding
                 break;
@@ -230,19 +377,41 @@ public class populationApp {
         }
     }
 
+    /**
+     * Opens a second connection to the database {@link #con} was opened to, for a task that runs
+     * on another thread; a JDBC connection must not be used by two threads at once.
+     *
+     * @return the new connection, or {@code null} if there is no database or connecting fails
+     */
+    static Connection connectAgain() {
+        if (location == null) return null;
+        try {
+            return DriverManager.getConnection(url(location), "root", "example");
+        } catch (SQLException e) {
+            System.out.println("Error: " + e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Closes the JDBC connection to the database if one exists.
      * <p>
      * Edge-case handling:
      * <ul>
      *   <li>If {@code con} is null, no action is taken</li>
+     *   <li>An open run transaction is committed first</li>
+     *   <li>Cached prepared statements are closed before the connection</li>
+     *   <li>The on-disk result cache saves its index and closes</li>
      *   <li>If closing the connection fails, an error message is logged</li>
      * </ul>
      * <p>
      * This method ensures resources are released cleanly after database operations.
      */
     public void disconnect() {
+        diskCache.close();
+        reportRun.end();
         if (con != null) {
+            statementCache.closeAll(con);
             try {
                 con.close();
             } catch (Exception e) {
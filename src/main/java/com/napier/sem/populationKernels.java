@@ -0,0 +1,110 @@
+package com.napier.sem;
+
+/**
+ * The {@code populationKernels} interface is the set of tight loops the snapshot
+ * engine runs over primitive int columns.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Summing a value column per dictionary id</li>
+ *   <li>Filtering row numbers by an inclusive population range</li>
+ *   <li>Counting rows that satisfy an inclusive population range</li>
+ * </ul>
+ * <p>
+ * Two implementations exist: {@link scalarKernels}, which always works, and
+ * {@code vectorKernels}, which uses the incubating JDK Vector API where it beats the scalar
+ * loops. {@link #active()} picks the vector implementation only when {@code jdk.incubator.vector}
+ * is in the boot layer (e.g. {@code java --add-modules jdk.incubator.vector}) and falls back
+ * to the scalar loops otherwise.
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>Negative ids are skipped by {@link #sumByGroup}, so callers can exclude rows</li>
+ *   <li>Setting the system property {@code sem.vector=false} forces the scalar kernels</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * int millionCities = populationKernels.active().countInRange(pop, 0, pop.length, 1_000_000, Integer.MAX_VALUE);
+ * }</pre>
+ */
+public interface populationKernels {
+
+    /**
+     * Adds {@code values[i]} to {@code totals[ids[i]]} for every row in {@code [from, to)}.
+     *
+     * @param ids    dictionary id of each row
+     * @param values value of each row
+     * @param from   first row, inclusive
+     * @param to     last row, exclusive
+     * @param totals running total per id, updated in place
+     */
+    void sumByGroup(int[] ids, int[] values, int from, int to, long[] totals);
+
+    /**
+     * Writes the row numbers in {@code [from, to)} whose value lies in {@code [min, max]} into {@code out}.
+     *
+     * @param values value of each row
+     * @param from   first row, inclusive
+     * @param to     last row, exclusive
+     * @param min    smallest matching value
+     * @param max    largest matching value
+     * @param out    destination for matching row numbers; must hold {@code to - from} entries
+     * @return number of row numbers written
+     */
+    int filterByRange(int[] values, int from, int to, int min, int max, int[] out);
+
+    /**
+     * Counts the rows in {@code [from, to)} whose value lies in {@code [min, max]}.
+     *
+     * @param values value of each row
+     * @param from   first row, inclusive
+     * @param to     last row, exclusive
+     * @param min    smallest matching value
+     * @param max    largest matching value
+     * @return number of matching rows
+     */
+    int countInRange(int[] values, int from, int to, int min, int max);
+
+    /**
+     * Returns the fastest kernel set available in this JVM.
+     *
+     * @return vector kernels if the Vector API is available, otherwise scalar kernels
+     */
+    static populationKernels active() {
+        return holder.ACTIVE;
+    }
+
+    /**
+     * Returns the scalar kernel set.
+     *
+     * @return scalar kernels
+     */
+    static populationKernels scalar() {
+        return holder.SCALAR;
+    }
+
+    /**
+     * Lazily selects the kernels the first time they are needed.
+     */
+    final class holder {
+        static final populationKernels SCALAR = new scalarKernels();
+        static final populationKernels ACTIVE = select();
+
+        private holder() {
+        }
+
+        private static populationKernels select() {
+            if ("false".equalsIgnoreCase(System.getProperty("sem.vector"))) return SCALAR;
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return SCALAR;
+            try {
+                // Loaded reflectively so the scalar path never links against the incubator module
+                return (populationKernels) Class.forName("com.napier.sem.vectorKernels")
+                        .getDeclaredConstructor().newInstance();
+            } catch (Throwable t) {
+                System.out.println("Vector kernels unavailable, using scalar kernels: " + t);
+                return SCALAR;
+            }
+        }
+    }
+}
@@ -5,7 +5,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.sql.ResultSet;
-import java.sql.Statement;
+import java.sql.PreparedStatement;
 import java.util.ArrayList;
 
 /**
@@ -15,7 +15,7 @@ import java.util.ArrayList;
  * <p>
  * Responsibilities:
  * <ul>
- *   <li>Acts as a container for population data retrieved from the database</li>
+ *   <li>Acts as an immutable container for population data retrieved from the database, safe to share from {@link resultCache}</li>
  *   <li>Provides static methods to query population breakdowns across multiple levels:
  *       <ul>
  *         <li>Continent</li>
@@ -29,10 +29,11 @@ import java.util.ArrayList;
  * <p>
  * Workflow:
  * <ol>
+ *   <li>Repeated queries are answered from {@link resultCache} until a table they read changes or the entry expires</li>
  *   <li>SQL queries are executed via JDBC using {@code populationApp.con}</li>
  *   <li>Population totals are aggregated from {@code country} and {@code city} tables</li>
  *   <li>City and non‑city populations are calculated, along with their percentages</li>
- *   <li>Results are mapped into {@code populationReport} objects</li>
+ *   <li>Results are mapped into {@code populationReport} objects by the generated {@code populationReportMapper}, which reads columns by index</li>
  *   <li>Collections of these objects are returned for further processing</li>
  *   <li>Output methods format the data into Markdown tables and write them to files</li>
  * </ol>
@@ -54,37 +55,68 @@ import java.util.ArrayList;
  * populationReport.outputPopReport(reports, "PopulationByContinent.md");
  * }</pre>
  */
-public class populationReport extends populationApp {
+@mappedRow
+public class populationReport {
 
     /**
      * The name of the geographic area (e.g., country, region, or city group).
      */
-    public String name;
+    @column("name")
+    public final String name;
 
     /**
      * The total population of the area.
      */
-    public long totalPopulation;
+    @column("totalPopulation")
+    public final long totalPopulation;
 
     /**
      * The population living in cities within the area.
      */
-    public long cityPopulation;
+    @column("cityPopulation")
+    public final long cityPopulation;
 
     /**
      * The percentage of the total population that lives in cities.
      */
-    public double cityPercentage;
+    @column("cityPercentage")
+    public final double cityPercentage;
 
     /**
      * The population living outside cities (non-urban areas).
      */
-    public long nonCityPopulation;
+    @column("nonCityPopulation")
+    public final long nonCityPopulation;
 
     /**
      * The percentage of the total population that lives outside cities.
      */
-    public double nonCityPercentage;
+    @column("nonCityPercentage")
+    public final double nonCityPercentage;
+
+    /**
+     * Creates a population row.
+     *
+     * @param name              continent, region or country name
+     * @param totalPopulation   total population
+     * @param cityPopulation    population living in cities
+     * @param cityPercentage    percentage living in cities
+     * @param nonCityPopulation population not living in cities
+     * @param nonCityPercentage percentage not living in cities
+     */
+    public populationReport(String name,
+                             long totalPopulation,
+                             long cityPopulation,
+                             double cityPercentage,
+                             long nonCityPopulation,
+                             double nonCityPercentage) {
+        this.name = name;
+        this.totalPopulation = totalPopulation;
+        this.cityPopulation = cityPopulation;
+        this.cityPercentage = cityPercentage;
+        this.nonCityPopulation = nonCityPopulation;
+        this.nonCityPercentage = nonCityPercentage;
+    }
 
 
     /**
@@ -121,42 +153,39 @@ public class populationReport extends populationApp {
      */
     public static ArrayList<populationReport> getPopulationByContinent() {
         ArrayList<populationReport> pops = new ArrayList<>();
-        if (con == null) {
+        if (populationApp.con == null) {
             System.out.println("Connection not established — cannot retrieve data.");
             return pops;
         }
+        resultCache.key key = resultCache.key("populationReport.getPopulationByContinent");
+        ArrayList<populationReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
 
-        try {
-            Statement stmt = con.createStatement();
-            String query = """
-            SELECT
-                country.Continent AS name,
-                SUM(country.Population) AS totalPopulation,
-                IFNULL(SUM(city.Population), 0) AS cityPopulation,
-                ROUND((IFNULL(SUM(city.Population), 0) / SUM(country.Population)) * 100, 2) AS cityPercentage,
-                (SUM(country.Population) - IFNULL(SUM(city.Population), 0)) AS nonCityPopulation,
-                ROUND(((SUM(country.Population) - IFNULL(SUM(city.Population), 0)) / SUM(country.Population)) * 100, 2) AS nonCityPercentage
-            FROM country
-            LEFT JOIN city ON country.Code = city.CountryCode
-            GROUP BY country.Continent
-            ORDER BY totalPopulation DESC;
-        """;
+        String query = """
+        SELECT
+            country.Continent AS name,
+            SUM(country.Population) AS totalPopulation,
+            IFNULL(SUM(city.Population), 0) AS cityPopulation,
+            ROUND((IFNULL(SUM(city.Population), 0) / SUM(country.Population)) * 100, 2) AS cityPercentage,
+            (SUM(country.Population) - IFNULL(SUM(city.Population), 0)) AS nonCityPopulation,
+            ROUND(((SUM(country.Population) - IFNULL(SUM(city.Population), 0)) / SUM(country.Population)) * 100, 2) AS nonCityPercentage
+        FROM country
+        LEFT JOIN city ON country.Code = city.CountryCode
+        GROUP BY country.Continent
+        ORDER BY totalPopulation DESC
+    """;
 
-            ResultSet rset = stmt.executeQuery(query);
+        try (PreparedStatement stmt = statementCache.prepare(populationApp.con, query);
+             ResultSet rset = stmt.executeQuery()) {
+            populationReportMapper mapper = new populationReportMapper(rset);
             while (rset.next()) {
-                populationReport p = new populationReport();
-                p.name = rset.getString("name");
-                p.totalPopulation = rset.getLong("totalPopulation");
-                p.cityPopulation = rset.getLong("cityPopulation");
-                p.cityPercentage = rset.getDouble("cityPercentage");
-                p.nonCityPopulation = rset.getLong("nonCityPopulation");
-                p.nonCityPercentage = rset.getDouble("nonCityPercentage");
-                pops.add(p);
+                pops.add(mapper.map(rset));
             }
         } catch (Exception e) {
             System.out.println("Error retrieving continent data: " + e.getMessage());
+            return resultCache.abandon(key, pops, e);
         }
-        return pops;
+        return resultCache.store(key, pops, tableVersions.COUNTRY, tableVersions.CITY);
     }
 
     /**
@@ -193,42 +222,39 @@ public class populationReport extends populationApp {
      */
     public static ArrayList<populationReport> getPopulationByRegion() {
         ArrayList<populationReport> pops = new ArrayList<>();
-        if (con == null) {
+        if (populationApp.con == null) {
             System.out.println("Connection not established — cannot retrieve data.");
             return pops;
         }
+        resultCache.key key = resultCache.key("populationReport.getPopulationByRegion");
+        ArrayList<populationReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
 
-        try {
-            Statement stmt = con.createStatement();
-            String query = """
-            SELECT
-                country.Region AS name,
-                SUM(country.Population) AS totalPopulation,
-                IFNULL(SUM(city.Population), 0) AS cityPopulation,
-                ROUND((IFNULL(SUM(city.Population), 0) / SUM(country.Population)) * 100, 2) AS cityPercentage,
-                (SUM(country.Population) - IFNULL(SUM(city.Population), 0)) AS nonCityPopulation,
-                ROUND(((SUM(country.Population) - IFNULL(SUM(city.Population), 0)) / SUM(country.Population)) * 100, 2) AS nonCityPercentage
-            FROM country
-            LEFT JOIN city ON country.Code = city.CountryCode
-            GROUP BY country.Region
-            ORDER BY totalPopulation DESC;
-        """;
+        String query = """
+        SELECT
+            country.Region AS name,
+            SUM(country.Population) AS totalPopulation,
+            IFNULL(SUM(city.Population), 0) AS cityPopulation,
+            ROUND((IFNULL(SUM(city.Population), 0) / SUM(country.Population)) * 100, 2) AS cityPercentage,
+            (SUM(country.Population) - IFNULL(SUM(city.Population), 0)) AS nonCityPopulation,
+            ROUND(((SUM(country.Population) - IFNULL(SUM(city.Population), 0)) / SUM(country.Population)) * 100, 2) AS nonCityPercentage
+        FROM country
+        LEFT JOIN city ON country.Code = city.CountryCode
+        GROUP BY country.Region
+        ORDER BY totalPopulation DESC
+    """;
 
-            ResultSet rset = stmt.executeQuery(query);
+        try (PreparedStatement stmt = statementCache.prepare(populationApp.con, query);
+             ResultSet rset = stmt.executeQuery()) {
+            populationReportMapper mapper = new populationReportMapper(rset);
             while (rset.next()) {
-                populationReport p = new populationReport();
-                p.name = rset.getString("name");
-                p.totalPopulation = rset.getLong("totalPopulation");
-                p.cityPopulation = rset.getLong("cityPopulation");
-                p.cityPercentage = rset.getDouble("cityPercentage");
-                p.nonCityPopulation = rset.getLong("nonCityPopulation");
-                p.nonCityPercentage = rset.getDouble("nonCityPercentage");
-                pops.add(p);
+                pops.add(mapper.map(rset));
             }
         } catch (Exception e) {
             System.out.println("Error retrieving region data: " + e.getMessage());
+            return resultCache.abandon(key, pops, e);
         }
-        return pops;
+        return resultCache.store(key, pops, tableVersions.COUNTRY, tableVersions.CITY);
     }
 
     /**
@@ -266,42 +292,39 @@ public class populationReport extends populationApp {
      */
     public static ArrayList<populationReport> getPopulationByCountry() {
         ArrayList<populationReport> pops = new ArrayList<>();
-        if (con == null) {
+        if (populationApp.con == null) {
             System.out.println("Connection not established — cannot retrieve data.");
             return pops;
         }
+        resultCache.key key = resultCache.key("populationReport.getPopulationByCountry");
+        ArrayList<populationReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
 
-        try {
-            Statement stmt = con.createStatement();
-            String query = """
-            SELECT
-                country.Name AS name,
-                country.Population AS totalPopulation,
-                IFNULL(SUM(city.Population), 0) AS cityPopulation,
-                ROUND((IFNULL(SUM(city.Population), 0) / country.Population) * 100, 2) AS cityPercentage,
-                (country.Population - IFNULL(SUM(city.Population), 0)) AS nonCityPopulation,
-                ROUND(((country.Population - IFNULL(SUM(city.Population), 0)) / country.Population) * 100, 2) AS nonCityPercentage
-            FROM country
-            LEFT JOIN city ON country.Code = city.CountryCode
-            GROUP BY country.Code, country.Name, country.Population
-            ORDER BY totalPopulation DESC;
-        """;
+        String query = """
+        SELECT
+            country.Name AS name,
+            country.Population AS totalPopulation,
+            IFNULL(SUM(city.Population), 0) AS cityPopulation,
+            ROUND((IFNULL(SUM(city.Population), 0) / country.Population) * 100, 2) AS cityPercentage,
+            (country.Population - IFNULL(SUM(city.Population), 0)) AS nonCityPopulation,
+            ROUND(((country.Population - IFNULL(SUM(city.Population), 0)) / country.Population) * 100, 2) AS nonCityPercentage
+        FROM country
+        LEFT JOIN city ON country.Code = city.CountryCode
+        GROUP BY country.Code, country.Name, country.Population
+        ORDER BY totalPopulation DESC
+    """;
 
-            ResultSet rset = stmt.executeQuery(query);
+        try (PreparedStatement stmt = statementCache.prepare(populationApp.con, query);
+             ResultSet rset = stmt.executeQuery()) {
+            populationReportMapper mapper = new populationReportMapper(rset);
             while (rset.next()) {
-                populationReport p = new populationReport();
-                p.name = rset.getString("name");
-                p.totalPopulation = rset.getLong("totalPopulation");
-                p.cityPopulation = rset.getLong("cityPopulation");
-                p.cityPercentage = rset.getDouble("cityPercentage");
-                p.nonCityPopulation = rset.getLong("nonCityPopulation");
-                p.nonCityPercentage = rset.getDouble("nonCityPercentage");
-                pops.add(p);
+                pops.add(mapper.map(rset));
             }
         } catch (Exception e) {
             System.out.println("Error retrieving country data: " + e.getMessage());
+            return resultCache.abandon(key, pops, e);
         }
-        return pops;
+        return resultCache.store(key, pops, tableVersions.COUNTRY, tableVersions.CITY);
     }
 
     /**
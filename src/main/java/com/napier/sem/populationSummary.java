@@ -5,7 +5,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.sql.ResultSet;
-import java.sql.Statement;
+import java.sql.PreparedStatement;
 import java.util.ArrayList;
 
 /**
@@ -14,7 +14,7 @@ import java.util.ArrayList;
  * <p>
  * Responsibilities:
  * <ul>
- *   <li>Acts as a container for population data retrieved from the database</li>
+ *   <li>Acts as an immutable container for population data retrieved from the database, safe to share from {@link resultCache}</li>
  *   <li>Provides static methods to query population totals across multiple levels:
  *       <ul>
  *         <li>World</li>
@@ -30,9 +30,10 @@ import java.util.ArrayList;
  * <p>
  * Workflow:
  * <ol>
+ *   <li>Repeated queries are answered from {@link resultCache} until a table they read changes or the entry expires</li>
  *   <li>SQL queries are executed via JDBC using {@code populationApp.con}</li>
  *   <li>Population totals are aggregated using {@code UNION ALL} queries</li>
- *   <li>Results are mapped into {@code populationSummary} objects</li>
+ *   <li>Results are mapped into {@code populationSummary} objects by the generated {@code populationSummaryMapper}, which reads columns by index</li>
  *   <li>Collections of these objects are returned for further processing</li>
  *   <li>Output methods format the data into Markdown tables and write them to files</li>
  * </ol>
@@ -54,22 +55,39 @@ import java.util.ArrayList;
  * populationSummary.outputPopSummary(summaries, "PopulationSummary.md");
  * }</pre>
  */
-public class populationSummary extends populationApp{
+@mappedRow
+public class populationSummary {
 
     /**
      * The name of the geographic area (e.g., country, region, or continent).
      */
-    public String name;
+    @column("name")
+    public final String name;
 
     /**
      * The total population of the specified area.
      */
-    public long population;
+    @column("population")
+    public final long population;
 
     /**
      * The level of area (Continent, Region, Country)
      */
-    public String level;
+    @column("level")
+    public final String level;
+
+    /**
+     * Creates a population summary row.
+     *
+     * @param name       name of the area
+     * @param population population of the area
+     * @param level      level of the area, e.g. {@code "Continent"}
+     */
+    public populationSummary(String name, long population, String level) {
+        this.name = name;
+        this.population = population;
+        this.level = level;
+    }
 
 
     /**
@@ -108,82 +126,87 @@ public class populationSummary extends populationApp{
     public static ArrayList<populationSummary> getAllPopulationSummary() {
         ArrayList<populationSummary> popsums = new ArrayList<>();
 
-        if (con == null) {
+        if (populationApp.con == null) {
             System.out.println("Connection not established — cannot retrieve data.");
             return popsums;
         }
+        resultCache.key key = resultCache.key("populationSummary.getAllPopulationSummary");
+        ArrayList<populationSummary> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
 
-        try {
-            Statement stmt = con.createStatement();
-
-            String query = """
-            (
-                SELECT
-                    'World' AS name,
-                    SUM(Population) AS population,
-                    'World' AS level
-                FROM country
-            )
-            UNION ALL
-            (
-                SELECT
-                    Continent AS name,
-                    SUM(Population) AS population,
-                    'Continent' AS level
-                FROM country
-                GROUP BY Continent
-            )
-            UNION ALL
-            (
-                SELECT
-                    Region AS name,
-                    SUM(Population) AS population,
-                    'Region' AS level
-                FROM country
-                GROUP BY Region
-            )
-            UNION ALL
-            (
-                SELECT
-                    Name AS name,
-                    Population AS population,
-                    'Country' AS level
-                FROM country
-            )
-            UNION ALL
-            (
-                SELECT
-                    District AS name,
-                    SUM(Population) AS population,
-                    'District' AS level
-                FROM city
-                GROUP BY District
-            )
-            UNION ALL
-            (
-                SELECT
-                    Name AS name,
-                    Population AS population,
-                    'City' AS level
-                FROM city
-            )
-            ORDER BY level, name;
-        """;
+        String query = """
+        (
+            SELECT
+                'World' AS name,
+                SUM(Population) AS population,
+                'World' AS level
+            FROM country
+        )
+        UNION ALL
+        (
+            SELECT
+                Continent AS name,
+                SUM(Population) AS population,
+                'Continent' AS level
+            FROM country
+            GROUP BY Continent
+        )
+        UNION ALL
+        (
+            SELECT
+                Region AS name,
+                SUM(Population) AS population,
+                'Region' AS level
+            FROM country
+            GROUP BY Region
+        )
+        UNION ALL
+        (
+            SELECT
+                Name AS name,
+                Population AS population,
+                'Country' AS level
+            FROM country
+        )
+        UNION ALL
+        (
+            SELECT
+                District AS name,
+                SUM(Population) AS population,
+                'District' AS level
+            FROM city
+            GROUP BY District
+        )
+        UNION ALL
+        (
+            SELECT
+                Name AS name,
+                Population AS population,
+                'City' AS level
+            FROM city
+        )
+        ORDER BY level, name
+    """;
 
-            ResultSet rset = stmt.executeQuery(query);
-
-            while (rset.next()) {
-                populationSummary ps = new populationSummary();
-                ps.name = rset.getString("name");
-                ps.population = rset.getLong("population");
-                ps.level = rset.getString("level");
-                popsums.add(ps);
+        // Every district and city: read through a cursor sized from the rows, not buffered whole
+        try (PreparedStatement stmt = statementCache.prepare(populationApp.con, query)) {
+            adaptiveFetch fetch = adaptiveFetch.start(query);
+            stmt.setFetchSize(fetch.size());
+            try (ResultSet rset = stmt.executeQuery()) {
+                populationSummaryMapper mapper = new populationSummaryMapper(rset);
+                while (rset.next()) {
+                    populationSummary row = mapper.map(rset);
+                    popsums.add(row);
+                    fetch.observe(rset, row);
+                }
             }
+            fetch.finish();
         } catch (Exception e) {
             System.out.println("Error retrieving population summary data: " + e.getMessage());
+            return resultCache.abandon(key, popsums, e);
         }
 
-        return popsums;
+        return resultCache.store(key, popsums, tableVersions.COUNTRY, tableVersions.CITY);
     }
 
     /**
@@ -0,0 +1,489 @@
+package com.napier.sem;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The {@code queryBatch} class fetches the results of many independent DAO calls in one
+ * multi-statement round trip, instead of one round trip per query.
+ * <p>
+ * The DAO methods stay unchanged: {@link #prefetch(List)} runs each call three times over.
+ * <ol>
+ *   <li>Record: each call runs with {@link statementCache#prepare(Connection, String)} handing out
+ *       recording statements, which note the SQL and parameters and return no rows</li>
+ *   <li>Execute: the recorded SELECTs are joined with {@code ;} and sent as one request
+ *       (this needs {@code allowMultiQueries=true} on the connection URL); every result set is
+ *       read into memory</li>
+ *   <li>Replay: each call runs again, this time receiving its buffered result set, so its own
+ *       row mapping builds the report and {@link resultCache} stores it</li>
+ * </ol>
+ * The report code that runs afterwards finds every result in {@link resultCache}.
+ * <p>
+ * Limits of running the DAO code unchanged:
+ * <ul>
+ *   <li>During the record pass every SELECT returns no rows, so DAO code after its query must
+ *       do nothing with the result but return it; {@link resultCache} neither caches nor shares
+ *       it, and {@link capitalIndex} does not load from it</li>
+ *   <li>Replayed result sets are forward-only and support the column getters by label or index,
+ *       {@code findColumn}, {@code wasNull} and {@code getMetaData} (column count and labels);
+ *       every other method returns {@code null}, zero or {@code false}</li>
+ * </ul>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>Calls already answered by {@link resultCache} record nothing and cost nothing</li>
+ *   <li>Only SELECTs are recorded; other statements (e.g. {@code CHECKSUM TABLE}) run as usual</li>
+ *   <li>If the multi-statement request fails (e.g. the server rejects multiple statements), each
+ *       statement is sent on its own, so the reports are still produced</li>
+ *   <li>A statement that was not recorded (the call took a different path on replay) runs for real</li>
+ *   <li>At most {@link #MAX_STATEMENTS} statements go into one request</li>
+ *   <li>Recording and replay are per thread, so other threads keep querying normally</li>
+ *   <li>{@link #roundTripsUnbatched()} counts an execute per statement plus a prepare per
+ *       statement shape not already in {@link statementCache}, as the calls would take one by one</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * queryBatch.prefetch(List.of(
+ *         () -> cityReport.getCitiesByRegion("Eastern Asia", 42),
+ *         () -> countryReport.getTopCountriesByPopulation(10)));
+ * ArrayList<cityReport> cities = cityReport.getCitiesByRegion("Eastern Asia", 42); // cache hit
+ * }</pre>
+ */
+public class queryBatch {
+
+    /**
+     * Most statements sent in one request.
+     */
+    static final int MAX_STATEMENTS = 64;
+
+    private static final int RECORD = 1;
+    private static final int REPLAY = 2;
+
+    private static final ThreadLocal<queryBatch> active = new ThreadLocal<>();
+
+    private static final AtomicLong statements = new AtomicLong();
+    private static final AtomicLong roundTrips = new AtomicLong();
+    private static final AtomicLong roundTripsUnbatched = new AtomicLong();
+    private static final AtomicLong nanos = new AtomicLong();
+
+    private int mode;
+    private final ArrayList<statement> recorded = new ArrayList<>();
+    private final HashMap<String, ArrayDeque<buffered>> results = new HashMap<>();
+
+    /**
+     * A recorded SELECT and its parameters.
+     */
+    static final class statement {
+        final String sql;
+        final Object[] params;
+
+        statement(String sql, Object[] params) {
+            this.sql = sql;
+            this.params = params;
+        }
+
+        String key() {
+            return statementCache.shape(sql) + Arrays.deepToString(params);
+        }
+    }
+
+    /**
+     * A result set read into memory.
+     */
+    static final class buffered {
+        final String[] labels;
+        final HashMap<String, Integer> columns = new HashMap<>();
+        final ArrayList<Object[]> rows = new ArrayList<>();
+
+        buffered(ResultSet rset) throws SQLException {
+            ResultSetMetaData md = rset.getMetaData();
+            int n = md.getColumnCount();
+            labels = new String[n];
+            for (int i = n; i >= 1; i--) {
+                labels[i - 1] = md.getColumnLabel(i);
+                columns.put(labels[i - 1].toLowerCase(Locale.ROOT), i);
+            }
+            while (rset.next()) {
+                Object[] row = new Object[n];
+                for (int i = 0; i < n; i++) row[i] = rset.getObject(i + 1);
+                rows.add(row);
+            }
+        }
+    }
+
+    /**
+     * Runs DAO calls with all of their SELECTs fetched in as few round trips as possible,
+     * leaving the results in {@link resultCache}.
+     *
+     * @param calls DAO calls, e.g. {@code () -> cityReport.getTopCitiesInWorld(10)}
+     * @return number of statements fetched in the batch
+     */
+    public static int prefetch(List<? extends Supplier<?>> calls) {
+        if (populationApp.con == null || calls.isEmpty()) return 0;
+        tableVersions.refreshIfDue();
+        queryBatch batch = new queryBatch();
+        batch.mode = RECORD;
+        active.set(batch);
+        try {
+            for (Supplier<?> call : calls) call.get();
+        } finally {
+            active.remove();
+        }
+        if (batch.recorded.isEmpty()) return 0;
+
+        HashSet<String> prepared = new HashSet<>();
+        for (statement s : batch.recorded) {
+            boolean cached = statementCache.isCached(populationApp.con, s.sql) || !prepared.add(statementCache.shape(s.sql));
+            roundTripsUnbatched.addAndGet(cached ? 1 : 2);
+        }
+
+        long start = System.nanoTime();
+        batch.execute(populationApp.con);
+        nanos.addAndGet(System.nanoTime() - start);
+        statements.addAndGet(batch.recorded.size());
+
+        batch.mode = REPLAY;
+        active.set(batch);
+        try {
+            for (Supplier<?> call : calls) call.get();
+        } finally {
+            active.remove();
+        }
+        return batch.recorded.size();
+    }
+
+    /**
+     * Runs one DAO call in record mode and returns the SELECTs it would have sent, in order.
+     *
+     * @param call DAO call
+     * @return the recorded statements; empty if the call was answered by {@link resultCache}
+     *         or returned before querying
+     */
+    static List<statement> record(Supplier<?> call) {
+        tableVersions.refreshIfDue();
+        queryBatch batch = new queryBatch();
+        batch.mode = RECORD;
+        queryBatch outer = active.get();
+        active.set(batch);
+        try {
+            call.get();
+        } finally {
+            if (outer == null) active.remove();
+            else active.set(outer);
+        }
+        return batch.recorded;
+    }
+
+    /**
+     * Whether the current thread is recording, in which case {@link resultCache} neither caches
+     * nor shares the empty results DAO calls return.
+     *
+     * @return {@code true} during the record pass of {@link #prefetch(List)}
+     */
+    static boolean recording() {
+        queryBatch batch = active.get();
+        return batch != null && batch.mode == RECORD;
+    }
+
+    /**
+     * Called by {@link statementCache#prepare(Connection, String)}: returns a recording or replaying
+     * statement while a batch is active on this thread, otherwise {@code null}.
+     *
+     * @param con connection the DAO prepares on
+     * @param sql SQL text
+     * @return a stand-in statement, or {@code null} to prepare normally
+     */
+    static PreparedStatement intercept(Connection con, String sql) {
+        queryBatch batch = active.get();
+        if (batch == null || !statementCache.shape(sql).regionMatches(true, 0, "SELECT", 0, 6)) return null;
+        return batch.standIn(con, sql);
+    }
+
+    /**
+     * Number of statements sent in batches.
+     *
+     * @return statement count
+     */
+    public static long statements() {
+        return statements.get();
+    }
+
+    /**
+     * Number of requests the batches took, including single-statement fallbacks, their prepares,
+     * and statements run for real on replay.
+     *
+     * @return round trip count
+     */
+    public static long roundTrips() {
+        return roundTrips.get();
+    }
+
+    /**
+     * Number of requests the same statements would have taken sent one by one: an execute each,
+     * and a prepare for each shape not already cached.
+     *
+     * @return round trip count without batching
+     */
+    public static long roundTripsUnbatched() {
+        return roundTripsUnbatched.get();
+    }
+
+    /**
+     * Time spent executing batches.
+     *
+     * @return nanoseconds
+     */
+    public static long nanos() {
+        return nanos.get();
+    }
+
+    /**
+     * Resets the counters.
+     */
+    static void resetCounters() {
+        statements.set(0);
+        roundTrips.set(0);
+        roundTripsUnbatched.set(0);
+        nanos.set(0);
+    }
+
+    /**
+     * Summarises the counters, e.g. {@code "Query batch: 27 statements in 1 round trips (54 without batching), 38.2 ms"}.
+     *
+     * @return a one-line summary
+     */
+    public static String summary() {
+        return String.format("Query batch: %d statements in %d round trips (%d without batching), %.1f ms",
+                statements(), roundTrips(), roundTripsUnbatched(), nanos() / 1_000_000.0);
+    }
+
+    /**
+     * Sends the recorded statements in chunks of {@link #MAX_STATEMENTS}, buffering every result set.
+     */
+    private void execute(Connection con) {
+        for (int from = 0; from < recorded.size(); from += MAX_STATEMENTS) {
+            List<statement> chunk = recorded.subList(from, Math.min(recorded.size(), from + MAX_STATEMENTS));
+            try {
+                executeTogether(con, chunk);
+            } catch (SQLException e) {
+                System.out.println("Error: " + e.getMessage());
+                for (statement s : chunk) {
+                    try {
+                        executeTogether(con, List.of(s));
+                    } catch (SQLException e2) {
+                        System.out.println("Error: " + e2.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private void executeTogether(Connection con, List<statement> chunk) throws SQLException {
+        StringBuilder sql = new StringBuilder();
+        for (statement s : chunk) {
+            if (sql.length() > 0) sql.append(";\n");
+            sql.append(withoutSemicolon(s.sql));
+        }
+        ArrayList<buffered> sets = new ArrayList<>(chunk.size());
+        // SQL holding ';' is prepared on the client, so only a lone statement may need a prepare
+        roundTrips.addAndGet(chunk.size() == 1 && !statementCache.isCached(con, sql.toString()) ? 2 : 1);
+        try (PreparedStatement pstmt = statementCache.prepare(con, sql.toString())) {
+            int index = 1;
+            for (statement s : chunk) {
+                for (Object p : s.params) pstmt.setObject(index++, p);
+            }
+            boolean isResult = pstmt.execute();
+            while (true) {
+                if (isResult) {
+                    try (ResultSet rset = pstmt.getResultSet()) {
+                        sets.add(new buffered(rset));
+                    }
+                } else if (pstmt.getUpdateCount() == -1) {
+                    break;
+                }
+                isResult = pstmt.getMoreResults();
+            }
+        }
+        if (sets.size() != chunk.size()) {
+            throw new SQLException("Expected " + chunk.size() + " result sets but got " + sets.size());
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            results.computeIfAbsent(chunk.get(i).key(), k -> new ArrayDeque<>()).add(sets.get(i));
+        }
+    }
+
+    private static String withoutSemicolon(String sql) {
+        String s = sql.strip();
+        while (s.endsWith(";")) s = s.substring(0, s.length() - 1).strip();
+        return s;
+    }
+
+    /**
+     * A statement that collects its parameters; on execution it records itself (record pass)
+     * or returns its buffered result (replay pass).
+     */
+    private PreparedStatement standIn(Connection con, String sql) {
+        TreeMap<Integer, Object> params = new TreeMap<>();
+        PreparedStatement[] real = {null};
+        return (PreparedStatement) Proxy.newProxyInstance(queryBatch.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        params.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                        return null;
+                    }
+                    switch (name) {
+                        case "clearParameters":
+                            params.clear();
+                            return null;
+                        case "executeQuery":
+                            statement s = new statement(sql, params.values().toArray());
+                            if (mode == RECORD) {
+                                recorded.add(s);
+                                return rows(new buffered(emptyResult()));
+                            }
+                            ArrayDeque<buffered> queue = results.get(s.key());
+                            if (queue != null && !queue.isEmpty()) return rows(queue.poll());
+                            long trips = statementCache.isCached(con, sql) ? 1 : 2;
+                            roundTrips.addAndGet(trips);
+                            roundTripsUnbatched.addAndGet(trips);
+                            real[0] = statementCache.prepareDirect(con, sql);
+                            for (var p : params.entrySet()) real[0].setObject(p.getKey(), p.getValue());
+                            return real[0].executeQuery();
+                        case "close":
+                            if (real[0] != null) real[0].close();
+                            return null;
+                        case "isClosed":
+                            return false;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return defaultValue(method);
+                    }
+                });
+    }
+
+    /**
+     * A result set with no columns and no rows, used during the record pass.
+     */
+    private static ResultSet emptyResult() {
+        ResultSetMetaData md = (ResultSetMetaData) Proxy.newProxyInstance(queryBatch.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, (p, m, a) -> defaultValue(m));
+        return (ResultSet) Proxy.newProxyInstance(queryBatch.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (p, m, a) -> m.getName().equals("getMetaData") ? md : defaultValue(m));
+    }
+
+    /**
+     * A read-only, forward-only result set over buffered rows, supporting the getters the DAOs use.
+     */
+    static ResultSet rows(buffered data) {
+        int[] cursor = {-1};
+        boolean[] wasNull = {false};
+        return (ResultSet) Proxy.newProxyInstance(queryBatch.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    switch (name) {
+                        case "next":
+                            return ++cursor[0] < data.rows.size();
+                        case "wasNull":
+                            return wasNull[0];
+                        case "close":
+                            return null;
+                        case "isClosed":
+                            return false;
+                        case "findColumn":
+                            return column(data, args[0]);
+                        case "getMetaData":
+                            return metaData(data);
+                        default:
+                            break;
+                    }
+                    if (!name.startsWith("get") || args == null || args.length != 1 || name.equals("getMetaData")) {
+                        return defaultValue(method);
+                    }
+                    if (cursor[0] < 0 || cursor[0] >= data.rows.size()) throw new SQLException("No current row");
+                    Object value = data.rows.get(cursor[0])[column(data, args[0]) - 1];
+                    wasNull[0] = value == null;
+                    return convert(value, method.getReturnType());
+                });
+    }
+
+    /**
+     * Metadata of buffered rows: the column count and labels; other methods return defaults.
+     */
+    private static ResultSetMetaData metaData(buffered data) {
+        return (ResultSetMetaData) Proxy.newProxyInstance(queryBatch.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return data.labels.length;
+                        case "getColumnLabel":
+                        case "getColumnName":
+                            int i = (Integer) args[0];
+                            if (i < 1 || i > data.labels.length) throw new SQLException("Invalid column index " + i);
+                            return data.labels[i - 1];
+                        default:
+                            return defaultValue(method);
+                    }
+                });
+    }
+
+    private static int column(buffered data, Object labelOrIndex) throws SQLException {
+        if (labelOrIndex instanceof Integer) return (Integer) labelOrIndex;
+        Integer index = data.columns.get(((String) labelOrIndex).toLowerCase(Locale.ROOT));
+        if (index == null) throw new SQLException("Column '" + labelOrIndex + "' not found");
+        return index;
+    }
+
+    private static Object convert(Object value, Class<?> type) {
+        if (type == Object.class) return value;
+        if (type == String.class) return value == null ? null : value.toString();
+        if (value == null) return type.isPrimitive() ? defaultValue(type) : null;
+        if (type == int.class) return ((Number) value).intValue();
+        if (type == long.class) return ((Number) value).longValue();
+        if (type == double.class) return ((Number) value).doubleValue();
+        if (type == float.class) return ((Number) value).floatValue();
+        if (type == boolean.class) {
+            return value instanceof Boolean ? value : value instanceof Number ? ((Number) value).intValue() != 0 : "1".equals(value.toString());
+        }
+        if (type == BigDecimal.class) return value instanceof BigDecimal ? value : new BigDecimal(value.toString());
+        if (type == Timestamp.class && value instanceof LocalDateTime) return Timestamp.valueOf((LocalDateTime) value);
+        return value;
+    }
+
+    private static Object defaultValue(Method method) {
+        return defaultValue(method.getReturnType());
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0.0;
+        if (type == float.class) return 0f;
+        if (type == short.class) return (short) 0;
+        if (type == byte.class) return (byte) 0;
+        return null;
+    }
+}
@@ -0,0 +1,165 @@
+package com.napier.sem;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The {@code reportCatalog} class runs ad-hoc reports defined as {@link reportQuery} text,
+ * so a new one-off report is a line in {@code reportCatalog.txt} rather than a Java change.
+ * <p>
+ * Each catalog line reads {@code <output file>: <query>}; blank lines and lines starting
+ * with {@code #} are ignored.
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>{@link #load()} reads the catalog from the classpath, in file order</li>
+ *   <li>{@link #runAll()} compiles and runs every query against the snapshot, or in MySQL
+ *       (fetching only the projected columns) when no snapshot is loaded</li>
+ *   <li>{@link #outputQueryReport} writes each result as a Markdown table under {@code /reports/adhocReports}</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>A missing catalog yields no reports; malformed lines are logged and skipped</li>
+ *   <li>An invalid query or an empty result writes a placeholder file, like the other reports</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * snapshotEngine.load();
+ * reportCatalog.runAll();
+ * }</pre>
+ */
+public class reportCatalog {
+
+    /**
+     * Classpath resource holding the catalog.
+     */
+    public static final String RESOURCE = "/reportCatalog.txt";
+
+    /**
+     * Reads the catalog from the classpath.
+     *
+     * @return queries by output file name, in catalog order; empty if the catalog is missing or unreadable
+     */
+    public static LinkedHashMap<String, String> load() {
+        try (InputStream in = reportCatalog.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) return new LinkedHashMap<>();
+            return parse(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+            return new LinkedHashMap<>();
+        }
+    }
+
+    /**
+     * Parses catalog lines of the form {@code <output file>: <query>}.
+     *
+     * @param reader catalog text
+     * @return queries by output file name, in catalog order
+     * @throws IOException if the reader fails
+     */
+    static LinkedHashMap<String, String> parse(Reader reader) throws IOException {
+        LinkedHashMap<String, String> reports = new LinkedHashMap<>();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int number = 0;
+        while ((line = lines.readLine()) != null) {
+            number++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            int colon = line.indexOf(':');
+            if (colon <= 0 || colon == line.length() - 1) {
+                System.out.println("Error: catalog line " + number + " is not '<file>: <query>'");
+                continue;
+            }
+            reports.put(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+        }
+        return reports;
+    }
+
+    /**
+     * Runs every catalog report and writes its output file.
+     *
+     * @return number of reports run
+     */
+    public static int runAll() {
+        LinkedHashMap<String, String> reports = load();
+        for (Map.Entry<String, String> report : reports.entrySet()) {
+            String query = report.getValue();
+            outputQueryReport(snapshotEngine.snapshot != null ? reportQuery.run(query) : reportQuery.runOnDatabase(query),
+                    report.getKey());
+        }
+        return reports.size();
+    }
+
+    /**
+     * Outputs a query result to a Markdown file in the {@code /reports/adhocReports} directory.
+     * <p>
+     * Workflow:
+     * <ul>
+     *   <li>Builds a Markdown table with one column per projected column</li>
+     *   <li>Writes whole numbers as they are and other numbers to two decimal places</li>
+     *   <li>Writes the table to the specified file</li>
+     * </ul>
+     * <p>
+     * Edge-case handling:
+     * <ul>
+     *   <li>If the result has no rows, writes a placeholder file</li>
+     *   <li>Missing values are written as empty cells</li>
+     * </ul>
+     *
+     * @param result   query result to write
+     * @param filename name of the output file to generate (e.g., {@code "DensestCountries.md"})
+     */
+    public static void outputQueryReport(snapshotQuery.result result, String filename) {
+        StringBuilder sb = new StringBuilder();
+        boolean empty = result == null || result.rows.isEmpty();
+        if (!empty) {
+            sb.append('|');
+            for (String column : result.columns) sb.append(' ').append(column).append(" |");
+            sb.append("\r\n|");
+            for (int i = 0; i < result.columns.length; i++) sb.append(" --- |");
+            sb.append("\r\n");
+            for (Object[] row : result.rows) {
+                sb.append('|');
+                for (Object value : row) sb.append(' ').append(format(value)).append(" |");
+                sb.append("\r\n");
+            }
+        }
+
+        try {
+            File dir = new File("./reports/adhocReports/");
+            dir.mkdirs();
+            File outFile = new File(dir, filename);
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(outFile))) {
+                if (empty) {
+                    writer.write("# Ad-hoc Report\n\n");
+                    writer.write("No results found for this query.\n");
+                } else {
+                    writer.write(sb.toString());
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (empty) {
+            System.out.println("No ad-hoc report data available, wrote placeholder file.");
+        }
+    }
+
+    private static String format(Object value) {
+        if (value == null) return "";
+        if (value instanceof Double) return String.format("%,.2f", (Double) value);
+        return value.toString();
+    }
+}
@@ -0,0 +1,229 @@
+package com.napier.sem;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The {@code reportDeadline} class bounds how long one report may spend in MySQL, so a slow or
+ * locked query fails that report instead of blocking the rest of the run.
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>{@link #run(String, long, Supplier)} opens a deadline for the calling thread and arms a
+ *       watchdog for it</li>
+ *   <li>Every statement the report leases from {@link statementCache} gets a query timeout of the
+ *       time left, rounded up to whole seconds, and is remembered until its lease is closed</li>
+ *   <li>When the deadline passes, the watchdog cancels the statements the report still holds, so a
+ *       blocked {@code executeQuery} returns with an exception the DAO's catch block already handles</li>
+ *   <li>A report that ran past its deadline is recorded with {@link reportRun#fail(String, String)},
+ *       so the run manifest marks it as failed rather than empty</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>Once the deadline has passed, leasing another statement throws {@link SQLTimeoutException}
+ *       without a round trip</li>
+ *   <li>Results of an expired report are not cached, as they may be partial</li>
+ *   <li>A report run inside another report's deadline shares the outer deadline</li>
+ *   <li>Outside a deadline, leased statements have their query timeout cleared</li>
+ *   <li>The watchdog never cancels after the report has returned, nor a statement whose lease the
+ *       report has closed, so it cannot hit another report's query on a statement reused from the
+ *       cache, e.g. one run by {@link asyncReports} on the same connection</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * ArrayList<cityReport> cities = reportDeadline.run("CityPopulation", 5_000,
+ *         () -> cityReport.getAllCitiesByPopulation(42));
+ * }</pre>
+ */
+public class reportDeadline {
+
+    /**
+     * Deadline used by {@link #run(String, Supplier)}.
+     */
+    public static final long DEFAULT_MILLIS = 30_000L;
+
+    private static volatile long defaultMillis = DEFAULT_MILLIS;
+
+    private static final ThreadLocal<deadline> current = new ThreadLocal<>();
+
+    private static final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "report-deadline-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final AtomicLong timeouts = new AtomicLong();
+    private static final AtomicLong cancelled = new AtomicLong();
+
+    /**
+     * One report's deadline and the statements it has leased.
+     */
+    private static final class deadline {
+        final String report;
+        final long millis;
+        final long endsAt;
+        final ArrayList<Statement> statements = new ArrayList<>();
+        boolean expired = false;
+        boolean done = false;
+
+        deadline(String report, long millis) {
+            this.report = report;
+            this.millis = millis;
+            this.endsAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        synchronized void forget(Statement stmt) {
+            statements.removeIf(s -> s == stmt);
+        }
+
+        synchronized void expire() {
+            if (done) return;
+            expired = true;
+            for (Statement stmt : statements) {
+                try {
+                    stmt.cancel();
+                    cancelled.incrementAndGet();
+                } catch (Exception e) {
+                    System.out.println("Error: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a report under the default deadline.
+     *
+     * @param report report name recorded in the run manifest
+     * @param body   runs the report
+     * @param <T>    result type
+     * @return the report's result; empty or partial if it timed out
+     */
+    public static <T> T run(String report, Supplier<T> body) {
+        return run(report, defaultMillis, body);
+    }
+
+    /**
+     * Runs a report under a deadline.
+     *
+     * @param report report name recorded in the run manifest
+     * @param millis longest time the report may take
+     * @param body   runs the report
+     * @param <T>    result type
+     * @return the report's result; empty or partial if it timed out
+     */
+    public static <T> T run(String report, long millis, Supplier<T> body) {
+        if (current.get() != null) return body.get();
+        deadline d = new deadline(report, millis);
+        current.set(d);
+        ScheduledFuture<?> alarm = watchdog.schedule(d::expire, millis, TimeUnit.MILLISECONDS);
+        try {
+            return body.get();
+        } finally {
+            synchronized (d) {
+                d.done = true;
+                alarm.cancel(false);
+            }
+            current.remove();
+            if (d.expired || System.nanoTime() - d.endsAt >= 0) {
+                timeouts.incrementAndGet();
+                reportRun.fail(report, "timed out after " + millis + " ms");
+            }
+        }
+    }
+
+    /**
+     * Applies the calling thread's deadline to a statement about to be used.
+     *
+     * @param stmt statement leased by {@link statementCache}
+     * @return runs when the lease is closed, before the statement goes back to the cache, so the
+     *         deadline no longer cancels it
+     * @throws SQLException if the deadline has already passed
+     */
+    static Runnable guard(Statement stmt) throws SQLException {
+        deadline d = current.get();
+        if (d == null) {
+            stmt.setQueryTimeout(0);
+            return () -> { };
+        }
+        synchronized (d) {
+            long left = d.endsAt - System.nanoTime();
+            if (d.expired || left <= 0) {
+                d.expired = true;
+                throw new SQLTimeoutException("Deadline of " + d.millis + " ms passed for " + d.report);
+            }
+            stmt.setQueryTimeout((int) Math.max(1, (left + 999_999_999L) / 1_000_000_000L));
+            d.statements.add(stmt);
+        }
+        return () -> d.forget(stmt);
+    }
+
+    /**
+     * Returns whether the calling thread's deadline has passed, e.g. before caching a result.
+     *
+     * @return {@code true} inside an expired deadline
+     */
+    static boolean expired() {
+        deadline d = current.get();
+        if (d == null) return false;
+        synchronized (d) {
+            return d.expired || d.endsAt - System.nanoTime() <= 0;
+        }
+    }
+
+    /**
+     * Sets the deadline used by {@link #run(String, Supplier)}.
+     *
+     * @param millis longest time a report may take
+     */
+    public static void setDefaultMillis(long millis) {
+        if (millis <= 0) throw new IllegalArgumentException("Deadline must be positive");
+        defaultMillis = millis;
+    }
+
+    /**
+     * Number of reports that ran past their deadline.
+     *
+     * @return timeout count
+     */
+    public static long timeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * Number of statements cancelled by the watchdog.
+     *
+     * @return cancel count
+     */
+    public static long cancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Summarises the counters, e.g. {@code "Report deadlines: 30000 ms, 1 timed out, 1 statements cancelled"}.
+     *
+     * @return a one-line summary
+     */
+    public static String summary() {
+        return String.format("Report deadlines: %d ms, %d timed out, %d statements cancelled",
+                defaultMillis, timeouts(), cancelled());
+    }
+
+    /**
+     * Resets the counters and the default deadline.
+     */
+    static void reset() {
+        defaultMillis = DEFAULT_MILLIS;
+        timeouts.set(0);
+        cancelled.set(0);
+    }
+}
@@ -0,0 +1,388 @@
+package com.napier.sem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code reportQuery} class parses a small SQL-like language into a {@link snapshotQuery},
+ * so one-off reports can be defined as text instead of a new DAO method.
+ * <p>
+ * Grammar (keywords and column names are case-insensitive):
+ * <pre>
+ * query  := [ select column {, column} from ] ( cities | countries )
+ *           [ where column cmp literal { and column cmp literal } ]
+ *           [ order by column [ asc | desc ] { , column [ asc | desc ] } ]
+ *           [ limit number ] [ offset number ]       (limit and offset in either order)
+ * cmp    := = | != | &lt;&gt; | &lt; | &lt;= | &gt; | &gt;=
+ * literal:= 'text' (quote doubled inside) | number (e.g. 1000000, 1e6, 72.5)
+ * </pre>
+ * Column names are the {@link snapshotColumn} names in lower case ({@code city_population},
+ * {@code life_expectancy}, ...). On top of those, {@code name}, {@code population} and
+ * {@code id} mean the city's or the country's own column depending on the table, and
+ * {@code city}, {@code country} and {@code code} are short for the name and code columns.
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>{@link #compile(String)} tokenises and parses the text once</li>
+ *   <li>The parsed query is normalised with {@code snapshotQuery.key()}; spellings that mean the
+ *       same query share one compiled instance</li>
+ *   <li>{@link #run(String)} executes the compiled query at engine speed, or
+ *       {@link #runOnDatabase(String)} in MySQL, selecting only the projected columns</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>Syntax errors name the offending token and its position</li>
+ *   <li>{@code limit} is capped at 42 like every other general report</li>
+ *   <li>{@link #run(String)} and {@link #runOnDatabase(String)} log any error and return an empty result</li>
+ *   <li>Compiled queries are never modified after parsing, so they are safe to share</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * snapshotQuery.result r = reportQuery.run(
+ *         "cities where continent = 'Asia' and population > 1e6 order by population desc limit 20");
+ * }</pre>
+ */
+public class reportQuery {
+
+    /**
+     * Compiled queries by normalised key.
+     */
+    private static final ConcurrentHashMap<String, snapshotQuery> byKey = new ConcurrentHashMap<>();
+
+    /**
+     * Compiled queries by the exact text they were parsed from, so repeated text skips the parser.
+     */
+    private static final ConcurrentHashMap<String, snapshotQuery> byText = new ConcurrentHashMap<>();
+
+    /**
+     * Once either cache holds this many entries it is cleared rather than grown.
+     */
+    static final int MAX_CACHED = 256;
+
+    /**
+     * Column names accepted in the language, other than the table-dependent aliases.
+     */
+    private static final HashMap<String, snapshotColumn> names = new HashMap<>();
+
+    static {
+        for (snapshotColumn c : snapshotColumn.values()) names.put(c.name().toLowerCase(Locale.ROOT), c);
+        names.put("city", snapshotColumn.CITY_NAME);
+        names.put("country", snapshotColumn.COUNTRY_NAME);
+        names.put("code", snapshotColumn.COUNTRY_CODE);
+    }
+
+    private final String text;
+    private final ArrayList<String> tokens = new ArrayList<>();
+    private final ArrayList<Integer> positions = new ArrayList<>();
+    private int next = 0;
+    private boolean cities;
+
+    private reportQuery(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses query text into a compiled query, reusing an earlier compilation when possible.
+     *
+     * @param text query text
+     * @return the compiled query; shared, so callers must not modify it
+     * @throws IllegalArgumentException if the text is not a valid query
+     */
+    public static snapshotQuery compile(String text) {
+        if (text == null) throw new IllegalArgumentException("Query text is null");
+        snapshotQuery cached = byText.get(text);
+        if (cached != null) return cached;
+
+        snapshotQuery parsed = new reportQuery(text).parse();
+        if (byKey.size() >= MAX_CACHED) byKey.clear();
+        snapshotQuery compiled = byKey.computeIfAbsent(parsed.key(), k -> parsed);
+        if (byText.size() >= MAX_CACHED) byText.clear();
+        byText.put(text, compiled);
+        return compiled;
+    }
+
+    /**
+     * Returns the normalised form of a query, e.g. for use as a cache key.
+     *
+     * @param text query text
+     * @return the normalised text
+     * @throws IllegalArgumentException if the text is not a valid query
+     */
+    public static String normalize(String text) {
+        return compile(text).key();
+    }
+
+    /**
+     * Compiles and runs a query against {@code snapshotEngine.snapshot}.
+     *
+     * @param text query text
+     * @return the selected rows; empty if the text is invalid or no snapshot is loaded
+     */
+    public static snapshotQuery.result run(String text) {
+        try {
+            return compile(text).run();
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+            return new snapshotQuery.result(new String[0], new ArrayList<>(), snapshotQuery.PLAN_SCAN);
+        }
+    }
+
+    /**
+     * Compiles and runs a query in MySQL through {@code populationApp.con}.
+     *
+     * @param text query text
+     * @return the selected rows; empty if the text is invalid or there is no connection
+     */
+    public static snapshotQuery.result runOnDatabase(String text) {
+        try {
+            return compile(text).runOnDatabase();
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+            return new snapshotQuery.result(new String[0], new ArrayList<>(), snapshotQuery.PLAN_SQL);
+        }
+    }
+
+    /**
+     * Number of distinct compiled queries currently cached.
+     *
+     * @return cached query count
+     */
+    static int cachedQueries() {
+        return byKey.size();
+    }
+
+    /**
+     * Empties the compiled query cache.
+     */
+    static void clearCache() {
+        byKey.clear();
+        byText.clear();
+    }
+
+    /**
+     * Spelling of an operator in the language.
+     *
+     * @param operator comparison
+     * @return its symbol
+     */
+    static String symbol(snapshotQuery.op operator) {
+        switch (operator) {
+            case EQ: return "=";
+            case NE: return "!=";
+            case LT: return "<";
+            case LE: return "<=";
+            case GT: return ">";
+            default: return ">=";
+        }
+    }
+
+    /**
+     * Parses the whole text: optional projection, table, filters, ordering, limit and offset.
+     */
+    private snapshotQuery parse() {
+        tokenize();
+        ArrayList<Integer> projection = null;
+        if (accept("select")) {
+            projection = new ArrayList<>();
+            do {
+                projection.add(next);
+                word("a column name");
+            } while (accept(","));
+            expect("from");
+        }
+        String table = word("'cities' or 'countries'");
+        if (!table.equals("cities") && !table.equals("countries")) {
+            throw error(next - 1, "expected 'cities' or 'countries'");
+        }
+        cities = table.equals("cities");
+        snapshotQuery q = cities ? snapshotQuery.cities() : snapshotQuery.countries();
+
+        if (projection != null) {
+            snapshotColumn[] columns = new snapshotColumn[projection.size()];
+            for (int i = 0; i < columns.length; i++) columns[i] = column(projection.get(i));
+            q.select(columns);
+        }
+        if (accept("where")) {
+            do {
+                word("a column name");
+                snapshotColumn column = column(next - 1);
+                snapshotQuery.op operator = operator();
+                Object value = literal();
+                if (column.text != value instanceof String) {
+                    throw error(next - 1, column.name().toLowerCase(Locale.ROOT)
+                            + (column.text ? " needs a quoted text value" : " needs a numeric value"));
+                }
+                q.where(column, operator, value);
+            } while (accept("and"));
+        }
+        if (accept("order")) {
+            expect("by");
+            do {
+                word("a column name");
+                snapshotColumn column = column(next - 1);
+                boolean descending = accept("desc");
+                if (!descending) accept("asc");
+                q.orderBy(column, descending);
+            } while (accept(","));
+        }
+        // limit and offset may come in either order
+        boolean limited = false;
+        boolean offsetted = false;
+        for (int i = 0; i < 2; i++) {
+            if (!limited && accept("limit")) {
+                q.limit(count());
+                limited = true;
+            } else if (!offsetted && accept("offset")) {
+                q.offset(count());
+                offsetted = true;
+            }
+        }
+        if (next < tokens.size()) throw error(next, "unexpected '" + tokens.get(next) + "'");
+        return q;
+    }
+
+    /**
+     * Splits the text into words, quoted strings, numbers and symbols, remembering where each starts.
+     */
+    private void tokenize() {
+        int i = 0;
+        int n = text.length();
+        while (i < n) {
+            char c = text.charAt(i);
+            int start = i;
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (c == '\'') {
+                StringBuilder sb = new StringBuilder("'");
+                i++;
+                while (true) {
+                    if (i >= n) throw new IllegalArgumentException("Unterminated text at position " + start);
+                    char d = text.charAt(i++);
+                    if (d == '\'') {
+                        if (i < n && text.charAt(i) == '\'') {
+                            sb.append('\'');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        sb.append(d);
+                    }
+                }
+                add(sb.toString(), start);
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < n && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '_')) i++;
+                add(text.substring(start, i).toLowerCase(Locale.ROOT), start);
+            } else if (Character.isDigit(c) || c == '.' || c == '-') {
+                i++;
+                while (i < n) {
+                    char d = text.charAt(i);
+                    boolean exponentSign = (d == '+' || d == '-') && (text.charAt(i - 1) == 'e' || text.charAt(i - 1) == 'E');
+                    if (!Character.isDigit(d) && d != '.' && d != 'e' && d != 'E' && !exponentSign) break;
+                    i++;
+                }
+                add(text.substring(start, i), start);
+            } else if (c == '<' || c == '>' || c == '!') {
+                i++;
+                if (i < n && (text.charAt(i) == '=' || (c == '<' && text.charAt(i) == '>'))) i++;
+                add(text.substring(start, i), start);
+            } else if (c == '=' || c == ',') {
+                i++;
+                add(String.valueOf(c), start);
+            } else {
+                throw new IllegalArgumentException("Unexpected character '" + c + "' at position " + start);
+            }
+        }
+    }
+
+    private void add(String token, int position) {
+        tokens.add(token);
+        positions.add(position);
+    }
+
+    private boolean accept(String token) {
+        if (next < tokens.size() && tokens.get(next).equals(token)) {
+            next++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        if (!accept(token)) throw error(next, "expected '" + token + "'");
+    }
+
+    private String word(String what) {
+        if (next >= tokens.size() || !Character.isLetter(tokens.get(next).charAt(0)) && tokens.get(next).charAt(0) != '_') {
+            throw error(next, "expected " + what);
+        }
+        return tokens.get(next++);
+    }
+
+    /**
+     * Resolves the column name at a token, including the aliases that depend on the table.
+     */
+    private snapshotColumn column(int token) {
+        String name = tokens.get(token);
+        snapshotColumn c;
+        switch (name) {
+            case "name": c = cities ? snapshotColumn.CITY_NAME : snapshotColumn.COUNTRY_NAME; break;
+            case "population": c = cities ? snapshotColumn.CITY_POPULATION : snapshotColumn.COUNTRY_POPULATION; break;
+            case "id": c = snapshotColumn.CITY_ID; break;
+            default: c = names.get(name);
+        }
+        if (c == null) throw error(token, "unknown column");
+        if (c.city && !cities) throw error(token, "city columns are not available on countries");
+        return c;
+    }
+
+    private snapshotQuery.op operator() {
+        if (next >= tokens.size()) throw error(next, "expected a comparison");
+        switch (tokens.get(next++)) {
+            case "=": return snapshotQuery.op.EQ;
+            case "!=":
+            case "<>": return snapshotQuery.op.NE;
+            case "<": return snapshotQuery.op.LT;
+            case "<=": return snapshotQuery.op.LE;
+            case ">": return snapshotQuery.op.GT;
+            case ">=": return snapshotQuery.op.GE;
+            default: throw error(next - 1, "expected a comparison");
+        }
+    }
+
+    /**
+     * Reads a quoted string or a number; whole numbers become {@code Long}, others {@code Double}.
+     */
+    private Object literal() {
+        if (next >= tokens.size()) throw error(next, "expected a value");
+        String token = tokens.get(next++);
+        if (token.charAt(0) == '\'') return token.substring(1);
+        try {
+            double v = Double.parseDouble(token);
+            if (Double.isNaN(v) || Double.isInfinite(v)) throw new NumberFormatException();
+            return v == Math.rint(v) && Math.abs(v) < 1e15 ? (Object) (long) v : (Object) v;
+        } catch (NumberFormatException e) {
+            throw error(next - 1, "expected a value");
+        }
+    }
+
+    private int count() {
+        Object v = literal();
+        if (!(v instanceof Long) || (Long) v < 0 || (Long) v > Integer.MAX_VALUE) {
+            throw error(next - 1, "expected a whole number");
+        }
+        return (int) (long) (Long) v;
+    }
+
+    private IllegalArgumentException error(int token, String message) {
+        if (token >= tokens.size()) return new IllegalArgumentException("At end of query: " + message);
+        String shown = tokens.get(token).startsWith("'") ? tokens.get(token) + "'" : "'" + tokens.get(token) + "'";
+        return new IllegalArgumentException("At position " + positions.get(token) + " (" + shown + "): " + message);
+    }
+}
@@ -0,0 +1,451 @@
+package com.napier.sem;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * The {@code reportRouter} class decides, per report request, whether the in-memory
+ * {@link snapshotEngine} or MySQL answers it, and keeps an audit trail of those decisions.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Keeps cardinality statistics per scope (cities per continent, region, country and district),
+ *       rebuilt whenever a new snapshot is installed</li>
+ *   <li>Keeps a latency histogram per backend, fed by every routed request</li>
+ *   <li>Estimates the cost of each backend and runs the cheaper one that is fresh enough</li>
+ *   <li>Records every decision with its estimates, reason and measured latency</li>
+ * </ul>
+ * <p>
+ * Cost model:
+ * <ul>
+ *   <li>Engine: rows in the scope times the engine's observed nanoseconds per row
+ *       (a default of {@link #DEFAULT_ENGINE_NANOS_PER_ROW} until the first observation)</li>
+ *   <li>Database: the median observed database latency
+ *       (a default of {@link #DEFAULT_DATABASE_NANOS} until the first observation)</li>
+ *   <li>Database with the result cached: the median observed latency of cached answers
+ *       (a default of {@link #DEFAULT_CACHED_NANOS} until the first observation); whether the
+ *       DAO call would be answered without a query is found by running it in {@link queryBatch}
+ *       record mode</li>
+ * </ul>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>No snapshot loaded (cold start): the database answers</li>
+ *   <li>Snapshot older than the request's maximum age: the database answers</li>
+ *   <li>No database connection: the engine answers if it has a snapshot, whatever its age</li>
+ *   <li>Scope names the snapshot does not know cost nothing in memory, so the engine answers
+ *       with the same empty list the database would return</li>
+ *   <li>Both backends match scope names ignoring case and accents, so the answer does not depend
+ *       on the backend chosen</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * ArrayList<cityReport> top = reportRouter.route("TopCitiesContinent", scopeRegistry.CONTINENT, "Europe",
+ *         () -> snapshotEngine.getTopCitiesByContinent("Europe", 10),
+ *         () -> cityReport.getTopCitiesByContinent("Europe", 10));
+ * }</pre>
+ */
+public class reportRouter {
+
+    /**
+     * Scope type for reports over the whole world.
+     */
+    public static final String WORLD = "World";
+
+    /**
+     * Backend name: the in-memory snapshot engine.
+     */
+    public static final String ENGINE = "engine";
+
+    /**
+     * Backend name: MySQL through the DAO classes.
+     */
+    public static final String DATABASE = "database";
+
+    /**
+     * Default maximum snapshot age accepted by {@link #route(String, String, String, Supplier, Supplier)}.
+     */
+    public static final long DEFAULT_MAX_AGE_MILLIS = 10 * 60_000L;
+
+    /**
+     * Engine cost per scanned row assumed before any engine request has been measured.
+     */
+    static final double DEFAULT_ENGINE_NANOS_PER_ROW = 5;
+
+    /**
+     * Database latency assumed before any database request has been measured.
+     */
+    static final long DEFAULT_DATABASE_NANOS = 2_000_000L;
+
+    /**
+     * Latency of a result cache answer assumed before any has been measured.
+     */
+    static final long DEFAULT_CACHED_NANOS = 20_000L;
+
+    /**
+     * Number of decisions kept for auditing; older ones are dropped.
+     */
+    static final int MAX_DECISIONS = 256;
+
+    /**
+     * Latency of requests answered by the engine.
+     */
+    static final latencyHistogram engineLatency = new latencyHistogram();
+
+    /**
+     * Latency of requests answered by the database.
+     */
+    static final latencyHistogram databaseLatency = new latencyHistogram();
+
+    /**
+     * Latency of database requests answered by {@link resultCache} without a query.
+     */
+    static final latencyHistogram cachedLatency = new latencyHistogram();
+
+    /**
+     * Most recent decisions, oldest first.
+     */
+    private static final ArrayDeque<decision> decisions = new ArrayDeque<>();
+
+    /**
+     * Total engine nanoseconds and scope rows observed, for the per-row cost.
+     */
+    private static long engineNanos = 0, engineRows = 0;
+
+    /**
+     * Cardinality statistics of the snapshot they were built from.
+     */
+    private static scopeStats stats = null;
+
+    /**
+     * One routing decision.
+     */
+    public static final class decision {
+
+        /**
+         * Report name, e.g. {@code "TopCitiesContinent"}.
+         */
+        public final String report;
+
+        /**
+         * Scope type and name, e.g. {@code "Continent: Europe"}.
+         */
+        public final String scope;
+
+        /**
+         * Backend that answered: {@link #ENGINE} or {@link #DATABASE}.
+         */
+        public final String backend;
+
+        /**
+         * Why the backend was chosen.
+         */
+        public final String reason;
+
+        /**
+         * Estimated rows in the scope, or {@code -1} without a snapshot.
+         */
+        public final long rows;
+
+        /**
+         * Estimated engine cost in nanoseconds, or {@code -1} without a snapshot.
+         */
+        public final long engineEstimate;
+
+        /**
+         * Estimated database cost in nanoseconds, of a cached answer if the result was cached.
+         */
+        public final long databaseEstimate;
+
+        /**
+         * Whether the database call was expected to be answered without a query.
+         */
+        public final boolean cached;
+
+        /**
+         * Measured latency of the chosen backend in nanoseconds.
+         */
+        public final long actualNanos;
+
+        decision(String report, String scope, String backend, String reason,
+                 long rows, long engineEstimate, long databaseEstimate, boolean cached, long actualNanos) {
+            this.report = report;
+            this.scope = scope;
+            this.backend = backend;
+            this.reason = reason;
+            this.rows = rows;
+            this.engineEstimate = engineEstimate;
+            this.databaseEstimate = databaseEstimate;
+            this.cached = cached;
+            this.actualNanos = actualNanos;
+        }
+    }
+
+    /**
+     * Routes a report request, accepting a snapshot up to {@link #DEFAULT_MAX_AGE_MILLIS} old.
+     *
+     * @param report    report name recorded in the audit trail
+     * @param scopeType {@link #WORLD} or a {@link scopeRegistry} scope type
+     * @param scopeName scope name, ignored for {@link #WORLD}
+     * @param engine    runs the report on the snapshot engine
+     * @param database  runs the report through the DAO classes
+     * @param <T>       report row type
+     * @return the rows from whichever backend was chosen
+     */
+    public static <T> ArrayList<T> route(String report, String scopeType, String scopeName,
+                                         Supplier<ArrayList<T>> engine, Supplier<ArrayList<T>> database) {
+        return route(report, scopeType, scopeName, DEFAULT_MAX_AGE_MILLIS, engine, database);
+    }
+
+    /**
+     * Routes a report request to the cheaper backend that satisfies its freshness need.
+     * <p>
+     * Workflow:
+     * <ul>
+     *   <li>Looks up the number of rows in the scope from the snapshot's statistics</li>
+     *   <li>Rules out a missing or too-old snapshot, or a missing connection</li>
+     *   <li>Otherwise checks whether the database call would be answered from {@link resultCache}</li>
+     *   <li>Estimates both backends' cost from their observed latencies</li>
+     *   <li>Runs the chosen backend, the database under a {@link reportDeadline}, and records its
+     *       latency and the decision</li>
+     * </ul>
+     *
+     * @param report       report name recorded in the audit trail
+     * @param scopeType    {@link #WORLD} or a {@link scopeRegistry} scope type
+     * @param scopeName    scope name, ignored for {@link #WORLD}
+     * @param maxAgeMillis oldest snapshot acceptable for this request
+     * @param engine       runs the report on the snapshot engine
+     * @param database     runs the report through the DAO classes
+     * @param <T>          report row type
+     * @return the rows from whichever backend was chosen
+     */
+    public static <T> ArrayList<T> route(String report, String scopeType, String scopeName, long maxAgeMillis,
+                                         Supplier<ArrayList<T>> engine, Supplier<ArrayList<T>> database) {
+        worldSnapshot s = snapshotEngine.snapshot;
+        long rows = s == null ? -1 : stats(s).rows(scopeType, scopeName);
+        long engineEstimate = s == null ? -1 : (long) Math.ceil(rows * engineNanosPerRow());
+        boolean cached = false;
+        long databaseEstimate;
+
+        String backend;
+        String reason;
+        if (s == null) {
+            backend = DATABASE;
+            reason = "no snapshot loaded";
+            databaseEstimate = databaseEstimate();
+        } else if (populationApp.con == null) {
+            backend = ENGINE;
+            reason = "no database connection";
+            databaseEstimate = databaseEstimate();
+        } else if (System.currentTimeMillis() - s.builtAt > maxAgeMillis) {
+            backend = DATABASE;
+            reason = "snapshot older than " + maxAgeMillis + " ms";
+            databaseEstimate = databaseEstimate();
+        } else {
+            cached = queryBatch.record(database).isEmpty();
+            databaseEstimate = cached ? cachedEstimate() : databaseEstimate();
+            backend = engineEstimate <= databaseEstimate ? ENGINE : DATABASE;
+            reason = backend.equals(DATABASE) && cached ? "cached result" : "cheaper";
+        }
+
+        long start = System.nanoTime();
+        ArrayList<T> result = backend.equals(ENGINE) ? engine.get() : reportDeadline.run(report, database);
+        long elapsed = System.nanoTime() - start;
+        record(new decision(report, scopeType.equals(WORLD) ? WORLD : scopeType + ": " + scopeName,
+                backend, reason, rows, engineEstimate, databaseEstimate, cached, elapsed));
+        return result;
+    }
+
+    /**
+     * Returns the most recent decisions, oldest first.
+     *
+     * @return a copy of the audit trail
+     */
+    public static synchronized ArrayList<decision> decisions() {
+        return new ArrayList<>(decisions);
+    }
+
+    /**
+     * Forgets all decisions, latencies and statistics.
+     */
+    public static synchronized void reset() {
+        decisions.clear();
+        engineLatency.clear();
+        databaseLatency.clear();
+        cachedLatency.clear();
+        engineNanos = 0;
+        engineRows = 0;
+        stats = null;
+    }
+
+    /**
+     * Outputs the audit trail to a Markdown file in the {@code /reports/routerReports} directory.
+     * <p>
+     * Edge-case handling:
+     * <ul>
+     *   <li>If no decision has been recorded, writes a placeholder file</li>
+     * </ul>
+     *
+     * @param filename name of the output file to generate (e.g., {@code "RouterDecisions.md"})
+     */
+    public static void outputDecisionLog(String filename) {
+        ArrayList<decision> log = decisions();
+        StringBuilder sb = new StringBuilder();
+        sb.append("| Report | Scope | Backend | Reason | Scope Rows | Engine Estimate (µs) | Database Estimate (µs) | Actual (µs) |\r\n");
+        sb.append("| --- | --- | --- | --- | --- | --- | --- | --- |\r\n");
+        for (decision d : log) {
+            sb.append("| ")
+                    .append(d.report).append(" | ")
+                    .append(d.scope).append(" | ")
+                    .append(d.backend).append(" | ")
+                    .append(d.reason).append(" | ")
+                    .append(d.rows < 0 ? "" : d.rows).append(" | ")
+                    .append(d.engineEstimate < 0 ? "" : micros(d.engineEstimate)).append(" | ")
+                    .append(micros(d.databaseEstimate)).append(" | ")
+                    .append(micros(d.actualNanos)).append(" |\r\n");
+        }
+
+        try {
+            File dir = new File("./reports/routerReports/");
+            dir.mkdirs();
+            File outFile = new File(dir, filename);
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(outFile))) {
+                if (log.isEmpty()) {
+                    writer.write("# Router Decisions\n\n");
+                    writer.write("No results found for this query.\n");
+                } else {
+                    writer.write(sb.toString());
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%,.1f", nanos / 1_000.0);
+    }
+
+    private static synchronized void record(decision d) {
+        if (d.backend.equals(ENGINE)) {
+            engineLatency.record(d.actualNanos);
+            engineNanos += d.actualNanos;
+            engineRows += Math.max(1, d.rows);
+        } else if (d.cached) {
+            cachedLatency.record(d.actualNanos);
+        } else {
+            databaseLatency.record(d.actualNanos);
+        }
+        if (decisions.size() == MAX_DECISIONS) decisions.removeFirst();
+        decisions.addLast(d);
+    }
+
+    private static synchronized double engineNanosPerRow() {
+        return engineRows == 0 ? DEFAULT_ENGINE_NANOS_PER_ROW : (double) engineNanos / engineRows;
+    }
+
+    private static long databaseEstimate() {
+        return databaseLatency.count() == 0 ? DEFAULT_DATABASE_NANOS : databaseLatency.percentile(0.5);
+    }
+
+    private static long cachedEstimate() {
+        return cachedLatency.count() == 0 ? DEFAULT_CACHED_NANOS : cachedLatency.percentile(0.5);
+    }
+
+    private static synchronized scopeStats stats(worldSnapshot s) {
+        if (stats == null || stats.snapshot != s) stats = new scopeStats(s);
+        return stats;
+    }
+
+    /**
+     * Number of city rows per continent, region, country and district of one snapshot.
+     */
+    static final class scopeStats {
+
+        final worldSnapshot snapshot;
+        final int[] perContinent, perRegion, perCountry, perDistrict;
+
+        scopeStats(worldSnapshot s) {
+            snapshot = s;
+            perContinent = new int[s.continentNames.length];
+            perRegion = new int[s.regionNames.length];
+            perCountry = new int[s.countryCount()];
+            perDistrict = new int[s.districtNames.length];
+            for (int row = 0; row < s.cityCount(); row++) {
+                int country = s.cityCountry[row];
+                perCountry[country]++;
+                perContinent[s.countryContinent[country]]++;
+                perRegion[s.countryRegion[country]]++;
+                perDistrict[s.cityDistrict[row]]++;
+            }
+        }
+
+        /**
+         * Rows a query over the scope touches; unknown scope types count the whole world,
+         * unknown names count nothing.
+         */
+        long rows(String scopeType, String scopeName) {
+            int id;
+            switch (scopeType) {
+                case scopeRegistry.CONTINENT:
+                    id = snapshot.continentId(scopeName);
+                    return id < 0 ? 0 : perContinent[id];
+                case scopeRegistry.REGION:
+                    id = snapshot.regionId(scopeName);
+                    return id < 0 ? 0 : perRegion[id];
+                case scopeRegistry.COUNTRY:
+                    id = snapshot.countryRow(scopeName);
+                    return id < 0 ? 0 : perCountry[id];
+                case scopeRegistry.DISTRICT:
+                    id = snapshot.districtId(scopeName);
+                    return id < 0 ? 0 : perDistrict[id];
+                default:
+                    return snapshot.cityCount();
+            }
+        }
+    }
+
+    /**
+     * Latency histogram with power-of-two nanosecond buckets.
+     */
+    static final class latencyHistogram {
+
+        private final long[] buckets = new long[64];
+        private long count = 0;
+
+        synchronized void record(long nanos) {
+            buckets[63 - Long.numberOfLeadingZeros(Math.max(1, nanos))]++;
+            count++;
+        }
+
+        synchronized long count() {
+            return count;
+        }
+
+        /**
+         * Upper bound of the bucket holding the given quantile, or 0 if nothing was recorded.
+         */
+        synchronized long percentile(double q) {
+            if (count == 0) return 0;
+            long target = (long) Math.ceil(q * count);
+            long seen = 0;
+            for (int b = 0; b < buckets.length; b++) {
+                seen += buckets[b];
+                if (seen >= Math.max(1, target)) return b >= 62 ? Long.MAX_VALUE : (2L << b) - 1;
+            }
+            return Long.MAX_VALUE;
+        }
+
+        synchronized void clear() {
+            Arrays.fill(buckets, 0);
+            count = 0;
+        }
+    }
+}
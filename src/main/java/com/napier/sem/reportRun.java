@@ -0,0 +1,347 @@
+package com.napier.sem;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code reportRun} class pins a whole report run to one version of the data: every report
+ * is read inside a single read-only transaction with a consistent snapshot, and the run manifest
+ * records which version that was.
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>{@link #begin(boolean)} switches {@code populationApp.con} to {@code REPEATABLE READ} without
+ *       autocommit and sends {@code START TRANSACTION READ ONLY, WITH CONSISTENT SNAPSHOT}, so
+ *       InnoDB takes the read view at once and skips transaction IDs and undo for the run</li>
+ *   <li>Inside the snapshot it reads the {@code CHECKSUM TABLE} value of each world table, a
+ *       checksum over every row's content; their CRC32 is the data version</li>
+ *   <li>Every report afterwards, including the snapshot engine load and the multi-statement batch,
+ *       reads that same version</li>
+ *   <li>{@link #end()} commits and restores autocommit; {@link #outputManifest(String)} writes the
+ *       mode, data version, table checksums and every report file written during the run</li>
+ *   <li>Reports that did not complete, e.g. past their {@link reportDeadline}, are recorded with
+ *       {@link #fail(String, String)} and marked as failed in the manifest</li>
+ *   <li>A report written to several files names each extra file with {@link #writes(String, String)},
+ *       so every file it wrote is marked with its outcome</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>If {@code populationApp.con} is {@code null}, {@link #begin(boolean)} returns {@code false} and the
+ *       manifest records that no data version was pinned</li>
+ *   <li>If the transaction cannot be started, autocommit is restored and the run goes on without it</li>
+ *   <li>Without consistent mode no data version is read: it would not describe the data the
+ *       reports read, and each checksum scans its whole table</li>
+ *   <li>{@link #end()} does nothing if no transaction is open, so it is safe to call twice</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * reportRun.begin(true);
+ * ArrayList<cityReport> cities = cityReport.getAllCitiesByPopulation(42);
+ * reportRun.end();
+ * reportRun.outputManifest("RunManifest.md");
+ * }</pre>
+ */
+public class reportRun {
+
+    /**
+     * Statement that opens the run's transaction.
+     */
+    public static final String START = "START TRANSACTION READ ONLY, WITH CONSISTENT SNAPSHOT";
+
+    /**
+     * Environment variable that turns consistent mode on when set to {@code true}.
+     */
+    public static final String ENV = "CONSISTENT_RUN";
+
+    private static boolean active = false;
+
+    private static boolean consistent = false;
+
+    private static long startedAt = 0;
+
+    private static long finishedAt = 0;
+
+    private static String readAt = null;
+
+    private static String dataVersion = null;
+
+    /**
+     * The world tables whose checksums make up the data version.
+     */
+    static final String[] TABLES = {tableVersions.CITY, tableVersions.COUNTRY, tableVersions.COUNTRYLANGUAGE};
+
+    /**
+     * Checksum per table, as read inside the snapshot.
+     */
+    private static final LinkedHashMap<String, String> checksums = new LinkedHashMap<>();
+
+    /**
+     * Reason per failed report, in the order they failed.
+     */
+    private static final LinkedHashMap<String, String> failures = new LinkedHashMap<>();
+
+    /**
+     * Report that produced each output file not named after its report.
+     */
+    private static final LinkedHashMap<String, String> producers = new LinkedHashMap<>();
+
+    /**
+     * Starts a run; in consistent mode, opens the read-only snapshot transaction first.
+     *
+     * @param consistentSnapshot whether to read every report inside one consistent snapshot
+     * @return {@code true} if the snapshot was opened and the data version read
+     */
+    public static synchronized boolean begin(boolean consistentSnapshot) {
+        reset();
+        startedAt = System.currentTimeMillis();
+        Connection con = populationApp.con;
+        if (con == null) return false;
+        if (!consistentSnapshot) return false;
+        try {
+            con.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            con.setAutoCommit(false);
+            try (Statement stmt = con.createStatement()) {
+                stmt.execute(START);
+            }
+            active = true;
+            consistent = true;
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+            restore(con);
+            return false;
+        }
+        return checksum(con);
+    }
+
+    /**
+     * Commits the run's transaction and restores autocommit.
+     */
+    public static synchronized void end() {
+        if (!active) return;
+        finishedAt = System.currentTimeMillis();
+        active = false;
+        Connection con = populationApp.con;
+        if (con == null) return;
+        try {
+            con.commit();
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+        restore(con);
+    }
+
+    /**
+     * Records that a report did not complete, so its output is marked as failed rather than empty.
+     *
+     * @param report report name, matching its output file without {@code .md}
+     * @param reason why it failed, e.g. {@code "timed out after 30000 ms"}
+     */
+    public static synchronized void fail(String report, String reason) {
+        failures.put(report, reason);
+    }
+
+    /**
+     * Records that a report also writes an output file with a different name, so the file is
+     * marked as failed when the report fails.
+     *
+     * @param report report name passed to {@link #fail(String, String)}
+     * @param output output file name without {@code .md}, e.g. {@code "TopLanguagesByRegion"}
+     */
+    public static synchronized void writes(String report, String output) {
+        producers.put(output, report);
+    }
+
+    /**
+     * Returns the reports recorded with {@link #fail(String, String)} since the run began.
+     *
+     * @return report name to reason, in the order they failed
+     */
+    public static synchronized Map<String, String> failures() {
+        return new LinkedHashMap<>(failures);
+    }
+
+    /**
+     * Returns whether a consistent snapshot transaction is open.
+     *
+     * @return {@code true} between a consistent {@link #begin(boolean)} and {@link #end()}
+     */
+    public static synchronized boolean active() {
+        return active;
+    }
+
+    /**
+     * Returns whether the current or last run read every report inside one snapshot.
+     *
+     * @return {@code true} if the run's transaction was opened
+     */
+    public static synchronized boolean consistent() {
+        return consistent;
+    }
+
+    /**
+     * Returns the version of the data the run read.
+     *
+     * @return eight hex digits, or {@code null} outside consistent mode or if the checksums could not be read
+     */
+    public static synchronized String dataVersion() {
+        return dataVersion;
+    }
+
+    /**
+     * Outputs the run manifest to a Markdown file in the {@code /reports/runReports} directory.
+     * <p>
+     * Edge-case handling:
+     * <ul>
+     *   <li>If no data version was read, the manifest says so instead of listing checksums</li>
+     *   <li>Report files are those under {@code /reports} changed since the run began</li>
+     *   <li>A report file named after a failed report, or recorded with {@link #writes(String, String)}
+     *       for one, is marked as failed; the reasons are listed after</li>
+     * </ul>
+     *
+     * @param filename name of the output file to generate (e.g., {@code "RunManifest.md"})
+     */
+    public static synchronized void outputManifest(String filename) {
+        long finished = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+        StringBuilder sb = new StringBuilder();
+        sb.append("# Run Manifest\n\n");
+        sb.append("| Field | Value |\r\n");
+        sb.append("| --- | --- |\r\n");
+        sb.append("| Mode | ").append(consistent ? "Consistent snapshot (" + START + ")" : "Autocommit").append(" |\r\n");
+        sb.append("| Started | ").append(Instant.ofEpochMilli(startedAt)).append(" |\r\n");
+        sb.append("| Finished | ").append(Instant.ofEpochMilli(finished)).append(" |\r\n");
+        sb.append("| Server Time At Snapshot | ").append(readAt == null ? "" : readAt).append(" |\r\n");
+        sb.append("| Data Version | ").append(dataVersion == null ? "Not pinned" : dataVersion).append(" |\r\n\n");
+
+        if (dataVersion == null) {
+            sb.append("No data version was read for this run.\n\n");
+        } else {
+            sb.append("| Table | Checksum |\r\n");
+            sb.append("| --- | --- |\r\n");
+            for (Map.Entry<String, String> c : checksums.entrySet()) {
+                sb.append("| ").append(c.getKey()).append(" | ").append(c.getValue()).append(" |\r\n");
+            }
+            sb.append("\n");
+        }
+
+        sb.append("| Report | Status |\r\n");
+        sb.append("| --- | --- |\r\n");
+        for (String report : reportsSince(startedAt, filename)) {
+            String name = report.substring(report.lastIndexOf('/') + 1, report.length() - ".md".length());
+            sb.append("| ").append(report).append(" | ")
+                    .append(failed(name) ? "Failed" : "Written").append(" |\r\n");
+        }
+
+        if (!failures.isEmpty()) {
+            sb.append("\n| Failed Report | Reason |\r\n");
+            sb.append("| --- | --- |\r\n");
+            for (Map.Entry<String, String> f : failures.entrySet()) {
+                sb.append("| ").append(f.getKey()).append(" | ").append(f.getValue()).append(" |\r\n");
+            }
+        }
+
+        try {
+            File dir = new File("./reports/runReports/");
+            dir.mkdirs();
+            File outFile = new File(dir, filename);
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(outFile))) {
+                writer.write(sb.toString());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads the checksum of every world table and the server time, inside the snapshot, and
+     * derives the data version.
+     */
+    private static boolean checksum(Connection con) {
+        try {
+            try (PreparedStatement pstmt = statementCache.prepare(con, "CHECKSUM TABLE " + String.join(", ", TABLES))) {
+                ResultSet rset = pstmt.executeQuery();
+                while (rset.next()) {
+                    String table = rset.getString("Table");
+                    long sum = rset.getLong("Checksum");
+                    if (rset.wasNull()) return false;
+                    checksums.put(table.substring(table.indexOf('.') + 1), Long.toString(sum));
+                }
+            }
+            try (PreparedStatement pstmt = statementCache.prepare(con, "SELECT NOW(6) AS read_at")) {
+                ResultSet rset = pstmt.executeQuery();
+                if (rset.next()) readAt = rset.getString("read_at");
+            }
+            if (checksums.size() != TABLES.length) return false;
+            CRC32 crc = new CRC32();
+            for (Map.Entry<String, String> c : checksums.entrySet()) {
+                crc.update((c.getKey() + ':' + c.getValue() + ';').getBytes());
+            }
+            dataVersion = String.format("%08x", crc.getValue());
+            return true;
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean failed(String output) {
+        return failures.containsKey(output) || failures.containsKey(producers.getOrDefault(output, output));
+    }
+
+    private static void restore(Connection con) {
+        try {
+            con.setAutoCommit(true);
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Paths, relative to {@code /reports}, of Markdown files changed at or after {@code since}.
+     */
+    private static ArrayList<String> reportsSince(long since, String manifest) {
+        ArrayList<String> reports = new ArrayList<>();
+        Path root = Paths.get("./reports");
+        if (!Files.isDirectory(root)) return reports;
+        try (Stream<Path> files = Files.walk(root)) {
+            files.filter(Files::isRegularFile)
+                    .filter(p -> p.toString().endsWith(".md"))
+                    .filter(p -> !p.getFileName().toString().equals(manifest))
+                    .filter(p -> p.toFile().lastModified() >= since - since % 1000)
+                    .map(p -> root.relativize(p).toString().replace(File.separatorChar, '/'))
+                    .sorted()
+                    .forEach(reports::add);
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+        return reports;
+    }
+
+    private static void reset() {
+        active = false;
+        consistent = false;
+        startedAt = 0;
+        finishedAt = 0;
+        readAt = null;
+        dataVersion = null;
+        checksums.clear();
+        failures.clear();
+        producers.clear();
+    }
+}
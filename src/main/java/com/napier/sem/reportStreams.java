@@ -0,0 +1,452 @@
+package com.napier.sem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The {@code reportStreams} class exposes every DAO query as a {@link rowPublisher}, so large
+ * reports can be consumed row by row at the consumer's pace.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Mirrors each static {@code get*} method of the DAO classes with the same name and arguments</li>
+ *   <li>Streams reports mapped row by row ({@code cityReport}, {@code countryReport},
+ *       {@code populationReport}, {@code populationSummary}) straight from a MySQL cursor</li>
+ *   <li>Streams capital cities with a join the database ranks, since the DAO ranks them in Java
+ *       through {@link capitalIndex} and has no SELECT to stream</li>
+ *   <li>Publishes the language reports from the list the DAO builds; these are not streamed</li>
+ *   <li>Adds {@link #getAllCities()}, the unbounded city list that no DAO returns</li>
+ * </ul>
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>The DAO call runs once in {@link queryBatch} record mode, which notes the SELECT and
+ *       parameters it would send without sending them, so the SQL stays in the DAO</li>
+ *   <li>The DAO's first SELECT becomes the publisher's query; its rows are mapped by the same
+ *       generated {@code <Row>Mapper} the DAO's own loop uses</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>If the call is answered by {@link resultCache}, or returns before querying (no connection,
+ *       unknown scope name), the publisher emits the DAO's own result instead</li>
+ *   <li>Capital names of streamed countries are resolved through {@link capitalIndex}, like the DAO does</li>
+ *   <li>The language reports are aggregates computed in Java after their query is fully read, so
+ *       backpressure does not limit their reads; they are small (five languages, or at most ten
+ *       per continent and region)</li>
+ *   <li>Streamed capitals are ordered by the database, so capitals of equal population may come
+ *       in a different order than the DAO's</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * reportStreams.getAllCities().subscribe(subscriber); // one cursor, rows fetched as requested
+ * }</pre>
+ */
+public class reportStreams {
+
+    /**
+     * Binds the generated mapper for rows read by the {@code cityReport} queries.
+     */
+    static final rowPublisher.rowBinder<cityReport> CITY = cityReportMapper::new;
+
+    /**
+     * Binds the generated mapper for rows read by the {@code countryReport} queries, and
+     * resolves each capital id through {@link capitalIndex}.
+     */
+    static final rowPublisher.rowBinder<countryReport> COUNTRY = rset -> {
+        countryReportMapper mapper = new countryReportMapper(rset);
+        int capitalColumn = rset.findColumn("capital");
+        capitalIndex capitals = capitalIndex.get();
+        return r -> mapper.map(r, capitals.name(r.getInt(capitalColumn)));
+    };
+
+    /**
+     * Binds the generated mapper for rows read by the {@code populationReport} queries.
+     */
+    static final rowPublisher.rowBinder<populationReport> POPULATION = populationReportMapper::new;
+
+    /**
+     * Binds the generated mapper for rows read by the {@code populationSummary} query.
+     */
+    static final rowPublisher.rowBinder<populationSummary> SUMMARY = populationSummaryMapper::new;
+
+    /**
+     * Binds the generated mapper for rows read by {@link #capitals(String, String, int)}.
+     */
+    static final rowPublisher.rowBinder<capitalCityReport> CAPITAL = capitalCityReportMapper::new;
+
+    /**
+     * Streams every city in the world, largest first, without the cap of the DAO reports.
+     *
+     * @return a publisher of all cities
+     */
+    public static rowPublisher<cityReport> getAllCities() {
+        return rowPublisher.query("""
+        SELECT city.name, country.name AS country_name,
+               city.district, city.population
+        FROM city
+        JOIN country ON city.countrycode = country.code
+        ORDER BY city.population DESC
+    """, new Object[0], CITY);
+    }
+
+    /**
+     * Streams the first SELECT of a DAO call, or publishes the call's result if it sends none.
+     *
+     * @param call   DAO call
+     * @param binder binds the mapper for the call's SELECT
+     * @param <T>    row type
+     * @return the publisher
+     */
+    static <T> rowPublisher<T> stream(Supplier<ArrayList<T>> call, rowPublisher.rowBinder<T> binder) {
+        List<queryBatch.statement> recorded = queryBatch.record(call);
+        if (recorded.isEmpty()) return rowPublisher.of(call);
+        queryBatch.statement first = recorded.get(0);
+        return rowPublisher.query(first.sql, first.params, binder);
+    }
+
+    /**
+     * Streams the most populated capital cities, optionally of one continent or region.
+     * <p>
+     * Returns the same rows as the {@code capitalCityReport} DAO, capped at 42 likewise, with the
+     * capital resolved by a join so the database can rank the rows and stream them.
+     *
+     * @param scope {@link scopeRegistry#CONTINENT}, {@link scopeRegistry#REGION}, or {@code null} for the world
+     * @param name  continent or region name; ignored for the world
+     * @param limit maximum number of rows; capped internally at {@code 42}
+     * @return the publisher
+     */
+    static rowPublisher<capitalCityReport> capitals(String scope, String name, int limit) {
+        int cappedLimit = Math.min(limit, 42);
+        if (scope == null) {
+            return rowPublisher.query("""
+        SELECT city.name, country.name AS country_name, city.population
+        FROM city
+        JOIN country ON city.id = country.capital
+        ORDER BY city.population DESC
+        LIMIT ?
+    """, new Object[]{cappedLimit}, CAPITAL);
+        }
+        if (!scopeRegistry.mayExist(scope, name)) return rowPublisher.of(ArrayList::new);
+        String column = scope.equals(scopeRegistry.CONTINENT) ? "continent" : "region";
+        return rowPublisher.query("""
+        SELECT city.name, country.name AS country_name, city.population
+        FROM city
+        JOIN country ON city.id = country.capital
+        WHERE country.%s = ?
+        ORDER BY city.population DESC
+        LIMIT ?
+    """.formatted(column), new Object[]{name, cappedLimit}, CAPITAL);
+    }
+
+    // Country Reports
+
+    /**
+     * Streams the rows of {@link countryReport#getAllCountriesByPopulation(int)}.
+     *
+     * @param limit maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<countryReport> getAllCountriesByPopulation(int limit) {
+        return stream(() -> countryReport.getAllCountriesByPopulation(limit), COUNTRY);
+    }
+
+    /**
+     * Streams the rows of {@link countryReport#getCountriesByContinent(String, int)}.
+     *
+     * @param continent continent name
+     * @param limit     maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<countryReport> getCountriesByContinent(String continent, int limit) {
+        return stream(() -> countryReport.getCountriesByContinent(continent, limit), COUNTRY);
+    }
+
+    /**
+     * Streams the rows of {@link countryReport#getCountriesByRegion(String, int)}.
+     *
+     * @param region region name
+     * @param limit  maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<countryReport> getCountriesByRegion(String region, int limit) {
+        return stream(() -> countryReport.getCountriesByRegion(region, limit), COUNTRY);
+    }
+
+    /**
+     * Streams the rows of {@link countryReport#getTopCountriesByPopulation(int)}.
+     *
+     * @param limit maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<countryReport> getTopCountriesByPopulation(int limit) {
+        return stream(() -> countryReport.getTopCountriesByPopulation(limit), COUNTRY);
+    }
+
+    /**
+     * Streams the rows of {@link countryReport#getTopCountriesByContinent(String, int)}.
+     *
+     * @param continent continent name
+     * @param limit     maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<countryReport> getTopCountriesByContinent(String continent, int limit) {
+        return stream(() -> countryReport.getTopCountriesByContinent(continent, limit), COUNTRY);
+    }
+
+    /**
+     * Streams the rows of {@link countryReport#getTopCountriesByRegion(String, int)}.
+     *
+     * @param region region name
+     * @param limit  maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<countryReport> getTopCountriesByRegion(String region, int limit) {
+        return stream(() -> countryReport.getTopCountriesByRegion(region, limit), COUNTRY);
+    }
+
+    // City Reports
+
+    /**
+     * Streams the rows of {@link cityReport#getAllCitiesByPopulation(int)}.
+     *
+     * @param limit maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<cityReport> getAllCitiesByPopulation(int limit) {
+        return stream(() -> cityReport.getAllCitiesByPopulation(limit), CITY);
+    }
+
+    /**
+     * Streams the rows of {@link cityReport#getCitiesByContinent(String, int)}.
+     *
+     * @param continent continent name
+     * @param limit     maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<cityReport> getCitiesByContinent(String continent, int limit) {
+        return stream(() -> cityReport.getCitiesByContinent(continent, limit), CITY);
+    }
+
+    /**
+     * Streams the rows of {@link cityReport#getCitiesByRegion(String, int)}.
+     *
+     * @param region region name
+     * @param limit  maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<cityReport> getCitiesByRegion(String region, int limit) {
+        return stream(() -> cityReport.getCitiesByRegion(region, limit), CITY);
+    }
+
+    /**
+     * Streams the rows of {@link cityReport#getCitiesByCountry(String, int)}.
+     *
+     * @param country country name
+     * @param limit   maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<cityReport> getCitiesByCountry(String country, int limit) {
+        return stream(() -> cityReport.getCitiesByCountry(country, limit), CITY);
+    }
+
+    /**
+     * Streams the rows of {@link cityReport#getCitiesByDistrict(String, int)}.
+     *
+     * @param district district name
+     * @param limit    maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<cityReport> getCitiesByDistrict(String district, int limit) {
+        return stream(() -> cityReport.getCitiesByDistrict(district, limit), CITY);
+    }
+
+    /**
+     * Streams the rows of {@link cityReport#getTopCitiesInWorld(int)}.
+     *
+     * @param limit maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<cityReport> getTopCitiesInWorld(int limit) {
+        return stream(() -> cityReport.getTopCitiesInWorld(limit), CITY);
+    }
+
+    /**
+     * Streams the rows of {@link cityReport#getTopCitiesByContinent(String, int)}.
+     *
+     * @param continent continent name
+     * @param limit     maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<cityReport> getTopCitiesByContinent(String continent, int limit) {
+        return stream(() -> cityReport.getTopCitiesByContinent(continent, limit), CITY);
+    }
+
+    /**
+     * Streams the rows of {@link cityReport#getTopCitiesByRegion(String, int)}.
+     *
+     * @param region region name
+     * @param limit  maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<cityReport> getTopCitiesByRegion(String region, int limit) {
+        return stream(() -> cityReport.getTopCitiesByRegion(region, limit), CITY);
+    }
+
+    /**
+     * Streams the rows of {@link cityReport#getTopCitiesByDistrict(String, int)}.
+     *
+     * @param district district name
+     * @param limit    maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<cityReport> getTopCitiesByDistrict(String district, int limit) {
+        return stream(() -> cityReport.getTopCitiesByDistrict(district, limit), CITY);
+    }
+
+    /**
+     * Streams the rows of {@link cityReport#getTopCitiesByCountry(String, int)}.
+     *
+     * @param country country name
+     * @param limit   maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<cityReport> getTopCitiesByCountry(String country, int limit) {
+        return stream(() -> cityReport.getTopCitiesByCountry(country, limit), CITY);
+    }
+
+    // Capital City Reports
+
+    /**
+     * Streams the rows of {@link capitalCityReport#getAllCapitalCitiesByPopulation(int)}.
+     *
+     * @param limit maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<capitalCityReport> getAllCapitalCitiesByPopulation(int limit) {
+        return capitals(null, null, limit);
+    }
+
+    /**
+     * Streams the rows of {@link capitalCityReport#getCapitalCitiesByContinent(String, int)}.
+     *
+     * @param continent continent name
+     * @param limit     maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<capitalCityReport> getCapitalCitiesByContinent(String continent, int limit) {
+        return capitals(scopeRegistry.CONTINENT, continent, limit);
+    }
+
+    /**
+     * Streams the rows of {@link capitalCityReport#getCapitalCitiesByRegion(String, int)}.
+     *
+     * @param region region name
+     * @param limit  maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<capitalCityReport> getCapitalCitiesByRegion(String region, int limit) {
+        return capitals(scopeRegistry.REGION, region, limit);
+    }
+
+    /**
+     * Streams the rows of {@link capitalCityReport#getTopCapitalCitiesInWorld(int)}.
+     *
+     * @param limit maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<capitalCityReport> getTopCapitalCitiesInWorld(int limit) {
+        return capitals(null, null, limit);
+    }
+
+    /**
+     * Streams the rows of {@link capitalCityReport#getTopCapitalCitiesByContinent(String, int)}.
+     *
+     * @param continent continent name
+     * @param limit     maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<capitalCityReport> getTopCapitalCitiesByContinent(String continent, int limit) {
+        return capitals(scopeRegistry.CONTINENT, continent, limit);
+    }
+
+    /**
+     * Streams the rows of {@link capitalCityReport#getTopCapitalCitiesByRegion(String, int)}.
+     *
+     * @param region region name
+     * @param limit  maximum number of rows
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<capitalCityReport> getTopCapitalCitiesByRegion(String region, int limit) {
+        return capitals(scopeRegistry.REGION, region, limit);
+    }
+
+    // Population Reports
+
+    /**
+     * Streams the rows of {@link populationReport#getPopulationByContinent()}.
+     *
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<populationReport> getPopulationByContinent() {
+        return stream(() -> populationReport.getPopulationByContinent(), POPULATION);
+    }
+
+    /**
+     * Streams the rows of {@link populationReport#getPopulationByRegion()}.
+     *
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<populationReport> getPopulationByRegion() {
+        return stream(() -> populationReport.getPopulationByRegion(), POPULATION);
+    }
+
+    /**
+     * Streams the rows of {@link populationReport#getPopulationByCountry()}.
+     *
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<populationReport> getPopulationByCountry() {
+        return stream(() -> populationReport.getPopulationByCountry(), POPULATION);
+    }
+
+    // Population Summary Report
+
+    /**
+     * Streams the rows of {@link populationSummary#getAllPopulationSummary()}.
+     *
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<populationSummary> getAllPopulationSummary() {
+        return stream(() -> populationSummary.getAllPopulationSummary(), SUMMARY);
+    }
+
+    // Language Report
+
+    /**
+     * Publishes the rows of {@link languageReport#getAllLanguageReport()}.
+     * <p>
+     * The report is built in full before the first row is emitted; it is not streamed.
+     *
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<languageReport> getAllLanguageReport() {
+        return rowPublisher.of(() -> languageReport.getAllLanguageReport());
+    }
+
+    // Top Language Report
+
+    /**
+     * Publishes the rows of {@link topLanguageReport#getTopLanguagesByContinentAndRegion(int)}.
+     * <p>
+     * The report is built in full before the first row is emitted; it is not streamed.
+     *
+     * @param k languages kept per continent and region
+     * @return a publisher of the report's rows
+     */
+    public static rowPublisher<topLanguageReport> getTopLanguagesByContinentAndRegion(int k) {
+        return rowPublisher.of(() -> topLanguageReport.getTopLanguagesByContinentAndRegion(k));
+    }
+}
@@ -0,0 +1,539 @@
+package com.napier.sem;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code resultCache} class keeps the results of DAO queries in memory, keyed by query
+ * shape and parameters, until they expire or one of the tables they read changes.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Stores each result as an immutable list together with the versions of the tables it read</li>
+ *   <li>Serves a hit only while the entry is younger than the TTL and every table version still matches,
+ *       so a change to {@code countrylanguage} leaves city and country results cached</li>
+ *   <li>Weighs each result by its estimated retained bytes (rows × row width) and keeps the total
+ *       within {@link #DEFAULT_MAX_BYTES}, choosing what to keep with a {@link tinyLfuCache}</li>
+ *   <li>Coalesces concurrent misses on the same key through a {@link singleFlight}, so identical
+ *       requests arriving together run one query and share its result</li>
+ *   <li>Falls back to {@link diskCache}, when it is open, before reporting a miss, and writes every
+ *       stored result through to it</li>
+ *   <li>Counts hits, misses, evictions and the database time hits saved</li>
+ * </ul>
+ * <p>
+ * Workflow (inside a DAO method, after the connection and scope checks):
+ * <ol>
+ *   <li>{@link #key(String, Object...)} names the query and starts timing it</li>
+ *   <li>{@link #lookup(key)} records the table versions and returns a copy of a fresh cached result, or {@code null}</li>
+ *   <li>If the same key is already being queried, {@link #lookup(key)} waits for that query and
+ *       returns a copy of its result instead</li>
+ *   <li>On a miss the DAO queries as usual and returns {@link #store(key, ArrayList, String...)},
+ *       which also hands the result to any waiting callers</li>
+ *   <li>If the query fails, even after some rows were read, the DAO returns
+ *       {@link #abandon(key, ArrayList, Throwable)} from its {@code catch} block instead</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>Empty results are not cached, since DAO methods also return an empty list when a query fails;
+ *       they are still shared with callers waiting on the same query</li>
+ *   <li>Results of a report past its {@link reportDeadline} are not cached either, as they may be partial</li>
+ *   <li>During the record pass of a {@link queryBatch} misses neither wait, count nor store,
+ *       since the DAO only sees an empty stand-in result, and hits are not counted, since the
+ *       call runs again for real</li>
+ *   <li>A caller that waits longer than {@link #FOLLOWER_WAIT_MILLIS} stops waiting and queries itself</li>
+ *   <li>A failed query's rows may be partial, so {@link #abandon(key, ArrayList, Throwable)} neither
+ *       caches them nor writes them to {@link diskCache}; waiting callers are released and run the query themselves</li>
+ *   <li>Every DAO path after a missed {@link #lookup(key)} must reach {@link #store(key, ArrayList, String...)}
+ *       or {@link #abandon(key, ArrayList, Throwable)}, or waiting callers sit out the full timeout</li>
+ *   <li>Callers get their own {@code ArrayList}; the report objects in it are shared, which is safe
+ *       since the row classes are immutable (bar {@link topLanguageReport}, which callers must not modify)</li>
+ *   <li>Table versions are refreshed from the database at most every
+ *       {@link tableVersions#REFRESH_INTERVAL_MILLIS} during lookups</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * resultCache.key key = resultCache.key("cityReport.getTopCitiesInWorld", cappedLimit);
+ * ArrayList<cityReport> cached = resultCache.lookup(key);
+ * if (cached != null) return cached;
+ * try (...) {
+ *     // ... query into cities ...
+ * } catch (Exception e) {
+ *     return resultCache.abandon(key, cities, e);
+ * }
+ * return resultCache.store(key, cities, tableVersions.CITY, tableVersions.COUNTRY);
+ * }</pre>
+ */
+public class resultCache {
+
+    /**
+     * Default time an entry stays valid.
+     */
+    public static final long DEFAULT_TTL_MILLIS = 10 * 60_000L;
+
+    /**
+     * Default memory budget for cached results.
+     */
+    public static final long DEFAULT_MAX_BYTES = 32L << 20;
+
+    /**
+     * Rows sampled when estimating the width of a result's rows.
+     */
+    static final int WIDTH_SAMPLE = 8;
+
+    /**
+     * Longest time a caller waits for an identical query already in flight.
+     */
+    public static final long FOLLOWER_WAIT_MILLIS = 60_000L;
+
+    private static volatile long ttlMillis = DEFAULT_TTL_MILLIS;
+
+    private static volatile tinyLfuCache<key, entry> entries = new tinyLfuCache<>(DEFAULT_MAX_BYTES);
+
+    /**
+     * Instance fields per row class, used by {@link #rowBytes(Object)}.
+     */
+    private static final ConcurrentHashMap<Class<?>, Field[]> rowFields = new ConcurrentHashMap<>();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong savedNanos = new AtomicLong();
+    private static final AtomicLong coalesced = new AtomicLong();
+    private static final AtomicLong diskHits = new AtomicLong();
+
+    private static final singleFlight<key, List<?>> flights = new singleFlight<>();
+
+    /**
+     * Tables whose versions {@link #lookup(key)} records when a query starts.
+     */
+    static final String[] TABLES = {tableVersions.CITY, tableVersions.COUNTRY, tableVersions.COUNTRYLANGUAGE};
+
+    /**
+     * A query shape with its parameters; also records when the lookup started.
+     */
+    public static final class key {
+
+        final String shape;
+        final Object[] params;
+        final long started = System.nanoTime();
+
+        /**
+         * Set when this lookup leads a query that other callers wait on.
+         */
+        volatile singleFlight.flight<List<?>> flight;
+
+        /**
+         * Versions of {@link #TABLES} when the last lookup started; {@code null} before any lookup.
+         */
+        volatile long[] versions;
+
+        key(String shape, Object[] params) {
+            this.shape = shape;
+            this.params = params;
+        }
+
+        /**
+         * Version of a table when the query started, or its current version if the key was never
+         * looked up or the table is not in {@link #TABLES}.
+         */
+        long version(String table) {
+            long[] v = versions;
+            if (v != null) {
+                for (int i = 0; i < TABLES.length; i++) {
+                    if (TABLES[i].equals(table)) return v[i];
+                }
+            }
+            return tableVersions.version(table);
+        }
+
+        /**
+         * Renders the key as text for {@link diskCache}: the shape and each parameter,
+         * separated by the ASCII unit separator (0x1F).
+         *
+         * @return the key text
+         */
+        public String text() {
+            StringBuilder sb = new StringBuilder(shape);
+            for (Object p : params) sb.append((char) 0x1F).append(p);
+            return sb.toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof key && shape.equals(((key) o).shape) && Arrays.equals(params, ((key) o).params);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * shape.hashCode() + Arrays.hashCode(params);
+        }
+    }
+
+    /**
+     * A cached result.
+     */
+    private static final class entry {
+
+        final List<?> rows;
+        final String[] tables;
+        final long[] versions;
+        final long storedAt;
+        final long loadNanos;
+        final long bytes;
+
+        entry(List<?> rows, String[] tables, long[] versions, long storedAt, long loadNanos) {
+            this.rows = rows;
+            this.bytes = estimateBytes(rows);
+            this.tables = tables;
+            this.versions = versions;
+            this.storedAt = storedAt;
+            this.loadNanos = loadNanos;
+        }
+
+        boolean fresh(long now) {
+            if (now - storedAt >= ttlMillis) return false;
+            for (int i = 0; i < tables.length; i++) {
+                if (tableVersions.version(tables[i]) != versions[i]) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Builds the cache key of a query.
+     *
+     * @param shape  name of the query, e.g. {@code "cityReport.getTopCitiesByContinent"}
+     * @param params the query's parameters
+     * @return the key
+     */
+    public static key key(String shape, Object... params) {
+        return new key(shape, params);
+    }
+
+    /**
+     * Returns a fresh cached result, or {@code null} on a miss.
+     * <p>
+     * If another caller is already querying the same key, waits for its result rather than
+     * reporting a miss. Otherwise tries {@link diskCache} and keeps a result found there in memory.
+     *
+     * @param key query key
+     * @param <T> report row type
+     * @return a new list holding the cached rows, or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ArrayList<T> lookup(key key) {
+        tableVersions.refreshIfDue();
+        long[] versions = new long[TABLES.length];
+        for (int i = 0; i < TABLES.length; i++) versions[i] = tableVersions.version(TABLES[i]);
+        key.versions = versions;
+        tinyLfuCache<key, entry> cache = entries;
+        entry e = cache.get(key);
+        if (e != null && !e.fresh(System.currentTimeMillis())) {
+            cache.remove(key);
+            e = null;
+        }
+        if (e == null) {
+            boolean recording = queryBatch.recording();
+            singleFlight.flight<List<?>> f = recording ? null : flights.begin(key);
+            if (f == null || f.leader) {
+                key.flight = f;
+                diskCache.stored s = diskCache.read(key.text());
+                if (s != null) {
+                    diskHits.incrementAndGet();
+                    List<?> rows = remember(key, s.rows, s.tables, 0).rows;
+                    share(key, rows);
+                    return new ArrayList<>((List<T>) rows);
+                }
+            } else {
+                List<?> rows = f.await(FOLLOWER_WAIT_MILLIS);
+                if (rows != null) {
+                    coalesced.incrementAndGet();
+                    return new ArrayList<>((List<T>) rows);
+                }
+            }
+            if (!recording) misses.incrementAndGet();
+            return null;
+        }
+        if (!queryBatch.recording()) {
+            hits.incrementAndGet();
+            savedNanos.addAndGet(e.loadNanos);
+        }
+        return new ArrayList<>((List<T>) e.rows);
+    }
+
+    /**
+     * Caches a freshly queried result and returns it.
+     * <p>
+     * The entry is stamped with the table versions {@link #lookup(key)} read before the query
+     * ran, so a change that lands while the query runs leaves the result stale at once.
+     *
+     * @param key    key passed to {@link #lookup(key)}
+     * @param rows   query result
+     * @param tables tables the query read, e.g. {@link tableVersions#CITY}
+     * @param <T>    report row type
+     * @return {@code rows}
+     */
+    public static <T> ArrayList<T> store(key key, ArrayList<T> rows, String... tables) {
+        if (queryBatch.recording()) return rows;
+        if (rows == null || rows.isEmpty() || reportDeadline.expired()) {
+            share(key, rows == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(rows)));
+            return rows;
+        }
+        entry e = remember(key, rows, tables, System.nanoTime() - key.started);
+        share(key, e.rows);
+        diskCache.write(key.text(), e.rows, tables);
+        return rows;
+    }
+
+    /**
+     * Returns the rows of a query that failed, without caching them anywhere.
+     * <p>
+     * Callers waiting on the same query are released without a result, so they run it
+     * themselves rather than share rows that may be partial.
+     *
+     * @param key   key passed to {@link #lookup(key)}
+     * @param rows  rows read before the failure
+     * @param error the failure
+     * @param <T>   report row type
+     * @return {@code rows}
+     */
+    public static <T> ArrayList<T> abandon(key key, ArrayList<T> rows, Throwable error) {
+        singleFlight.flight<List<?>> f = key.flight;
+        if (f != null) {
+            key.flight = null;
+            flights.fail(f, error);
+        }
+        return rows;
+    }
+
+    /**
+     * Puts a result into the memory tier, stamped with the table versions from when its query started.
+     */
+    private static entry remember(key key, List<?> rows, String[] tables, long loadNanos) {
+        long[] versions = new long[tables.length];
+        for (int i = 0; i < tables.length; i++) versions[i] = key.version(tables[i]);
+        entry e = new entry(Collections.unmodifiableList(new ArrayList<>(rows)), tables, versions,
+                System.currentTimeMillis(), loadNanos);
+        entries.put(key, e, e.bytes);
+        return e;
+    }
+
+    /**
+     * Sets how long entries stay valid; existing entries use the new TTL too.
+     *
+     * @param millis time to live in milliseconds
+     */
+    public static void setTtl(long millis) {
+        ttlMillis = millis;
+    }
+
+    /**
+     * Sets the memory budget, dropping every entry.
+     *
+     * @param maxBytes budget in bytes
+     */
+    public static void setMaxBytes(long maxBytes) {
+        entries = new tinyLfuCache<>(maxBytes);
+    }
+
+    /**
+     * Drops every entry and its request history, abandons queries in flight, and resets the counters.
+     */
+    public static void clear() {
+        flights.abandonAll();
+        entries = new tinyLfuCache<>(entries.maxBytes());
+        hits.set(0);
+        misses.set(0);
+        savedNanos.set(0);
+        coalesced.set(0);
+        diskHits.set(0);
+    }
+
+    /**
+     * Number of lookups served from the cache.
+     *
+     * @return hit count
+     */
+    public static long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Number of lookups that had to query.
+     *
+     * @return miss count
+     */
+    public static long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Number of lookups that waited for an identical query in flight instead of running their own.
+     *
+     * @return coalesced lookup count
+     */
+    public static long coalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Number of lookups answered from {@link diskCache}.
+     *
+     * @return disk hit count
+     */
+    public static long diskHits() {
+        return diskHits.get();
+    }
+
+    /**
+     * Number of results evicted to stay within the memory budget.
+     *
+     * @return eviction count
+     */
+    public static long evictions() {
+        return entries.evictions();
+    }
+
+    /**
+     * Estimated bytes held by cached results.
+     *
+     * @return bytes in use
+     */
+    public static long weightedSize() {
+        return entries.weightedSize();
+    }
+
+    /**
+     * Share of lookups served from the cache.
+     *
+     * @return hit rate between 0 and 1; 0 before any lookup
+     */
+    public static double hitRate() {
+        long total = hits() + misses();
+        return total == 0 ? 0 : (double) hits() / total;
+    }
+
+    /**
+     * Database time saved by hits, taken as the original load time of each entry served.
+     *
+     * @return nanoseconds saved
+     */
+    public static long savedNanos() {
+        return savedNanos.get();
+    }
+
+    /**
+     * Summarises the counters, e.g.
+     * {@code "Result cache: 12 hits, 28 misses (30.0% hit rate), 41.7 ms saved, 3 coalesced, 0 evictions, 96.4 KiB used, 5 from disk"}.
+     *
+     * @return a one-line summary
+     */
+    public static String summary() {
+        return String.format("Result cache: %d hits, %d misses (%.1f%% hit rate), %.1f ms saved, %d coalesced, "
+                        + "%d evictions, %.1f KiB used, %d from disk",
+                hits(), misses(), hitRate() * 100, savedNanos() / 1_000_000.0, coalesced(),
+                evictions(), weightedSize() / 1024.0, diskHits());
+    }
+
+    /**
+     * Estimates the bytes a result retains: the list itself plus rows × average row width,
+     * the width sampled from up to {@link #WIDTH_SAMPLE} rows spread over the list.
+     *
+     * @param rows result rows
+     * @return estimated retained bytes
+     */
+    static long estimateBytes(List<?> rows) {
+        int n = rows.size();
+        long bytes = 16 + align(16 + 4L * n);
+        if (n == 0) return bytes;
+        int samples = Math.min(n, WIDTH_SAMPLE);
+        long sampled = 0;
+        for (int i = 0; i < samples; i++) sampled += rowBytes(rows.get((int) ((long) i * n / samples)));
+        return bytes + sampled * n / samples;
+    }
+
+    /**
+     * Estimates the shallow size of a row plus the strings it references, assuming compressed
+     * references and compact Latin-1 strings.
+     *
+     * @param row report row, string, or query engine row ({@code Object[]})
+     * @return estimated bytes
+     */
+    static long rowBytes(Object row) {
+        if (row == null) return 0;
+        if (row instanceof String) return stringBytes((String) row);
+        if (row instanceof Object[]) {
+            // A query engine row: the array plus its strings and boxed numbers
+            Object[] cells = (Object[]) row;
+            long bytes = align(16 + 4L * cells.length);
+            for (Object cell : cells) bytes += cell instanceof String ? stringBytes((String) cell) : cell != null ? 16 : 0;
+            return bytes;
+        }
+        long shallow = 12;
+        long referenced = 0;
+        for (Field f : rowFields(row.getClass())) {
+            Class<?> t = f.getType();
+            if (t == long.class || t == double.class) shallow += 8;
+            else if (t == int.class || t == float.class) shallow += 4;
+            else if (t == short.class || t == char.class) shallow += 2;
+            else if (t == byte.class || t == boolean.class) shallow += 1;
+            else {
+                shallow += 4;
+                if (t == String.class) {
+                    try {
+                        referenced += stringBytes((String) f.get(row));
+                    } catch (IllegalAccessException e) {
+                        referenced += stringBytes("");
+                    }
+                }
+            }
+        }
+        return align(shallow) + referenced;
+    }
+
+    private static long stringBytes(String s) {
+        return s == null ? 0 : 24 + align(16 + s.length());
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Instance fields of a row class, superclass fields included, made accessible.
+     *
+     * @param type row class
+     * @return the fields
+     */
+    static Field[] rowFields(Class<?> type) {
+        return rowFields.computeIfAbsent(type, resultCache::instanceFields);
+    }
+
+    private static Field[] instanceFields(Class<?> type) {
+        ArrayList<Field> fields = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers())) continue;
+                if (f.trySetAccessible()) fields.add(f);
+            }
+        }
+        return fields.toArray(new Field[0]);
+    }
+
+    /**
+     * Hands a result to the callers waiting on the key's query, if this lookup led one.
+     */
+    private static void share(key key, List<?> rows) {
+        singleFlight.flight<List<?>> f = key.flight;
+        if (f == null) return;
+        key.flight = null;
+        flights.complete(f, rows);
+    }
+}
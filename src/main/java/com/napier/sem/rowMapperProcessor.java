@@ -0,0 +1,246 @@
+package com.napier.sem;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code rowMapperProcessor} class is a compile-time annotation processor that writes an
+ * index-based row mapper for every {@link mappedRow} class.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Generates {@code final class <Row>Mapper} in the row's package</li>
+ *   <li>The mapper's constructor calls {@code findColumn} once per {@link column} label and keeps the indexes</li>
+ *   <li>{@code map(rset)} reads each column with a typed getter by index and passes the values to
+ *       the row's constructor, so no label is looked up per cell and the call site stays monomorphic</li>
+ *   <li>Pooled columns are passed through {@link stringPool#intern(String)}</li>
+ *   <li>If every field is a column, the mapper implements {@code rowPublisher.rowMapper<Row>};
+ *       otherwise the other fields become extra arguments of {@code map}, in declaration order</li>
+ * </ul>
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>Maven compiles this class, {@link mappedRow} and {@link column} first, with processing off</li>
+ *   <li>The main compilation runs this processor, which writes the mappers to
+ *       {@code target/generated-sources/annotations} and compiles them with the rest</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>A private or non-final instance field, or a static column field, is a compile error</li>
+ *   <li>A column of an unsupported type, or a pooled column that is not a {@code String}, is a compile error</li>
+ *   <li>A row class without a non-private constructor taking every instance field in
+ *       declaration order is a compile error</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * @mappedRow
+ * public class cityReport {
+ *     @column("name") public final String name;
+ *     @column(value = "country_name", pooled = true) public final String country;
+ *     public cityReport(String name, String country) { ... }
+ * }
+ * // generates cityReportMapper
+ * }</pre>
+ */
+@SupportedAnnotationTypes("com.napier.sem.mappedRow")
+@SupportedSourceVersion(SourceVersion.RELEASE_17)
+public class rowMapperProcessor extends AbstractProcessor {
+
+    /**
+     * {@code ResultSet} getter for each supported field type.
+     */
+    private static final Map<String, String> GETTERS = Map.of(
+            "java.lang.String", "getString",
+            "int", "getInt",
+            "long", "getLong",
+            "double", "getDouble",
+            "boolean", "getBoolean");
+
+    /**
+     * One instance field; {@code label} is {@code null} if it is not a column.
+     */
+    private record field(String name, String type, String label, String getter, boolean pooled) {
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (Element element : round.getElementsAnnotatedWith(mappedRow.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@mappedRow applies to classes only");
+                continue;
+            }
+            TypeElement row = (TypeElement) element;
+            List<field> fields = fields(row);
+            if (fields == null || !hasCanonicalConstructor(row, fields)) continue;
+            try {
+                write(row, fields);
+            } catch (IOException e) {
+                error(row, "Could not write mapper: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The row's instance fields in declaration order, or {@code null} after reporting an error.
+     */
+    private List<field> fields(TypeElement row) {
+        List<field> fields = new ArrayList<>();
+        boolean ok = true;
+        boolean anyColumn = false;
+        for (VariableElement f : ElementFilter.fieldsIn(row.getEnclosedElements())) {
+            Set<Modifier> modifiers = f.getModifiers();
+            column col = f.getAnnotation(column.class);
+            if (modifiers.contains(Modifier.STATIC)) {
+                if (col != null) {
+                    error(f, "@column fields must be instance fields");
+                    ok = false;
+                }
+                continue;
+            }
+            if (modifiers.contains(Modifier.PRIVATE) || !modifiers.contains(Modifier.FINAL)) {
+                error(f, "@mappedRow fields must be non-private and final");
+                ok = false;
+                continue;
+            }
+            String type = f.asType().toString();
+            String name = f.getSimpleName().toString();
+            if (col == null) {
+                fields.add(new field(name, type, null, null, false));
+                continue;
+            }
+            String getter = GETTERS.get(type);
+            if (getter == null) {
+                error(f, "@column does not support type " + type);
+                ok = false;
+                continue;
+            }
+            if (col.pooled() && !type.equals("java.lang.String")) {
+                error(f, "Only String columns can be pooled");
+                ok = false;
+                continue;
+            }
+            anyColumn = true;
+            fields.add(new field(name, type, col.value(), getter, col.pooled()));
+        }
+        if (!anyColumn) {
+            error(row, "@mappedRow class has no @column fields");
+            ok = false;
+        }
+        return ok ? fields : null;
+    }
+
+    private boolean hasCanonicalConstructor(TypeElement row, List<field> fields) {
+        for (ExecutableElement c : ElementFilter.constructorsIn(row.getEnclosedElements())) {
+            if (c.getModifiers().contains(Modifier.PRIVATE) || c.getParameters().size() != fields.size()) continue;
+            boolean matches = true;
+            for (int i = 0; i < fields.size() && matches; i++) {
+                matches = c.getParameters().get(i).asType().toString().equals(fields.get(i).type());
+            }
+            if (matches) return true;
+        }
+        error(row, "@mappedRow class needs a non-private constructor taking every field in declaration order");
+        return false;
+    }
+
+    private void write(TypeElement row, List<field> fields) throws IOException {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(row);
+        String rowName = row.getSimpleName().toString();
+        String mapperName = rowName + "Mapper";
+        String qualified = pkg.isUnnamed() ? mapperName : pkg.getQualifiedName() + "." + mapperName;
+        List<field> columns = new ArrayList<>();
+        List<field> extras = new ArrayList<>();
+        for (field f : fields) (f.label() != null ? columns : extras).add(f);
+
+        StringBuilder src = new StringBuilder();
+        if (!pkg.isUnnamed()) src.append("package ").append(pkg.getQualifiedName()).append(";\n\n");
+        src.append("import java.sql.ResultSet;\n");
+        src.append("import java.sql.SQLException;\n");
+        src.append("import javax.annotation.processing.Generated;\n\n");
+        src.append("/**\n");
+        src.append(" * Maps rows to {@link ").append(rowName).append("} by column index.\n");
+        src.append(" * Generated by {@link com.napier.sem.rowMapperProcessor}; do not edit.\n");
+        src.append(" */\n");
+        src.append("@Generated(\"com.napier.sem.rowMapperProcessor\")\n");
+        src.append("final class ").append(mapperName);
+        if (extras.isEmpty()) {
+            src.append(" implements com.napier.sem.rowPublisher.rowMapper<").append(rowName).append(">");
+        }
+        src.append(" {\n\n");
+        for (field f : columns) {
+            src.append("    private final int ").append(f.name()).append("Column;\n");
+        }
+        src.append("\n    /**\n");
+        src.append("     * Resolves the column indexes of a result set.\n");
+        src.append("     *\n");
+        src.append("     * @param rset result set the mapper will read\n");
+        src.append("     * @throws SQLException if a column is missing\n");
+        src.append("     */\n");
+        src.append("    ").append(mapperName).append("(ResultSet rset) throws SQLException {\n");
+        for (field f : columns) {
+            src.append("        ").append(f.name()).append("Column = rset.findColumn(\"")
+                    .append(f.label()).append("\");\n");
+        }
+        src.append("    }\n\n");
+        if (extras.isEmpty()) {
+            src.append("    @Override\n");
+        } else {
+            src.append("    /**\n");
+            src.append("     * Maps the current row.\n");
+            src.append("     *\n");
+            src.append("     * @param rset result set positioned on a row\n");
+            for (field f : extras) {
+                src.append("     * @param ").append(f.name()).append(" value of the {@code ")
+                        .append(f.name()).append("} field\n");
+            }
+            src.append("     * @return the row\n");
+            src.append("     * @throws SQLException if a column cannot be read\n");
+            src.append("     */\n");
+        }
+        src.append("    public ").append(rowName).append(" map(ResultSet rset");
+        for (field f : extras) src.append(", ").append(f.type()).append(" ").append(f.name());
+        src.append(") throws SQLException {\n");
+        src.append("        return new ").append(rowName).append("(");
+        for (int i = 0; i < fields.size(); i++) {
+            field f = fields.get(i);
+            src.append(i == 0 ? "\n                " : ",\n                ");
+            if (f.label() == null) {
+                src.append(f.name());
+            } else {
+                String read = "rset." + f.getter() + "(" + f.name() + "Column)";
+                src.append(f.pooled() ? "com.napier.sem.stringPool.intern(" + read + ")" : read);
+            }
+        }
+        src.append(");\n");
+        src.append("    }\n");
+        src.append("}\n");
+
+        try (Writer out = processingEnv.getFiler().createSourceFile(qualified, row).openWriter()) {
+            out.write(src.toString());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
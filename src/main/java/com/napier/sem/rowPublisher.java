@@ -0,0 +1,332 @@
+package com.napier.sem;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The {@code rowPublisher} class streams report rows to a {@link Flow.Subscriber} as it asks
+ * for them, so a slow consumer never forces a whole result into memory.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>{@link #query(String, Object[], rowBinder)} runs one SELECT per subscription and maps one
+ *       row per unit of demand with a {@link rowMapper} bound to that cursor's columns</li>
+ *   <li>{@link #of(Supplier)} publishes a list built by a DAO call, for reports that are
+ *       assembled in Java after the query (e.g. top languages)</li>
+ *   <li>Sets the JDBC fetch size to the outstanding demand, capped by an {@link adaptiveFetch}
+ *       estimate from the rows' width and the time the subscriber spends in {@code onNext};
+ *       with {@code useCursorFetch=true} on the connection URL, MySQL sends that many rows per fetch</li>
+ *   <li>Counts rows published and subscriptions cancelled early</li>
+ * </ul>
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>{@code subscribe} hands the subscriber its subscription; nothing is queried yet</li>
+ *   <li>The first {@code request(n)} opens the statement and cursor on the {@link asyncReports} executor</li>
+ *   <li>Each drain emits rows while demand lasts, then leaves the cursor open until more is requested</li>
+ *   <li>The last row closes the cursor and completes; {@code cancel()} closes it early</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>Signals to one subscriber never overlap: only one drain runs at a time, and the cursor is
+ *       opened, read and closed by that drain only</li>
+ *   <li>A non-positive {@code request} fails the subscription with {@link IllegalArgumentException}</li>
+ *   <li>If the executor's queue is full, the subscription fails with {@link RejectedExecutionException}</li>
+ *   <li>If {@code populationApp.con} is {@code null}, the subscription completes without rows</li>
+ *   <li>SQL errors and mapper errors close the cursor and are passed to {@code onError}</li>
+ *   <li>Rows are streamed straight from MySQL, bypassing {@link resultCache}, and no
+ *       {@link reportDeadline} applies, since the consumer sets the pace</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * Flow.Publisher<populationSummary> rows = reportStreams.getAllPopulationSummary();
+ * rows.subscribe(subscriber); // subscriber requests rows as it writes them out
+ * }</pre>
+ *
+ * @param <T> row type
+ */
+public class rowPublisher<T> implements Flow.Publisher<T> {
+
+    /**
+     * Largest fetch size asked of the driver, however much is requested.
+     */
+    public static final int MAX_FETCH_ROWS = adaptiveFetch.MAX_ROWS;
+
+    /**
+     * Maps the current row of a result set to a report row.
+     *
+     * @param <T> row type
+     */
+    @FunctionalInterface
+    public interface rowMapper<T> {
+        /**
+         * Maps the current row.
+         *
+         * @param rset result set positioned on a row
+         * @return the report row
+         * @throws SQLException if a column cannot be read
+         */
+        T map(ResultSet rset) throws SQLException;
+    }
+
+    /**
+     * Creates a {@link rowMapper} for one result set, e.g. a generated {@code <Row>Mapper}
+     * constructor that resolves the column indexes once.
+     *
+     * @param <T> row type
+     */
+    @FunctionalInterface
+    public interface rowBinder<T> {
+        /**
+         * Binds a mapper to the columns of a result set.
+         *
+         * @param rset result set, before its first row
+         * @return the mapper for its rows
+         * @throws SQLException if a column is missing
+         */
+        rowMapper<T> bind(ResultSet rset) throws SQLException;
+    }
+
+    private static final AtomicLong published = new AtomicLong();
+    private static final AtomicLong cancelled = new AtomicLong();
+
+    private final String sql;
+    private final Object[] params;
+    private final rowBinder<T> binder;
+    private final Supplier<? extends List<T>> list;
+
+    private rowPublisher(String sql, Object[] params, rowBinder<T> binder, Supplier<? extends List<T>> list) {
+        this.sql = sql;
+        this.params = params;
+        this.binder = binder;
+        this.list = list;
+    }
+
+    /**
+     * A publisher that runs a SELECT for each subscriber and maps its rows on demand.
+     *
+     * @param sql    SQL text
+     * @param params parameters, bound in order with {@code setObject}
+     * @param binder binds the mapper for each subscriber's cursor, e.g. {@code cityReportMapper::new}
+     * @param <T>    row type
+     * @return the publisher
+     */
+    public static <T> rowPublisher<T> query(String sql, Object[] params, rowBinder<T> binder) {
+        return new rowPublisher<>(sql, params.clone(), binder, null);
+    }
+
+    /**
+     * A publisher that builds a list with a DAO call for each subscriber and emits it on demand.
+     *
+     * @param call DAO call, e.g. {@code () -> topLanguageReport.getTopLanguagesByContinentAndRegion(5)}
+     * @param <T>  row type
+     * @return the publisher
+     */
+    public static <T> rowPublisher<T> of(Supplier<? extends List<T>> call) {
+        return new rowPublisher<>(null, null, null, call);
+    }
+
+    /**
+     * Hands the subscriber a subscription; rows are read only once it requests them.
+     *
+     * @param subscriber the subscriber
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        subscription s = new subscription(subscriber, asyncReports.executor());
+        subscriber.onSubscribe(s);
+    }
+
+    /**
+     * Number of rows delivered to subscribers.
+     *
+     * @return row count
+     */
+    public static long published() {
+        return published.get();
+    }
+
+    /**
+     * Number of subscriptions cancelled before their last row.
+     *
+     * @return cancel count
+     */
+    public static long cancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Resets the counters.
+     */
+    static void resetCounters() {
+        published.set(0);
+        cancelled.set(0);
+    }
+
+    /**
+     * One subscriber's cursor and demand.
+     */
+    private final class subscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Executor executor;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelRequested = false;
+        private volatile Throwable badRequest = null;
+
+        // Touched only inside drain(), which never runs concurrently with itself
+        private boolean done = false;
+        private PreparedStatement stmt;
+        private ResultSet rset;
+        private rowMapper<T> mapper;
+        private adaptiveFetch fetch;
+        private Iterator<T> rows;
+
+        subscription(Flow.Subscriber<? super T> subscriber, Executor executor) {
+            this.subscriber = subscriber;
+            this.executor = executor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException("request must be positive, was " + n);
+            } else {
+                demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelRequested = true;
+            schedule();
+        }
+
+        /**
+         * Starts a drain unless one is running; a running drain loops again for the new signal.
+         */
+        private void schedule() {
+            if (pending.getAndIncrement() != 0) return;
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                badRequest = e;
+                drain();
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                step();
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void step() {
+            if (done) return;
+            if (cancelRequested) {
+                if (rset != null || rows != null) cancelled.incrementAndGet();
+                finish();
+                return;
+            }
+            if (badRequest != null) {
+                finish();
+                subscriber.onError(badRequest);
+                return;
+            }
+            try {
+                if (demand.get() > 0 && rset == null && rows == null && !open()) {
+                    finish();
+                    subscriber.onComplete();
+                    return;
+                }
+                while (demand.get() > 0 && !cancelRequested) {
+                    T row = next();
+                    if (row == null) {
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    demand.decrementAndGet();
+                    published.incrementAndGet();
+                    long start = System.nanoTime();
+                    subscriber.onNext(row);
+                    if (fetch != null) fetch.consumed(System.nanoTime() - start);
+                }
+            } catch (Exception e) {
+                finish();
+                subscriber.onError(e);
+            }
+        }
+
+        /**
+         * Opens the cursor or builds the list; {@code false} if there is nothing to read.
+         */
+        private boolean open() throws SQLException {
+            if (list != null) {
+                List<T> all = list.get();
+                rows = all == null ? List.<T>of().iterator() : all.iterator();
+                return true;
+            }
+            Connection con = populationApp.con;
+            if (con == null) return false;
+            stmt = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            fetch = adaptiveFetch.start(sql);
+            stmt.setFetchSize(fetchSize());
+            for (int i = 0; i < params.length; i++) stmt.setObject(i + 1, params[i]);
+            rset = stmt.executeQuery();
+            mapper = binder.bind(rset);
+            return true;
+        }
+
+        /**
+         * The next row, or {@code null} after the last one.
+         */
+        private T next() throws SQLException {
+            if (rows != null) return rows.hasNext() ? rows.next() : null;
+            rset.setFetchSize(fetchSize());
+            if (!rset.next()) return null;
+            T row = mapper.map(rset);
+            fetch.row(row);
+            return row;
+        }
+
+        private int fetchSize() {
+            return (int) Math.max(1, Math.min(demand.get(), fetch.size()));
+        }
+
+        /**
+         * Closes the cursor and statement; no further signals are sent.
+         */
+        private void finish() {
+            done = true;
+            rows = null;
+            try {
+                if (rset != null) rset.close();
+                if (stmt != null) stmt.close();
+            } catch (SQLException e) {
+                System.out.println("Error: " + e.getMessage());
+            }
+            if (fetch != null) fetch.finish();
+            rset = null;
+            stmt = null;
+            mapper = null;
+            fetch = null;
+        }
+    }
+}
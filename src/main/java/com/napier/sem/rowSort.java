@@ -0,0 +1,118 @@
+package com.napier.sem;
+
+/**
+ * The {@code rowSort} class sorts an {@code int[]} of row numbers in place with a caller-supplied
+ * comparator, so multi-key orderings never box row ids into {@code Integer}s.
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>Quicksort with a median-of-three pivot partitions the range</li>
+ *   <li>Ranges of {@link #INSERTION_THRESHOLD} rows or fewer finish with insertion sort</li>
+ *   <li>If recursion gets deeper than {@code 2 log2(n)}, the range finishes with heapsort,
+ *       bounding the worst case at {@code O(n log n)}</li>
+ * </ol>
+ * <p>
+ * The sort is not stable; comparators should end with a unique key such as the row number.
+ */
+public final class rowSort {
+
+    /**
+     * Compares two row numbers.
+     */
+    @FunctionalInterface
+    public interface rowComparator {
+
+        /**
+         * @param a first row
+         * @param b second row
+         * @return negative, zero or positive as {@code a} sorts before, with or after {@code b}
+         */
+        int compare(int a, int b);
+    }
+
+    /**
+     * Ranges at or below this size are insertion sorted.
+     */
+    static final int INSERTION_THRESHOLD = 16;
+
+    private rowSort() {
+    }
+
+    /**
+     * Sorts {@code rows[from..to)} in place.
+     *
+     * @param rows row numbers to sort
+     * @param from first index, inclusive
+     * @param to   last index, exclusive
+     * @param cmp  row ordering
+     */
+    public static void sort(int[] rows, int from, int to, rowComparator cmp) {
+        int n = to - from;
+        if (n < 2) return;
+        introsort(rows, from, to - 1, 2 * (31 - Integer.numberOfLeadingZeros(n)), cmp);
+    }
+
+    private static void introsort(int[] a, int lo, int hi, int depth, rowComparator cmp) {
+        while (hi - lo + 1 > INSERTION_THRESHOLD) {
+            if (depth-- == 0) {
+                heapsort(a, lo, hi, cmp);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            // Median of three, leaving the pivot at hi
+            if (cmp.compare(a[mid], a[lo]) < 0) swap(a, mid, lo);
+            if (cmp.compare(a[hi], a[lo]) < 0) swap(a, hi, lo);
+            if (cmp.compare(a[mid], a[hi]) < 0) swap(a, mid, hi);
+            int pivot = a[hi];
+            int store = lo;
+            for (int i = lo; i < hi; i++) {
+                if (cmp.compare(a[i], pivot) < 0) swap(a, i, store++);
+            }
+            swap(a, store, hi);
+            // Recurse into the smaller side, loop on the larger
+            if (store - lo < hi - store) {
+                introsort(a, lo, store - 1, depth, cmp);
+                lo = store + 1;
+            } else {
+                introsort(a, store + 1, hi, depth, cmp);
+                hi = store - 1;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            int row = a[i];
+            int j = i - 1;
+            while (j >= lo && cmp.compare(a[j], row) > 0) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = row;
+        }
+    }
+
+    private static void heapsort(int[] a, int lo, int hi, rowComparator cmp) {
+        int n = hi - lo + 1;
+        for (int i = n / 2 - 1; i >= 0; i--) siftDown(a, lo, i, n, cmp);
+        for (int end = n - 1; end > 0; end--) {
+            swap(a, lo, lo + end);
+            siftDown(a, lo, 0, end, cmp);
+        }
+    }
+
+    private static void siftDown(int[] a, int lo, int i, int n, rowComparator cmp) {
+        int row = a[lo + i];
+        while (2 * i + 1 < n) {
+            int child = 2 * i + 1;
+            if (child + 1 < n && cmp.compare(a[lo + child + 1], a[lo + child]) > 0) child++;
+            if (cmp.compare(a[lo + child], row) <= 0) break;
+            a[lo + i] = a[lo + child];
+            i = child;
+        }
+        a[lo + i] = row;
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+}
@@ -0,0 +1,37 @@
+package com.napier.sem;
+
+/**
+ * The {@code scalarKernels} class implements {@link populationKernels} with plain loops.
+ * <p>
+ * It is the reference implementation and the fallback whenever the Vector API is unavailable.
+ */
+public class scalarKernels implements populationKernels {
+
+    @Override
+    public void sumByGroup(int[] ids, int[] values, int from, int to, long[] totals) {
+        for (int i = from; i < to; i++) {
+            int g = ids[i];
+            if (g >= 0) totals[g] += values[i];
+        }
+    }
+
+    @Override
+    public int filterByRange(int[] values, int from, int to, int min, int max, int[] out) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            int v = values[i];
+            if (v >= min && v <= max) out[n++] = i;
+        }
+        return n;
+    }
+
+    @Override
+    public int countInRange(int[] values, int from, int to, int min, int max) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            int v = values[i];
+            if (v >= min && v <= max) n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,215 @@
+package com.napier.sem;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * The {@code scopeRegistry} class records every continent, region, country and district name
+ * in the database, so that DAO methods can skip queries for names that cannot match any row.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Loads the distinct scope names once at startup</li>
+ *   <li>Keeps an exact set of normalised names per scope type</li>
+ *   <li>Counts the queries avoided because a scope name was unknown</li>
+ * </ul>
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>{@link #load()} reads the distinct names of each scope type through {@code populationApp.con}</li>
+ *   <li>DAO methods call {@link #mayExist(String, String)} before preparing their statement</li>
+ *   <li>The name is normalised once and looked up in the set; a hash lookup costs far less than
+ *       the query it may save, so no probabilistic filter sits in front of it</li>
+ *   <li>Unknown names return the empty list, which output methods turn into a placeholder report</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>Before a successful load every name may exist, so DAO behaviour is unchanged</li>
+ *   <li>Names are compared case-, accent- and trailing-space-insensitively, like MySQL's default
+ *       collation, so a name the database would match is never rejected</li>
+ *   <li>A {@code null} name never matches, as {@code = NULL} matches no rows in SQL</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * scopeRegistry.load();
+ * if (!scopeRegistry.mayExist(scopeRegistry.DISTRICT, "Atlantis")) {
+ *     // skip the query
+ * }
+ * }</pre>
+ */
+public class scopeRegistry {
+
+    /**
+     * Scope type of continent names.
+     */
+    public static final String CONTINENT = "Continent";
+
+    /**
+     * Scope type of region names.
+     */
+    public static final String REGION = "Region";
+
+    /**
+     * Scope type of country names.
+     */
+    public static final String COUNTRY = "Country";
+
+    /**
+     * Scope type of district names.
+     */
+    public static final String DISTRICT = "District";
+
+    /**
+     * Known names per scope type; {@code null} until loaded.
+     */
+    private static volatile HashMap<String, scopeSet> scopes = null;
+
+    /**
+     * Number of queries skipped because their scope name was unknown.
+     */
+    private static final AtomicLong avoided = new AtomicLong();
+
+    /**
+     * Combining marks left by canonical decomposition, i.e. the accents of accented letters.
+     */
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    /**
+     * Loads every continent, region, country and district name from the database.
+     * <p>
+     * Workflow:
+     * <ul>
+     *   <li>Checks if a valid database connection exists; returns {@code false} if not</li>
+     *   <li>Executes one query returning each distinct name tagged with its scope type</li>
+     *   <li>Builds an exact set of normalised names for each scope type</li>
+     * </ul>
+     * <p>
+     * Edge-case handling:
+     * <ul>
+     *   <li>If {@code populationApp.con} is {@code null}, the registry is left as it was</li>
+     *   <li>If SQL execution fails, the error message is logged and the registry is left as it was</li>
+     * </ul>
+     *
+     * @return {@code true} if the registry was loaded
+     */
+    public static boolean load() {
+        if (populationApp.con == null) return false;
+
+        HashMap<String, ArrayList<String>> names = new HashMap<>();
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+        SELECT DISTINCT 'Continent' AS scope, continent AS name FROM country
+        UNION ALL SELECT DISTINCT 'Region', region FROM country
+        UNION ALL SELECT DISTINCT 'Country', name FROM country
+        UNION ALL SELECT DISTINCT 'District', district FROM city
+    """)) {
+            ResultSet rset = pstmt.executeQuery();
+            while (rset.next()) {
+                names.computeIfAbsent(rset.getString("scope"), t -> new ArrayList<>()).add(rset.getString("name"));
+            }
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+            return false;
+        }
+
+        clear();
+        for (String type : new String[]{CONTINENT, REGION, COUNTRY, DISTRICT}) {
+            install(type, names.getOrDefault(type, new ArrayList<>()));
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the known names of one scope type.
+     *
+     * @param type  scope type, e.g. {@link #DISTRICT}
+     * @param names every name of that type
+     */
+    public static synchronized void install(String type, Collection<String> names) {
+        HashMap<String, scopeSet> next = scopes == null ? new HashMap<>() : new HashMap<>(scopes);
+        next.put(type, new scopeSet(names));
+        scopes = next;
+    }
+
+    /**
+     * Forgets every known name, so that every name may exist again.
+     */
+    public static synchronized void clear() {
+        scopes = null;
+    }
+
+    /**
+     * Returns whether a scope name may match rows, counting an avoided query when it cannot.
+     *
+     * @param type scope type, e.g. {@link #CONTINENT}
+     * @param name name passed to the DAO method
+     * @return {@code false} only if the registry is loaded for {@code type} and {@code name} is unknown
+     */
+    public static boolean mayExist(String type, String name) {
+        HashMap<String, scopeSet> current = scopes;
+        scopeSet set = current == null ? null : current.get(type);
+        if (set == null) return true;
+        if (name != null && set.contains(name)) return true;
+        avoided.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Returns the number of queries avoided since startup.
+     *
+     * @return avoided query count
+     */
+    public static long avoidedQueries() {
+        return avoided.get();
+    }
+
+    /**
+     * Normalises a name the way the database collation compares it: accents stripped,
+     * lower case, trailing spaces ignored. Plain ASCII names, which are most names, skip the
+     * decomposition.
+     */
+    static String key(String name) {
+        String plain = ascii(name) ? name
+                : MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        int end = plain.length();
+        while (end > 0 && plain.charAt(end - 1) == ' ') end--;
+        return plain.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean ascii(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+
+    /**
+     * The names of one scope type, by {@link #key(String)}.
+     */
+    static class scopeSet {
+
+        private final HashSet<String> exact = new HashSet<>();
+
+        scopeSet(Collection<String> names) {
+            for (String name : names) {
+                if (name != null) exact.add(key(name));
+            }
+        }
+
+        /**
+         * Returns whether the set holds {@code name}.
+         */
+        boolean contains(String name) {
+            return exact.contains(key(name));
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.napier.sem;
+
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The {@code singleFlight} class coalesces concurrent identical requests: the first caller for
+ * a key runs the work, and callers arriving while it runs wait for and share its result.
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>{@link #begin(Object)} registers the caller; the first one for a key becomes the leader</li>
+ *   <li>The leader does the work and hands the result to {@link #complete(flight, Object)}</li>
+ *   <li>Followers {@link flight#await(long)} the leader's result</li>
+ *   <li>Once completed the key is free again; later callers start a new flight</li>
+ * </ol>
+ * {@link #call(Object, Supplier)} wraps these steps for work that fits in a {@link Supplier}.
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>If the leader fails, followers receive {@code null} from {@link flight#await(long)} and
+ *       {@link #call(Object, Supplier)} runs the work itself</li>
+ *   <li>Followers stop waiting after their timeout, so a leader that never completes cannot block them forever</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * singleFlight<String, ArrayList<cityReport>> flights = new singleFlight<>();
+ * ArrayList<cityReport> cities = flights.call("Eastern Asia", () -> cityReport.getCitiesByRegion("Eastern Asia", 42));
+ * }</pre>
+ *
+ * @param <K> key type; must implement {@code equals} and {@code hashCode}
+ * @param <V> result type
+ */
+public class singleFlight<K, V> {
+
+    /**
+     * How long {@link #call(Object, Supplier)} followers wait for the leader by default.
+     */
+    public static final long DEFAULT_WAIT_MILLIS = 60_000L;
+
+    private final HashMap<K, flight<V>> inFlight = new HashMap<>();
+    private final AtomicLong shared = new AtomicLong();
+
+    /**
+     * One in-flight execution.
+     *
+     * @param <V> result type
+     */
+    public static final class flight<V> {
+
+        final Object key;
+        final CompletableFuture<V> result = new CompletableFuture<>();
+
+        /**
+         * Whether this caller runs the work.
+         */
+        public final boolean leader;
+
+        flight(Object key, boolean leader) {
+            this.key = key;
+            this.leader = leader;
+        }
+
+        private flight(flight<V> of) {
+            this.key = of.key;
+            this.leader = false;
+        }
+
+        /**
+         * Waits for the leader's result.
+         *
+         * @param millis longest time to wait
+         * @return the leader's result, or {@code null} if it failed, timed out or the wait was interrupted
+         */
+        public V await(long millis) {
+            try {
+                return result.get(millis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (Exception e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Joins the flight for a key, starting one if none is running.
+     *
+     * @param key request key
+     * @return the caller's view of the flight; {@code leader} is {@code true} for the caller that must do the work
+     */
+    public synchronized flight<V> begin(K key) {
+        flight<V> running = inFlight.get(key);
+        if (running != null) {
+            shared.incrementAndGet();
+            flight<V> follower = new flight<>(running);
+            running.result.whenComplete((v, e) -> {
+                if (e != null) follower.result.completeExceptionally(e);
+                else follower.result.complete(v);
+            });
+            return follower;
+        }
+        flight<V> started = new flight<>(key, true);
+        inFlight.put(key, started);
+        return started;
+    }
+
+    /**
+     * Publishes the leader's result to its followers and frees the key.
+     *
+     * @param leader flight returned to the leader by {@link #begin(Object)}
+     * @param value  result to share
+     */
+    public void complete(flight<V> leader, V value) {
+        release(leader);
+        leader.result.complete(value);
+    }
+
+    /**
+     * Tells followers the leader failed and frees the key.
+     *
+     * @param leader flight returned to the leader by {@link #begin(Object)}
+     * @param error  the failure
+     */
+    public void fail(flight<V> leader, Throwable error) {
+        release(leader);
+        leader.result.completeExceptionally(error);
+    }
+
+    /**
+     * Runs {@code work} once for all concurrent callers with the same key.
+     *
+     * @param key  request key
+     * @param work the request
+     * @return the result, shared with any callers that arrived while it ran
+     */
+    public V call(K key, Supplier<V> work) {
+        flight<V> f = begin(key);
+        if (!f.leader) {
+            V v = f.await(DEFAULT_WAIT_MILLIS);
+            if (v != null) return v;
+            return work.get();
+        }
+        try {
+            V v = work.get();
+            complete(f, v);
+            return v;
+        } catch (RuntimeException | Error e) {
+            fail(f, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Abandons every execution in progress: their followers stop waiting and receive
+     * {@code null}, and the keys are free for new flights.
+     */
+    public synchronized void abandonAll() {
+        for (flight<V> f : inFlight.values()) f.result.completeExceptionally(new IllegalStateException("abandoned"));
+        inFlight.clear();
+    }
+
+    /**
+     * Number of callers that shared another caller's execution.
+     *
+     * @return follower count
+     */
+    public long shared() {
+        return shared.get();
+    }
+
+    /**
+     * Number of keys with an execution in progress.
+     *
+     * @return in-flight count
+     */
+    public synchronized int inFlight() {
+        return inFlight.size();
+    }
+
+    private synchronized void release(flight<V> leader) {
+        if (leader.leader) inFlight.remove(leader.key, leader);
+    }
+}
@@ -0,0 +1,166 @@
+package com.napier.sem;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The {@code snapshotAggregator} class provides the group-by kernels used by
+ * {@link snapshotEngine} to roll column values up into groups.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Sums a value column per group id (e.g. city population per country)</li>
+ *   <li>Runs either sequentially or split into chunks on a {@link ForkJoinPool}</li>
+ * </ul>
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>The row range is split in halves until each chunk is below the grain size</li>
+ *   <li>Each chunk sums into its own partial {@code long[]} of group totals, using
+ *       {@link populationKernels#active()} for int columns</li>
+ *   <li>Partial totals are merged pairwise as the tasks join</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>If {@code pool} is {@code null} or the input is small, the sum runs on the calling thread</li>
+ *   <li>Negative group ids are skipped, so callers can mark rows as excluded</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * long[] cityPopPerCountry = snapshotAggregator.sumByGroup(pool,
+ *     snapshot.cityCountry, snapshot.cityPopulation, snapshot.countryCount());
+ * }</pre>
+ */
+public class snapshotAggregator {
+
+    /**
+     * Rows below which splitting a chunk further costs more than it saves.
+     */
+    static final int MIN_GRAIN = 16_384;
+
+    /**
+     * Sums {@code values} per group id.
+     *
+     * @param pool       pool to run chunks on, or {@code null} to run sequentially
+     * @param groups     group id of each row
+     * @param values     value of each row
+     * @param groupCount number of distinct group ids
+     * @return total per group id
+     */
+    public static long[] sumByGroup(ForkJoinPool pool, int[] groups, int[] values, int groupCount) {
+        if (pool == null || groups.length <= MIN_GRAIN) {
+            long[] totals = new long[groupCount];
+            sumRange(groups, values, 0, groups.length, totals);
+            return totals;
+        }
+        return pool.invoke(new intSumTask(groups, values, groupCount, 0, groups.length, grain(pool, groups.length)));
+    }
+
+    /**
+     * Sums {@code values} per group id, for values that are already 64-bit totals
+     * (e.g. rolling country totals up to regions).
+     *
+     * @param pool       pool to run chunks on, or {@code null} to run sequentially
+     * @param groups     group id of each row
+     * @param values     value of each row
+     * @param groupCount number of distinct group ids
+     * @return total per group id
+     */
+    public static long[] sumByGroup(ForkJoinPool pool, int[] groups, long[] values, int groupCount) {
+        if (pool == null || groups.length <= MIN_GRAIN) {
+            long[] totals = new long[groupCount];
+            sumRange(groups, values, 0, groups.length, totals);
+            return totals;
+        }
+        return pool.invoke(new longSumTask(groups, values, groupCount, 0, groups.length, grain(pool, groups.length)));
+    }
+
+    /**
+     * Chooses a chunk size giving roughly four chunks per worker, for load balancing.
+     */
+    private static int grain(ForkJoinPool pool, int rows) {
+        return Math.max(MIN_GRAIN, rows / (pool.getParallelism() * 4));
+    }
+
+    private static void sumRange(int[] groups, int[] values, int from, int to, long[] totals) {
+        populationKernels.active().sumByGroup(groups, values, from, to, totals);
+    }
+
+    private static void sumRange(int[] groups, long[] values, int from, int to, long[] totals) {
+        for (int i = from; i < to; i++) {
+            int g = groups[i];
+            if (g >= 0) totals[g] += values[i];
+        }
+    }
+
+    private static long[] merge(long[] into, long[] from) {
+        for (int g = 0; g < into.length; g++) into[g] += from[g];
+        return into;
+    }
+
+    /**
+     * Fork/join task summing an int column per group over a row range.
+     */
+    private static final class intSumTask extends RecursiveTask<long[]> {
+        private final int[] groups;
+        private final int[] values;
+        private final int groupCount, from, to, grain;
+
+        intSumTask(int[] groups, int[] values, int groupCount, int from, int to, int grain) {
+            this.groups = groups;
+            this.values = values;
+            this.groupCount = groupCount;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= grain) {
+                long[] partial = new long[groupCount];
+                sumRange(groups, values, from, to, partial);
+                return partial;
+            }
+            int mid = (from + to) >>> 1;
+            intSumTask left = new intSumTask(groups, values, groupCount, from, mid, grain);
+            left.fork();
+            long[] right = new intSumTask(groups, values, groupCount, mid, to, grain).compute();
+            return merge(right, left.join());
+        }
+    }
+
+    /**
+     * Fork/join task summing a long column per group over a row range.
+     */
+    private static final class longSumTask extends RecursiveTask<long[]> {
+        private final int[] groups;
+        private final long[] values;
+        private final int groupCount, from, to, grain;
+
+        longSumTask(int[] groups, long[] values, int groupCount, int from, int to, int grain) {
+            this.groups = groups;
+            this.values = values;
+            this.groupCount = groupCount;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= grain) {
+                long[] partial = new long[groupCount];
+                sumRange(groups, values, from, to, partial);
+                return partial;
+            }
+            int mid = (from + to) >>> 1;
+            longSumTask left = new longSumTask(groups, values, groupCount, from, mid, grain);
+            left.fork();
+            long[] right = new longSumTask(groups, values, groupCount, mid, to, grain).compute();
+            return merge(right, left.join());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.napier.sem;
+
+/**
+ * The {@code snapshotColumn} enum lists the columns a {@link snapshotQuery} can filter, sort and project.
+ * <p>
+ * Each column belongs to the city or the country table. City queries can use both, reading
+ * country columns through the city's country; country queries can only use country columns.
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>Country metric columns map onto {@link countryMetric}, so their prebuilt sort orders can be reused</li>
+ *   <li>Missing numeric values read as {@code NaN}; a missing capital reads as {@code null}</li>
+ * </ul>
+ */
+public enum snapshotColumn {
+
+    /**
+     * City id.
+     */
+    CITY_ID(true, false, "ID", null),
+
+    /**
+     * City name.
+     */
+    CITY_NAME(true, true, "City", null),
+
+    /**
+     * District of the city.
+     */
+    DISTRICT(true, true, "District", null),
+
+    /**
+     * City population.
+     */
+    CITY_POPULATION(true, false, "City Population", null),
+
+    /**
+     * ISO code of the country.
+     */
+    COUNTRY_CODE(false, true, "Code", null),
+
+    /**
+     * Country name.
+     */
+    COUNTRY_NAME(false, true, "Country", null),
+
+    /**
+     * Continent of the country.
+     */
+    CONTINENT(false, true, "Continent", null),
+
+    /**
+     * Region of the country.
+     */
+    REGION(false, true, "Region", null),
+
+    /**
+     * Name of the country's capital city.
+     */
+    CAPITAL(false, true, "Capital", null),
+
+    /**
+     * Country population.
+     */
+    COUNTRY_POPULATION(false, false, "Population", countryMetric.POPULATION),
+
+    /**
+     * Surface area in square kilometres.
+     */
+    SURFACE_AREA(false, false, countryMetric.SURFACE_AREA.label, countryMetric.SURFACE_AREA),
+
+    /**
+     * Population per square kilometre.
+     */
+    DENSITY(false, false, countryMetric.DENSITY.label, countryMetric.DENSITY),
+
+    /**
+     * GNP in millions of US dollars.
+     */
+    GNP(false, false, countryMetric.GNP.label, countryMetric.GNP),
+
+    /**
+     * GNP per inhabitant in US dollars.
+     */
+    GNP_PER_CAPITA(false, false, countryMetric.GNP_PER_CAPITA.label, countryMetric.GNP_PER_CAPITA),
+
+    /**
+     * Life expectancy in years.
+     */
+    LIFE_EXPECTANCY(false, false, countryMetric.LIFE_EXPECTANCY.label, countryMetric.LIFE_EXPECTANCY),
+
+    /**
+     * Share of the population living in cities.
+     */
+    URBANISATION(false, false, countryMetric.URBANISATION.label, countryMetric.URBANISATION),
+
+    /**
+     * Year of independence.
+     */
+    INDEPENDENCE_YEAR(false, false, countryMetric.INDEPENDENCE_YEAR.label, countryMetric.INDEPENDENCE_YEAR);
+
+    /**
+     * Whether the column lives in the city table.
+     */
+    public final boolean city;
+
+    /**
+     * Whether the column holds text rather than numbers.
+     */
+    public final boolean text;
+
+    /**
+     * Column heading used in results.
+     */
+    public final String label;
+
+    /**
+     * Country metric backing the column, or {@code null}.
+     */
+    public final countryMetric metric;
+
+    snapshotColumn(boolean city, boolean text, String label, countryMetric metric) {
+        this.city = city;
+        this.text = text;
+        this.label = label;
+        this.metric = metric;
+    }
+}
@@ -0,0 +1,1006 @@
+package com.napier.sem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+
+/**
+ * The {@code snapshotEngine} class answers report queries from an in-memory
+ * {@link worldSnapshot} instead of issuing SQL.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Holds the shared snapshot, analogous to {@code populationApp.con} for the DAO classes</li>
+ *   <li>Rolls city and country populations up to country, region and continent level</li>
+ *   <li>Answers every top-N report (cities, countries, capitals, languages) with a
+ *       reusable {@link topNHeap}, allocating only the result</li>
+ *   <li>Answers city top-N for the world, a continent or a region by merging per-country
+ *       city lists that are already ordered by population</li>
+ *   <li>Ranks countries by any {@link countryMetric}, stored or derived, through sort orders
+ *       built once per snapshot</li>
+ *   <li>Produces the same report objects as the DAO classes so output methods can be reused</li>
+ * </ul>
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>{@link #load()} builds the snapshot from the database, or a synthetic snapshot is assigned</li>
+ *   <li>Group-by paths run through {@link snapshotAggregator} on the engine's fork/join pool</li>
+ *   <li>Results are mapped into report objects and returned as {@code ArrayList}s</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>If no snapshot is loaded, query methods return an empty list</li>
+ *   <li>Unless {@link #setParallelism(int)} is called, the pool has one thread per processor, capped
+ *       by the {@code sem.snapshot.threads} system property</li>
+ *   <li>With a parallelism of 1 the engine never touches a pool and runs on the caller's thread</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * snapshotEngine.load();
+ * ArrayList<populationReport> byRegion = snapshotEngine.getPopulationByRegion();
+ * populationReport.outputPopReport(byRegion, "PopulationByRegion.md");
+ * }</pre>
+ */
+public class snapshotEngine {
+
+    /**
+     * Snapshot shared by every query method.
+     */
+    public static worldSnapshot snapshot = null;
+
+    /**
+     * System property capping the default number of aggregation threads.
+     */
+    static final String THREADS_PROPERTY = "sem.snapshot.threads";
+
+    /**
+     * Pool used for chunked aggregation; {@code null} means sequential.
+     */
+    private static ForkJoinPool pool = null;
+
+    /**
+     * Whether the pool was created, by default or by {@link #setParallelism(int)}.
+     */
+    private static boolean configured = false;
+
+    /**
+     * Loads the snapshot from the database using {@code populationApp.con}.
+     *
+     * @return {@code true} if the snapshot was loaded
+     */
+    public static boolean load() {
+        snapshot = worldSnapshot.load();
+        return snapshot != null;
+    }
+
+    /**
+     * Sets the number of worker threads used for aggregation.
+     * <p>
+     * A value of 1 or less disables the pool. Any previously created pool is shut down.
+     *
+     * @param threads number of worker threads
+     */
+    public static synchronized void setParallelism(int threads) {
+        if (pool != null) pool.shutdown();
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        configured = true;
+    }
+
+    /**
+     * Number of aggregation threads used unless {@link #setParallelism(int)} is called: one per
+     * available processor, capped by the {@value #THREADS_PROPERTY} system property.
+     *
+     * @return default number of worker threads; at least 1
+     */
+    static int defaultParallelism() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(processors, Integer.getInteger(THREADS_PROPERTY, processors)));
+    }
+
+    /**
+     * Returns the pool used for aggregation, creating the default pool on first use.
+     *
+     * @return the aggregation pool, or {@code null} when running sequentially
+     */
+    static synchronized ForkJoinPool pool() {
+        if (!configured) setParallelism(defaultParallelism());
+        return pool;
+    }
+
+    /**
+     * One-line summary for the end of a run, e.g. {@code "Snapshot engine: 8 aggregation threads"}.
+     *
+     * @return summary text
+     */
+    public static String summary() {
+        ForkJoinPool p = pool();
+        return "Snapshot engine: " + (p == null ? 1 : p.getParallelism()) + " aggregation threads";
+    }
+
+    /**
+     * Sums city populations per country row.
+     *
+     * @return city population of each country row
+     */
+    static long[] cityPopulationByCountry() {
+        return snapshotAggregator.sumByGroup(pool(), snapshot.cityCountry, snapshot.cityPopulation, snapshot.countryCount());
+    }
+
+    /**
+     * Retrieves the population breakdown of each continent, computed from the snapshot.
+     * <p>
+     * Workflow:
+     * <ul>
+     *   <li>Sums city population per country, then rolls countries up to continents</li>
+     *   <li>Sums country population per continent</li>
+     *   <li>Derives non-city population and both percentages</li>
+     *   <li>Orders results by total population (largest first)</li>
+     * </ul>
+     * <p>
+     * Edge-case handling:
+     * <ul>
+     *   <li>If no snapshot is loaded, an empty list is returned</li>
+     * </ul>
+     *
+     * @return an {@code ArrayList} of {@link populationReport} objects, one per continent
+     */
+    public static ArrayList<populationReport> getPopulationByContinent() {
+        if (snapshot == null) return new ArrayList<>();
+        return rollup(snapshot.countryContinent, snapshot.continentNames);
+    }
+
+    /**
+     * Retrieves the population breakdown of each region, computed from the snapshot.
+     * <p>
+     * Workflow:
+     * <ul>
+     *   <li>Sums city population per country, then rolls countries up to regions</li>
+     *   <li>Sums country population per region</li>
+     *   <li>Derives non-city population and both percentages</li>
+     *   <li>Orders results by total population (largest first)</li>
+     * </ul>
+     * <p>
+     * Edge-case handling:
+     * <ul>
+     *   <li>If no snapshot is loaded, an empty list is returned</li>
+     * </ul>
+     *
+     * @return an {@code ArrayList} of {@link populationReport} objects, one per region
+     */
+    public static ArrayList<populationReport> getPopulationByRegion() {
+        if (snapshot == null) return new ArrayList<>();
+        return rollup(snapshot.countryRegion, snapshot.regionNames);
+    }
+
+    /**
+     * Retrieves the population breakdown of each country, computed from the snapshot.
+     * <p>
+     * Workflow:
+     * <ul>
+     *   <li>Sums city population per country</li>
+     *   <li>Derives non-city population and both percentages</li>
+     *   <li>Orders results by total population (largest first)</li>
+     * </ul>
+     * <p>
+     * Edge-case handling:
+     * <ul>
+     *   <li>If no snapshot is loaded, an empty list is returned</li>
+     * </ul>
+     *
+     * @return an {@code ArrayList} of {@link populationReport} objects, one per country
+     */
+    public static ArrayList<populationReport> getPopulationByCountry() {
+        ArrayList<populationReport> pops = new ArrayList<>();
+        if (snapshot == null) return pops;
+
+        long[] city = cityPopulationByCountry();
+        for (int c = 0; c < snapshot.countryCount(); c++) {
+            pops.add(breakdown(snapshot.countryName[c], snapshot.countryPopulation[c], city[c]));
+        }
+        pops.sort(Comparator.comparingLong((populationReport p) -> p.totalPopulation).reversed());
+        return pops;
+    }
+
+    /**
+     * Retrieves the population of the world, every continent, region, country,
+     * district and city, computed from the snapshot.
+     * <p>
+     * Workflow:
+     * <ul>
+     *   <li>Rolls country populations up to world, continent and region level</li>
+     *   <li>Groups city populations by district</li>
+     *   <li>Lists every country and city individually</li>
+     *   <li>Orders results by level, then name</li>
+     * </ul>
+     * <p>
+     * Edge-case handling:
+     * <ul>
+     *   <li>If no snapshot is loaded, an empty list is returned</li>
+     * </ul>
+     *
+     * @return an {@code ArrayList} of {@link populationSummary} objects
+     */
+    public static ArrayList<populationSummary> getAllPopulationSummary() {
+        ArrayList<populationSummary> popsums = new ArrayList<>();
+        if (snapshot == null) return popsums;
+
+        ForkJoinPool p = pool();
+        long world = 0;
+        for (int pop : snapshot.countryPopulation) world += pop;
+        long[] continents = snapshotAggregator.sumByGroup(p, snapshot.countryContinent, snapshot.countryPopulation, snapshot.continentNames.length);
+        long[] regions = snapshotAggregator.sumByGroup(p, snapshot.countryRegion, snapshot.countryPopulation, snapshot.regionNames.length);
+        long[] districts = snapshotAggregator.sumByGroup(p, snapshot.cityDistrict, snapshot.cityPopulation, snapshot.districtNames.length);
+
+        popsums.add(summary("World", world, "World"));
+        for (int i = 0; i < continents.length; i++) popsums.add(summary(snapshot.continentNames[i], continents[i], "Continent"));
+        for (int i = 0; i < regions.length; i++) popsums.add(summary(snapshot.regionNames[i], regions[i], "Region"));
+        for (int i = 0; i < snapshot.countryCount(); i++) popsums.add(summary(snapshot.countryName[i], snapshot.countryPopulation[i], "Country"));
+        for (int i = 0; i < districts.length; i++) popsums.add(summary(snapshot.districtNames[i], districts[i], "District"));
+        for (int i = 0; i < snapshot.cityCount(); i++) popsums.add(summary(snapshot.cityName[i], snapshot.cityPopulation[i], "City"));
+
+        popsums.sort(Comparator.comparing((populationSummary s) -> s.level)
+                .thenComparing(s -> s.name, String.CASE_INSENSITIVE_ORDER));
+        return popsums;
+    }
+
+    /**
+     * Counts the cities whose population lies in {@code [min, max]}.
+     * <p>
+     * Runs on {@link populationKernels#active()}, so the scan is vectorised when the
+     * Vector API is available.
+     *
+     * @param min smallest population to count
+     * @param max largest population to count
+     * @return number of matching cities; {@code 0} if no snapshot is loaded
+     */
+    public static int countCitiesWithPopulationBetween(int min, int max) {
+        if (snapshot == null) return 0;
+        return populationKernels.active().countInRange(snapshot.cityPopulation, 0, snapshot.cityCount(), min, max);
+    }
+
+    /**
+     * Retrieves the most populated cities whose population lies in {@code [min, max]}.
+     * <p>
+     * Workflow:
+     * <ul>
+     *   <li>Caps the requested {@code limit} at a maximum of 42 for reproducibility</li>
+     *   <li>Filters city row numbers by population range with {@link populationKernels#active()}</li>
+     *   <li>Keeps the {@code limit} most populated matches in a {@link topNHeap}</li>
+     *   <li>Maps each row into a {@link cityReport} object</li>
+     * </ul>
+     * <p>
+     * Edge-case handling:
+     * <ul>
+     *   <li>If no snapshot is loaded, an empty list is returned</li>
+     * </ul>
+     *
+     * @param min   smallest population to include
+     * @param max   largest population to include
+     * @param limit maximum number of cities to return; capped internally at {@code 42}
+     * @return an {@code ArrayList} of {@link cityReport} objects
+     */
+    public static ArrayList<cityReport> getCitiesWithPopulationBetween(int min, int max, int limit) {
+        ArrayList<cityReport> cities = new ArrayList<>();
+        if (snapshot == null) return cities;
+
+        int cappedLimit = Math.min(limit, 42);
+        int[] rows = new int[snapshot.cityCount()];
+        int n = populationKernels.active().filterByRange(snapshot.cityPopulation, 0, rows.length, min, max, rows);
+
+        topNHeap heap = topNHeap.forThread();
+        heap.reset(cappedLimit);
+        for (int i = 0; i < n; i++) heap.offer(snapshot.cityPopulation[rows[i]], rows[i]);
+        for (int row : heap.drainDescending()) cities.add(city(row));
+        return cities;
+    }
+
+    // Top-N paths. Each mirrors the DAO method of the same name and keeps its limit caps.
+
+    /**
+     * Snapshot equivalent of {@link cityReport#getAllCitiesByPopulation(int)}.
+     *
+     * @param limit maximum number of cities to return; capped internally at {@code 42}
+     * @return cities ordered by population (largest first)
+     */
+    public static ArrayList<cityReport> getAllCitiesByPopulation(int limit) {
+        return cities(WORLD, null, Math.min(limit, 42));
+    }
+
+    /**
+     * Snapshot equivalent of {@link cityReport#getCitiesByContinent(String, int)}.
+     *
+     * @param continent continent to filter by
+     * @param limit     maximum number of cities to return; capped internally at {@code 42}
+     * @return cities ordered by population (largest first)
+     */
+    public static ArrayList<cityReport> getCitiesByContinent(String continent, int limit) {
+        return cities(CONTINENT, continent, Math.min(limit, 42));
+    }
+
+    /**
+     * Snapshot equivalent of {@link cityReport#getCitiesByRegion(String, int)}.
+     *
+     * @param region region to filter by
+     * @param limit  maximum number of cities to return; capped internally at {@code 42}
+     * @return cities ordered by population (largest first)
+     */
+    public static ArrayList<cityReport> getCitiesByRegion(String region, int limit) {
+        return cities(REGION, region, Math.min(limit, 42));
+    }
+
+    /**
+     * Snapshot equivalent of {@link cityReport#getCitiesByCountry(String, int)}.
+     *
+     * @param country country name to filter by
+     * @param limit   maximum number of cities to return; capped internally at {@code 42}
+     * @return cities ordered by population (largest first)
+     */
+    public static ArrayList<cityReport> getCitiesByCountry(String country, int limit) {
+        return cities(COUNTRY, country, Math.min(limit, 42));
+    }
+
+    /**
+     * Snapshot equivalent of {@link cityReport#getCitiesByDistrict(String, int)}.
+     *
+     * @param district district to filter by
+     * @param limit    maximum number of cities to return; capped internally at {@code 42}
+     * @return cities ordered by population (largest first)
+     */
+    public static ArrayList<cityReport> getCitiesByDistrict(String district, int limit) {
+        return cities(DISTRICT, district, Math.min(limit, 42));
+    }
+
+    /**
+     * Snapshot equivalent of {@link cityReport#getTopCitiesInWorld(int)}.
+     *
+     * @param limit maximum number of cities to return; capped internally at {@code 10}
+     * @return cities ordered by population (largest first)
+     */
+    public static ArrayList<cityReport> getTopCitiesInWorld(int limit) {
+        return cities(WORLD, null, Math.min(limit, 10));
+    }
+
+    /**
+     * Snapshot equivalent of {@link cityReport#getTopCitiesByContinent(String, int)}.
+     *
+     * @param continent continent to filter by
+     * @param limit     maximum number of cities to return; capped internally at {@code 10}
+     * @return cities ordered by population (largest first)
+     */
+    public static ArrayList<cityReport> getTopCitiesByContinent(String continent, int limit) {
+        return cities(CONTINENT, continent, Math.min(limit, 10));
+    }
+
+    /**
+     * Snapshot equivalent of {@link cityReport#getTopCitiesByRegion(String, int)}.
+     *
+     * @param region region to filter by
+     * @param limit  maximum number of cities to return; capped internally at {@code 10}
+     * @return cities ordered by population (largest first)
+     */
+    public static ArrayList<cityReport> getTopCitiesByRegion(String region, int limit) {
+        return cities(REGION, region, Math.min(limit, 10));
+    }
+
+    /**
+     * Snapshot equivalent of {@link cityReport#getTopCitiesByCountry(String, int)}.
+     *
+     * @param country country name to filter by
+     * @param limit   maximum number of cities to return; capped internally at {@code 10}
+     * @return cities ordered by population (largest first)
+     */
+    public static ArrayList<cityReport> getTopCitiesByCountry(String country, int limit) {
+        return cities(COUNTRY, country, Math.min(limit, 10));
+    }
+
+    /**
+     * Snapshot equivalent of {@link cityReport#getTopCitiesByDistrict(String, int)}.
+     *
+     * @param district district to filter by
+     * @param limit    maximum number of cities to return; capped internally at {@code 10}
+     * @return cities ordered by population (largest first)
+     */
+    public static ArrayList<cityReport> getTopCitiesByDistrict(String district, int limit) {
+        return cities(DISTRICT, district, Math.min(limit, 10));
+    }
+
+    /**
+     * Snapshot equivalent of {@link countryReport#getAllCountriesByPopulation(int)}.
+     *
+     * @param limit maximum number of countries to return; capped internally at {@code 42}
+     * @return countries ordered by population (largest first)
+     */
+    public static ArrayList<countryReport> getAllCountriesByPopulation(int limit) {
+        return countries(WORLD, null, Math.min(limit, 42));
+    }
+
+    /**
+     * Snapshot equivalent of {@link countryReport#getCountriesByContinent(String, int)}.
+     *
+     * @param continent continent to filter by
+     * @param limit     maximum number of countries to return; capped internally at {@code 42}
+     * @return countries ordered by population (largest first)
+     */
+    public static ArrayList<countryReport> getCountriesByContinent(String continent, int limit) {
+        return countries(CONTINENT, continent, Math.min(limit, 42));
+    }
+
+    /**
+     * Snapshot equivalent of {@link countryReport#getCountriesByRegion(String, int)}.
+     *
+     * @param region region to filter by
+     * @param limit  maximum number of countries to return; capped internally at {@code 42}
+     * @return countries ordered by population (largest first)
+     */
+    public static ArrayList<countryReport> getCountriesByRegion(String region, int limit) {
+        return countries(REGION, region, Math.min(limit, 42));
+    }
+
+    /**
+     * Snapshot equivalent of {@link countryReport#getTopCountriesByPopulation(int)}.
+     *
+     * @param limit maximum number of countries to return; capped internally at {@code 10}
+     * @return countries ordered by population (largest first)
+     */
+    public static ArrayList<countryReport> getTopCountriesByPopulation(int limit) {
+        return countries(WORLD, null, Math.min(limit, 10));
+    }
+
+    /**
+     * Snapshot equivalent of {@link countryReport#getTopCountriesByContinent(String, int)}.
+     *
+     * @param continent continent to filter by
+     * @param limit     maximum number of countries to return; capped internally at {@code 10}
+     * @return countries ordered by population (largest first)
+     */
+    public static ArrayList<countryReport> getTopCountriesByContinent(String continent, int limit) {
+        return countries(CONTINENT, continent, Math.min(limit, 10));
+    }
+
+    /**
+     * Snapshot equivalent of {@link countryReport#getTopCountriesByRegion(String, int)}.
+     *
+     * @param region region to filter by
+     * @param limit  maximum number of countries to return; capped internally at {@code 10}
+     * @return countries ordered by population (largest first)
+     */
+    public static ArrayList<countryReport> getTopCountriesByRegion(String region, int limit) {
+        return countries(REGION, region, Math.min(limit, 10));
+    }
+
+    /**
+     * Retrieves countries ordered by any {@link countryMetric}, computed from the snapshot.
+     * <p>
+     * Workflow:
+     * <ul>
+     *   <li>Caps the requested {@code limit} at a maximum of 42 for reproducibility</li>
+     *   <li>Walks the metric's prebuilt sort order from either end, stopping after {@code limit} countries</li>
+     *   <li>Maps each country row into a {@link countryReport} object</li>
+     * </ul>
+     * <p>
+     * Edge-case handling:
+     * <ul>
+     *   <li>If no snapshot is loaded, an empty list is returned</li>
+     *   <li>Countries without a value for the metric are left out</li>
+     * </ul>
+     *
+     * @param metric     metric to order by
+     * @param descending {@code true} for the largest values first
+     * @param limit      maximum number of countries to return; capped internally at {@code 42}
+     * @return countries ordered by the metric
+     */
+    public static ArrayList<countryReport> getCountriesByMetric(countryMetric metric, boolean descending, int limit) {
+        return countriesByMetric(metric, WORLD, null, Math.min(limit, 42), descending);
+    }
+
+    /**
+     * Retrieves the top countries in the world by any {@link countryMetric}.
+     *
+     * @param metric metric to rank by
+     * @param limit  maximum number of countries to return; capped internally at {@code 10}
+     * @return countries ordered by the metric (largest first)
+     */
+    public static ArrayList<countryReport> getTopCountriesByMetric(countryMetric metric, int limit) {
+        return countriesByMetric(metric, WORLD, null, Math.min(limit, 10), true);
+    }
+
+    /**
+     * Retrieves the top countries in a continent by any {@link countryMetric}.
+     *
+     * @param metric    metric to rank by
+     * @param continent continent to filter by
+     * @param limit     maximum number of countries to return; capped internally at {@code 10}
+     * @return countries ordered by the metric (largest first)
+     */
+    public static ArrayList<countryReport> getTopCountriesByMetricInContinent(countryMetric metric, String continent, int limit) {
+        return countriesByMetric(metric, CONTINENT, continent, Math.min(limit, 10), true);
+    }
+
+    /**
+     * Retrieves the top countries in a region by any {@link countryMetric}.
+     *
+     * @param metric metric to rank by
+     * @param region region to filter by
+     * @param limit  maximum number of countries to return; capped internally at {@code 10}
+     * @return countries ordered by the metric (largest first)
+     */
+    public static ArrayList<countryReport> getTopCountriesByMetricInRegion(countryMetric metric, String region, int limit) {
+        return countriesByMetric(metric, REGION, region, Math.min(limit, 10), true);
+    }
+
+    /**
+     * Snapshot equivalent of {@link capitalCityReport#getAllCapitalCitiesByPopulation(int)}.
+     *
+     * @param limit maximum number of capitals to return; capped internally at {@code 42}
+     * @return capitals ordered by population (largest first)
+     */
+    public static ArrayList<capitalCityReport> getAllCapitalCitiesByPopulation(int limit) {
+        return capitals(WORLD, null, Math.min(limit, 42));
+    }
+
+    /**
+     * Snapshot equivalent of {@link capitalCityReport#getCapitalCitiesByContinent(String, int)}.
+     *
+     * @param continent continent to filter by
+     * @param limit     maximum number of capitals to return; capped internally at {@code 42}
+     * @return capitals ordered by population (largest first)
+     */
+    public static ArrayList<capitalCityReport> getCapitalCitiesByContinent(String continent, int limit) {
+        return capitals(CONTINENT, continent, Math.min(limit, 42));
+    }
+
+    /**
+     * Snapshot equivalent of {@link capitalCityReport#getCapitalCitiesByRegion(String, int)}.
+     *
+     * @param region region to filter by
+     * @param limit  maximum number of capitals to return; capped internally at {@code 42}
+     * @return capitals ordered by population (largest first)
+     */
+    public static ArrayList<capitalCityReport> getCapitalCitiesByRegion(String region, int limit) {
+        return capitals(REGION, region, Math.min(limit, 42));
+    }
+
+    /**
+     * Snapshot equivalent of {@link capitalCityReport#getTopCapitalCitiesInWorld(int)}.
+     *
+     * @param limit maximum number of capitals to return; capped internally at {@code 10}
+     * @return capitals ordered by population (largest first)
+     */
+    public static ArrayList<capitalCityReport> getTopCapitalCitiesInWorld(int limit) {
+        return capitals(WORLD, null, Math.min(limit, 10));
+    }
+
+    /**
+     * Snapshot equivalent of {@link capitalCityReport#getTopCapitalCitiesByContinent(String, int)}.
+     *
+     * @param continent continent to filter by
+     * @param limit     maximum number of capitals to return; capped internally at {@code 10}
+     * @return capitals ordered by population (largest first)
+     */
+    public static ArrayList<capitalCityReport> getTopCapitalCitiesByContinent(String continent, int limit) {
+        return capitals(CONTINENT, continent, Math.min(limit, 10));
+    }
+
+    /**
+     * Snapshot equivalent of {@link capitalCityReport#getTopCapitalCitiesByRegion(String, int)}.
+     *
+     * @param region region to filter by
+     * @param limit  maximum number of capitals to return; capped internally at {@code 10}
+     * @return capitals ordered by population (largest first)
+     */
+    public static ArrayList<capitalCityReport> getTopCapitalCitiesByRegion(String region, int limit) {
+        return capitals(REGION, region, Math.min(limit, 10));
+    }
+
+    /**
+     * Snapshot equivalent of {@link topLanguageReport#getTopLanguagesByContinentAndRegion(int)}.
+     * <p>
+     * Speakers are accumulated per (continent, region, language, official flag) in flat arrays in
+     * one pass over the country-language rows, then each group is ranked with a {@link topNHeap}.
+     * Like the DAO, which reads whole speakers per row of its {@code GROUP BY}, each of those sums
+     * is truncated before it is added into its continent and region; equal totals are ordered by
+     * language name and languages with no speakers are left out.
+     *
+     * @param k maximum number of languages per continent and region; capped internally at {@code 10}
+     * @return continent rankings followed by region rankings, each ordered by scope then rank
+     */
+    public static ArrayList<topLanguageReport> getTopLanguagesByContinentAndRegion(int k) {
+        ArrayList<topLanguageReport> languages = new ArrayList<>();
+        if (snapshot == null) return languages;
+
+        int cappedK = Math.min(k, 10);
+        worldSnapshot s = snapshot;
+        int langs = s.languageNames.length;
+        int width = langs * 2;
+
+        // One slot per (continent, region) pair that has countries, as the DAO's GROUP BY has
+        int[] pairOf = new int[s.continentNames.length * s.regionNames.length];
+        Arrays.fill(pairOf, -1);
+        int[] continentOf = new int[s.countryCount()];
+        int[] regionOf = new int[s.countryCount()];
+        int[] countryPair = new int[s.countryCount()];
+        int pairCount = 0;
+        for (int c = 0; c < countryPair.length; c++) {
+            int key = s.countryContinent[c] * s.regionNames.length + s.countryRegion[c];
+            if (pairOf[key] < 0) {
+                continentOf[pairCount] = s.countryContinent[c];
+                regionOf[pairCount] = s.countryRegion[c];
+                pairOf[key] = pairCount++;
+            }
+            countryPair[c] = pairOf[key];
+        }
+
+        double[] pairs = new double[pairCount * width];
+        for (int r = 0; r < s.languageRowCount(); r++) {
+            int country = s.languageCountry[r];
+            double speakers = s.countryPopulation[country] * s.languagePercentage[r] / 100;
+            int slot = s.languageId[r] * 2 + (s.languageOfficial[r] ? 0 : 1);
+            pairs[countryPair[country] * width + slot] += speakers;
+        }
+
+        long[] continents = new long[s.continentNames.length * width];
+        long[] regions = new long[s.regionNames.length * width];
+        for (int p = 0; p < pairCount; p++) {
+            for (int slot = 0; slot < width; slot++) {
+                // The DAO's SUM is exact; the margin keeps a double just below a whole number from losing one
+                long speakers = (long) (pairs[p * width + slot] + 1e-6);
+                continents[continentOf[p] * width + slot] += speakers;
+                regions[regionOf[p] * width + slot] += speakers;
+            }
+        }
+
+        rankLanguages(topLanguageReport.CONTINENT, s.continentNames, continents, cappedK, languages);
+        rankLanguages(topLanguageReport.REGION, s.regionNames, regions, cappedK, languages);
+        return languages;
+    }
+
+    /**
+     * Scope kinds accepted by the city, country and capital top-N paths.
+     */
+    static final int WORLD = 0, CONTINENT = 1, REGION = 2, COUNTRY = 3, DISTRICT = 4;
+
+    /**
+     * Resolves a scope name to its id in the snapshot, or {@code -1} if it does not exist.
+     */
+    static int scopeId(int scope, String name) {
+        switch (scope) {
+            case CONTINENT: return snapshot.continentId(name);
+            case REGION: return snapshot.regionId(name);
+            case COUNTRY: return snapshot.countryRow(name);
+            case DISTRICT: return snapshot.districtId(name);
+            default: return 0;
+        }
+    }
+
+    /**
+     * Returns the {@code n} most populated city rows within a scope, largest first.
+     * <p>
+     * World, continent, region and country scopes are answered from the per-country
+     * {@link worldSnapshot.cityIndex}; districts cut across that index and are scanned.
+     */
+    static int[] topCityRows(int scope, int id, int n) {
+        switch (scope) {
+            case WORLD:
+            case CONTINENT:
+            case REGION:
+                return mergeTopCityRows(scope, id, n);
+            case COUNTRY: {
+                worldSnapshot.cityIndex index = snapshot.cityIndex();
+                int from = index.start[id];
+                int to = Math.min(index.start[id + 1], from + Math.max(0, n));
+                return Arrays.copyOfRange(index.rows, from, to);
+            }
+            default:
+                return scanTopCityRows(scope, id, n);
+        }
+    }
+
+    /**
+     * Merges the population-ordered city lists of every country in a continent, region or the
+     * world, stopping after {@code n} cities.
+     * <p>
+     * A max-heap holds one cursor per non-empty country, keyed by the population of the city
+     * under the cursor. Each step pops the largest, advances that country's cursor and sifts it
+     * back, so a query costs {@code O(k + n log k)} for {@code k} countries whatever the number of cities.
+     */
+    static int[] mergeTopCityRows(int scope, int id, int n) {
+        return mergeCityRows(c -> inScope(scope, id, c), null, n);
+    }
+
+    /**
+     * Merges the population-ordered city lists of the countries accepted by {@code countryFilter},
+     * keeping cities accepted by {@code cityFilter}, and stops after {@code n} cities.
+     *
+     * @param countryFilter accepts country rows whose cities take part; prunes whole lists
+     * @param cityFilter    accepts city rows, or {@code null} to accept all
+     * @param n             maximum number of city rows to return
+     * @return city rows, largest population first
+     */
+    static int[] mergeCityRows(IntPredicate countryFilter, IntPredicate cityFilter, int n) {
+        worldSnapshot s = snapshot;
+        worldSnapshot.cityIndex index = s.cityIndex();
+        int[] start = index.start;
+
+        // Cursor heap: pos is the index into index.rows, end the end of that country's group
+        int[] pos = new int[s.countryCount()];
+        int[] end = new int[pos.length];
+        int k = 0;
+        for (int c = 0; c < pos.length; c++) {
+            if (start[c] == start[c + 1] || !countryFilter.test(c)) continue;
+            pos[k] = start[c];
+            end[k] = start[c + 1];
+            k++;
+        }
+        for (int i = (k >>> 1) - 1; i >= 0; i--) siftCursor(index.rows, pos, end, i, k);
+
+        int[] out = new int[Math.max(0, n)];
+        int size = 0;
+        while (size < out.length && k > 0) {
+            int row = index.rows[pos[0]];
+            if (cityFilter == null || cityFilter.test(row)) out[size++] = row;
+            if (++pos[0] == end[0]) {
+                k--;
+                pos[0] = pos[k];
+                end[0] = end[k];
+            }
+            siftCursor(index.rows, pos, end, 0, k);
+        }
+        return size == out.length ? out : Arrays.copyOf(out, size);
+    }
+
+    /**
+     * Sifts cursor {@code i} down the first {@code k} cursors of the merge heap.
+     */
+    private static void siftCursor(int[] rows, int[] pos, int[] end, int i, int k) {
+        int p = pos[i];
+        int e = end[i];
+        int half = k >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < k && ahead(rows[pos[right]], rows[pos[child]])) child = right;
+            if (!ahead(rows[pos[child]], rows[p])) break;
+            pos[i] = pos[child];
+            end[i] = end[child];
+            i = child;
+        }
+        pos[i] = p;
+        end[i] = e;
+    }
+
+    /**
+     * Returns whether city row {@code a} ranks before city row {@code b}: larger population,
+     * then smaller row, the same order as {@link topNHeap}.
+     */
+    private static boolean ahead(int a, int b) {
+        int[] pop = snapshot.cityPopulation;
+        return pop[a] > pop[b] || (pop[a] == pop[b] && a < b);
+    }
+
+    /**
+     * Returns the {@code n} most populated city rows within a scope by scanning every city.
+     */
+    static int[] scanTopCityRows(int scope, int id, int n) {
+        worldSnapshot s = snapshot;
+        int[] pop = s.cityPopulation;
+        topNHeap heap = topNHeap.forThread();
+        heap.reset(n);
+        for (int row = 0; row < pop.length; row++) {
+            if (pop[row] <= heap.threshold()) continue;
+            int country = s.cityCountry[row];
+            boolean match;
+            switch (scope) {
+                case CONTINENT: match = s.countryContinent[country] == id; break;
+                case REGION: match = s.countryRegion[country] == id; break;
+                case COUNTRY: match = country == id; break;
+                case DISTRICT: match = s.cityDistrict[row] == id; break;
+                default: match = true;
+            }
+            if (match) heap.offer(pop[row], row);
+        }
+        return heap.drainDescending();
+    }
+
+    /**
+     * Returns the {@code n} most populated country rows within a scope, largest first.
+     */
+    static int[] topCountryRows(int scope, int id, int n) {
+        return countryRowsByMetric(countryMetric.POPULATION, scope, id, n, true);
+    }
+
+    /**
+     * Returns up to {@code n} country rows within a scope in the order of a metric.
+     * <p>
+     * The metric's sort order is built once per snapshot, so this only visits countries until
+     * {@code n} in-scope rows are found: {@code O(n)} for the world, and for a continent or region
+     * {@code O(n)} times the inverse of its share of countries.
+     */
+    static int[] countryRowsByMetric(countryMetric metric, int scope, int id, int n, boolean descending) {
+        worldSnapshot.metricIndex metrics = snapshot.metrics();
+        int[] order = metrics.order(metric);
+        int ranked = metrics.ranked(metric);
+        int[] out = new int[Math.max(0, n)];
+        int size = 0;
+        for (int i = 0; i < ranked && size < out.length; i++) {
+            int row = order[descending ? i : ranked - 1 - i];
+            if (inScope(scope, id, row)) out[size++] = row;
+        }
+        return size == out.length ? out : Arrays.copyOf(out, size);
+    }
+
+    /**
+     * Returns the country rows whose capitals are the {@code n} most populated within a scope,
+     * largest capital first.
+     */
+    static int[] topCapitalCountryRows(int scope, int id, int n) {
+        worldSnapshot s = snapshot;
+        topNHeap heap = topNHeap.forThread();
+        heap.reset(n);
+        for (int row = 0; row < s.countryCount(); row++) {
+            if (!inScope(scope, id, row)) continue;
+            int city = capitalRow(row);
+            if (city >= 0) heap.offer(s.cityPopulation[city], row);
+        }
+        return heap.drainDescending();
+    }
+
+    /**
+     * Returns whether a country row lies within a continent or region scope.
+     */
+    private static boolean inScope(int scope, int id, int countryRow) {
+        switch (scope) {
+            case CONTINENT: return snapshot.countryContinent[countryRow] == id;
+            case REGION: return snapshot.countryRegion[countryRow] == id;
+            default: return true;
+        }
+    }
+
+    /**
+     * Returns the city row of a country's capital, or {@code -1} if it has none.
+     */
+    static int capitalRow(int countryRow) {
+        int capital = snapshot.countryCapital[countryRow];
+        int[] rowById = snapshot.cityRowById();
+        return capital >= 0 && capital < rowById.length ? rowById[capital] : -1;
+    }
+
+    private static ArrayList<cityReport> cities(int scope, String name, int n) {
+        ArrayList<cityReport> cities = new ArrayList<>();
+        if (snapshot == null) return cities;
+        int id = scopeId(scope, name);
+        if (id < 0) return cities;
+        for (int row : topCityRows(scope, id, n)) cities.add(city(row));
+        return cities;
+    }
+
+    private static ArrayList<countryReport> countries(int scope, String name, int n) {
+        ArrayList<countryReport> countries = new ArrayList<>();
+        if (snapshot == null) return countries;
+        int id = scopeId(scope, name);
+        if (id < 0) return countries;
+        for (int row : topCountryRows(scope, id, n)) countries.add(country(row));
+        return countries;
+    }
+
+    private static ArrayList<countryReport> countriesByMetric(countryMetric metric, int scope, String name, int n,
+                                                            boolean descending) {
+        ArrayList<countryReport> countries = new ArrayList<>();
+        if (snapshot == null) return countries;
+        int id = scopeId(scope, name);
+        if (id < 0) return countries;
+        for (int row : countryRowsByMetric(metric, scope, id, n, descending)) countries.add(country(row));
+        return countries;
+    }
+
+    private static ArrayList<capitalCityReport> capitals(int scope, String name, int n) {
+        ArrayList<capitalCityReport> capitals = new ArrayList<>();
+        if (snapshot == null) return capitals;
+        int id = scopeId(scope, name);
+        if (id < 0) return capitals;
+        for (int row : topCapitalCountryRows(scope, id, n)) capitals.add(capital(row));
+        return capitals;
+    }
+
+    /**
+     * Ranks the languages of every group with a {@link topNHeap}, groups in name order.
+     * <p>
+     * Languages are offered in name order, so the heap's smaller-id tie-break favours the earlier
+     * name, as in {@link topLanguageReport}, whatever order the dictionary was built in.
+     */
+    private static void rankLanguages(String level, String[] groupNames, long[] speakers, int k,
+                                      ArrayList<topLanguageReport> out) {
+        int langs = snapshot.languageNames.length;
+        Integer[] order = new Integer[groupNames.length];
+        for (int g = 0; g < order.length; g++) order[g] = g;
+        Arrays.sort(order, Comparator.comparing(g -> groupNames[g]));
+        Integer[] byName = new Integer[langs];
+        for (int l = 0; l < langs; l++) byName[l] = l;
+        Arrays.sort(byName, Comparator.comparing(l -> snapshot.languageNames[l]));
+
+        topNHeap heap = topNHeap.forThread();
+        for (int g : order) {
+            int base = g * langs * 2;
+            heap.reset(k);
+            for (int i = 0; i < langs; i++) {
+                int l = byName[i];
+                long total = speakers[base + l * 2] + speakers[base + l * 2 + 1];
+                if (total > 0) heap.offer(total, i);
+            }
+            int rank = 1;
+            for (int i : heap.drainDescending()) {
+                int l = byName[i];
+                topLanguageReport t = new topLanguageReport();
+                t.level = level;
+                t.scope = groupNames[g];
+                t.rank = rank++;
+                t.language = snapshot.languageNames[l];
+                t.officialSpeakers = speakers[base + l * 2];
+                t.unofficialSpeakers = speakers[base + l * 2 + 1];
+                t.speakers = t.officialSpeakers + t.unofficialSpeakers;
+                out.add(t);
+            }
+        }
+    }
+
+    /**
+     * Maps one country row into a {@link countryReport}.
+     */
+    static countryReport country(int row) {
+        int city = capitalRow(row);
+        return new countryReport(snapshot.countryCode[row], snapshot.countryName[row],
+                snapshot.continentNames[snapshot.countryContinent[row]],
+                snapshot.regionNames[snapshot.countryRegion[row]],
+                snapshot.countryPopulation[row], city >= 0 ? snapshot.cityName[city] : null);
+    }
+
+    /**
+     * Maps the capital of one country row into a {@link capitalCityReport}.
+     */
+    static capitalCityReport capital(int countryRow) {
+        int city = capitalRow(countryRow);
+        return new capitalCityReport(snapshot.cityName[city], snapshot.countryName[countryRow],
+                snapshot.cityPopulation[city]);
+    }
+
+    /**
+     * Maps one city row into a {@link cityReport}.
+     */
+    static cityReport city(int row) {
+        return new cityReport(snapshot.cityName[row], snapshot.countryName[snapshot.cityCountry[row]],
+                snapshot.districtNames[snapshot.cityDistrict[row]], snapshot.cityPopulation[row]);
+    }
+
+    /**
+     * Rolls country and city populations up to the groups given by {@code countryGroup}.
+     */
+    private static ArrayList<populationReport> rollup(int[] countryGroup, String[] groupNames) {
+        ForkJoinPool p = pool();
+        long[] cityPerCountry = cityPopulationByCountry();
+        long[] total = snapshotAggregator.sumByGroup(p, countryGroup, snapshot.countryPopulation, groupNames.length);
+        long[] city = snapshotAggregator.sumByGroup(p, countryGroup, cityPerCountry, groupNames.length);
+
+        ArrayList<populationReport> pops = new ArrayList<>();
+        for (int g = 0; g < groupNames.length; g++) {
+            pops.add(breakdown(groupNames[g], total[g], city[g]));
+        }
+        pops.sort(Comparator.comparingLong((populationReport r) -> r.totalPopulation).reversed());
+        return pops;
+    }
+
+    /**
+     * Builds one population breakdown, rounding percentages to two decimals as the SQL reports do.
+     */
+    private static populationReport breakdown(String name, long total, long city) {
+        double cityPercentage = total > 0 ? Math.round(city * 10000.0 / total) / 100.0 : 0.0;
+        double nonCityPercentage = total > 0 ? Math.round((total - city) * 10000.0 / total) / 100.0 : 0.0;
+        return new populationReport(name, total, city, cityPercentage, total - city, nonCityPercentage);
+    }
+
+    private static populationSummary summary(String name, long population, String level) {
+        return new populationSummary(name, population, level);
+    }
+}
@@ -0,0 +1,786 @@
+package com.napier.sem;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The {@code snapshotQuery} class is a small typed query API over the in-memory
+ * {@link worldSnapshot}: filters on any column, multi-key sort, limit/offset and projection.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Answers new orderings ("cities by district then population") without a new DAO method or SQL round trip</li>
+ *   <li>Chooses a prebuilt sort index when the ordering allows it</li>
+ *   <li>Otherwise filters row ids into an {@code int[]} and sorts them in place with {@link rowSort}</li>
+ *   <li>Reads only the projected columns: the snapshot path binds one reader per projected
+ *       column before the row loop, and {@link #runOnDatabase()} selects only those columns
+ *       and joins only the tables they need</li>
+ * </ul>
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>{@link #cities()} or {@link #countries()} starts a query</li>
+ *   <li>{@link #where}, {@link #orderBy}, {@link #select}, {@link #limit} and {@link #offset} describe it;
+ *       {@link #fetchSize} tunes how the SQL form reads its cursor</li>
+ *   <li>{@link #run()} plans and executes it against {@code snapshotEngine.snapshot}, or
+ *       {@link #runOnDatabase()} against {@code populationApp.con} when no snapshot is loaded</li>
+ * </ol>
+ * <p>
+ * Plans, in order of preference:
+ * <ul>
+ *   <li>{@link #PLAN_METRIC_INDEX}: countries ordered by one {@link countryMetric} column walk its prebuilt order</li>
+ *   <li>{@link #PLAN_POPULATION_MERGE}: cities ordered by population (largest first) merge the
+ *       per-country city lists, pruning whole countries on country-level filters</li>
+ *   <li>{@link #PLAN_SCAN}: unordered queries scan rows and stop after {@code offset + limit} matches</li>
+ *   <li>{@link #PLAN_SORT}: any other ordering filters and sorts row ids</li>
+ * </ul>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>{@code limit} is capped at 42, in line with the general report queries</li>
+ *   <li>Text comparisons are exact and case-sensitive; {@code NaN} and {@code null} values never
+ *       match a filter and sort last in either direction, like SQL {@code NULL}</li>
+ *   <li>Ties are broken by row number, so every plan returns the same rows in the same order</li>
+ *   <li>If no snapshot is loaded or the query is invalid (e.g. a city column on a country query),
+ *       the error is logged and an empty result is returned</li>
+ *   <li>The SQL form compares and sorts text as binary and puts {@code NULL} last, breaks ties
+ *       by city ID or country code (the snapshot's row order), and derives the metric columns
+ *       with the snapshot's formulas, so both backends return the same rows</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * snapshotQuery.result r = snapshotQuery.cities()
+ *         .where(snapshotColumn.COUNTRY_NAME, snapshotQuery.op.EQ, "Germany")
+ *         .orderBy(snapshotColumn.DISTRICT, false)
+ *         .orderBy(snapshotColumn.CITY_POPULATION, true)
+ *         .select(snapshotColumn.DISTRICT, snapshotColumn.CITY_NAME, snapshotColumn.CITY_POPULATION)
+ *         .limit(20)
+ *         .run();
+ * }</pre>
+ */
+public class snapshotQuery {
+
+    /**
+     * Comparison operators accepted by {@link #where}.
+     */
+    public enum op { EQ, NE, LT, LE, GT, GE }
+
+    /**
+     * Plan name: walk a country metric's prebuilt sort order.
+     */
+    public static final String PLAN_METRIC_INDEX = "metric-index";
+
+    /**
+     * Plan name: k-way merge of per-country city lists.
+     */
+    public static final String PLAN_POPULATION_MERGE = "population-merge";
+
+    /**
+     * Plan name: unordered scan with early stop.
+     */
+    public static final String PLAN_SCAN = "scan";
+
+    /**
+     * Plan name: filter row ids, then sort them in place.
+     */
+    public static final String PLAN_SORT = "sort";
+
+    /**
+     * Plan name: one SELECT of the projected columns, run by MySQL.
+     */
+    public static final String PLAN_SQL = "sql";
+
+    /**
+     * Maximum number of rows a query returns.
+     */
+    static final int MAX_LIMIT = 42;
+
+    /**
+     * The rows of an executed query.
+     */
+    public static final class result {
+
+        /**
+         * Column headings, in projection order.
+         */
+        public final String[] columns;
+
+        /**
+         * One {@code Object[]} per row: {@code String}, {@code Long} or {@code Double} values, or {@code null}.
+         */
+        public final ArrayList<Object[]> rows;
+
+        /**
+         * Name of the plan that produced the rows, e.g. {@link #PLAN_SORT}.
+         */
+        public final String plan;
+
+        result(String[] columns, ArrayList<Object[]> rows, String plan) {
+            this.columns = columns;
+            this.rows = rows;
+            this.plan = plan;
+        }
+    }
+
+    private final boolean cities;
+    private final ArrayList<snapshotColumn> filterColumns = new ArrayList<>();
+    private final ArrayList<op> filterOps = new ArrayList<>();
+    private final ArrayList<Object> filterValues = new ArrayList<>();
+    private final ArrayList<snapshotColumn> sortColumns = new ArrayList<>();
+    private final ArrayList<Boolean> sortDescending = new ArrayList<>();
+    private snapshotColumn[] projection;
+    private int limit = MAX_LIMIT;
+    private int offset = 0;
+    private int fetchSize = 0;
+
+    private snapshotQuery(boolean cities) {
+        this.cities = cities;
+    }
+
+    /**
+     * Starts a query over city rows; country columns refer to each city's country.
+     *
+     * @return a new query
+     */
+    public static snapshotQuery cities() {
+        return new snapshotQuery(true);
+    }
+
+    /**
+     * Starts a query over country rows.
+     *
+     * @return a new query
+     */
+    public static snapshotQuery countries() {
+        return new snapshotQuery(false);
+    }
+
+    /**
+     * Adds a filter; all filters must match.
+     *
+     * @param column column to test
+     * @param op     comparison
+     * @param value  {@code String} for text columns, any {@code Number} for numeric columns
+     * @return this query
+     */
+    public snapshotQuery where(snapshotColumn column, op op, Object value) {
+        filterColumns.add(column);
+        filterOps.add(op);
+        filterValues.add(value);
+        return this;
+    }
+
+    /**
+     * Adds a sort key after any added before.
+     *
+     * @param column     column to sort by
+     * @param descending {@code true} for the largest values first
+     * @return this query
+     */
+    public snapshotQuery orderBy(snapshotColumn column, boolean descending) {
+        sortColumns.add(column);
+        sortDescending.add(descending);
+        return this;
+    }
+
+    /**
+     * Sets the columns returned, in order; by default every column available to the query.
+     *
+     * @param columns columns to return
+     * @return this query
+     */
+    public snapshotQuery select(snapshotColumn... columns) {
+        projection = columns.clone();
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of rows returned.
+     *
+     * @param limit maximum rows; capped internally at {@code 42}
+     * @return this query
+     */
+    public snapshotQuery limit(int limit) {
+        this.limit = Math.max(0, Math.min(limit, MAX_LIMIT));
+        return this;
+    }
+
+    /**
+     * Sets how many matching rows are skipped before the first returned row.
+     *
+     * @param offset rows to skip
+     * @return this query
+     */
+    public snapshotQuery offset(int offset) {
+        this.offset = Math.max(0, offset);
+        return this;
+    }
+
+    /**
+     * Sets how many rows {@link #runOnDatabase()} fetches per round trip through its server-side cursor.
+     * This does not change the rows returned, so it is not part of the query's key.
+     *
+     * @param rows rows per fetch; {@code 0}, the default, lets {@link adaptiveFetch} size each fetch
+     *             from the width of the rows read
+     * @return this query
+     */
+    public snapshotQuery fetchSize(int rows) {
+        this.fetchSize = Math.max(0, rows);
+        return this;
+    }
+
+    /**
+     * Plans and executes the query against {@code snapshotEngine.snapshot}.
+     *
+     * @return the selected rows; empty if no snapshot is loaded or the query is invalid
+     */
+    public result run() {
+        snapshotColumn[] columns = projection != null ? projection : defaultProjection();
+        String[] labels = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) labels[i] = columns[i].label;
+
+        worldSnapshot s = snapshotEngine.snapshot;
+        if (s == null) return new result(labels, new ArrayList<>(), PLAN_SCAN);
+        try {
+            validate(columns);
+            String plan = plan();
+            int[] rows = execute(s, plan);
+
+            cellReader[] readers = new cellReader[columns.length];
+            for (int i = 0; i < columns.length; i++) readers[i] = reader(s, columns[i], !cities);
+            ArrayList<Object[]> out = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                Object[] values = new Object[readers.length];
+                for (int i = 0; i < readers.length; i++) values[i] = readers[i].read(row);
+                out.add(values);
+            }
+            return new result(labels, out, plan);
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+            return new result(labels, new ArrayList<>(), PLAN_SCAN);
+        }
+    }
+
+    /**
+     * Executes the query in MySQL through {@code populationApp.con}, for when no snapshot is loaded.
+     * <p>
+     * The SELECT lists only the projected columns; the country, capital and city-total joins
+     * are added only if a projected, filtered or sorted column needs them, and each column is
+     * read by index. Rows are read through a server-side cursor sized by {@link #fetchSize}.
+     *
+     * @return the selected rows; empty if there is no connection or the query is invalid
+     */
+    public result runOnDatabase() {
+        snapshotColumn[] columns = projection != null ? projection : defaultProjection();
+        String[] labels = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) labels[i] = columns[i].label;
+
+        ArrayList<Object[]> out = new ArrayList<>();
+        if (populationApp.con == null) {
+            System.out.println("Error: no database connection");
+            return new result(labels, out, PLAN_SQL);
+        }
+        try {
+            validate(columns);
+            for (int i = 0; i < filterColumns.size(); i++) checkValue(filterColumns.get(i), filterValues.get(i));
+            String sql = sql(columns);
+            try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, sql)) {
+                adaptiveFetch fetch = adaptiveFetch.start(sql);
+                pstmt.setFetchSize(fetchSize > 0 ? fetchSize : fetch.size());
+                int p = 1;
+                for (Object value : filterValues) pstmt.setObject(p++, value);
+                pstmt.setInt(p++, limit);
+                pstmt.setInt(p, offset);
+                ResultSet rset = pstmt.executeQuery();
+                while (rset.next()) {
+                    Object[] values = new Object[columns.length];
+                    for (int i = 0; i < columns.length; i++) values[i] = read(rset, columns[i], i + 1);
+                    out.add(values);
+                    if (fetchSize == 0) fetch.observe(rset, values);
+                }
+                fetch.finish();
+            }
+            return new result(labels, out, PLAN_SQL);
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+            return new result(labels, new ArrayList<>(), PLAN_SQL);
+        }
+    }
+
+    /**
+     * Builds the SELECT run by {@link #runOnDatabase()}; filters, {@code LIMIT} and {@code OFFSET}
+     * are parameters, in that order.
+     *
+     * @param columns projected columns
+     * @return SQL text
+     */
+    String sql(snapshotColumn[] columns) {
+        ArrayList<snapshotColumn> used = new ArrayList<>(Arrays.asList(columns));
+        used.addAll(filterColumns);
+        used.addAll(sortColumns);
+        boolean country = !cities;
+        for (snapshotColumn c : used) country |= !c.city;
+
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(expression(columns[i]));
+        }
+        sql.append(cities ? "\nFROM city" : "\nFROM country");
+        if (cities && country) sql.append("\nJOIN country ON city.countrycode = country.code");
+        if (used.contains(snapshotColumn.CAPITAL)) {
+            sql.append("\nLEFT JOIN city capital ON capital.id = country.capital");
+        }
+        if (used.contains(snapshotColumn.URBANISATION)) {
+            sql.append("\nLEFT JOIN (SELECT countrycode, SUM(population) AS population FROM city GROUP BY countrycode) urban")
+                    .append(" ON urban.countrycode = country.code");
+        }
+        for (int i = 0; i < filterColumns.size(); i++) {
+            snapshotColumn c = filterColumns.get(i);
+            sql.append(i == 0 ? "\nWHERE " : " AND ").append(sortable(c))
+                    .append(' ').append(reportQuery.symbol(filterOps.get(i))).append(" ?");
+        }
+        sql.append("\nORDER BY ");
+        for (int i = 0; i < sortColumns.size(); i++) {
+            snapshotColumn c = sortColumns.get(i);
+            sql.append(expression(c)).append(" IS NULL, ").append(sortable(c))
+                    .append(sortDescending.get(i) ? " DESC, " : ", ");
+        }
+        sql.append(cities ? "city.id" : "country.code");
+        return sql.append("\nLIMIT ? OFFSET ?").toString();
+    }
+
+    /**
+     * SQL for a column, derived the way {@link worldSnapshot#metrics()} derives it; a missing
+     * GNP counts as zero, as it does when the snapshot is loaded.
+     */
+    static String expression(snapshotColumn column) {
+        switch (column) {
+            case CITY_ID: return "city.id";
+            case CITY_NAME: return "city.name";
+            case DISTRICT: return "city.district";
+            case CITY_POPULATION: return "city.population";
+            case COUNTRY_CODE: return "country.code";
+            case COUNTRY_NAME: return "country.name";
+            case CONTINENT: return "country.continent";
+            case REGION: return "country.region";
+            case CAPITAL: return "capital.name";
+            case COUNTRY_POPULATION: return "country.population";
+            case SURFACE_AREA: return "country.surfacearea";
+            case DENSITY: return "CASE WHEN country.surfacearea > 0 THEN country.population / country.surfacearea END";
+            case GNP: return "COALESCE(country.gnp, 0)";
+            case GNP_PER_CAPITA:
+                return "CASE WHEN country.population > 0 THEN COALESCE(country.gnp, 0) * 1000000 / country.population END";
+            case LIFE_EXPECTANCY: return "country.lifeexpectancy";
+            case URBANISATION:
+                // 1E0 makes the division floating point rather than DECIMAL with four places
+                return "CASE WHEN country.population > 0 THEN COALESCE(urban.population, 0) * 1E0 / country.population END";
+            default: return "country.indepyear";
+        }
+    }
+
+    /**
+     * SQL that compares and sorts like the snapshot: text as binary (also putting the
+     * {@code continent} enum in name order), numbers as they are.
+     */
+    private static String sortable(snapshotColumn column) {
+        return column.text ? "CAST(" + expression(column) + " AS BINARY)" : expression(column);
+    }
+
+    /**
+     * Reads a projected column by index, as the snapshot path returns it.
+     */
+    private static Object read(ResultSet rset, snapshotColumn column, int index) throws SQLException {
+        if (column.text) return rset.getString(index);
+        if (wholeNumber(column)) {
+            long v = rset.getLong(index);
+            return rset.wasNull() ? null : v;
+        }
+        double v = rset.getDouble(index);
+        return rset.wasNull() ? null : v;
+    }
+
+    /**
+     * Picks the cheapest plan for the query's ordering.
+     *
+     * @return one of the {@code PLAN_*} names
+     */
+    String plan() {
+        if (sortColumns.isEmpty()) return PLAN_SCAN;
+        if (sortColumns.size() == 1) {
+            snapshotColumn key = sortColumns.get(0);
+            if (!cities && key.metric != null) return PLAN_METRIC_INDEX;
+            if (cities && key == snapshotColumn.CITY_POPULATION && sortDescending.get(0)) return PLAN_POPULATION_MERGE;
+        }
+        return PLAN_SORT;
+    }
+
+    private int[] execute(worldSnapshot s, String plan) {
+        int wanted = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+        int[] rows;
+        switch (plan) {
+            case PLAN_METRIC_INDEX:
+                rows = walkMetric(s, wanted);
+                break;
+            case PLAN_POPULATION_MERGE:
+                rows = snapshotEngine.mergeCityRows(filters(s, false, true), filters(s, true, false), wanted);
+                break;
+            case PLAN_SCAN:
+                rows = scan(s, filters(s, true, true), wanted);
+                break;
+            default:
+                rows = scan(s, filters(s, true, true), Integer.MAX_VALUE);
+                rowSort.sort(rows, 0, rows.length, comparator(s));
+        }
+        int from = Math.min(offset, rows.length);
+        return Arrays.copyOfRange(rows, from, Math.min(rows.length, from + limit));
+    }
+
+    /**
+     * Walks the sort order of the single metric key, then appends rows without a value.
+     */
+    private int[] walkMetric(worldSnapshot s, int wanted) {
+        countryMetric metric = sortColumns.get(0).metric;
+        boolean descending = sortDescending.get(0);
+        worldSnapshot.metricIndex metrics = s.metrics();
+        int[] order = metrics.order(metric);
+        int ranked = metrics.ranked(metric);
+        IntPredicate accept = filters(s, true, true);
+
+        int[] out = new int[Math.min(wanted, s.countryCount())];
+        int size = 0;
+        if (descending) {
+            for (int i = 0; i < ranked && size < out.length; i++) {
+                if (accept.test(order[i])) out[size++] = order[i];
+            }
+        } else {
+            // Reverse the order run by run, so equal values keep smaller rows first
+            int i = ranked - 1;
+            while (i >= 0 && size < out.length) {
+                int j = i;
+                double v = metrics.value(metric, order[i]);
+                while (j > 0 && metrics.value(metric, order[j - 1]) == v) j--;
+                for (int k = j; k <= i && size < out.length; k++) {
+                    if (accept.test(order[k])) out[size++] = order[k];
+                }
+                i = j - 1;
+            }
+        }
+        for (int row = 0; row < s.countryCount() && size < out.length; row++) {
+            if (Double.isNaN(metrics.value(metric, row)) && accept.test(row)) out[size++] = row;
+        }
+        return Arrays.copyOf(out, size);
+    }
+
+    /**
+     * Collects up to {@code wanted} matching rows in row order.
+     */
+    private int[] scan(worldSnapshot s, IntPredicate accept, int wanted) {
+        int count = cities ? s.cityCount() : s.countryCount();
+        int[] out = new int[Math.min(wanted, count)];
+        int size = 0;
+        for (int row = 0; row < count && size < out.length; row++) {
+            if (accept.test(row)) out[size++] = row;
+        }
+        return size == out.length ? out : Arrays.copyOf(out, size);
+    }
+
+    /**
+     * Combines filters into one predicate.
+     *
+     * @param s            snapshot
+     * @param cityLevel    include filters on city columns
+     * @param countryLevel include filters on country columns
+     * @return a predicate over query rows, or over country rows if only country-level filters
+     *         of a city query are requested
+     */
+    private IntPredicate filters(worldSnapshot s, boolean cityLevel, boolean countryLevel) {
+        // Country-level filters of a city query tested on their own take country rows
+        boolean countryRows = !cities || !cityLevel;
+        IntPredicate all = row -> true;
+        for (int i = 0; i < filterColumns.size(); i++) {
+            snapshotColumn column = filterColumns.get(i);
+            if (column.city ? !cityLevel : !countryLevel) continue;
+            all = all.and(filter(s, column, filterOps.get(i), filterValues.get(i), countryRows));
+        }
+        return all;
+    }
+
+    /**
+     * Compiles one filter; dictionary-encoded text equality compares ids instead of strings.
+     */
+    private static IntPredicate filter(worldSnapshot s, snapshotColumn column, op operator, Object value,
+                                       boolean countryRows) {
+        boolean equality = operator == op.EQ || operator == op.NE;
+        boolean equal = operator == op.EQ;
+        checkValue(column, value);
+        if (column.text) {
+            String text = (String) value;
+            if (equality && column == snapshotColumn.DISTRICT) {
+                int id = s.districtId(text);
+                return row -> (s.cityDistrict[row] == id) == equal;
+            }
+            if (equality && (column == snapshotColumn.CONTINENT || column == snapshotColumn.REGION)) {
+                int id = column == snapshotColumn.CONTINENT ? s.continentId(text) : s.regionId(text);
+                int[] ids = column == snapshotColumn.CONTINENT ? s.countryContinent : s.countryRegion;
+                return row -> (ids[countryRows ? row : s.cityCountry[row]] == id) == equal;
+            }
+            return row -> {
+                String v = text(s, column, row, countryRows);
+                return v != null && matches(v.compareTo(text), operator);
+            };
+        }
+        double number = ((Number) value).doubleValue();
+        return row -> {
+            double v = number(s, column, row, countryRows);
+            return !Double.isNaN(v) && matches(Double.compare(v, number), operator);
+        };
+    }
+
+    /**
+     * Rejects a filter value of the wrong type for its column.
+     */
+    private static void checkValue(snapshotColumn column, Object value) {
+        if (column.text && !(value instanceof String)) {
+            throw new IllegalArgumentException(column + " needs a text value");
+        }
+        if (!column.text && !(value instanceof Number)) {
+            throw new IllegalArgumentException(column + " needs a numeric value");
+        }
+    }
+
+    private static boolean matches(int cmp, op operator) {
+        switch (operator) {
+            case EQ: return cmp == 0;
+            case NE: return cmp != 0;
+            case LT: return cmp < 0;
+            case LE: return cmp <= 0;
+            case GT: return cmp > 0;
+            default: return cmp >= 0;
+        }
+    }
+
+    /**
+     * Builds the multi-key comparator, ending with the row number.
+     */
+    private rowSort.rowComparator comparator(worldSnapshot s) {
+        snapshotColumn[] keys = sortColumns.toArray(new snapshotColumn[0]);
+        boolean[] desc = new boolean[keys.length];
+        for (int i = 0; i < keys.length; i++) desc[i] = sortDescending.get(i);
+        boolean countryRows = !cities;
+        return (a, b) -> {
+            for (int i = 0; i < keys.length; i++) {
+                int cmp;
+                if (keys[i].text) {
+                    String x = text(s, keys[i], a, countryRows);
+                    String y = text(s, keys[i], b, countryRows);
+                    if (x == null || y == null) {
+                        cmp = x == null ? (y == null ? 0 : 1) : -1;
+                        if (cmp != 0) return cmp;
+                        continue;
+                    }
+                    cmp = x.compareTo(y);
+                } else {
+                    double x = number(s, keys[i], a, countryRows);
+                    double y = number(s, keys[i], b, countryRows);
+                    if (Double.isNaN(x) || Double.isNaN(y)) {
+                        cmp = Double.isNaN(x) ? (Double.isNaN(y) ? 0 : 1) : -1;
+                        if (cmp != 0) return cmp;
+                        continue;
+                    }
+                    cmp = Double.compare(x, y);
+                }
+                if (cmp != 0) return desc[i] ? -cmp : cmp;
+            }
+            return Integer.compare(a, b);
+        };
+    }
+
+    /**
+     * Reads a text column.
+     */
+    static String text(worldSnapshot s, snapshotColumn column, int row, boolean countryRow) {
+        int country = countryRow ? row : s.cityCountry[row];
+        switch (column) {
+            case CITY_NAME: return s.cityName[row];
+            case DISTRICT: return s.districtNames[s.cityDistrict[row]];
+            case COUNTRY_CODE: return s.countryCode[country];
+            case COUNTRY_NAME: return s.countryName[country];
+            case CONTINENT: return s.continentNames[s.countryContinent[country]];
+            case REGION: return s.regionNames[s.countryRegion[country]];
+            case CAPITAL: {
+                int[] rowById = s.cityRowById();
+                int capital = s.countryCapital[country];
+                int city = capital >= 0 && capital < rowById.length ? rowById[capital] : -1;
+                return city >= 0 ? s.cityName[city] : null;
+            }
+            default: throw new IllegalArgumentException(column + " is not a text column");
+        }
+    }
+
+    /**
+     * Reads a numeric column.
+     */
+    static double number(worldSnapshot s, snapshotColumn column, int row, boolean countryRow) {
+        switch (column) {
+            case CITY_ID: return s.cityId[row];
+            case CITY_POPULATION: return s.cityPopulation[row];
+            default:
+                if (column.metric == null) throw new IllegalArgumentException(column + " is not a numeric column");
+                return s.metrics().value(column.metric, countryRow ? row : s.cityCountry[row]);
+        }
+    }
+
+    /**
+     * Reads one projected column of a query row.
+     */
+    private interface cellReader {
+        Object read(int row);
+    }
+
+    /**
+     * Binds a projected column to the snapshot arrays it reads, once per query, so the row loop
+     * reads only the projected columns with no per-cell dispatch. Values are text, whole numbers
+     * as {@code Long}, or {@code Double}; missing values are {@code null}.
+     */
+    private static cellReader reader(worldSnapshot s, snapshotColumn column, boolean countryRow) {
+        int[] cityCountry = s.cityCountry;
+        IntUnaryOperator countryOf = countryRow ? row -> row : row -> cityCountry[row];
+        switch (column) {
+            case CITY_ID: {
+                int[] ids = s.cityId;
+                return row -> (long) ids[row];
+            }
+            case CITY_NAME: {
+                String[] names = s.cityName;
+                return row -> names[row];
+            }
+            case DISTRICT: {
+                String[] names = s.districtNames;
+                int[] ids = s.cityDistrict;
+                return row -> names[ids[row]];
+            }
+            case CITY_POPULATION: {
+                int[] population = s.cityPopulation;
+                return row -> (long) population[row];
+            }
+            case COUNTRY_CODE: {
+                String[] codes = s.countryCode;
+                return row -> codes[countryOf.applyAsInt(row)];
+            }
+            case COUNTRY_NAME: {
+                String[] names = s.countryName;
+                return row -> names[countryOf.applyAsInt(row)];
+            }
+            case CONTINENT:
+            case REGION: {
+                String[] names = column == snapshotColumn.CONTINENT ? s.continentNames : s.regionNames;
+                int[] ids = column == snapshotColumn.CONTINENT ? s.countryContinent : s.countryRegion;
+                return row -> names[ids[countryOf.applyAsInt(row)]];
+            }
+            case CAPITAL: {
+                int[] rowById = s.cityRowById();
+                int[] capitals = s.countryCapital;
+                String[] names = s.cityName;
+                return row -> {
+                    int capital = capitals[countryOf.applyAsInt(row)];
+                    int city = capital >= 0 && capital < rowById.length ? rowById[capital] : -1;
+                    return city >= 0 ? names[city] : null;
+                };
+            }
+            default: {
+                worldSnapshot.metricIndex metrics = s.metrics();
+                countryMetric metric = column.metric;
+                boolean whole = wholeNumber(column);
+                return row -> {
+                    double v = metrics.value(metric, countryOf.applyAsInt(row));
+                    if (Double.isNaN(v)) return null;
+                    return whole ? (Object) (long) v : (Object) v;
+                };
+            }
+        }
+    }
+
+    /**
+     * Whether a numeric column is returned as {@code Long}.
+     */
+    private static boolean wholeNumber(snapshotColumn column) {
+        switch (column) {
+            case CITY_ID:
+            case CITY_POPULATION:
+            case COUNTRY_POPULATION:
+            case INDEPENDENCE_YEAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Renders the query in the {@link reportQuery} language with a fixed spelling: lower-case
+     * keywords and column names, single-quoted text, plain decimal numbers and explicit
+     * {@code limit}/{@code offset}.
+     * <p>
+     * Queries that mean the same thing render to the same key, which is what compiled
+     * queries are cached by.
+     *
+     * @return the normalised query text
+     */
+    String key() {
+        StringBuilder sb = new StringBuilder();
+        if (projection != null) {
+            sb.append("select ");
+            for (int i = 0; i < projection.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(projection[i].name().toLowerCase());
+            }
+            sb.append(" from ");
+        }
+        sb.append(cities ? "cities" : "countries");
+        for (int i = 0; i < filterColumns.size(); i++) {
+            sb.append(i == 0 ? " where " : " and ")
+                    .append(filterColumns.get(i).name().toLowerCase())
+                    .append(' ').append(reportQuery.symbol(filterOps.get(i))).append(' ');
+            Object value = filterValues.get(i);
+            if (value instanceof String) {
+                sb.append('\'').append(((String) value).replace("'", "''")).append('\'');
+            } else {
+                sb.append(new BigDecimal(value.toString()).stripTrailingZeros().toPlainString());
+            }
+        }
+        for (int i = 0; i < sortColumns.size(); i++) {
+            sb.append(i == 0 ? " order by " : ", ")
+                    .append(sortColumns.get(i).name().toLowerCase())
+                    .append(sortDescending.get(i) ? " desc" : " asc");
+        }
+        return sb.append(" limit ").append(limit).append(" offset ").append(offset).toString();
+    }
+
+    private snapshotColumn[] defaultProjection() {
+        ArrayList<snapshotColumn> columns = new ArrayList<>();
+        for (snapshotColumn c : snapshotColumn.values()) {
+            if (cities || !c.city) columns.add(c);
+        }
+        return columns.toArray(new snapshotColumn[0]);
+    }
+
+    /**
+     * Rejects city columns on a country query.
+     */
+    private void validate(snapshotColumn[] columns) {
+        if (cities) return;
+        ArrayList<snapshotColumn> used = new ArrayList<>(Arrays.asList(columns));
+        used.addAll(filterColumns);
+        used.addAll(sortColumns);
+        for (snapshotColumn c : used) {
+            if (c.city) throw new IllegalArgumentException(c + " is not available on a country query");
+        }
+    }
+}
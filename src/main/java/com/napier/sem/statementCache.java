@@ -0,0 +1,313 @@
+package com.napier.sem;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code statementCache} class keeps prepared statements open per connection, so each
+ * SQL shape is parsed and prepared once instead of on every DAO call.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Hands out statements keyed by SQL shape (the text with runs of whitespace collapsed),
+ *       so the same text block prepared from differently indented code shares one statement</li>
+ *   <li>Leases each statement to one caller at a time; {@code close()} on the leased statement
+ *       closes its result sets, clears its parameters, resets its fetch size to the driver
+ *       default, detaches it from the caller's {@link reportDeadline} and returns it to the cache</li>
+ *   <li>Keeps at most {@link #MAX_PER_CONNECTION} idle statements per connection, closing the
+ *       least recently used</li>
+ *   <li>Counts hits, misses and the time spent preparing on misses</li>
+ * </ul>
+ * <p>
+ * Combined with {@code useServerPrepStmts=true} on the connection URL, a cached statement
+ * also keeps its server-side prepared plan, so MySQL parses each shape once per connection.
+ * Because the URL also allows multi-statement SQL, the driver prepares SQL containing
+ * {@code ;} on the client instead; DAO SQL therefore never ends in a semicolon.
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>A DAO calls {@link #prepare(Connection, String)} inside try-with-resources</li>
+ *   <li>It binds parameters and executes the statement as usual</li>
+ *   <li>Leaving the try block returns the statement to the cache</li>
+ *   <li>{@link #closeAll(Connection)} closes every cached statement before the connection closes</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>If two callers need the same shape at once, the second gets a fresh statement; when both
+ *       are returned the extra one is closed</li>
+ *   <li>A statement that failed or was closed underneath (e.g. a dropped connection) is not cached again</li>
+ *   <li>Using a leased statement after {@code close()} throws {@link SQLException}, like a closed statement</li>
+ *   <li>While a {@link queryBatch} records or replays on the calling thread, it hands out its own
+ *       stand-in statements for SELECTs instead</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, "SELECT name FROM city WHERE id = ?")) {
+ *     pstmt.setInt(1, 1);
+ *     ResultSet rset = pstmt.executeQuery();
+ * }
+ * }</pre>
+ */
+public class statementCache {
+
+    /**
+     * Maximum idle statements kept per connection.
+     */
+    static final int MAX_PER_CONNECTION = 64;
+
+    /**
+     * Idle statements per connection, by SQL shape, least recently used first.
+     */
+    private static final IdentityHashMap<Connection, LinkedHashMap<String, PreparedStatement>> idle = new IdentityHashMap<>();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong prepareNanos = new AtomicLong();
+
+    /**
+     * Leases a prepared statement for the given SQL on the given connection.
+     *
+     * @param con connection to prepare on
+     * @param sql SQL text
+     * @return a statement whose {@code close()} returns it to the cache
+     * @throws SQLException if preparing fails
+     */
+    public static PreparedStatement prepare(Connection con, String sql) throws SQLException {
+        PreparedStatement standIn = queryBatch.intercept(con, sql);
+        if (standIn != null) return standIn;
+        return prepareDirect(con, sql);
+    }
+
+    /**
+     * Leases a prepared statement without giving an active {@link queryBatch} the chance to stand in.
+     *
+     * @param con connection to prepare on
+     * @param sql SQL text
+     * @return a statement whose {@code close()} returns it to the cache
+     * @throws SQLException if preparing fails
+     */
+    static PreparedStatement prepareDirect(Connection con, String sql) throws SQLException {
+        String shape = shape(sql);
+        PreparedStatement stmt = take(con, shape);
+        if (stmt != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            long start = System.nanoTime();
+            stmt = con.prepareStatement(sql);
+            prepareNanos.addAndGet(System.nanoTime() - start);
+        }
+        Runnable unguard;
+        try {
+            unguard = reportDeadline.guard(stmt);
+        } catch (SQLException e) {
+            release(con, shape, stmt, true);
+            throw e;
+        }
+        return lease(con, shape, stmt, unguard);
+    }
+
+    /**
+     * Closes every cached statement of a connection; call before closing the connection.
+     *
+     * @param con connection whose statements are closed
+     */
+    public static void closeAll(Connection con) {
+        LinkedHashMap<String, PreparedStatement> statements;
+        synchronized (idle) {
+            statements = idle.remove(con);
+        }
+        if (statements == null) return;
+        for (PreparedStatement stmt : statements.values()) closeQuietly(stmt);
+    }
+
+    /**
+     * Number of leases served from the cache.
+     *
+     * @return hit count
+     */
+    public static long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Number of leases that had to prepare a new statement.
+     *
+     * @return miss count
+     */
+    public static long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Total time spent in {@code prepareStatement} on misses.
+     *
+     * @return nanoseconds spent preparing
+     */
+    public static long prepareNanos() {
+        return prepareNanos.get();
+    }
+
+    /**
+     * Summarises the counters, e.g. {@code "Statement cache: 120 hits, 31 misses, 14.2 ms preparing"}.
+     *
+     * @return a one-line summary
+     */
+    public static String summary() {
+        return String.format("Statement cache: %d hits, %d misses, %.1f ms preparing",
+                hits(), misses(), prepareNanos() / 1_000_000.0);
+    }
+
+    /**
+     * Resets the counters; cached statements stay open.
+     */
+    static void resetCounters() {
+        hits.set(0);
+        misses.set(0);
+        prepareNanos.set(0);
+    }
+
+    /**
+     * Number of idle statements cached for a connection.
+     *
+     * @param con connection
+     * @return idle statement count
+     */
+    static int idleCount(Connection con) {
+        synchronized (idle) {
+            LinkedHashMap<String, PreparedStatement> statements = idle.get(con);
+            return statements == null ? 0 : statements.size();
+        }
+    }
+
+    /**
+     * Whether an idle statement of the same shape is cached for a connection, so preparing the
+     * SQL would not take a round trip.
+     *
+     * @param con connection
+     * @param sql SQL text
+     * @return {@code true} if the shape is cached
+     */
+    static boolean isCached(Connection con, String sql) {
+        synchronized (idle) {
+            LinkedHashMap<String, PreparedStatement> statements = idle.get(con);
+            return statements != null && statements.containsKey(shape(sql));
+        }
+    }
+
+    /**
+     * Collapses runs of whitespace and trims, so formatting differences do not split the cache.
+     *
+     * @param sql SQL text
+     * @return the SQL shape
+     */
+    static String shape(String sql) {
+        StringBuilder sb = new StringBuilder(sql.length());
+        boolean space = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+            } else {
+                if (space) sb.append(' ');
+                space = false;
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static PreparedStatement take(Connection con, String shape) {
+        synchronized (idle) {
+            LinkedHashMap<String, PreparedStatement> statements = idle.get(con);
+            return statements == null ? null : statements.remove(shape);
+        }
+    }
+
+    /**
+     * Returns a statement to the idle set, or closes it if the slot is taken or it is unusable.
+     */
+    private static void release(Connection con, String shape, PreparedStatement stmt, boolean reusable) {
+        if (reusable) {
+            synchronized (idle) {
+                LinkedHashMap<String, PreparedStatement> statements = idle.computeIfAbsent(con, c -> lru());
+                if (!statements.containsKey(shape)) {
+                    statements.put(shape, stmt);
+                    return;
+                }
+            }
+        }
+        closeQuietly(stmt);
+    }
+
+    private static LinkedHashMap<String, PreparedStatement> lru() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= MAX_PER_CONNECTION) return false;
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Wraps a statement so {@code close()} returns it to the cache and later use is rejected;
+     * {@code unguard} runs first, so a report's deadline cannot cancel the next holder's query.
+     */
+    private static PreparedStatement lease(Connection con, String shape, PreparedStatement stmt, Runnable unguard) {
+        ArrayList<ResultSet> results = new ArrayList<>();
+        boolean[] state = {false, true}; // released, reusable
+        return (PreparedStatement) Proxy.newProxyInstance(statementCache.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("close")) {
+                        if (state[0]) return null;
+                        state[0] = true;
+                        unguard.run();
+                        try {
+                            for (ResultSet r : results) r.close();
+                            stmt.clearParameters();
+                            // The next lease must not inherit cursor mode; its query timeout is reset by reportDeadline.guard
+                            stmt.setFetchSize(0);
+                            if (stmt.isClosed()) state[1] = false;
+                        } catch (SQLException e) {
+                            state[1] = false;
+                        }
+                        release(con, shape, stmt, state[1]);
+                        return null;
+                    }
+                    if (name.equals("isClosed")) return state[0] || stmt.isClosed();
+                    if (name.equals("equals")) return proxy == args[0];
+                    if (name.equals("hashCode")) return System.identityHashCode(proxy);
+                    if (state[0]) throw new SQLException("Statement is closed");
+                    try {
+                        Object result = method.invoke(stmt, args);
+                        if (result instanceof ResultSet) results.add((ResultSet) result);
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        state[1] = false;
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+}
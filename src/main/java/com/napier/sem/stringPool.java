@@ -0,0 +1,97 @@
+package com.napier.sem;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code stringPool} class deduplicates the categorical strings report rows repeat, so
+ * every row of "China" points at one {@code String} instead of its own copy.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>{@link #intern(String)} returns the pooled instance equal to a string, adding it if new</li>
+ *   <li>Is applied by the generated row mappers to columns marked {@code @column(pooled = true)}:
+ *       country names, districts, continents and regions</li>
+ *   <li>Counts the duplicates it replaced, so the saving can be reported</li>
+ * </ul>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>{@code null} is returned as is</li>
+ *   <li>The pool stops growing at {@link #MAX_ENTRIES}; strings beyond it are returned unpooled,
+ *       so a column that is not really categorical cannot fill the heap</li>
+ *   <li>Unlike {@link String#intern()}, the pool is an ordinary map and can be cleared</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * String country = stringPool.intern(rset.getString(countryColumn));
+ * }</pre>
+ */
+public class stringPool {
+
+    /**
+     * Largest number of distinct strings kept; the world database has about 1,700.
+     */
+    public static final int MAX_ENTRIES = 16_384;
+
+    private static final ConcurrentHashMap<String, String> pool = new ConcurrentHashMap<>();
+    private static final AtomicLong hits = new AtomicLong();
+
+    /**
+     * The pooled instance equal to {@code s}.
+     *
+     * @param s string read from a result set
+     * @return the shared instance, or {@code s} if it is {@code null} or the pool is full
+     */
+    public static String intern(String s) {
+        if (s == null) return null;
+        String pooled = pool.get(s);
+        if (pooled != null) {
+            hits.incrementAndGet();
+            return pooled;
+        }
+        if (pool.size() >= MAX_ENTRIES) return s;
+        pooled = pool.putIfAbsent(s, s);
+        if (pooled != null) {
+            hits.incrementAndGet();
+            return pooled;
+        }
+        return s;
+    }
+
+    /**
+     * Number of distinct strings pooled.
+     *
+     * @return pool size
+     */
+    public static int size() {
+        return pool.size();
+    }
+
+    /**
+     * Number of lookups answered with an already pooled string.
+     *
+     * @return hit count
+     */
+    public static long hits() {
+        return hits.get();
+    }
+
+    /**
+     * One-line summary for the end of a run.
+     *
+     * @return summary text
+     */
+    public static String summary() {
+        return String.format("String pool: %d strings, %d duplicates shared", size(), hits());
+    }
+
+    /**
+     * Empties the pool and resets the counters.
+     */
+    static void clear() {
+        pool.clear();
+        hits.set(0);
+    }
+}
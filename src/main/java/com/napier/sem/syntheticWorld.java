@@ -0,0 +1,146 @@
+package com.napier.sem;
+
+import java.util.SplittableRandom;
+
+/**
+ * The {@code syntheticWorld} class generates scaled {@link worldSnapshot}s for
+ * load testing the snapshot engine with far more rows than the sample database holds.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Creates countries spread over the seven real continents and a fixed set of regions</li>
+ *   <li>Creates cities with a heavy-tailed population distribution, as in the real data</li>
+ *   <li>Produces identical data for identical seeds so benchmark runs are reproducible</li>
+ * </ul>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>At least one country is always generated so every city has a country</li>
+ *   <li>Every country's first city is its capital</li>
+ *   <li>Some countries have no life expectancy or independence year, as in the real data</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * snapshotEngine.snapshot = syntheticWorld.generate(1_000, 5_000_000, 42L);
+ * }</pre>
+ */
+public class syntheticWorld {
+
+    private static final String[] CONTINENTS = {
+            "Asia", "Europe", "North America", "Africa", "Oceania", "Antarctica", "South America"
+    };
+
+    /**
+     * Number of regions generated per continent.
+     */
+    private static final int REGIONS_PER_CONTINENT = 4;
+
+    /**
+     * Number of districts generated per country.
+     */
+    private static final int DISTRICTS_PER_COUNTRY = 20;
+
+    /**
+     * Number of distinct languages generated.
+     */
+    private static final int LANGUAGES = 50;
+
+    /**
+     * Number of languages spoken in each country; the first is official.
+     */
+    private static final int LANGUAGES_PER_COUNTRY = 3;
+
+    /**
+     * Generates a synthetic snapshot.
+     *
+     * @param countries number of countries to generate
+     * @param cities    number of cities to generate
+     * @param seed      random seed
+     * @return a fully populated snapshot
+     */
+    public static worldSnapshot generate(int countries, int cities, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        countries = Math.max(1, countries);
+        worldSnapshot s = new worldSnapshot();
+
+        s.continentNames = CONTINENTS.clone();
+        s.regionNames = new String[CONTINENTS.length * REGIONS_PER_CONTINENT];
+        for (int r = 0; r < s.regionNames.length; r++) {
+            s.regionNames[r] = CONTINENTS[r / REGIONS_PER_CONTINENT] + " Region " + (r % REGIONS_PER_CONTINENT);
+        }
+
+        s.countryCode = new String[countries];
+        s.countryName = new String[countries];
+        s.countryContinent = new int[countries];
+        s.countryRegion = new int[countries];
+        s.countryPopulation = new int[countries];
+        s.countryCapital = new int[countries];
+        s.countrySurfaceArea = new double[countries];
+        s.countryGnp = new double[countries];
+        s.countryLifeExpectancy = new double[countries];
+        s.countryIndepYear = new double[countries];
+        for (int c = 0; c < countries; c++) {
+            int region = rnd.nextInt(s.regionNames.length);
+            s.countryCode[c] = "C" + c;
+            s.countryName[c] = "Country " + c;
+            s.countryRegion[c] = region;
+            s.countryContinent[c] = region / REGIONS_PER_CONTINENT;
+            s.countryCapital[c] = -1;
+            s.countrySurfaceArea[c] = 100 + rnd.nextInt(10_000_000);
+            // Some countries have no life expectancy or independence year, as in the real data
+            s.countryLifeExpectancy[c] = rnd.nextInt(10) == 0 ? Double.NaN : 40 + rnd.nextInt(450) / 10.0;
+            s.countryIndepYear[c] = rnd.nextInt(5) == 0 ? Double.NaN : 1200 + rnd.nextInt(800);
+        }
+
+        s.districtNames = new String[countries * DISTRICTS_PER_COUNTRY];
+        for (int d = 0; d < s.districtNames.length; d++) {
+            s.districtNames[d] = "District " + d;
+        }
+
+        s.cityId = new int[cities];
+        s.cityName = new String[cities];
+        s.cityCountry = new int[cities];
+        s.cityDistrict = new int[cities];
+        s.cityPopulation = new int[cities];
+        long[] cityTotals = new long[countries];
+        for (int i = 0; i < cities; i++) {
+            int country = i < countries ? i : rnd.nextInt(countries);
+            // Pareto-like tail: most cities are small, a few are very large
+            int population = (int) Math.min(30_000_000, 1_000 / Math.pow(1 - rnd.nextDouble(), 1.2));
+            s.cityId[i] = i + 1;
+            s.cityName[i] = "City " + (i + 1);
+            s.cityCountry[i] = country;
+            s.cityDistrict[i] = country * DISTRICTS_PER_COUNTRY + rnd.nextInt(DISTRICTS_PER_COUNTRY);
+            s.cityPopulation[i] = population;
+            cityTotals[country] += population;
+            if (s.countryCapital[country] == -1) s.countryCapital[country] = s.cityId[i];
+        }
+
+        // Countries are larger than the sum of their cities, as in the real data
+        for (int c = 0; c < countries; c++) {
+            s.countryPopulation[c] = (int) Math.min(Integer.MAX_VALUE, cityTotals[c] * 2 + rnd.nextInt(1_000_000));
+            s.countryGnp[c] = s.countryPopulation[c] / 1_000_000.0 * (500 + rnd.nextInt(40_000));
+        }
+
+        s.languageNames = new String[LANGUAGES];
+        for (int l = 0; l < LANGUAGES; l++) s.languageNames[l] = "Language " + l;
+        int langRows = countries * LANGUAGES_PER_COUNTRY;
+        s.languageCountry = new int[langRows];
+        s.languageId = new int[langRows];
+        s.languageOfficial = new boolean[langRows];
+        s.languagePercentage = new double[langRows];
+        int base = 0;
+        for (int r = 0; r < langRows; r++) {
+            int slot = r % LANGUAGES_PER_COUNTRY;
+            if (slot == 0) base = rnd.nextInt(LANGUAGES);
+            s.languageCountry[r] = r / LANGUAGES_PER_COUNTRY;
+            // Consecutive ids per country keep each country's languages distinct
+            s.languageId[r] = (base + slot) % LANGUAGES;
+            s.languageOfficial[r] = slot == 0;
+            s.languagePercentage[r] = slot == 0 ? 70.0 : 10.0 + rnd.nextInt(10);
+        }
+        s.metrics();
+        return s;
+    }
+}
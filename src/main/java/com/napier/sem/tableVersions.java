@@ -0,0 +1,179 @@
+package com.napier.sem;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code tableVersions} class keeps one version counter per world table, so cached
+ * results can tell whether the tables they were read from have changed.
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>{@link #refresh()} reads each table's {@code UPDATE_TIME} from {@code information_schema}</li>
+ *   <li>A table whose update time moved since the last refresh has its counter bumped</li>
+ *   <li>Callers that change data themselves may {@link #bump(String)} a table directly</li>
+ *   <li>{@link #checksum(String)} gives a content stamp that, unlike the counters, stays the same
+ *       across restarts while the table is unchanged</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>If {@code populationApp.con} is {@code null} or the query fails, no counter changes</li>
+ *   <li>A {@code NULL} update time (e.g. InnoDB after a server restart) is not treated as a change</li>
+ *   <li>{@link #refreshIfDue()} runs the query at most once per {@link #REFRESH_INTERVAL_MILLIS}</li>
+ *   <li>A checksum is computed once per table version; without a connection it is {@code null}</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * long before = tableVersions.version(tableVersions.CITY);
+ * tableVersions.refresh();
+ * boolean changed = tableVersions.version(tableVersions.CITY) != before;
+ * }</pre>
+ */
+public class tableVersions {
+
+    /**
+     * The {@code city} table.
+     */
+    public static final String CITY = "city";
+
+    /**
+     * The {@code country} table.
+     */
+    public static final String COUNTRY = "country";
+
+    /**
+     * The {@code countrylanguage} table.
+     */
+    public static final String COUNTRYLANGUAGE = "countrylanguage";
+
+    /**
+     * Minimum time between two {@code information_schema} reads by {@link #refreshIfDue()}.
+     */
+    public static final long REFRESH_INTERVAL_MILLIS = 30_000L;
+
+    private static final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Last update time seen per table.
+     */
+    private static final HashMap<String, Timestamp> updated = new HashMap<>();
+
+    private static volatile long lastRefresh = 0;
+
+    /**
+     * Checksum per table, with the version it was computed at: {@code {version, checksum}}.
+     */
+    private static final ConcurrentHashMap<String, long[]> checksums = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the current version of a table.
+     *
+     * @param table table name, e.g. {@link #CITY}
+     * @return the table's version; starts at 0
+     */
+    public static long version(String table) {
+        return counter(table).get();
+    }
+
+    /**
+     * Marks a table as changed.
+     *
+     * @param table table name, e.g. {@link #COUNTRYLANGUAGE}
+     */
+    public static void bump(String table) {
+        counter(table).incrementAndGet();
+    }
+
+    /**
+     * Bumps the version of every table whose {@code UPDATE_TIME} changed since the last refresh.
+     *
+     * @return {@code true} if the update times were read
+     */
+    public static synchronized boolean refresh() {
+        lastRefresh = System.currentTimeMillis();
+        if (populationApp.con == null) return false;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+        SELECT table_name, update_time
+        FROM information_schema.tables
+        WHERE table_schema = DATABASE()
+    """)) {
+            ResultSet rset = pstmt.executeQuery();
+            while (rset.next()) {
+                String table = rset.getString("table_name").toLowerCase(Locale.ROOT);
+                Timestamp time = rset.getTimestamp("update_time");
+                if (time == null) continue;
+                Timestamp previous = updated.put(table, time);
+                if (previous != null && !previous.equals(time)) bump(table);
+            }
+            return true;
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Calls {@link #refresh()} if the last one was more than {@link #REFRESH_INTERVAL_MILLIS} ago.
+     */
+    public static void refreshIfDue() {
+        if (System.currentTimeMillis() - lastRefresh >= REFRESH_INTERVAL_MILLIS) refresh();
+    }
+
+    /**
+     * Returns the {@code CHECKSUM TABLE} value of a table, computed once per table version.
+     *
+     * @param table table name, e.g. {@link #CITY}
+     * @return the checksum, or {@code null} if it cannot be computed
+     */
+    public static Long checksum(String table) {
+        return checksum(populationApp.con, table);
+    }
+
+    /**
+     * Returns the {@code CHECKSUM TABLE} value of a table, computing it over the given connection
+     * if it is not known at the table's current version.
+     *
+     * @param con   connection to compute it over, e.g. one owned by a background thread
+     * @param table table name, e.g. {@link #CITY}
+     * @return the checksum, or {@code null} if it cannot be computed
+     */
+    static Long checksum(Connection con, String table) {
+        long version = version(table);
+        long[] known = checksums.get(table);
+        if (known != null && known[0] == version) return known[1];
+        if (con == null) return null;
+        try (PreparedStatement pstmt = statementCache.prepare(con, "CHECKSUM TABLE " + table)) {
+            ResultSet rset = pstmt.executeQuery();
+            if (!rset.next()) return null;
+            long sum = rset.getLong("Checksum");
+            if (rset.wasNull()) return null;
+            checksums.put(table, new long[]{version, sum});
+            return sum;
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Sets the checksum of a table at its current version, e.g. for tests without a database.
+     *
+     * @param table    table name
+     * @param checksum checksum to report until the table is bumped
+     */
+    static void installChecksum(String table, long checksum) {
+        checksums.put(table, new long[]{version(table), checksum});
+    }
+
+    private static AtomicLong counter(String table) {
+        return versions.computeIfAbsent(table, t -> new AtomicLong());
+    }
+}
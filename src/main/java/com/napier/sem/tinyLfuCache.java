@@ -0,0 +1,391 @@
+package com.napier.sem;
+
+import java.util.HashMap;
+
+/**
+ * The {@code tinyLfuCache} class is a size-bounded cache in the W-TinyLFU style: entries are
+ * weighed in bytes, and an approximate frequency history decides which entries are worth keeping.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Keeps the total weight of all entries at or below a hard byte budget</li>
+ *   <li>Admits new entries through a small LRU window (1% of the budget), so recent entries
+ *       get a chance to prove themselves</li>
+ *   <li>Keeps the rest in a segmented LRU: entries hit once sit in probation (20%), entries hit
+ *       again move to protected (80%)</li>
+ *   <li>When over budget, lets a window entry into the main space only if it is requested more often
+ *       than the probation entry it would push out, as estimated by a count-min sketch</li>
+ *   <li>Counts hits, misses, evictions, evicted bytes and rejected entries</li>
+ * </ul>
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>{@link #get(Object)} records the request in the sketch, whether it hits or not</li>
+ *   <li>{@link #put(Object, Object, long)} adds an entry to the window with its weight</li>
+ *   <li>Entries leaving the window enter probation; while over budget the less frequent of the
+ *       newest probation entry and the oldest one is evicted</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>An entry heavier than the whole budget is rejected and not stored</li>
+ *   <li>Putting an existing key replaces its value and weight</li>
+ *   <li>Sketch counters saturate at 15 and are halved every {@code 10 × width} requests,
+ *       so old popularity fades</li>
+ * </ul>
+ * <p>
+ * All methods are synchronized.
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * tinyLfuCache<String, ArrayList<cityReport>> cache = new tinyLfuCache<>(32L << 20);
+ * cache.put("Eastern Asia", cities, 8_000);
+ * ArrayList<cityReport> hit = cache.get("Eastern Asia");
+ * }</pre>
+ *
+ * @param <K> key type; must implement {@code equals} and {@code hashCode}
+ * @param <V> value type
+ */
+public final class tinyLfuCache<K, V> {
+
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    private final HashMap<K, node<K, V>> nodes = new HashMap<>();
+    private final queue<K, V>[] queues;
+    private final frequencySketch sketch;
+
+    private final long maxBytes;
+    private final long windowMax;
+    private final long protectedMax;
+    private long weight;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long evictedBytes;
+    private long rejected;
+
+    /**
+     * An entry, linked into exactly one of the three queues.
+     */
+    private static final class node<K, V> {
+        final K key;
+        V value;
+        long weight;
+        byte queue;
+        node<K, V> prev;
+        node<K, V> next;
+
+        node(K key, V value, long weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A doubly linked LRU list; the head is the least recently used entry.
+     */
+    private static final class queue<K, V> {
+        node<K, V> head;
+        node<K, V> tail;
+        long weight;
+
+        void addLast(node<K, V> n) {
+            n.prev = tail;
+            n.next = null;
+            if (tail == null) head = n;
+            else tail.next = n;
+            tail = n;
+            weight += n.weight;
+        }
+
+        void remove(node<K, V> n) {
+            if (n.prev == null) head = n.next;
+            else n.prev.next = n.next;
+            if (n.next == null) tail = n.prev;
+            else n.next.prev = n.prev;
+            n.prev = n.next = null;
+            weight -= n.weight;
+        }
+    }
+
+    /**
+     * Creates a cache holding at most {@code maxBytes} of entry weight.
+     *
+     * @param maxBytes byte budget
+     */
+    @SuppressWarnings("unchecked")
+    public tinyLfuCache(long maxBytes) {
+        this.maxBytes = Math.max(1, maxBytes);
+        this.windowMax = Math.max(1, this.maxBytes / 100);
+        this.protectedMax = (this.maxBytes - windowMax) * 8 / 10;
+        this.queues = new queue[]{new queue<>(), new queue<>(), new queue<>()};
+        this.sketch = new frequencySketch((int) Math.min(1 << 20, Math.max(256, this.maxBytes / 2048)));
+    }
+
+    /**
+     * Returns the value of a key and records the request.
+     *
+     * @param key key
+     * @return the value, or {@code null} if absent
+     */
+    public synchronized V get(K key) {
+        sketch.increment(key.hashCode());
+        node<K, V> n = nodes.get(key);
+        if (n == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        touch(n);
+        return n.value;
+    }
+
+    /**
+     * Adds or replaces an entry, evicting others until the cache is within budget.
+     *
+     * @param key    key
+     * @param value  value
+     * @param weight estimated retained bytes of the value
+     * @return {@code true} if the entry was stored
+     */
+    public synchronized boolean put(K key, V value, long weight) {
+        weight = Math.max(1, weight);
+        node<K, V> n = nodes.get(key);
+        if (weight > maxBytes) {
+            if (n != null) unlink(n);
+            rejected++;
+            return false;
+        }
+        if (n != null) {
+            queues[n.queue].remove(n);
+            this.weight -= n.weight;
+            n.value = value;
+            n.weight = weight;
+            queues[n.queue].addLast(n);
+            this.weight += weight;
+            touch(n);
+        } else {
+            n = new node<>(key, value, weight);
+            n.queue = WINDOW;
+            nodes.put(key, n);
+            queues[WINDOW].addLast(n);
+            this.weight += weight;
+        }
+        evict();
+        return nodes.get(key) == n;
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param key key
+     */
+    public synchronized void remove(K key) {
+        node<K, V> n = nodes.get(key);
+        if (n != null) unlink(n);
+    }
+
+    /**
+     * Removes every entry; the frequency history and counters are kept.
+     */
+    public synchronized void clear() {
+        nodes.clear();
+        for (queue<K, V> q : queues) {
+            q.head = q.tail = null;
+            q.weight = 0;
+        }
+        weight = 0;
+    }
+
+    /**
+     * Resets the hit, miss, eviction and rejection counters.
+     */
+    public synchronized void resetCounters() {
+        hits = misses = evictions = evictedBytes = rejected = 0;
+    }
+
+    /**
+     * Number of entries.
+     *
+     * @return entry count
+     */
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Total weight of all entries.
+     *
+     * @return bytes in use
+     */
+    public synchronized long weightedSize() {
+        return weight;
+    }
+
+    /**
+     * The byte budget.
+     *
+     * @return maximum total weight
+     */
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Number of requests that found their key.
+     *
+     * @return hit count
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Number of requests that did not find their key.
+     *
+     * @return miss count
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Number of entries evicted to stay within budget, including new entries refused admission.
+     *
+     * @return eviction count
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Total weight of evicted entries.
+     *
+     * @return bytes evicted
+     */
+    public synchronized long evictedBytes() {
+        return evictedBytes;
+    }
+
+    /**
+     * Number of entries not stored because they were heavier than the whole budget.
+     *
+     * @return rejection count
+     */
+    public synchronized long rejected() {
+        return rejected;
+    }
+
+    /**
+     * Moves an entry to the most recently used end of its queue, promoting it from probation.
+     */
+    private void touch(node<K, V> n) {
+        queues[n.queue].remove(n);
+        if (n.queue == PROBATION) n.queue = PROTECTED;
+        queues[n.queue].addLast(n);
+        while (queues[PROTECTED].weight > protectedMax && queues[PROTECTED].head != n) {
+            node<K, V> demoted = queues[PROTECTED].head;
+            queues[PROTECTED].remove(demoted);
+            demoted.queue = PROBATION;
+            queues[PROBATION].addLast(demoted);
+        }
+    }
+
+    /**
+     * Drains the window into probation, then evicts from the main space until within budget.
+     */
+    private void evict() {
+        queue<K, V> window = queues[WINDOW];
+        while (window.weight > windowMax && window.head != null) {
+            node<K, V> n = window.head;
+            window.remove(n);
+            n.queue = PROBATION;
+            queues[PROBATION].addLast(n);
+        }
+        while (weight > maxBytes) {
+            queue<K, V> probation = queues[PROBATION];
+            node<K, V> victim = probation.head;
+            node<K, V> candidate = probation.tail;
+            if (victim == null) {
+                victim = queues[PROTECTED].head != null ? queues[PROTECTED].head : window.head;
+                drop(victim);
+            } else if (victim == candidate) {
+                drop(victim);
+            } else {
+                drop(sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())
+                        ? victim : candidate);
+            }
+        }
+    }
+
+    private void drop(node<K, V> n) {
+        unlink(n);
+        evictions++;
+        evictedBytes += n.weight;
+    }
+
+    private void unlink(node<K, V> n) {
+        queues[n.queue].remove(n);
+        nodes.remove(n.key);
+        weight -= n.weight;
+    }
+
+    /**
+     * A count-min sketch of four rows of saturating 4-bit counters (stored one per byte).
+     */
+    static final class frequencySketch {
+
+        private static final long[] SEEDS = {
+                0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+        };
+
+        private final byte[][] rows;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        /**
+         * @param width counters per row; rounded up to a power of two
+         */
+        frequencySketch(int width) {
+            int w = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+            rows = new byte[SEEDS.length][w];
+            mask = w - 1;
+            sampleSize = 10 * w;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < rows.length; i++) {
+                int slot = index(hash, i);
+                if (rows[i][slot] < 15) {
+                    rows[i][slot]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) halve();
+        }
+
+        int frequency(int hash) {
+            int min = 15;
+            for (int i = 0; i < rows.length; i++) min = Math.min(min, rows[i][index(hash, i)]);
+            return min;
+        }
+
+        private int index(int hash, int row) {
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            return (int) (h >>> 32) & mask;
+        }
+
+        private void halve() {
+            for (byte[] row : rows) {
+                for (int j = 0; j < row.length; j++) row[j] >>= 1;
+            }
+            additions /= 2;
+        }
+    }
+}
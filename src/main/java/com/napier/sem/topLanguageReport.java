@@ -0,0 +1,301 @@
+package com.napier.sem;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The {@code topLanguageReport} class represents a data model and reporting utility
+ * for the most widely spoken languages within every continent and every region.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Acts as a simple container for one ranked language within a continent or region</li>
+ *   <li>Computes the top K languages for every continent and every region in a single pass
+ *       over {@code countrylanguage JOIN country}</li>
+ *   <li>Splits estimated speakers into official and unofficial speakers using {@code IsOfficial}</li>
+ *   <li>Generates one Markdown report per level (continent, region)</li>
+ * </ul>
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>Repeated queries are answered from {@link resultCache} until a table they read changes or the entry expires</li>
+ *   <li>A single SQL query returns estimated speakers ({@code Population × Percentage / 100},
+ *       as in {@link languageReport}) per region, language and official flag</li>
+ *   <li>Each row is tallied into both its region and its continent</li>
+ *   <li>A bounded {@link topNHeap} of size K per continent and per region keeps the top languages</li>
+ *   <li>Output methods format each level into its own Markdown table</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>K is capped at 10, in line with the other Top N queries</li>
+ *   <li>Languages with no estimated speakers in a continent or region are not ranked there, and
+ *       equal totals are ordered by language name, as in {@link snapshotEngine}</li>
+ *   <li>If no database connection exists, methods return an empty list</li>
+ *   <li>If input lists are {@code null} or contain no rows for a level, a placeholder file is generated</li>
+ *   <li>File I/O errors are caught and logged without halting execution</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * // Retrieve the top 5 languages of every continent and region
+ * ArrayList<topLanguageReport> top = topLanguageReport.getTopLanguagesByContinentAndRegion(5);
+ *
+ * // One file per level
+ * topLanguageReport.outputTopLanguageReport(top, topLanguageReport.CONTINENT, "TopLanguagesByContinent.md");
+ * topLanguageReport.outputTopLanguageReport(top, topLanguageReport.REGION, "TopLanguagesByRegion.md");
+ * }</pre>
+ */
+public class topLanguageReport {
+
+    /**
+     * Level name used for continent rankings.
+     */
+    public static final String CONTINENT = "Continent";
+
+    /**
+     * Level name used for region rankings.
+     */
+    public static final String REGION = "Region";
+
+    /**
+     * The level of the ranking ({@link #CONTINENT} or {@link #REGION}).
+     */
+    public String level;
+
+    /**
+     * The name of the continent or region the language is ranked in.
+     */
+    public String scope;
+
+    /**
+     * The position of the language within its continent or region, starting at 1.
+     */
+    public int rank;
+
+    /**
+     * The name of the language.
+     */
+    public String language;
+
+    /**
+     * The total estimated number of speakers within the continent or region.
+     */
+    public long speakers;
+
+    /**
+     * Estimated speakers living in countries where the language is official.
+     */
+    public long officialSpeakers;
+
+    /**
+     * Estimated speakers living in countries where the language is not official.
+     */
+    public long unofficialSpeakers;
+
+    /**
+     * Retrieves the top K languages by estimated speakers for every continent and every region.
+     * <p>
+     * Workflow:
+     * <ul>
+     *   <li>Checks if a valid database connection exists; returns an empty list if not</li>
+     *   <li>Caps the requested {@code k} at a maximum of 10 for reproducibility</li>
+     *   <li>Executes one query that pre-aggregates speakers per region, language and official flag</li>
+     *   <li>Tallies each row into its region and its continent</li>
+     *   <li>Ranks each continent and region with a bounded {@link topNHeap} of size K</li>
+     * </ul>
+     * <p>
+     * Edge-case handling:
+     * <ul>
+     *   <li>If {@code populationApp.con} is {@code null}, an empty list is returned</li>
+     *   <li>If SQL execution fails, the error message is logged and an empty list is returned</li>
+     * </ul>
+     *
+     * @param k maximum number of languages per continent and region; capped internally at {@code 10}
+     * @return continent rankings followed by region rankings, each ordered by scope then rank;
+     *         may be empty if no connection or query fails
+     */
+    public static ArrayList<topLanguageReport> getTopLanguagesByContinentAndRegion(int k) {
+        ArrayList<topLanguageReport> languages = new ArrayList<>();
+        if (populationApp.con == null) return languages;
+
+        int cappedK = Math.min(k, 10);
+        resultCache.key key = resultCache.key("topLanguageReport.getTopLanguagesByContinentAndRegion", cappedK);
+        ArrayList<topLanguageReport> cached = resultCache.lookup(key);
+        if (cached != null) return cached;
+        languageTally tally = new languageTally();
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+        SELECT country.continent, country.region, countrylanguage.language, countrylanguage.isofficial,
+               SUM(country.population * countrylanguage.percentage / 100) AS speakers
+        FROM countrylanguage
+        JOIN country ON countrylanguage.countrycode = country.code
+        GROUP BY country.continent, country.region, countrylanguage.language, countrylanguage.isofficial
+    """)) {
+            ResultSet rset = pstmt.executeQuery();
+            while (rset.next()) {
+                tally.add(
+                        rset.getString("continent"),
+                        rset.getString("region"),
+                        rset.getString("language"),
+                        "T".equals(rset.getString("isofficial")),
+                        rset.getLong("speakers"));
+            }
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+            return resultCache.abandon(key, languages, e);
+        }
+
+        languages.addAll(tally.top(CONTINENT, cappedK));
+        languages.addAll(tally.top(REGION, cappedK));
+        return resultCache.store(key, languages, tableVersions.COUNTRYLANGUAGE, tableVersions.COUNTRY);
+    }
+
+    /**
+     * Outputs the rankings of one level into a Markdown-formatted file.
+     * <p>
+     * Workflow:
+     * <ul>
+     *   <li>Keeps only the entries whose {@code level} matches the requested level</li>
+     *   <li>If none remain, generates a placeholder Markdown file with a "No results found" message</li>
+     *   <li>Otherwise builds a Markdown table with headers: level name, Rank, Language,
+     *       Speakers, Official Speakers, Unofficial Speakers</li>
+     *   <li>Saves the file under {@code ./reports/languageReports/} with the given filename</li>
+     * </ul>
+     * <p>
+     * Edge-case handling:
+     * <ul>
+     *   <li>If {@code languages} is {@code null} or has no rows for the level, a placeholder file is created</li>
+     *   <li>If a {@link topLanguageReport} entry is {@code null}, it is skipped</li>
+     *   <li>If file I/O fails, the stack trace is printed and execution continues</li>
+     * </ul>
+     *
+     * @param languages list of {@link topLanguageReport} objects to write; may be {@code null} or empty
+     * @param level     the level to write ({@link #CONTINENT} or {@link #REGION})
+     * @param filename  name of the output file to generate (e.g., {@code "TopLanguagesByRegion.md"})
+     */
+    public static void outputTopLanguageReport(ArrayList<topLanguageReport> languages, String level, String filename) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("| ").append(level).append(" | Rank | Language | Speakers | Official Speakers | Unofficial Speakers |\r\n");
+        sb.append("| --- | --- | --- | --- | --- | --- |\r\n");
+
+        int rows = 0;
+        if (languages != null) {
+            for (topLanguageReport lang : languages) {
+                if (lang == null || !level.equals(lang.level)) continue;
+                sb.append("| ")
+                        .append(lang.scope).append(" | ")
+                        .append(lang.rank).append(" | ")
+                        .append(lang.language).append(" | ")
+                        .append(String.format("%,d", lang.speakers)).append(" | ")
+                        .append(String.format("%,d", lang.officialSpeakers)).append(" | ")
+                        .append(String.format("%,d", lang.unofficialSpeakers)).append(" |\r\n");
+                rows++;
+            }
+        }
+
+        try {
+            File dir = new File("./reports/languageReports/");
+            dir.mkdirs();
+            File outFile = new File(dir, filename);
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(outFile))) {
+                if (rows == 0) {
+                    writer.write("# Top Languages by " + level + "\n\n");
+                    writer.write("No results found for this query.\n");
+                } else {
+                    writer.write(sb.toString());
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (rows == 0) {
+            System.out.println("No top language data available, wrote placeholder file.");
+        }
+    }
+
+    /**
+     * Accumulates estimated speakers per continent and per region in a single pass and
+     * ranks each group with a {@link topNHeap}.
+     * <p>
+     * Each group keeps one {@code long[2]} per language holding official and unofficial speakers,
+     * so a row only costs two map lookups regardless of how many groups are ranked.
+     */
+    static class languageTally {
+
+        /**
+         * Speaker totals per continent, keyed by continent then language.
+         */
+        private final Map<String, Map<String, long[]>> continents = new HashMap<>();
+
+        /**
+         * Speaker totals per region, keyed by region then language.
+         */
+        private final Map<String, Map<String, long[]>> regions = new HashMap<>();
+
+        /**
+         * Adds the speakers of one (region, language, official flag) row to its region and continent.
+         *
+         * @param continent continent of the row
+         * @param region    region of the row
+         * @param language  language spoken
+         * @param official  whether the language is official in the countries of the row
+         * @param speakers  estimated number of speakers
+         */
+        void add(String continent, String region, String language, boolean official, long speakers) {
+            int slot = official ? 0 : 1;
+            continents.computeIfAbsent(continent, g -> new HashMap<>())
+                    .computeIfAbsent(language, l -> new long[2])[slot] += speakers;
+            regions.computeIfAbsent(region, g -> new HashMap<>())
+                    .computeIfAbsent(language, l -> new long[2])[slot] += speakers;
+        }
+
+        /**
+         * Ranks the top {@code k} languages of every group at the requested level.
+         *
+         * @param level {@link #CONTINENT} or {@link #REGION}
+         * @param k     number of languages to keep per group
+         * @return ranked entries ordered by group name, then rank
+         */
+        ArrayList<topLanguageReport> top(String level, int k) {
+            ArrayList<topLanguageReport> ranked = new ArrayList<>();
+            if (k <= 0) return ranked;
+
+            Map<String, Map<String, long[]>> groups = CONTINENT.equals(level) ? continents : regions;
+            topNHeap heap = topNHeap.forThread();
+            for (Map.Entry<String, Map<String, long[]>> group : new TreeMap<>(groups).entrySet()) {
+                // Languages in name order, so the heap's smaller-id tie-break favours the earlier name
+                String[] names = group.getValue().keySet().toArray(new String[0]);
+                Arrays.sort(names);
+                heap.reset(k);
+                for (int i = 0; i < names.length; i++) {
+                    long[] split = group.getValue().get(names[i]);
+                    if (split[0] + split[1] > 0) heap.offer(split[0] + split[1], i);
+                }
+
+                int rank = 1;
+                for (int i : heap.drainDescending()) {
+                    long[] split = group.getValue().get(names[i]);
+                    topLanguageReport t = new topLanguageReport();
+                    t.level = level;
+                    t.scope = group.getKey();
+                    t.rank = rank++;
+                    t.language = names[i];
+                    t.officialSpeakers = split[0];
+                    t.unofficialSpeakers = split[1];
+                    t.speakers = t.officialSpeakers + t.unofficialSpeakers;
+                    ranked.add(t);
+                }
+            }
+            return ranked;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.napier.sem;
+
+/**
+ * The {@code topNHeap} class is a bounded min-heap over primitive {@code (key, id)} pairs,
+ * used by every top-N path of the snapshot engine.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Keeps the {@code n} entries with the largest keys seen so far</li>
+ *   <li>Stores keys and ids in parallel primitive arrays, so offering never boxes or allocates</li>
+ *   <li>Drains the kept ids in descending key order into one result array</li>
+ * </ul>
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>{@link #reset(int)} empties the heap and sets the bound for the next query</li>
+ *   <li>{@link #offer(long, int)} is called once per candidate row</li>
+ *   <li>{@link #drainDescending()} returns the winning ids, largest key first</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>Keys are {@code long}, so int populations and long speaker counts share one heap</li>
+ *   <li>Equal keys are broken by the smaller id, making results deterministic</li>
+ *   <li>A bound of 0 or less keeps nothing</li>
+ * </ul>
+ * <p>
+ * Instances are not thread-safe; {@link #forThread()} hands out one reusable heap per thread.
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * topNHeap heap = topNHeap.forThread();
+ * heap.reset(10);
+ * for (int row = 0; row < population.length; row++) heap.offer(population[row], row);
+ * int[] top = heap.drainDescending();
+ * }</pre>
+ */
+public final class topNHeap {
+
+    /**
+     * Default capacity; covers every capped limit used by the reports.
+     */
+    static final int DEFAULT_CAPACITY = 64;
+
+    private static final ThreadLocal<topNHeap> HEAPS = ThreadLocal.withInitial(() -> new topNHeap(DEFAULT_CAPACITY));
+
+    private long[] keys;
+    private int[] ids;
+    private int size;
+    private int bound;
+
+    /**
+     * Creates a heap able to hold {@code capacity} entries without growing.
+     *
+     * @param capacity initial capacity
+     */
+    public topNHeap(int capacity) {
+        keys = new long[Math.max(1, capacity)];
+        ids = new int[keys.length];
+    }
+
+    /**
+     * Returns the calling thread's reusable heap.
+     *
+     * @return a heap owned by the current thread
+     */
+    public static topNHeap forThread() {
+        return HEAPS.get();
+    }
+
+    /**
+     * Empties the heap and sets how many entries the next query keeps.
+     * <p>
+     * The backing arrays only grow when {@code n} exceeds every bound used before.
+     *
+     * @param n number of entries to keep
+     */
+    public void reset(int n) {
+        size = 0;
+        bound = Math.max(0, n);
+        if (bound > keys.length) {
+            keys = new long[bound];
+            ids = new int[bound];
+        }
+    }
+
+    /**
+     * Returns the number of entries currently kept.
+     *
+     * @return number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Offers one candidate; it is kept if the heap is not full or it beats the weakest kept entry.
+     *
+     * @param key ranking key (larger is better)
+     * @param id  identifier returned by {@link #drainDescending()}, e.g. a row number
+     */
+    public void offer(long key, int id) {
+        if (size < bound) {
+            int i = size++;
+            // Sift up
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!weaker(key, id, keys[parent], ids[parent])) break;
+                keys[i] = keys[parent];
+                ids[i] = ids[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            ids[i] = id;
+        } else if (size > 0 && weaker(keys[0], ids[0], key, id)) {
+            siftDown(key, id, size);
+        }
+    }
+
+    /**
+     * Returns the smallest key a new candidate must beat once the heap is full.
+     *
+     * @return the weakest kept key, or {@link Long#MIN_VALUE} while the heap has room
+     */
+    public long threshold() {
+        return size < bound ? Long.MIN_VALUE : keys[0];
+    }
+
+    /**
+     * Removes every kept entry and returns their ids, largest key first.
+     *
+     * @return ids in descending key order; the only allocation of a query
+     */
+    public int[] drainDescending() {
+        int[] out = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            out[i] = ids[0];
+            int last = --size;
+            if (last > 0) siftDown(keys[last], ids[last], last);
+        }
+        return out;
+    }
+
+    /**
+     * Places {@code (key, id)} at the root and sifts it down within the first {@code n} slots.
+     */
+    private void siftDown(long key, int id, int n) {
+        int i = 0;
+        int half = n >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < n && weaker(keys[right], ids[right], keys[child], ids[child])) child = right;
+            if (!weaker(keys[child], ids[child], key, id)) break;
+            keys[i] = keys[child];
+            ids[i] = ids[child];
+            i = child;
+        }
+        keys[i] = key;
+        ids[i] = id;
+    }
+
+    /**
+     * Orders entries by key, then by reversed id, so the smaller id wins ties.
+     */
+    private static boolean weaker(long k1, int id1, long k2, int id2) {
+        return k1 < k2 || (k1 == k2 && id1 > id2);
+    }
+}
@@ -0,0 +1,689 @@
+package com.napier.sem;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * The {@code worldSnapshot} class is an in-memory, column-oriented copy of the
+ * {@code country}, {@code city} and {@code countrylanguage} tables used by {@link snapshotEngine}.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li>Holds one primitive array per column, indexed by row number</li>
+ *   <li>Dictionary-encodes categorical columns (continent, region, district, language) into dense int ids</li>
+ *   <li>Links each city to its country by country row number rather than by code</li>
+ * </ul>
+ * <p>
+ * Workflow:
+ * <ol>
+ *   <li>{@link #load()} reads each table once through {@code populationApp.con}</li>
+ *   <li>Strings are encoded through dictionaries as rows are read</li>
+ *   <li>The finished snapshot is treated as read-only by every consumer</li>
+ * </ol>
+ * <p>
+ * Edge‑case handling:
+ * <ul>
+ *   <li>If no database connection exists, {@link #load()} returns {@code null}</li>
+ *   <li>Cities whose country code is unknown are dropped, matching the inner join used by the reports</li>
+ *   <li>Names are looked up ignoring case, accents and trailing spaces, like the database's
+ *       collation; of stored names that differ only in those, the first is found</li>
+ * </ul>
+ *
+ * <h3>Example Usage</h3>
+ * <pre>{@code
+ * worldSnapshot snapshot = worldSnapshot.load();
+ * int cities = snapshot.cityCount();
+ * }</pre>
+ */
+public class worldSnapshot {
+
+    /**
+     * Continent names, indexed by continent id.
+     */
+    public String[] continentNames;
+
+    /**
+     * Region names, indexed by region id.
+     */
+    public String[] regionNames;
+
+    /**
+     * District names, indexed by district id.
+     */
+    public String[] districtNames;
+
+    /**
+     * ISO code of each country row.
+     */
+    public String[] countryCode;
+
+    /**
+     * Name of each country row.
+     */
+    public String[] countryName;
+
+    /**
+     * Continent id of each country row.
+     */
+    public int[] countryContinent;
+
+    /**
+     * Region id of each country row.
+     */
+    public int[] countryRegion;
+
+    /**
+     * Population of each country row.
+     */
+    public int[] countryPopulation;
+
+    /**
+     * City id of each country's capital, or {@code -1} when the country has none.
+     */
+    public int[] countryCapital;
+
+    /**
+     * Surface area of each country row in square kilometres, or {@code NaN} when unknown.
+     */
+    public double[] countrySurfaceArea;
+
+    /**
+     * GNP of each country row in millions of US dollars, or {@code NaN} when unknown.
+     */
+    public double[] countryGnp;
+
+    /**
+     * Life expectancy of each country row, or {@code NaN} when unknown.
+     */
+    public double[] countryLifeExpectancy;
+
+    /**
+     * Independence year of each country row, or {@code NaN} when the country has none.
+     */
+    public double[] countryIndepYear;
+
+    /**
+     * Database id of each city row.
+     */
+    public int[] cityId;
+
+    /**
+     * Name of each city row.
+     */
+    public String[] cityName;
+
+    /**
+     * Country row number of each city row.
+     */
+    public int[] cityCountry;
+
+    /**
+     * District id of each city row.
+     */
+    public int[] cityDistrict;
+
+    /**
+     * Population of each city row.
+     */
+    public int[] cityPopulation;
+
+    /**
+     * Language names, indexed by language id.
+     */
+    public String[] languageNames;
+
+    /**
+     * Country row number of each country-language row.
+     */
+    public int[] languageCountry;
+
+    /**
+     * Language id of each country-language row.
+     */
+    public int[] languageId;
+
+    /**
+     * Whether the language is official in the country, per country-language row.
+     */
+    public boolean[] languageOfficial;
+
+    /**
+     * Percentage of the country's population speaking the language, per country-language row.
+     */
+    public double[] languagePercentage;
+
+    /**
+     * Wall-clock time the snapshot was built, in epoch milliseconds.
+     */
+    public final long builtAt = System.currentTimeMillis();
+
+    /**
+     * Name-to-id lookups, built on first use per dictionary.
+     */
+    private final IdentityHashMap<String[], HashMap<String, Integer>> lookups = new IdentityHashMap<>();
+
+    /**
+     * City rows grouped by country and ordered by population, built on first use.
+     */
+    private cityIndex cityIndex;
+
+    /**
+     * City row of each city id, {@code -1} for unused ids; built on first use.
+     */
+    private int[] cityRowById;
+
+    /**
+     * Country metric columns and their sort orders, built on first use.
+     */
+    private metricIndex metrics;
+
+    /**
+     * Returns the number of country rows held by the snapshot.
+     *
+     * @return number of countries
+     */
+    public int countryCount() {
+        return countryCode == null ? 0 : countryCode.length;
+    }
+
+    /**
+     * Returns the number of city rows held by the snapshot.
+     *
+     * @return number of cities
+     */
+    public int cityCount() {
+        return cityId == null ? 0 : cityId.length;
+    }
+
+    /**
+     * Returns the number of country-language rows held by the snapshot.
+     *
+     * @return number of country-language rows
+     */
+    public int languageRowCount() {
+        return languageId == null ? 0 : languageId.length;
+    }
+
+    /**
+     * Returns the id of a continent name, or {@code -1} if the snapshot has no such continent.
+     *
+     * @param name continent name
+     * @return continent id or {@code -1}
+     */
+    public int continentId(String name) {
+        return find(continentNames, name);
+    }
+
+    /**
+     * Returns the id of a region name, or {@code -1} if the snapshot has no such region.
+     *
+     * @param name region name
+     * @return region id or {@code -1}
+     */
+    public int regionId(String name) {
+        return find(regionNames, name);
+    }
+
+    /**
+     * Returns the id of a district name, or {@code -1} if the snapshot has no such district.
+     *
+     * @param name district name
+     * @return district id or {@code -1}
+     */
+    public int districtId(String name) {
+        return find(districtNames, name);
+    }
+
+    /**
+     * Returns the row number of a country name, or {@code -1} if the snapshot has no such country.
+     *
+     * @param name country name
+     * @return country row number or {@code -1}
+     */
+    public int countryRow(String name) {
+        return find(countryName, name);
+    }
+
+    /**
+     * Returns the city rows of every country ordered by population, building the index on first use.
+     * <p>
+     * Rows are grouped by country with a counting sort, then each country's group is sorted
+     * by population (largest first, smaller row first on ties).
+     *
+     * @return the per-country city index
+     */
+    public synchronized cityIndex cityIndex() {
+        if (cityIndex != null) return cityIndex;
+
+        int countries = countryCount();
+        int cities = cityCount();
+        int[] start = new int[countries + 1];
+        for (int row = 0; row < cities; row++) start[cityCountry[row] + 1]++;
+        for (int c = 0; c < countries; c++) start[c + 1] += start[c];
+
+        // Packs (MAX - population, row) so an ascending primitive sort gives the wanted order
+        long[] keys = new long[cities];
+        int[] next = Arrays.copyOf(start, countries);
+        for (int row = 0; row < cities; row++) {
+            keys[next[cityCountry[row]]++] = ((long) (Integer.MAX_VALUE - cityPopulation[row]) << 32) | row;
+        }
+        int[] rows = new int[cities];
+        for (int c = 0; c < countries; c++) {
+            Arrays.sort(keys, start[c], start[c + 1]);
+        }
+        for (int i = 0; i < cities; i++) rows[i] = (int) keys[i];
+
+        cityIndex = new cityIndex(start, rows);
+        return cityIndex;
+    }
+
+    /**
+     * Returns the city row of every city id, building the array on first use.
+     * <p>
+     * City ids are dense auto-increment ints, so a plain array indexed by id replaces both a
+     * binary search over {@link #cityId} and a join on {@code city.id}.
+     *
+     * @return city rows indexed by city id; {@code -1} where no city has that id
+     */
+    public synchronized int[] cityRowById() {
+        if (cityRowById != null) return cityRowById;
+
+        int max = -1;
+        for (int id : cityId) max = Math.max(max, id);
+        int[] rows = new int[max + 1];
+        Arrays.fill(rows, -1);
+        for (int row = 0; row < cityId.length; row++) {
+            if (cityId[row] >= 0) rows[cityId[row]] = row;
+        }
+        cityRowById = rows;
+        return rows;
+    }
+
+    /**
+     * Returns every {@link countryMetric} column with its sort order, computing them on first use.
+     * <p>
+     * {@link #load()} and {@link syntheticWorld} build the index straight away, so queries
+     * never pay for it; hand-built snapshots build it on their first metric query.
+     *
+     * @return the metric index
+     */
+    public synchronized metricIndex metrics() {
+        if (metrics != null) return metrics;
+
+        int countries = countryCount();
+        // Urbanisation comes from the same city-to-country rollup as the population reports
+        long[] urban = snapshotAggregator.sumByGroup(null, cityCountry, cityPopulation, countries);
+
+        countryMetric[] all = countryMetric.values();
+        double[][] values = new double[all.length][countries];
+        for (int c = 0; c < countries; c++) {
+            double population = countryPopulation[c];
+            double area = column(countrySurfaceArea, c);
+            double gnp = column(countryGnp, c);
+            values[countryMetric.POPULATION.ordinal()][c] = population;
+            values[countryMetric.SURFACE_AREA.ordinal()][c] = area;
+            values[countryMetric.DENSITY.ordinal()][c] = area > 0 ? population / area : Double.NaN;
+            values[countryMetric.GNP.ordinal()][c] = gnp;
+            values[countryMetric.GNP_PER_CAPITA.ordinal()][c] = population > 0 ? gnp * 1_000_000 / population : Double.NaN;
+            values[countryMetric.LIFE_EXPECTANCY.ordinal()][c] = column(countryLifeExpectancy, c);
+            values[countryMetric.URBANISATION.ordinal()][c] = population > 0 ? urban[c] / population : Double.NaN;
+            values[countryMetric.INDEPENDENCE_YEAR.ordinal()][c] = column(countryIndepYear, c);
+        }
+
+        metrics = new metricIndex(values);
+        return metrics;
+    }
+
+    /**
+     * Returns {@code values[row]}, or {@code NaN} if the column was not loaded.
+     */
+    private static double column(double[] values, int row) {
+        return values == null ? Double.NaN : values[row];
+    }
+
+    /**
+     * Looks {@code name} up in {@code dictionary} by its {@link scopeRegistry#key(String)}, so it
+     * matches the names the database's collation matches; builds the lookup map on first use.
+     */
+    private synchronized int find(String[] dictionary, String name) {
+        if (dictionary == null || name == null) return -1;
+        HashMap<String, Integer> lookup = lookups.get(dictionary);
+        if (lookup == null) {
+            lookup = new HashMap<>();
+            for (int i = 0; i < dictionary.length; i++) lookup.putIfAbsent(scopeRegistry.key(dictionary[i]), i);
+            lookups.put(dictionary, lookup);
+        }
+        return lookup.getOrDefault(scopeRegistry.key(name), -1);
+    }
+
+    /**
+     * Loads the {@code country}, {@code city} and {@code countrylanguage} tables into a new
+     * column-oriented snapshot.
+     * <p>
+     * Workflow:
+     * <ul>
+     *   <li>Checks if a valid database connection exists; returns {@code null} if not</li>
+     *   <li>Reads every country, encoding continent and region names into dictionaries</li>
+     *   <li>Reads every city, resolving its country code to a country row number and
+     *       encoding its district name</li>
+     *   <li>Reads every country-language pair, encoding its language name</li>
+     *   <li>Computes the derived country metrics and their sort orders</li>
+     * </ul>
+     * <p>
+     * Edge-case handling:
+     * <ul>
+     *   <li>If {@code populationApp.con} is {@code null}, {@code null} is returned</li>
+     *   <li>If SQL execution fails, the error message is logged and {@code null} is returned</li>
+     * </ul>
+     *
+     * @return a populated snapshot, or {@code null} if no connection or a query fails
+     */
+    public static worldSnapshot load() {
+        if (populationApp.con == null) return null;
+
+        worldSnapshot s = new worldSnapshot();
+        stringDictionary continents = new stringDictionary();
+        stringDictionary regions = new stringDictionary();
+        stringDictionary districts = new stringDictionary();
+        stringDictionary languages = new stringDictionary();
+        HashMap<String, Integer> countryRows = new HashMap<>();
+
+        try {
+            ArrayList<String> codes = new ArrayList<>();
+            ArrayList<String> names = new ArrayList<>();
+            intColumn continent = new intColumn();
+            intColumn region = new intColumn();
+            intColumn population = new intColumn();
+            intColumn capital = new intColumn();
+            doubleColumn surfaceArea = new doubleColumn();
+            doubleColumn gnp = new doubleColumn();
+            doubleColumn lifeExpectancy = new doubleColumn();
+            doubleColumn indepYear = new doubleColumn();
+            try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+            SELECT code, name, continent, region, population, capital,
+                   surfacearea, gnp, lifeexpectancy, indepyear
+            FROM country
+            ORDER BY code
+        """)) {
+                ResultSet rset = pstmt.executeQuery();
+                while (rset.next()) {
+                    countryRows.put(rset.getString("code"), codes.size());
+                    codes.add(rset.getString("code"));
+                    names.add(rset.getString("name"));
+                    continent.add(continents.idOf(rset.getString("continent")));
+                    region.add(regions.idOf(rset.getString("region")));
+                    population.add(rset.getInt("population"));
+                    int cap = rset.getInt("capital");
+                    capital.add(rset.wasNull() ? -1 : cap);
+                    double area = rset.getDouble("surfacearea");
+                    surfaceArea.add(rset.wasNull() ? Double.NaN : area);
+                    double product = rset.getDouble("gnp");
+                    gnp.add(rset.wasNull() ? Double.NaN : product);
+                    double life = rset.getDouble("lifeexpectancy");
+                    lifeExpectancy.add(rset.wasNull() ? Double.NaN : life);
+                    double year = rset.getDouble("indepyear");
+                    indepYear.add(rset.wasNull() ? Double.NaN : year);
+                }
+            }
+            s.countryCode = codes.toArray(new String[0]);
+            s.countryName = names.toArray(new String[0]);
+            s.countryContinent = continent.toArray();
+            s.countryRegion = region.toArray();
+            s.countryPopulation = population.toArray();
+            s.countryCapital = capital.toArray();
+            s.countrySurfaceArea = surfaceArea.toArray();
+            s.countryGnp = gnp.toArray();
+            s.countryLifeExpectancy = lifeExpectancy.toArray();
+            s.countryIndepYear = indepYear.toArray();
+
+            intColumn id = new intColumn();
+            ArrayList<String> cityNames = new ArrayList<>();
+            intColumn country = new intColumn();
+            intColumn district = new intColumn();
+            intColumn cityPop = new intColumn();
+            try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+            SELECT id, name, countrycode, district, population
+            FROM city
+            ORDER BY id
+        """)) {
+                ResultSet rset = pstmt.executeQuery();
+                while (rset.next()) {
+                    Integer row = countryRows.get(rset.getString("countrycode"));
+                    if (row == null) continue;
+                    id.add(rset.getInt("id"));
+                    cityNames.add(rset.getString("name"));
+                    country.add(row);
+                    district.add(districts.idOf(rset.getString("district")));
+                    cityPop.add(rset.getInt("population"));
+                }
+            }
+            s.cityId = id.toArray();
+            s.cityName = cityNames.toArray(new String[0]);
+            s.cityCountry = country.toArray();
+            s.cityDistrict = district.toArray();
+            s.cityPopulation = cityPop.toArray();
+
+            intColumn langCountry = new intColumn();
+            intColumn langId = new intColumn();
+            ArrayList<Boolean> official = new ArrayList<>();
+            ArrayList<Double> percentage = new ArrayList<>();
+            try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, """
+            SELECT countrycode, language, isofficial, percentage
+            FROM countrylanguage
+        """)) {
+                ResultSet rset = pstmt.executeQuery();
+                while (rset.next()) {
+                    Integer row = countryRows.get(rset.getString("countrycode"));
+                    if (row == null) continue;
+                    langCountry.add(row);
+                    langId.add(languages.idOf(rset.getString("language")));
+                    official.add("T".equals(rset.getString("isofficial")));
+                    percentage.add(rset.getDouble("percentage"));
+                }
+            }
+            s.languageCountry = langCountry.toArray();
+            s.languageId = langId.toArray();
+            s.languageOfficial = new boolean[official.size()];
+            s.languagePercentage = new double[percentage.size()];
+            for (int i = 0; i < official.size(); i++) {
+                s.languageOfficial[i] = official.get(i);
+                s.languagePercentage[i] = percentage.get(i);
+            }
+        } catch (Exception e) {
+            System.out.println("Error loading snapshot: " + e.getMessage());
+            return null;
+        }
+
+        s.continentNames = continents.toArray();
+        s.regionNames = regions.toArray();
+        s.districtNames = districts.toArray();
+        s.languageNames = languages.toArray();
+        s.metrics();
+        return s;
+    }
+
+    /**
+     * City rows grouped by country, each group ordered by population (largest first).
+     * <p>
+     * The cities of country row {@code c} are {@code rows[start[c]]} up to, but excluding,
+     * {@code rows[start[c + 1]]}.
+     */
+    public static final class cityIndex {
+
+        /**
+         * Offset of each country's group in {@link #rows}, plus one final end offset.
+         */
+        public final int[] start;
+
+        /**
+         * City row numbers grouped by country.
+         */
+        public final int[] rows;
+
+        cityIndex(int[] start, int[] rows) {
+            this.start = start;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * Country metric columns, each with a permutation of country rows sorted by that column.
+     * <p>
+     * {@code order(m)[0]} is the country with the largest value of {@code m}; the first
+     * {@code ranked(m)} entries are the countries with a value, {@code NaN}s are left out.
+     */
+    public static final class metricIndex {
+
+        private final double[][] values;
+        private final int[][] order;
+        private final int[] ranked;
+
+        metricIndex(double[][] values) {
+            this.values = values;
+            order = new int[values.length][];
+            ranked = new int[values.length];
+            for (int m = 0; m < values.length; m++) {
+                double[] column = values[m];
+                Integer[] rows = new Integer[column.length];
+                int n = 0;
+                for (int row = 0; row < column.length; row++) {
+                    if (!Double.isNaN(column[row])) rows[n++] = row;
+                }
+                // Largest first, smaller row first on ties, as in topNHeap
+                Arrays.sort(rows, 0, n, (a, b) -> column[a] != column[b] ? Double.compare(column[b], column[a]) : a - b);
+                order[m] = new int[n];
+                for (int i = 0; i < n; i++) order[m][i] = rows[i];
+                ranked[m] = n;
+            }
+        }
+
+        /**
+         * Returns the value of a metric for one country row.
+         *
+         * @param metric metric to read
+         * @param row    country row
+         * @return the value, or {@code NaN} when missing
+         */
+        public double value(countryMetric metric, int row) {
+            return values[metric.ordinal()][row];
+        }
+
+        /**
+         * Returns the country rows with a value for {@code metric}, largest value first.
+         *
+         * @param metric metric to order by
+         * @return sorted country rows; must not be modified
+         */
+        public int[] order(countryMetric metric) {
+            return order[metric.ordinal()];
+        }
+
+        /**
+         * Returns how many country rows have a value for {@code metric}.
+         *
+         * @param metric metric to count
+         * @return length of {@link #order(countryMetric)}
+         */
+        public int ranked(countryMetric metric) {
+            return ranked[metric.ordinal()];
+        }
+    }
+
+    /**
+     * Assigns dense int ids to strings in first-seen order.
+     */
+    static class stringDictionary {
+
+        private final HashMap<String, Integer> ids = new HashMap<>();
+        private final ArrayList<String> values = new ArrayList<>();
+
+        /**
+         * Returns the id of {@code value}, assigning the next free id on first sight.
+         *
+         * @param value string to encode
+         * @return dense id of the string
+         */
+        int idOf(String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+            }
+            return id;
+        }
+
+        /**
+         * Returns the dictionary as an array indexed by id.
+         *
+         * @return values in id order
+         */
+        String[] toArray() {
+            return values.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Growable primitive int column used while loading, avoiding boxed lists.
+     */
+    static class intColumn {
+
+        private int[] values = new int[1024];
+        private int size;
+
+        /**
+         * Appends a value, doubling the backing array when full.
+         *
+         * @param value value to append
+         */
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Returns the column trimmed to its size.
+         *
+         * @return a copy holding exactly the appended values
+         */
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Growable primitive double column used while loading, avoiding boxed lists.
+     */
+    static class doubleColumn {
+
+        private double[] values = new double[1024];
+        private int size;
+
+        /**
+         * Appends a value, doubling the backing array when full.
+         *
+         * @param value value to append
+         */
+        void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Returns the column trimmed to its size.
+         *
+         * @return a copy holding exactly the appended values
+         */
+        double[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for sizing cursor fetches from row width and consumer speed.
+ * These do not require a live database; the cursor is a stand-in that logs the fetch sizes set on it.
+ *
+ * Tests:
+ * Narrow rows fetch many per round trip, wide rows few, and the size is remembered per query
+ * A slow consumer shrinks the fetch; one too fast to measure leaves it to the row width
+ * The population summary asks for a cursor on SQL the driver can server-prepare, and resizes it while reading
+ */
+public class AdaptiveFetchUnitTest {
+
+    private final ArrayList<Integer> fetchSizes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        adaptiveFetch.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        adaptiveFetch.clear();
+        populationApp.con = null;
+        resultCache.clear();
+    }
+
+    /**
+     * A connection whose one query returns {@code rows} summary rows, logging the SQL, the fetch
+     * sizes set on the statement and cursor, and when the query ran.
+     */
+    private Connection summaryConnection(ArrayList<String> log, int rows) {
+        int[] at = {-1};
+        ResultSet rset = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (r, m, a) -> {
+                    switch (m.getName()) {
+                        case "next": return ++at[0] < rows;
+                        case "findColumn": return List.of("name", "population", "level").indexOf((String) a[0]) + 1;
+                        case "getString": return (Integer) a[0] == 1 ? "City " + at[0] : "City";
+                        case "getLong": return (long) at[0];
+                        case "setFetchSize": log.add("cursor fetch " + a[0]); return null;
+                        default: return null;
+                    }
+                });
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("prepareStatement")) return null;
+                    log.add("prepare " + (((String) args[0]).contains(";") ? "client-side" : "server-side"));
+                    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                            new Class<?>[]{PreparedStatement.class}, (p, m, a) -> {
+                                switch (m.getName()) {
+                                    case "setFetchSize": log.add("fetch " + a[0]); return null;
+                                    case "executeQuery": log.add("execute"); return rset;
+                                    case "isClosed": return false;
+                                    default: return null;
+                                }
+                            });
+                });
+    }
+
+    private ResultSet cursor() {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (r, m, a) -> {
+                    if (m.getName().equals("setFetchSize")) fetchSizes.add((Integer) a[0]);
+                    return null;
+                });
+    }
+
+    /**
+     * Summary rows of about 100 bytes fill 64 KiB with several hundred rows; rows with a 4,000
+     * character name need far fewer. The next cursor for a query starts from its last size.
+     */
+    @Test
+    void testRowWidth() throws SQLException {
+        ResultSet rset = cursor();
+        adaptiveFetch narrow = adaptiveFetch.start("summary");
+        assertEquals(adaptiveFetch.INITIAL_ROWS, narrow.size());
+        for (int i = 0; i < 5_000; i++) narrow.observe(rset, new populationSummary("District " + i, i, "District"));
+        long width = resultCache.rowBytes(new populationSummary("District 1000", 0, "District"));
+        assertEquals(adaptiveFetch.TARGET_BYTES / width, narrow.size(), 2.0);
+        assertEquals(List.of(narrow.size()), fetchSizes, "The cursor is resized once, when the estimate changes");
+        narrow.finish();
+
+        adaptiveFetch wide = adaptiveFetch.start("wide");
+        for (int i = 0; i < 100; i++) wide.observe(rset, new populationSummary("x".repeat(4_000), i, "City"));
+        assertEquals(adaptiveFetch.MIN_ROWS, wide.size());
+        wide.finish();
+
+        assertEquals(narrow.size(), adaptiveFetch.start("summary").size());
+        assertEquals(adaptiveFetch.MIN_ROWS, adaptiveFetch.start("wide").size());
+        assertEquals(adaptiveFetch.INITIAL_ROWS, adaptiveFetch.start("other").size());
+        assertEquals(5, adaptiveFetch.cursors());
+    }
+
+    /**
+     * The summary query is server-preparable and gets a positive fetch size before it runs, which
+     * is what makes Connector/J open a cursor with {@code useCursorFetch=true}; the cursor is
+     * resized once the rows' width is known. That the server really streams through a cursor is
+     * checked against MySQL by {@code ServerPrepareIntegrationTest}.
+     */
+    @Test
+    void testPopulationSummaryOpensCursor() {
+        ArrayList<String> log = new ArrayList<>();
+        Connection con = summaryConnection(log, 6_000);
+        populationApp.con = con;
+        resultCache.clear();
+        assertEquals(6_000, populationSummary.getAllPopulationSummary().size());
+        statementCache.closeAll(con);
+
+        assertEquals("prepare server-side", log.get(0));
+        assertEquals("fetch " + adaptiveFetch.INITIAL_ROWS, log.get(1));
+        assertEquals("execute", log.get(2));
+        assertTrue(log.get(3).startsWith("cursor fetch "), log.toString());
+        assertTrue(Integer.parseInt(log.get(3).substring(13)) > adaptiveFetch.INITIAL_ROWS, "Narrow rows fetch more per round trip");
+    }
+
+    /**
+     * A consumer taking 2 ms a row is given 25 rows per fetch (50 ms of work); without
+     * consumer time, the same narrow rows fetch by width alone.
+     */
+    @Test
+    void testConsumerSpeed() {
+        cityReport row = new cityReport("Kabul", "Afghanistan", "Kabol", 1_780_000);
+        adaptiveFetch slow = adaptiveFetch.start("cities");
+        for (int i = 0; i < 200; i++) {
+            slow.row(row);
+            slow.consumed(2_000_000L);
+        }
+        assertEquals(25, slow.size());
+
+        adaptiveFetch fast = adaptiveFetch.start("cities fast");
+        for (int i = 0; i < 200; i++) fast.row(row);
+        assertEquals(Math.min(adaptiveFetch.MAX_ROWS, adaptiveFetch.TARGET_BYTES / resultCache.rowBytes(row)), fast.size());
+        assertTrue(fast.size() > slow.size());
+    }
+}
@@ -0,0 +1,107 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the asynchronous report facade.
+ * These do not require a live database; the connection is the stand-in from
+ * {@link QueryBatchUnitTest} with a fixed latency per request.
+ *
+ * Tests:
+ * Calls return at once, run on the JDBC threads and compose
+ * A full queue fails the future instead of blocking the caller
+ */
+public class AsyncReportsUnitTest {
+
+    private static final long LATENCY_MILLIS = 100;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private Connection con;
+
+    @BeforeEach
+    void setUp() {
+        resultCache.clear();
+        scopeRegistry.clear();
+        asyncReports.resetCounters();
+        con = QueryBatchUnitTest.slowConnection(LATENCY_MILLIS, true, requests);
+        populationApp.con = con;
+        tableVersions.refresh();
+        requests.set(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        populationApp.con = null;
+        statementCache.closeAll(con);
+        resultCache.clear();
+        asyncReports.resetCounters();
+    }
+
+    /**
+     * Fetching countries and capitals does not block the caller; both run on the JDBC executor
+     * and are joined afterwards.
+     */
+    @Test
+    void testComposition() {
+        long start = System.nanoTime();
+        CompletableFuture<ArrayList<countryReport>> countries = asyncReports.getCountriesByContinent("Africa", 42);
+        CompletableFuture<ArrayList<capitalCityReport>> capitals = asyncReports.getCapitalCitiesByRegion("Eastern Asia", 42);
+        long submitMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(submitMillis < LATENCY_MILLIS, "Submitting took " + submitMillis + " ms");
+
+        String both = countries.thenCombine(capitals, (a, b) -> a.get(0).continent + "/" + b.size()).join();
+        assertEquals("Africa/1", both);
+        assertTrue(asyncReports.submit("thread", () -> Thread.currentThread().getName()).join()
+                .startsWith("report-jdbc-"), "Calls run on the JDBC executor, not the common pool");
+        assertEquals(3, asyncReports.submitted());
+        assertTrue(requests.get() >= 2);
+    }
+
+    /**
+     * Once every thread is busy and the queue is full, the next call fails at once.
+     */
+    @Test
+    void testRejectedWhenFull() {
+        CountDownLatch release = new CountDownLatch(1);
+        ArrayList<CompletableFuture<Boolean>> held = new ArrayList<>();
+        CompletableFuture<ArrayList<cityReport>> overflow = null;
+        try {
+            for (int i = 0; i <= asyncReports.THREADS + asyncReports.QUEUE_CAPACITY && overflow == null; i++) {
+                CompletableFuture<Boolean> f = asyncReports.submit("hold", () -> {
+                    try {
+                        return release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        return false;
+                    }
+                });
+                if (f.isCompletedExceptionally()) {
+                    long start = System.nanoTime();
+                    overflow = asyncReports.getTopCitiesInWorld(10);
+                    assertTrue((System.nanoTime() - start) / 1_000_000 < LATENCY_MILLIS, "The caller was not blocked");
+                } else {
+                    held.add(f);
+                }
+            }
+        } finally {
+            release.countDown();
+        }
+
+        assertNotNull(overflow, "The executor is bounded");
+        assertTrue(held.size() <= asyncReports.THREADS + asyncReports.QUEUE_CAPACITY);
+        CompletionException e = assertThrows(CompletionException.class, overflow::join);
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals(2, asyncReports.rejected());
+        for (CompletableFuture<Boolean> f : held) assertTrue(f.join());
+        assertTrue(asyncReports.summary().startsWith("Async reports: " + held.size() + " submitted, 2 rejected"));
+    }
+}
@@ -47,10 +47,7 @@ public class CapitalCityUnitTest {
     @Test
     void testOutputCapitalCityReport_WithData() {
         ArrayList<capitalCityReport> list = new ArrayList<>();
-        capitalCityReport c = new capitalCityReport();
-        c.name = "Paris";
-        c.country = "France";
-        c.population = 2148000;
+        capitalCityReport c = new capitalCityReport("Paris", "France", 2148000);
         list.add(c);
 
         String filename = "TestCapitalReport.md";
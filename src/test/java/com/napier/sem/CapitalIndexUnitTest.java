@@ -0,0 +1,130 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for join-free capital resolution.
+ * These do not require a live database.
+ *
+ * Tests:
+ * Dense id lookups and bitset membership
+ * Capital ranking without a join
+ * Empty index without a connection
+ * A change to city or country reloads the index
+ */
+public class CapitalIndexUnitTest {
+
+    /**
+     * Berlin (3068), Moscow (3580) and Tokyo (1532) as capitals.
+     */
+    static capitalIndex mockIndex() {
+        return new capitalIndex(
+                new int[]{3068, 3580, 1532},
+                new String[]{"Berlin", "Moscow", "Tokyo"},
+                new int[]{3386667, 8389200, 7980230});
+    }
+
+    /**
+     * Capital ids resolve directly; other ids resolve like a LEFT JOIN miss.
+     */
+    @Test
+    void testLookups() {
+        capitalIndex index = mockIndex();
+
+        assertTrue(index.isCapital(3580));
+        assertEquals("Moscow", index.name(3580));
+        assertEquals(7980230, index.population(1532));
+
+        assertFalse(index.isCapital(3069), "Non-capital city");
+        assertNull(index.name(99999), "Out-of-range id");
+        assertNull(index.name(-1), "Negative id");
+        assertEquals(0, index.population(0), "NULL capital read as 0");
+    }
+
+    /**
+     * Capitals are ranked by population, capped, and countries without a capital are skipped.
+     */
+    @Test
+    void testRankCapitals() {
+        ArrayList<String> countries = new ArrayList<>(List.of("Germany", "Antarctica", "Russian Federation", "Japan"));
+        int[] capitalIds = {3068, 0, 3580, 1532};
+
+        ArrayList<capitalCityReport> ranked = capitalCityReport.rankCapitals(countries, capitalIds, mockIndex(), 2);
+
+        assertEquals(2, ranked.size());
+        assertEquals("Moscow", ranked.get(0).name);
+        assertEquals("Russian Federation", ranked.get(0).country);
+        assertEquals("Tokyo", ranked.get(1).name);
+        assertEquals(7980230, ranked.get(1).population);
+
+        assertEquals(3, capitalCityReport.rankCapitals(countries, capitalIds, mockIndex(), 42).size());
+    }
+
+    /**
+     * Without a connection the index is empty rather than null.
+     */
+    @Test
+    void testNoConnection() {
+        populationApp.con = null;
+        capitalIndex index = capitalIndex.get();
+        assertNotNull(index);
+        assertFalse(index.isCapital(3068));
+    }
+
+    /**
+     * A connection whose capital query returns Berlin (3068), named after the number of loads so far.
+     */
+    private static Connection capitalsConnection(int[] loads) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("prepareStatement")) return null;
+                    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                            new Class<?>[]{PreparedStatement.class}, (p, m, a) -> {
+                                if (m.getName().equals("isClosed")) return false;
+                                if (!m.getName().equals("executeQuery")) return null;
+                                int load = ++loads[0];
+                                boolean[] read = {false};
+                                return Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                                        new Class<?>[]{ResultSet.class}, (r, rm, ra) -> {
+                                            switch (rm.getName()) {
+                                                case "next": return !read[0] && (read[0] = true);
+                                                case "getInt": return "id".equals(ra[0]) ? 3068 : 3386667;
+                                                case "getString": return "Berlin " + load;
+                                                default: return null;
+                                            }
+                                        });
+                            });
+                });
+    }
+
+    /**
+     * The index is kept while nothing changes and reloaded after {@code city} or {@code country} is bumped.
+     */
+    @Test
+    void testReloadAfterTableChange() {
+        int[] loads = {0};
+        populationApp.con = capitalsConnection(loads);
+        try {
+            assertEquals("Berlin 1", capitalIndex.get().name(3068));
+            assertEquals("Berlin 1", capitalIndex.get().name(3068), "Unchanged tables reuse the index");
+            assertEquals(1, loads[0]);
+
+            tableVersions.bump(tableVersions.CITY);
+            assertEquals("Berlin 2", capitalIndex.get().name(3068), "A city change reloads the index");
+            tableVersions.bump(tableVersions.COUNTRY);
+            assertEquals("Berlin 3", capitalIndex.get().name(3068), "A country change reloads the index");
+            assertEquals(3, loads[0]);
+        } finally {
+            statementCache.closeAll(populationApp.con);
+            populationApp.con = null;
+        }
+    }
+}
@@ -50,11 +50,7 @@ public class CityReportUnitTest {
     void testOutputCityReport_WithData() {
         ArrayList<cityReport> list = new ArrayList<>();
 
-        cityReport c = new cityReport();
-        c.name = "Berlin";
-        c.country = "Germany";
-        c.district = "Berlin";
-        c.population = 3600000;
+        cityReport c = new cityReport("Berlin", "Germany", "Berlin", 3600000);
 
         list.add(c);
 
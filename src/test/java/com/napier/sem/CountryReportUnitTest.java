@@ -32,13 +32,8 @@ public class CountryReportUnitTest {
     @Test
     void testOutputCountryReportWithData() {
         ArrayList<countryReport> mock = new ArrayList<>();
-        countryReport c = new countryReport();
-        c.code = "GBR";
-        c.name = "United Kingdom";
-        c.continent = "Europe";
-        c.region = "British Isles";
-        c.population = 67000000;
-        c.capital = "London";
+        countryReport c = new countryReport("GBR", "United Kingdom", "Europe", "British Isles",
+                67000000, "London");
         mock.add(c);
 
         String fileName = "TestCountryReport.md";
@@ -0,0 +1,272 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.lang.reflect.Proxy;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the on-disk result cache.
+ * These do not require a live database; table checksums are installed directly.
+ *
+ * Tests:
+ * Results survive a reopen and go stale when a table changes
+ * A torn log tail is cut off and a lost index is rebuilt
+ * The result cache answers from disk after its memory is cleared
+ * Every report row class round-trips; rows of any other class are not written
+ * Background compaction reads checksums over its own connection, not the shared one
+ */
+public class DiskCacheUnitTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        diskCache.resetCounters();
+        resultCache.clear();
+        tableVersions.installChecksum(tableVersions.CITY, 11);
+        tableVersions.installChecksum(tableVersions.COUNTRY, 22);
+        assertTrue(diskCache.open(dir));
+    }
+
+    @AfterEach
+    void tearDown() {
+        diskCache.close();
+        diskCache.resetCounters();
+        resultCache.clear();
+        diskCache.compactionConnection = populationApp::connectAgain;
+        populationApp.con = null;
+    }
+
+    /**
+     * A connection that logs each SQL it prepares and its own close, under {@code name}; every
+     * query returns one row whose {@code Checksum} is {@code sum}.
+     */
+    private static Connection connection(String name, List<String> log, long sum) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close": log.add(name + " close"); return null;
+                        case "isClosed": return false;
+                        case "prepareStatement": break;
+                        default: return null;
+                    }
+                    log.add(name + " " + args[0]);
+                    boolean[] read = {false};
+                    ResultSet rset = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                            new Class<?>[]{ResultSet.class}, (r, m, a) -> {
+                                switch (m.getName()) {
+                                    case "next": return !read[0] && (read[0] = true);
+                                    case "getLong": return sum;
+                                    case "wasNull": case "isClosed": return false;
+                                    default: return null;
+                                }
+                            });
+                    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                            new Class<?>[]{PreparedStatement.class}, (p, m, a) -> {
+                                switch (m.getName()) {
+                                    case "executeQuery": return rset;
+                                    case "isClosed": return false;
+                                    default: return null;
+                                }
+                            });
+                });
+    }
+
+    private static ArrayList<cityReport> cities(String... names) {
+        ArrayList<cityReport> cities = new ArrayList<>();
+        for (String name : names) {
+            cityReport c = new cityReport(name, "China", null, name.length() * 1_000_000);
+            cities.add(c);
+        }
+        return cities;
+    }
+
+    /**
+     * A record read after a reopen has the same fields; changing a table makes it stale, and
+     * compaction removes stale and superseded records.
+     */
+    @Test
+    void testReopenAndStaleness() throws Exception {
+        assertTrue(diskCache.write("cities\u001fEastern Asia", cities("Shanghai", "Peking"), tableVersions.CITY, tableVersions.COUNTRY));
+        assertTrue(diskCache.write("cities\u001fEastern Asia", cities("Shanghai", "Peking", "Seoul"), tableVersions.CITY, tableVersions.COUNTRY));
+        assertTrue(diskCache.write("countries", List.of("China"), tableVersions.COUNTRY));
+        diskCache.close();
+
+        assertTrue(diskCache.open(dir));
+        diskCache.stored s = diskCache.read("cities\u001fEastern Asia");
+        assertNotNull(s);
+        assertEquals(3, s.rows.size(), "The latest record of a key wins");
+        cityReport first = (cityReport) s.rows.get(0);
+        assertEquals("Shanghai", first.name);
+        assertEquals("China", first.country);
+        assertNull(first.district);
+        assertEquals(8_000_000, first.population);
+        assertArrayEquals(new String[]{tableVersions.CITY, tableVersions.COUNTRY}, s.tables);
+        assertEquals(List.of("China"), diskCache.read("countries").rows);
+
+        long before = diskCache.logBytes();
+        tableVersions.bump(tableVersions.CITY);
+        tableVersions.installChecksum(tableVersions.CITY, 12);
+        assertNull(diskCache.read("cities\u001fEastern Asia"));
+        assertEquals(1, diskCache.stale());
+        assertNotNull(diskCache.read("countries"), "Records of unchanged tables stay valid");
+        assertEquals(3, diskCache.hits());
+        assertEquals(0, diskCache.compact(), "The stale record was already dropped by the read");
+        assertTrue(diskCache.logBytes() < before, "Superseded and stale records are gone");
+
+        assertTrue(diskCache.write("cities\u001fEastern Asia", cities("Seoul"), tableVersions.CITY, tableVersions.COUNTRY));
+        tableVersions.bump(tableVersions.COUNTRY);
+        tableVersions.installChecksum(tableVersions.COUNTRY, 23);
+        assertEquals(2, diskCache.compact());
+        assertEquals(0, diskCache.logBytes());
+        assertEquals(2, diskCache.compactions());
+    }
+
+    /**
+     * Garbage after the last record is cut off on open; without an index the log is rescanned.
+     */
+    @Test
+    void testRecovery() throws Exception {
+        diskCache.write("a", List.of("1"), tableVersions.CITY);
+        diskCache.write("b", List.of("2"), tableVersions.CITY);
+        diskCache.close();
+        long good = Files.size(dir.resolve(diskCache.LOG));
+        try (FileChannel log = FileChannel.open(dir.resolve(diskCache.LOG), StandardOpenOption.APPEND)) {
+            log.write(java.nio.ByteBuffer.wrap(new byte[]{0x52, 0x43, 0x52, 0x32, 0, 0, 0, 99, 1, 2}));
+        }
+        Files.delete(dir.resolve(diskCache.INDEX));
+
+        assertTrue(diskCache.open(dir));
+        assertEquals(good, diskCache.logBytes(), "The torn record is cut off");
+        assertEquals(List.of("1"), diskCache.read("a").rows);
+        assertEquals(List.of("2"), diskCache.read("b").rows);
+
+        diskCache.write("c", List.of("3"), tableVersions.CITY);
+        diskCache.close();
+        assertTrue(diskCache.open(dir));
+        assertEquals(List.of("3"), diskCache.read("c").rows, "Records after the saved index are recovered");
+    }
+
+    /**
+     * After a restart (memory cleared), the result cache answers from disk without querying.
+     */
+    @Test
+    void testResultCacheFallsBackToDisk() {
+        resultCache.key key = resultCache.key("cityReport.getCitiesByRegion", "Eastern Asia", 42);
+        assertNull(resultCache.lookup(key));
+        resultCache.store(key, cities("Shanghai"), tableVersions.CITY, tableVersions.COUNTRY);
+        assertEquals(1, diskCache.writes());
+
+        resultCache.clear();
+        ArrayList<cityReport> restored = resultCache.lookup(resultCache.key("cityReport.getCitiesByRegion", "Eastern Asia", 42));
+        assertNotNull(restored);
+        assertEquals("Shanghai", restored.get(0).name);
+        assertEquals(1, resultCache.diskHits());
+        assertEquals(0, resultCache.misses());
+        assertNotNull(resultCache.lookup(key), "The disk result is kept in memory");
+        assertEquals(1, resultCache.hits());
+        assertEquals(1, diskCache.writes(), "Results read from disk are not written back");
+    }
+
+    /**
+     * Each report row class is read back with every field, pooled columns share one instance,
+     * and a result holding any other class is not written at all.
+     */
+    @Test
+    void testRowClasses() {
+        topLanguageReport top = new topLanguageReport();
+        top.level = topLanguageReport.REGION;
+        top.scope = "Eastern Asia";
+        top.rank = 1;
+        top.language = "Chinese";
+        top.speakers = 1_200_000_000L;
+        top.officialSpeakers = 1_100_000_000L;
+        top.unofficialSpeakers = 100_000_000L;
+        List<?> rows = List.of(
+                "China",
+                new cityReport("Shanghai", "China", "Shanghai", 9_696_300),
+                new cityReport("Peking", "China", null, 7_472_000),
+                new countryReport("CHN", "China", "Asia", "Eastern Asia", 1_277_558_000, null),
+                new capitalCityReport("Peking", "China", 7_472_000),
+                new populationReport("Asia", 3_705_025_700L, 697_604_103L, 18.83, 3_007_421_597L, 81.17),
+                new populationSummary("World", 6_078_749_450L, "World"),
+                new languageReport("Chinese", 1_191_843_539L, 19.61),
+                top);
+        assertTrue(diskCache.write("rows", rows, tableVersions.CITY));
+        diskCache.close();
+        assertTrue(diskCache.open(dir));
+
+        List<Object> read = diskCache.read("rows").rows;
+        assertEquals(rows.size(), read.size());
+        assertEquals("China", read.get(0));
+        cityReport shanghai = (cityReport) read.get(1);
+        cityReport peking = (cityReport) read.get(2);
+        assertEquals("Shanghai", shanghai.name);
+        assertEquals("Shanghai", shanghai.district);
+        assertEquals(9_696_300, shanghai.population);
+        assertNull(peking.district);
+        assertSame(shanghai.country, peking.country, "Pooled columns are interned on read");
+        countryReport country = (countryReport) read.get(3);
+        assertEquals("CHN", country.code);
+        assertEquals("Asia", country.continent);
+        assertEquals("Eastern Asia", country.region);
+        assertEquals(1_277_558_000, country.population);
+        assertNull(country.capital);
+        capitalCityReport capital = (capitalCityReport) read.get(4);
+        assertEquals("Peking", capital.name);
+        assertEquals("China", capital.country);
+        populationReport population = (populationReport) read.get(5);
+        assertEquals(697_604_103L, population.cityPopulation);
+        assertEquals(81.17, population.nonCityPercentage);
+        populationSummary summary = (populationSummary) read.get(6);
+        assertEquals(6_078_749_450L, summary.population);
+        assertEquals("World", summary.level);
+        languageReport language = (languageReport) read.get(7);
+        assertEquals("Chinese", language.language);
+        assertEquals(19.61, language.percentage);
+        topLanguageReport ranked = (topLanguageReport) read.get(8);
+        assertEquals("Eastern Asia", ranked.scope);
+        assertEquals(1, ranked.rank);
+        assertEquals(100_000_000L, ranked.unofficialSpeakers);
+
+        long bytes = diskCache.logBytes();
+        assertFalse(diskCache.write("other", List.of(new StringBuilder("China")), tableVersions.CITY));
+        assertNull(diskCache.read("other"));
+        assertEquals(bytes, diskCache.logBytes(), "Nothing is appended for an unknown row class");
+    }
+
+    /**
+     * The background compaction computes checksums over a connection of its own and closes it,
+     * leaving the connection the reports use untouched.
+     */
+    @Test
+    void testCompactionUsesItsOwnConnection() throws Exception {
+        ArrayList<String> log = new ArrayList<>();
+        populationApp.con = connection("shared", log, 11);
+        diskCache.compactionConnection = () -> connection("compactor", log, 12);
+        assertTrue(diskCache.write("cities", cities("Shanghai"), tableVersions.CITY));
+        tableVersions.bump(tableVersions.CITY);
+
+        diskCache.compactInBackground().join();
+        assertEquals(List.of("compactor CHECKSUM TABLE " + tableVersions.CITY, "compactor close"), log);
+        assertEquals(1, diskCache.compactions());
+        assertEquals(0, diskCache.logBytes(), "The record is stale at the new checksum");
+
+        diskCache.compactionConnection = () -> null;
+        diskCache.write("cities", cities("Shanghai"), tableVersions.CITY);
+        diskCache.compactInBackground().join();
+        assertEquals(1, diskCache.compactions(), "Without a connection of its own, compaction is skipped");
+    }
+}
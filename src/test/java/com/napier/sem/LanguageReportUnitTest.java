@@ -40,10 +40,7 @@ public class LanguageReportUnitTest {
     void testOutputLanguageReportWithData() {
         ArrayList<languageReport> mock = new ArrayList<>();
 
-        languageReport lr = new languageReport();
-        lr.language = "English";
-        lr.speakers = 1200000000L;
-        lr.percentage = 15.23;
+        languageReport lr = new languageReport("English", 1200000000L, 15.23);
         mock.add(lr);
 
         String fileName = "TestLanguageReport.md";
@@ -0,0 +1,98 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the population scan kernels.
+ * These do not require a live database.
+ *
+ * Tests:
+ * Active kernels (vector when available) match the scalar kernels
+ * Tails shorter than one vector are handled
+ * Engine range queries
+ */
+public class PopulationKernelsUnitTest {
+
+    private static final int ROWS = 10_007; // deliberately not a multiple of any vector length
+
+    private int[] ids;
+    private int[] values;
+
+    @BeforeEach
+    void setUp() {
+        SplittableRandom rnd = new SplittableRandom(3L);
+        ids = new int[ROWS];
+        values = new int[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            ids[i] = rnd.nextInt(-1, 7); // includes excluded rows
+            values[i] = rnd.nextInt(0, 2_000_000_000);
+        }
+    }
+
+    /**
+     * Sums per id agree for continent, region, country and city sized dictionaries and odd ranges.
+     */
+    @Test
+    void testSumByGroupMatchesScalar() {
+        SplittableRandom rnd = new SplittableRandom(5L);
+        for (int groups : new int[]{7, 25, 239, 4_079}) {
+            for (int i = 0; i < ROWS; i++) ids[i] = rnd.nextInt(-1, groups);
+            long[] expected = new long[groups];
+            long[] actual = new long[groups];
+            populationKernels.scalar().sumByGroup(ids, values, 3, ROWS - 5, expected);
+            populationKernels.active().sumByGroup(ids, values, 3, ROWS - 5, actual);
+            assertArrayEquals(expected, actual, "Sums should match for " + groups + " groups");
+        }
+    }
+
+    /**
+     * Range filters return the same row numbers in the same order.
+     */
+    @Test
+    void testFilterByRangeMatchesScalar() {
+        int[] expected = new int[ROWS];
+        int[] actual = new int[ROWS];
+        int n = populationKernels.scalar().filterByRange(values, 1, ROWS, 500_000_000, 900_000_000, expected);
+        int m = populationKernels.active().filterByRange(values, 1, ROWS, 500_000_000, 900_000_000, actual);
+
+        assertEquals(n, m);
+        assertArrayEquals(Arrays.copyOf(expected, n), Arrays.copyOf(actual, m));
+    }
+
+    /**
+     * Range counts agree, including on a range shorter than a vector.
+     */
+    @Test
+    void testCountInRangeMatchesScalar() {
+        assertEquals(
+                populationKernels.scalar().countInRange(values, 0, ROWS, 0, 1_000_000_000),
+                populationKernels.active().countInRange(values, 0, ROWS, 0, 1_000_000_000));
+        assertEquals(
+                populationKernels.scalar().countInRange(values, 10, 13, 0, Integer.MAX_VALUE),
+                populationKernels.active().countInRange(values, 10, 13, 0, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Engine range queries count and rank matching cities.
+     */
+    @Test
+    void testEngineCitiesWithPopulationBetween() {
+        snapshotEngine.snapshot = SnapshotEngineUnitTest.mockSnapshot();
+        try {
+            assertEquals(2, snapshotEngine.countCitiesWithPopulationBetween(100, 150));
+
+            ArrayList<cityReport> cities = snapshotEngine.getCitiesWithPopulationBetween(100, 1000, 2);
+            assertEquals(2, cities.size());
+            assertEquals("Moscow", cities.get(0).name);
+            assertEquals("Berlin", cities.get(1).name);
+            assertEquals("Germany", cities.get(1).country);
+        } finally {
+            snapshotEngine.snapshot = null;
+        }
+    }
+}
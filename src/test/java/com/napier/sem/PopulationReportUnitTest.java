@@ -39,13 +39,8 @@ public class PopulationReportUnitTest {
     void testOutputPopReportWithData() {
         ArrayList<populationReport> mock = new ArrayList<>();
 
-        populationReport p = new populationReport();
-        p.name = "Europe";
-        p.totalPopulation = 700_000_000L;
-        p.cityPopulation = 450_000_000L;
-        p.cityPercentage = 64.28;
-        p.nonCityPopulation = 250_000_000L;
-        p.nonCityPercentage = 35.72;
+        populationReport p = new populationReport("Europe", 700_000_000L, 450_000_000L, 64.28,
+                250_000_000L, 35.72);
 
         mock.add(p);
 
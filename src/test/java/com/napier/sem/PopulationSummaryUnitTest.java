@@ -38,10 +38,7 @@ public class PopulationSummaryUnitTest {
     void testOutputPopSummaryWithData() {
         ArrayList<populationSummary> mock = new ArrayList<>();
 
-        populationSummary ps = new populationSummary();
-        ps.name = "Europe";
-        ps.population = 710000000L;
-        ps.level = "Continent";
+        populationSummary ps = new populationSummary("Europe", 710000000L, "Continent");
         mock.add(ps);
 
         String fileName = "TestPopSummary.md";
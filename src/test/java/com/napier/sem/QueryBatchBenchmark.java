@@ -0,0 +1,50 @@
+package com.napier.sem;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Round trips and wall time of every database report in {@code populationApp.main},
+ * with and without {@link queryBatch}, over a stand-in connection with a fixed latency per request.
+ * Not run by Surefire; run manually after {@code mvn test-compile}:
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes com.napier.sem.QueryBatchBenchmark [latencyMillis]
+ * </pre>
+ *
+ * Benchmarks:
+ * One request per statement (before) vs one multi-statement request (after)
+ */
+public class QueryBatchBenchmark {
+
+    public static void main(String[] args) {
+        long latency = args.length > 0 ? Long.parseLong(args[0]) : 20;
+        List<Supplier<?>> reports = populationApp.databaseReports();
+        System.out.printf("%d reports, %d ms per request%n", reports.size(), latency);
+        System.out.println("| Mode | Round trips | Wall ms |");
+        System.out.println("| --- | --- | --- |");
+
+        AtomicInteger requests = new AtomicInteger();
+        run("Unbatched", latency, requests, () -> reports.forEach(Supplier::get));
+        run("Batched", latency, requests, () -> {
+            queryBatch.prefetch(reports);
+            reports.forEach(Supplier::get);
+        });
+    }
+
+    static void run(String mode, long latency, AtomicInteger requests, Runnable work) {
+        Connection con = QueryBatchUnitTest.slowConnection(latency, true, requests);
+        populationApp.con = con;
+        resultCache.clear();
+        tableVersions.refresh();
+        requests.set(0);
+        long start = System.nanoTime();
+        work.run();
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("| %s | %d | %d |%n", mode, requests.get(), ms);
+        statementCache.closeAll(con);
+        populationApp.con = null;
+    }
+}
@@ -0,0 +1,238 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for multi-statement query batching.
+ * These do not require a live database; the connection is a stand-in that answers every
+ * SELECT with one row naming its first string parameter, and counts requests.
+ *
+ * Tests:
+ * A batch of DAO calls takes one request and each call gets its own result
+ * A server that rejects multiple statements falls back to one request per statement
+ * Replayed result sets report their columns to callers that read metadata
+ */
+public class QueryBatchUnitTest {
+
+    /**
+     * Column labels read by the DAO classes, with the type each stand-in row holds.
+     */
+    static final String[] STRINGS = {"name", "country_name", "district", "code", "continent", "region",
+            "language", "level", "isofficial"};
+    static final String[] INTS = {"population", "capital", "id"};
+    static final String[] LONGS = {"speakers", "totalPopulation", "cityPopulation", "nonCityPopulation",
+            "WorldPopulation"};
+    static final String[] DOUBLES = {"cityPercentage", "nonCityPercentage"};
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private Connection con;
+
+    @BeforeEach
+    void setUp() {
+        resultCache.clear();
+        scopeRegistry.clear();
+        queryBatch.resetCounters();
+        con = slowConnection(0, true, requests);
+        populationApp.con = con;
+        tableVersions.refresh();
+        requests.set(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        populationApp.con = null;
+        statementCache.closeAll(con);
+        resultCache.clear();
+        queryBatch.resetCounters();
+    }
+
+    /**
+     * A connection whose requests each take {@code latencyMillis}; it answers multi-statement
+     * requests only if {@code multi} is set.
+     */
+    static Connection slowConnection(long latencyMillis, boolean multi, AtomicInteger requests) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("prepareStatement")) return null;
+                    String sql = (String) args[0];
+                    TreeMap<Integer, Object> params = new TreeMap<>();
+                    ArrayList<ResultSet> pending = new ArrayList<>();
+                    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                            new Class<?>[]{PreparedStatement.class}, (p, m, a) -> {
+                                String name = m.getName();
+                                if (name.startsWith("set") && a.length == 2) {
+                                    params.put((Integer) a[0], a[1]);
+                                    return null;
+                                }
+                                switch (name) {
+                                    case "executeQuery":
+                                        requests.incrementAndGet();
+                                        Thread.sleep(latencyMillis);
+                                        return row(new ArrayList<>(params.values()));
+                                    case "execute":
+                                        requests.incrementAndGet();
+                                        Thread.sleep(latencyMillis);
+                                        String[] statements = sql.split(";");
+                                        if (statements.length > 1 && !multi) throw new SQLException("Multiple statements rejected");
+                                        List<Object> values = new ArrayList<>(params.values());
+                                        int from = 0;
+                                        for (String s : statements) {
+                                            int n = (int) s.chars().filter(c -> c == '?').count();
+                                            pending.add(row(values.subList(from, from + n)));
+                                            from += n;
+                                        }
+                                        return true;
+                                    case "getResultSet":
+                                        return pending.get(0);
+                                    case "getMoreResults":
+                                        pending.remove(0);
+                                        return !pending.isEmpty();
+                                    case "getUpdateCount":
+                                        return -1;
+                                    case "isClosed":
+                                        return false;
+                                    default:
+                                        return null;
+                                }
+                            });
+                });
+    }
+
+    /**
+     * One row: string columns hold the first string parameter, or "World" if there is none.
+     */
+    private static ResultSet row(List<Object> params) {
+        String scope = params.stream().filter(v -> v instanceof String).map(v -> (String) v).findFirst().orElse("World");
+        ArrayList<String> labels = new ArrayList<>();
+        ArrayList<Object> values = new ArrayList<>();
+        for (String l : STRINGS) { labels.add(l); values.add(scope); }
+        for (String l : INTS) { labels.add(l); values.add(1000); }
+        for (String l : LONGS) { labels.add(l); values.add(5000L); }
+        for (String l : DOUBLES) { labels.add(l); values.add(20.0); }
+        ResultSetMetaData md = (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, (p, m, a) -> {
+                    if (m.getName().equals("getColumnCount")) return labels.size();
+                    if (m.getName().equals("getColumnLabel")) return labels.get((Integer) a[0] - 1);
+                    return null;
+                });
+        boolean[] read = {false};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (r, m, a) -> {
+                    switch (m.getName()) {
+                        case "next":
+                            if (read[0]) return false;
+                            read[0] = true;
+                            return true;
+                        case "getMetaData": return md;
+                        case "getObject": return values.get((Integer) a[0] - 1);
+                        case "findColumn": return 1;
+                        case "getString": return scope;
+                        case "getInt": return 1000;
+                        case "getLong": return 5000L;
+                        case "getDouble": return 20.0;
+                        case "wasNull": return false;
+                        default: return null;
+                    }
+                });
+    }
+
+    private static List<Supplier<?>> calls() {
+        return List.of(
+                () -> cityReport.getCitiesByRegion("Eastern Asia", 42),
+                () -> cityReport.getCitiesByCountry("China", 42),
+                () -> countryReport.getCountriesByContinent("Africa", 42),
+                () -> populationReport.getPopulationByContinent(),
+                () -> languageReport.getAllLanguageReport());
+    }
+
+    /**
+     * Five DAO calls (seven statements, counting the capital index and the language report's
+     * two queries) take one request; each later call finds its own result in the cache.
+     */
+    @Test
+    void testOneRoundTrip() {
+        assertEquals(7, queryBatch.prefetch(calls()));
+        assertEquals(1, requests.get());
+        assertEquals(1, queryBatch.roundTrips());
+        assertEquals(7, queryBatch.statements());
+        assertEquals(14, queryBatch.roundTripsUnbatched(), "One by one, each statement is prepared and executed");
+
+        ArrayList<cityReport> region = cityReport.getCitiesByRegion("Eastern Asia", 42);
+        ArrayList<cityReport> country = cityReport.getCitiesByCountry("China", 42);
+        ArrayList<countryReport> africa = countryReport.getCountriesByContinent("Africa", 42);
+        ArrayList<populationReport> pops = populationReport.getPopulationByContinent();
+        assertEquals("Eastern Asia", region.get(0).name);
+        assertEquals("China", country.get(0).name);
+        assertEquals("Africa", africa.get(0).continent);
+        assertEquals(5000L, pops.get(0).totalPopulation);
+        assertEquals(1000, region.get(0).population);
+        assertFalse(languageReport.getAllLanguageReport().isEmpty());
+        assertEquals(1, requests.get(), "Every report was answered by the batch");
+        assertEquals(0, queryBatch.prefetch(calls()), "Cached calls record nothing");
+        assertTrue(queryBatch.summary().startsWith("Query batch: 7 statements in 1 round trips (14 without batching)"));
+    }
+
+    /**
+     * Without multi-statement support each statement is sent on its own and results still match.
+     */
+    @Test
+    void testFallback() {
+        statementCache.closeAll(con);
+        con = slowConnection(0, false, requests);
+        populationApp.con = con;
+        tableVersions.refresh();
+        requests.set(0);
+
+        assertEquals(7, queryBatch.prefetch(calls()));
+        assertEquals(8, requests.get(), "One failed batch, then one request per statement");
+        assertEquals(15, queryBatch.roundTrips(), "The fallback also prepares each statement");
+        assertEquals(14, queryBatch.roundTripsUnbatched());
+        assertEquals("Eastern Asia", cityReport.getCitiesByRegion("Eastern Asia", 42).get(0).name);
+        assertEquals("China", cityReport.getCitiesByCountry("China", 42).get(0).name);
+        assertEquals(8, requests.get());
+    }
+
+    /**
+     * A replayed result set reports the labels and count of the buffered columns, so a caller
+     * that reads metadata (here, buffering it again) sees the same result; the record pass
+     * reports no columns.
+     */
+    @Test
+    void testReplayMetaData() throws SQLException {
+        queryBatch.buffered data = new queryBatch.buffered(row(List.of("Asia")));
+        ResultSet replay = queryBatch.rows(data);
+        ResultSetMetaData md = replay.getMetaData();
+        assertEquals(STRINGS.length + INTS.length + LONGS.length + DOUBLES.length, md.getColumnCount());
+        assertEquals("name", md.getColumnLabel(1));
+        assertEquals("cityPercentage", md.getColumnLabel(md.getColumnCount() - 1));
+        assertThrows(SQLException.class, () -> md.getColumnLabel(0));
+
+        queryBatch.buffered again = new queryBatch.buffered(replay);
+        assertArrayEquals(data.labels, again.labels);
+        assertEquals(1, again.rows.size());
+        assertArrayEquals(data.rows.get(0), again.rows.get(0));
+
+        List<queryBatch.statement> recorded = queryBatch.record(() -> {
+            try (PreparedStatement pstmt = statementCache.prepare(con, "SELECT name FROM city")) {
+                assertEquals(0, pstmt.executeQuery().getMetaData().getColumnCount());
+            } catch (SQLException e) {
+                fail(e);
+            }
+            return null;
+        });
+        assertEquals(1, recorded.size());
+    }
+}
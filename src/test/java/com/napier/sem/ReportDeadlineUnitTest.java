@@ -0,0 +1,198 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for per-report query deadlines.
+ * These do not require a live database; the connection is a stand-in whose city queries
+ * return one row and then block until the statement is cancelled, unless {@code block} is off.
+ *
+ * Tests:
+ * A blocked report is cancelled at its deadline, marked as failed and its partial rows not cached
+ * Statements leased after the deadline fail at once; outside a deadline the timeout is cleared
+ * A statement the report has given back is not cancelled while another caller holds it
+ */
+public class ReportDeadlineUnitTest {
+
+    private final ArrayList<Integer> timeouts = new ArrayList<>();
+    private final ArrayList<String> executed = new ArrayList<>();
+    private volatile boolean block = true;
+    private Connection con;
+
+    @BeforeEach
+    void setUp() {
+        resultCache.clear();
+        scopeRegistry.clear();
+        reportDeadline.reset();
+        populationApp.con = null;
+        reportRun.begin(false);
+        con = blockingConnection();
+        populationApp.con = con;
+        tableVersions.refresh();
+        timeouts.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        populationApp.con = null;
+        statementCache.closeAll(con);
+        resultCache.clear();
+        reportDeadline.reset();
+        reportRun.begin(false);
+    }
+
+    private Connection blockingConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("prepareStatement")) return null;
+                    String sql = (String) args[0];
+                    CountDownLatch cancelled = new CountDownLatch(1);
+                    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                            new Class<?>[]{PreparedStatement.class}, (p, m, a) -> {
+                                switch (m.getName()) {
+                                    case "setQueryTimeout":
+                                        timeouts.add((Integer) a[0]);
+                                        return null;
+                                    case "cancel":
+                                        cancelled.countDown();
+                                        return null;
+                                    case "executeQuery":
+                                        executed.add(sql);
+                                        return rows(sql.contains("FROM city") ? 1 : 0, cancelled);
+                                    case "isClosed":
+                                        return false;
+                                    default:
+                                        return null;
+                                }
+                            });
+                });
+    }
+
+    /**
+     * A result set with {@code count} rows, which then blocks until cancelled if {@code block} is set.
+     */
+    private ResultSet rows(int count, CountDownLatch cancelled) {
+        int[] at = {0};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (r, m, a) -> {
+                    switch (m.getName()) {
+                        case "next":
+                            if (at[0]++ < count) return true;
+                            if (count > 0 && block) {
+                                if (!cancelled.await(10, TimeUnit.SECONDS)) fail("The statement was never cancelled");
+                                throw new SQLException("Query execution was interrupted");
+                            }
+                            return false;
+                        case "findColumn": return 1;
+                        case "getString": return "Shanghai";
+                        case "getInt": return 9_696_300;
+                        default: return null;
+                    }
+                });
+    }
+
+    /**
+     * The blocked query is cancelled by the watchdog; the report returns promptly with what it
+     * read, is recorded as failed, and the partial result is not cached.
+     */
+    @Test
+    void testBlockedReportTimesOut() {
+        long start = System.nanoTime();
+        ArrayList<cityReport> cities = reportDeadline.run("CitiesByRegion", 200,
+                () -> cityReport.getCitiesByRegion("Eastern Asia", 42));
+        long ms = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(ms >= 200 && ms < 5_000, "Returned at the deadline, took " + ms + " ms");
+        assertEquals(1, cities.size(), "The rows read before the cancel are returned");
+        assertEquals(List.of(1), timeouts, "The query timeout is the time left, rounded up to seconds");
+        assertEquals(1, reportDeadline.timeouts());
+        assertEquals(1, reportDeadline.cancelled());
+        assertEquals("timed out after 200 ms", reportRun.failures().get("CitiesByRegion"));
+        assertTrue(reportDeadline.summary().contains("1 timed out, 1 statements cancelled"));
+
+        block = false;
+        reportDeadline.run("CitiesByRegion", 5_000, () -> cityReport.getCitiesByRegion("Eastern Asia", 42));
+        assertEquals(2, executed.stream().filter(s -> s.contains("FROM city")).count(),
+                "The partial result was not cached");
+        assertEquals(1, reportDeadline.timeouts(), "A report that finishes in time is not failed");
+        assertNotNull(resultCache.lookup(resultCache.key("cityReport.getCitiesByRegion", "Eastern Asia", 42)),
+                "The complete result was cached");
+    }
+
+    /**
+     * Past the deadline, leasing a statement fails without a request; outside any deadline the
+     * statement's timeout is reset so a cached statement does not keep an old one.
+     */
+    @Test
+    void testLeaseAfterDeadline() throws Exception {
+        int before = executed.size();
+        ArrayList<cityReport> cities = reportDeadline.run("TopCitiesWorld", 50, () -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return cityReport.getTopCitiesInWorld(10);
+        });
+        assertTrue(cities.isEmpty());
+        assertEquals(before, executed.size(), "No query was sent after the deadline");
+        assertTrue(reportRun.failures().containsKey("TopCitiesWorld"));
+        assertEquals(0, reportDeadline.cancelled(), "Nothing was running to cancel");
+
+        timeouts.clear();
+        try (PreparedStatement pstmt = statementCache.prepare(con, "SELECT 1")) {
+            assertNotNull(pstmt);
+        }
+        assertEquals(List.of(0), timeouts);
+    }
+
+    /**
+     * A report closes its lease and the cached statement is leased again by another thread; when
+     * the report's deadline passes, that other caller's query is left alone.
+     */
+    @Test
+    void testReturnedStatementIsNotCancelled() {
+        long hits = statementCache.hits();
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        reportDeadline.run("Returned", 50, () -> {
+            try (PreparedStatement pstmt = statementCache.prepare(con, "SELECT 1")) {
+                assertNotNull(pstmt);
+            } catch (SQLException e) {
+                fail(e);
+            }
+            Thread other = new Thread(() -> {
+                try (PreparedStatement pstmt = statementCache.prepare(con, "SELECT 1")) {
+                    held.countDown();
+                    release.await();
+                } catch (Exception e) {
+                    fail(e);
+                }
+            });
+            other.start();
+            try {
+                assertTrue(held.await(5, TimeUnit.SECONDS));
+                Thread.sleep(150);
+                release.countDown();
+                other.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        assertEquals(hits + 1, statementCache.hits(), "The other thread got the same statement");
+        assertEquals(0, reportDeadline.cancelled(), "Only statements the report still holds are cancelled");
+        assertTrue(reportRun.failures().containsKey("Returned"), "The report itself still timed out");
+    }
+}
@@ -0,0 +1,128 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.io.File;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ad-hoc report language and catalog.
+ * These do not require a live database.
+ *
+ * Tests:
+ * Parsed queries return what the equivalent typed query returns
+ * Equivalent spellings share one compiled query
+ * Syntax and type errors
+ * Catalog parsing and output
+ */
+public class ReportQueryUnitTest {
+
+    @BeforeEach
+    void setUp() {
+        snapshotEngine.snapshot = syntheticWorld.generate(300, 20_000, 5L);
+        reportQuery.clearCache();
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshotEngine.snapshot = null;
+        reportQuery.clearCache();
+    }
+
+    /**
+     * Text queries run the same plan and rows as the builder.
+     */
+    @Test
+    void testParsedMatchesTyped() {
+        snapshotQuery.result parsed = reportQuery.run(
+                "select city, country, population from cities "
+                        + "where continent = 'Asia' and population > 1e3 order by population desc limit 50");
+        snapshotQuery.result typed = snapshotQuery.cities()
+                .where(snapshotColumn.CONTINENT, snapshotQuery.op.EQ, "Asia")
+                .where(snapshotColumn.CITY_POPULATION, snapshotQuery.op.GT, 1_000)
+                .orderBy(snapshotColumn.CITY_POPULATION, true)
+                .select(snapshotColumn.CITY_NAME, snapshotColumn.COUNTRY_NAME, snapshotColumn.CITY_POPULATION)
+                .run();
+
+        assertEquals(snapshotQuery.PLAN_POPULATION_MERGE, parsed.plan);
+        assertArrayEquals(typed.columns, parsed.columns);
+        assertEquals(42, parsed.rows.size(), "Limit is capped at 42");
+        for (int i = 0; i < typed.rows.size(); i++) {
+            assertArrayEquals(typed.rows.get(i), parsed.rows.get(i));
+        }
+
+        snapshotQuery.result countries = reportQuery.run(
+                "countries where region <> 'Asia Region 1' order by life_expectancy asc, name offset 5 limit 3");
+        assertEquals(snapshotQuery.PLAN_SORT, countries.plan);
+        assertEquals(3, countries.rows.size());
+    }
+
+    /**
+     * Case, spacing, number spelling and redundant defaults normalise to one cache entry.
+     */
+    @Test
+    void testNormalisedCache() {
+        snapshotQuery a = reportQuery.compile("cities where population >= 1000000 order by population desc");
+        snapshotQuery b = reportQuery.compile("CITIES  WHERE city_population>=1e6 ORDER BY Population DESC LIMIT 99 OFFSET 0");
+
+        assertSame(a, b);
+        assertEquals(1, reportQuery.cachedQueries());
+        assertEquals("cities where city_population >= 1000000 order by city_population desc limit 42 offset 0",
+                reportQuery.normalize("cities where population >= 1000000 order by population desc"));
+        assertEquals("countries where country_name = 'Cote d''Ivoire' limit 42 offset 0",
+                reportQuery.normalize("countries where name = 'Cote d''Ivoire'"));
+
+        reportQuery.compile("countries order by gnp desc");
+        assertEquals(3, reportQuery.cachedQueries());
+    }
+
+    /**
+     * Invalid text names the problem and yields an empty result from run().
+     */
+    @Test
+    void testErrors() {
+        String[] invalid = {
+                "",
+                "towns",
+                "cities where",
+                "cities where continent = 5",
+                "cities where population > 'many'",
+                "cities where mayor = 'x'",
+                "countries order by district",
+                "cities order population",
+                "cities limit -1",
+                "cities where name = 'unterminated",
+                "cities limit 5 extra",
+                "cities limit 5 limit 6",
+        };
+        for (String text : invalid) {
+            assertThrows(IllegalArgumentException.class, () -> reportQuery.compile(text), text);
+            assertTrue(reportQuery.run(text).rows.isEmpty(), text);
+        }
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> reportQuery.compile("cities where mayor = 'x'"));
+        assertTrue(e.getMessage().contains("position 13"), e.getMessage());
+    }
+
+    /**
+     * Catalog lines parse in order, and every bundled report compiles and writes a file.
+     */
+    @Test
+    void testCatalog() throws Exception {
+        LinkedHashMap<String, String> parsed = reportCatalog.parse(new StringReader(
+                "# comment\n\nA.md: cities limit 1\nbroken line\n B.md : countries order by gnp desc \n"));
+        assertArrayEquals(new String[]{"A.md", "B.md"}, parsed.keySet().toArray());
+        assertEquals("countries order by gnp desc", parsed.get("B.md"));
+
+        LinkedHashMap<String, String> bundled = reportCatalog.load();
+        assertFalse(bundled.isEmpty());
+        for (String text : bundled.values()) assertNotNull(reportQuery.compile(text), text);
+
+        assertEquals(bundled.size(), reportCatalog.runAll());
+        for (String file : bundled.keySet()) {
+            assertTrue(new File("./reports/adhocReports/" + file).exists(), file);
+        }
+    }
+}
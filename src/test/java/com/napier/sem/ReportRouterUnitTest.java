@@ -0,0 +1,217 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the engine/database report router.
+ * These do not require a live database; a stand-in connection is used where one must exist.
+ *
+ * Tests:
+ * Cold start, missing connection and stale snapshot rules
+ * Cost-based choice learns from observed latencies
+ * Scope statistics and latency histogram
+ * A cached database result is costed as a cache hit
+ * Scope names match ignoring case and accents on the engine path, as they do in MySQL
+ */
+public class ReportRouterUnitTest {
+
+    private static final ArrayList<String> FROM_ENGINE = new ArrayList<>(List.of("engine"));
+    private static final ArrayList<String> FROM_DATABASE = new ArrayList<>(List.of("database"));
+
+    @BeforeEach
+    void setUp() {
+        resultCache.clear();
+        reportRouter.reset();
+        snapshotEngine.snapshot = null;
+        populationApp.con = null;
+    }
+
+    @AfterEach
+    void tearDown() {
+        resultCache.clear();
+        reportRouter.reset();
+        snapshotEngine.snapshot = null;
+        populationApp.con = null;
+    }
+
+    /**
+     * A connection whose statements return no rows.
+     */
+    private static Connection standInConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("prepareStatement")) return null;
+                    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                            new Class<?>[]{PreparedStatement.class}, (p, m, a) -> {
+                                if (m.getName().equals("executeQuery")) {
+                                    return Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                                            new Class<?>[]{ResultSet.class}, (r, rm, ra) -> rm.getName().equals("next") ? false : null);
+                                }
+                                return m.getName().equals("isClosed") ? false : null;
+                            });
+                });
+    }
+
+    /**
+     * A DAO-like call: one query, or nothing without a connection.
+     */
+    private static ArrayList<String> database() {
+        if (populationApp.con == null) return FROM_DATABASE;
+        try (PreparedStatement pstmt = statementCache.prepare(populationApp.con, "SELECT name FROM city")) {
+            pstmt.executeQuery();
+        } catch (SQLException e) {
+            fail(e);
+        }
+        return FROM_DATABASE;
+    }
+
+    private static ArrayList<String> route(String scopeType, String scopeName, long maxAgeMillis) {
+        return reportRouter.route("Test", scopeType, scopeName, maxAgeMillis, () -> FROM_ENGINE, ReportRouterUnitTest::database);
+    }
+
+    /**
+     * Freshness and availability rules override cost.
+     */
+    @Test
+    void testRules() {
+        snapshotEngine.snapshot = SnapshotEngineUnitTest.mockSnapshot();
+        populationApp.con = standInConnection();
+        assertSame(FROM_ENGINE, route(scopeRegistry.CONTINENT, "Europe", Long.MAX_VALUE));
+        assertSame(FROM_DATABASE, route(reportRouter.WORLD, null, -1), "A too-old snapshot goes to MySQL");
+
+        populationApp.con = null;
+        assertSame(FROM_ENGINE, route(reportRouter.WORLD, null, -1), "Without a connection any snapshot will do");
+
+        snapshotEngine.snapshot = null;
+        assertSame(FROM_DATABASE, route(reportRouter.WORLD, null, Long.MAX_VALUE), "Cold start goes to MySQL");
+
+        ArrayList<reportRouter.decision> log = reportRouter.decisions();
+        assertEquals(4, log.size());
+        assertEquals("cheaper", log.get(0).reason);
+        assertEquals("Continent: Europe", log.get(0).scope);
+        assertTrue(log.get(1).reason.startsWith("snapshot older than"));
+        assertEquals("no database connection", log.get(2).reason);
+        assertEquals("no snapshot loaded", log.get(3).reason);
+        assertEquals(-1, log.get(3).rows);
+    }
+
+    /**
+     * Once MySQL has been measured faster than a large scan, the router sends big scopes to it.
+     */
+    @Test
+    void testCostLearnsFromLatency() {
+        snapshotEngine.snapshot = syntheticWorld.generate(200, 200_000, 3L);
+        populationApp.con = standInConnection();
+
+        ArrayList<reportRouter.decision> log;
+        // The first engine answer takes 50 ms over 200,000 rows, so the engine costs 250 ns per row;
+        // long enough that a GC pause in the database answer below cannot outweigh it
+        assertSame(FROM_ENGINE, reportRouter.route("Test", reportRouter.WORLD, null, Long.MAX_VALUE, () -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return FROM_ENGINE;
+        }, ReportRouterUnitTest::database), "Default estimates favour memory");
+
+        // A forced database answer that returns immediately records a tiny database latency
+        route(reportRouter.WORLD, null, -1);
+        assertSame(FROM_DATABASE, route(reportRouter.WORLD, null, Long.MAX_VALUE));
+        log = reportRouter.decisions();
+        reportRouter.decision last = log.get(log.size() - 1);
+        assertEquals("cheaper", last.reason);
+        assertTrue(last.engineEstimate > last.databaseEstimate);
+        assertEquals(200_000, last.rows);
+
+        // An unknown scope touches no rows, so memory stays cheaper
+        assertSame(FROM_ENGINE, route(scopeRegistry.REGION, "Atlantis", Long.MAX_VALUE));
+    }
+
+    /**
+     * Scope statistics count cities per scope; histogram quantiles land in the right bucket.
+     */
+    @Test
+    void testStatisticsAndHistogram() {
+        worldSnapshot s = SnapshotEngineUnitTest.mockSnapshot();
+        reportRouter.scopeStats stats = new reportRouter.scopeStats(s);
+        assertEquals(s.cityCount(), stats.rows(reportRouter.WORLD, null));
+        long perContinent = 0;
+        for (String continent : s.continentNames) perContinent += stats.rows(scopeRegistry.CONTINENT, continent);
+        assertEquals(s.cityCount(), perContinent);
+        assertEquals(0, stats.rows(scopeRegistry.DISTRICT, "Nowhere"));
+
+        reportRouter.latencyHistogram h = new reportRouter.latencyHistogram();
+        assertEquals(0, h.percentile(0.5));
+        for (int i = 0; i < 90; i++) h.record(1_000);
+        for (int i = 0; i < 10; i++) h.record(1_000_000);
+        assertEquals(100, h.count());
+        assertEquals(1_023, h.percentile(0.5));
+        assertEquals((1L << 20) - 1, h.percentile(0.99));
+    }
+
+    /**
+     * A result the DAO would answer from {@link resultCache} costs a cache hit, not a query, so
+     * it wins over a large scan; its latency does not count as a database latency.
+     */
+    @Test
+    void testCachedResult() {
+        snapshotEngine.snapshot = syntheticWorld.generate(200, 200_000, 3L);
+        populationApp.con = standInConnection();
+        resultCache.key key = resultCache.key("ReportRouterUnitTest.world");
+        Supplier<ArrayList<String>> cachedDao = () -> {
+            ArrayList<String> cached = resultCache.lookup(resultCache.key("ReportRouterUnitTest.world"));
+            return cached != null ? cached : resultCache.store(resultCache.key("ReportRouterUnitTest.world"), database());
+        };
+
+        resultCache.store(key, new ArrayList<>(FROM_DATABASE), tableVersions.CITY);
+        long hits = resultCache.hits();
+        assertEquals(FROM_DATABASE, reportRouter.route("Test", reportRouter.WORLD, null, Long.MAX_VALUE,
+                () -> FROM_ENGINE, cachedDao));
+        reportRouter.decision first = reportRouter.decisions().get(0);
+        assertTrue(first.cached);
+        assertEquals("cached result", first.reason);
+        assertEquals(reportRouter.DEFAULT_CACHED_NANOS, first.databaseEstimate);
+        assertEquals(hits + 1, resultCache.hits(), "Checking the cache is not counted as a hit");
+        assertEquals(1, reportRouter.cachedLatency.count());
+        assertEquals(0, reportRouter.databaseLatency.count());
+
+        resultCache.clear();
+        assertEquals(FROM_ENGINE, reportRouter.route("Test", reportRouter.WORLD, null, Long.MAX_VALUE,
+                () -> FROM_ENGINE, cachedDao), "Uncached, a query costs more than the scan");
+        reportRouter.decision second = reportRouter.decisions().get(1);
+        assertFalse(second.cached);
+        assertEquals(reportRouter.DEFAULT_DATABASE_NANOS, second.databaseEstimate);
+        assertFalse(queryBatch.record(cachedDao).isEmpty(), "Checking the cache does not fill it");
+    }
+
+    /**
+     * "germany" finds Germany in the snapshot, as it does in MySQL, and accents and trailing
+     * spaces are ignored likewise, so the engine and database answers agree.
+     */
+    @Test
+    void testNamesMatchLikeTheDatabase() {
+        worldSnapshot s = SnapshotEngineUnitTest.mockSnapshot();
+        snapshotEngine.snapshot = s;
+        assertEquals(0, s.countryRow("germany"));
+        assertEquals(0, s.continentId("EUROPE "));
+        assertEquals(0, s.districtId("Bavária"));
+        assertEquals(-1, s.countryRow("Germania"));
+        assertEquals(snapshotEngine.getCitiesByCountry("Germany", 42).size(),
+                snapshotEngine.getCitiesByCountry("germany", 42).size());
+        assertFalse(snapshotEngine.getCitiesByCountry("germany", 42).isEmpty());
+
+        reportRouter.scopeStats stats = new reportRouter.scopeStats(s);
+        assertEquals(stats.rows(scopeRegistry.REGION, "Western Europe"), stats.rows(scopeRegistry.REGION, "western europe"));
+    }
+}
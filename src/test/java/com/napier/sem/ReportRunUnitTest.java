@@ -0,0 +1,197 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the consistent snapshot run mode.
+ * These do not require a live database; the connection is a stand-in that logs every
+ * transaction call and answers {@code CHECKSUM TABLE} with fixed checksums.
+ *
+ * Tests:
+ * A consistent run opens one read-only snapshot, pins the data version and commits at the end
+ * Without a connection, or outside consistent mode, nothing is pinned or scanned
+ * Every file written by a failed report is marked as failed
+ */
+public class ReportRunUnitTest {
+
+    private final ArrayList<String> calls = new ArrayList<>();
+    private long citySum = 1429559884;
+    private Connection con;
+
+    @BeforeEach
+    void setUp() {
+        con = loggingConnection();
+        populationApp.con = con;
+    }
+
+    @AfterEach
+    void tearDown() {
+        reportRun.end();
+        populationApp.con = null;
+        statementCache.closeAll(con);
+    }
+
+    private Connection loggingConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setAutoCommit":
+                        case "setTransactionIsolation":
+                            calls.add(method.getName() + " " + args[0]);
+                            return null;
+                        case "commit":
+                            calls.add("commit");
+                            return null;
+                        case "createStatement":
+                            return Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                                    new Class<?>[]{Statement.class}, (p, m, a) -> {
+                                        if (m.getName().equals("execute")) calls.add((String) a[0]);
+                                        return m.getName().equals("execute") ? false : null;
+                                    });
+                        case "prepareStatement":
+                            String sql = (String) args[0];
+                            return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                                    new Class<?>[]{PreparedStatement.class}, (p, m, a) -> {
+                                        if (m.getName().equals("executeQuery")) {
+                                            calls.add(sql);
+                                            return sql.startsWith("CHECKSUM") ? checksums() : serverTime();
+                                        }
+                                        return m.getName().equals("isClosed") ? false : null;
+                                    });
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private ResultSet checksums() {
+        List<Object[]> rows = List.of(
+                new Object[]{"world.city", citySum},
+                new Object[]{"world.country", 6078749450L},
+                new Object[]{"world.countrylanguage", 2069190L});
+        int[] at = {-1};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (r, m, a) -> {
+                    switch (m.getName()) {
+                        case "next": return ++at[0] < rows.size();
+                        case "getString": return rows.get(at[0])[0];
+                        case "getLong": return rows.get(at[0])[1];
+                        case "wasNull": return false;
+                        default: return null;
+                    }
+                });
+    }
+
+    private ResultSet serverTime() {
+        boolean[] read = {false};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (r, m, a) -> {
+                    switch (m.getName()) {
+                        case "next":
+                            if (read[0]) return false;
+                            read[0] = true;
+                            return true;
+                        case "getString": return "2026-10-19 09:00:00.000000";
+                        default: return null;
+                    }
+                });
+    }
+
+    /**
+     * The snapshot is opened before the fingerprint is read, the version follows the data, and the
+     * manifest lists the mode, version and reports written during the run.
+     */
+    @Test
+    void testConsistentRun() throws Exception {
+        assertTrue(reportRun.begin(true));
+        assertTrue(reportRun.active());
+        assertEquals(List.of("setTransactionIsolation " + Connection.TRANSACTION_REPEATABLE_READ,
+                "setAutoCommit false", reportRun.START,
+                "CHECKSUM TABLE city, country, countrylanguage", "SELECT NOW(6) AS read_at"), calls);
+        String version = reportRun.dataVersion();
+        assertEquals(8, version.length());
+
+        cityReport.outputCityReport(new ArrayList<>(), "RunManifestCity.md");
+        reportRun.end();
+        assertFalse(reportRun.active());
+        assertEquals(List.of("commit", "setAutoCommit true"), calls.subList(5, 7));
+        reportRun.end();
+        assertEquals(7, calls.size(), "A second end does nothing");
+
+        reportRun.outputManifest("RunManifestTest.md");
+        File manifest = new File("./reports/runReports/RunManifestTest.md");
+        String text = Files.readString(manifest.toPath());
+        assertTrue(text.contains("| Data Version | " + version + " |"));
+        assertTrue(text.contains("| city | 1429559884 |"));
+        assertTrue(text.contains("| Server Time At Snapshot | 2026-10-19 09:00:00.000000 |"));
+        assertTrue(text.contains("| cityReports/RunManifestCity.md | Written |"));
+        assertFalse(text.contains("RunManifestTest.md |"), "The manifest does not list itself");
+        manifest.delete();
+        new File("./reports/cityReports/RunManifestCity.md").delete();
+
+        citySum++;
+        assertTrue(reportRun.begin(true));
+        assertNotEquals(version, reportRun.dataVersion(), "Changed data gives another version");
+        reportRun.end();
+
+        calls.clear();
+        assertFalse(reportRun.begin(false));
+        assertNull(reportRun.dataVersion());
+        assertTrue(calls.isEmpty(), "Without consistent mode no table is scanned");
+    }
+
+    /**
+     * Without a connection no transaction is opened and no version is pinned.
+     */
+    @Test
+    void testNoConnection() throws Exception {
+        populationApp.con = null;
+        assertFalse(reportRun.begin(true));
+        assertFalse(reportRun.active());
+        assertNull(reportRun.dataVersion());
+        assertTrue(calls.isEmpty());
+
+        reportRun.outputManifest("RunManifestTest.md");
+        File manifest = new File("./reports/runReports/RunManifestTest.md");
+        String text = Files.readString(manifest.toPath());
+        assertTrue(text.contains("| Mode | Autocommit |"));
+        assertTrue(text.contains("No data version was read for this run."));
+        manifest.delete();
+    }
+
+    /**
+     * A report written to two files fails both of them, not just the one named after it.
+     */
+    @Test
+    void testFailedReportMarksEveryFile() throws Exception {
+        populationApp.con = null;
+        reportRun.begin(false);
+        reportRun.writes("RunManifestLanguages", "RunManifestLanguagesByRegion");
+        reportRun.fail("RunManifestLanguages", "timed out after 200 ms");
+        topLanguageReport.outputTopLanguageReport(new ArrayList<>(), topLanguageReport.CONTINENT, "RunManifestLanguages.md");
+        topLanguageReport.outputTopLanguageReport(new ArrayList<>(), topLanguageReport.REGION, "RunManifestLanguagesByRegion.md");
+        cityReport.outputCityReport(new ArrayList<>(), "RunManifestCity.md");
+
+        reportRun.outputManifest("RunManifestTest.md");
+        File manifest = new File("./reports/runReports/RunManifestTest.md");
+        String text = Files.readString(manifest.toPath());
+        assertTrue(text.contains("| languageReports/RunManifestLanguages.md | Failed |"));
+        assertTrue(text.contains("| languageReports/RunManifestLanguagesByRegion.md | Failed |"));
+        assertTrue(text.contains("| cityReports/RunManifestCity.md | Written |"));
+        manifest.delete();
+        new File("./reports/languageReports/RunManifestLanguages.md").delete();
+        new File("./reports/languageReports/RunManifestLanguagesByRegion.md").delete();
+        new File("./reports/cityReports/RunManifestCity.md").delete();
+    }
+}
@@ -0,0 +1,161 @@
+package com.napier.sem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Eviction benchmark for the result cache: replays a Zipfian mix of city, country and capital
+ * scope requests against {@link tinyLfuCache} and a plain LRU with the same byte budget.
+ * Not run by Surefire; run manually after {@code mvn test-compile}:
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes com.napier.sem.ResultCacheBenchmark [requests]
+ * </pre>
+ *
+ * Benchmarks:
+ * Hit rate and evictions at 256 KiB, 1 MiB and 4 MiB budgets
+ * The same trace with a burst of one-off requests in the middle (a scan)
+ */
+public class ResultCacheBenchmark {
+
+    static final double ZIPF_EXPONENT = 0.9;
+
+    /**
+     * A request key with the estimated bytes of its result.
+     */
+    record request(String key, long bytes) {
+    }
+
+    public static void main(String[] args) {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<request> universe = universe();
+        System.out.printf("Distinct requests: %,d, replayed: %,d, Zipf exponent %.2f%n",
+                universe.size(), requests, ZIPF_EXPONENT);
+
+        request[] trace = trace(universe, requests, 42L);
+        request[] scan = withScan(trace, universe, 43L);
+        for (String name : new String[]{"Zipf", "Zipf + scan"}) {
+            request[] t = name.equals("Zipf") ? trace : scan;
+            System.out.printf("%n%s%n", name);
+            System.out.println("| Budget | LRU hit % | W-TinyLFU hit % | LRU evictions | W-TinyLFU evictions |");
+            System.out.println("| --- | --- | --- | --- | --- |");
+            for (long budget : new long[]{256L << 10, 1L << 20, 4L << 20}) {
+                tinyLfuCache<String, request> tiny = new tinyLfuCache<>(budget);
+                lru lru = new lru(budget);
+                for (request r : t) {
+                    if (tiny.get(r.key) == null) tiny.put(r.key, r, r.bytes);
+                    lru.access(r);
+                }
+                double tinyRate = 100.0 * tiny.hits() / t.length;
+                double lruRate = 100.0 * lru.hits / t.length;
+                System.out.printf("| %d KiB | %.1f | %.1f | %,d | %,d |%n",
+                        budget >> 10, lruRate, tinyRate, lru.evictions, tiny.evictions());
+            }
+        }
+    }
+
+    /**
+     * Every scope request the DAOs can serve over a world-sized set of names, with limits 1..42,
+     * weighed by {@link resultCache#estimateBytes(List)} of representative rows.
+     */
+    static List<request> universe() {
+        cityReport city = new cityReport("Rio de Janeiro", "Brazil", "Rio de Janeiro", 0);
+        countryReport country = new countryReport("BRA", "Brazil", "South America", "South America",
+                0, "Brasília");
+        capitalCityReport capital = new capitalCityReport("Brasília", "Brazil", 0);
+
+        String[][] scopes = {
+                names("Continent", 7), names("Region", 25), names("Country", 239), names("District", 1_300)
+        };
+        ArrayList<request> all = new ArrayList<>();
+        for (int limit = 1; limit <= 42; limit++) {
+            for (int s = 0; s < scopes.length; s++) {
+                for (String scope : scopes[s]) {
+                    all.add(request("cityReport.getCitiesBy" + scope, limit, city));
+                    if (s < 2) {
+                        all.add(request("countryReport.getCountriesBy" + scope, limit, country));
+                        all.add(request("capitalCityReport.getCapitalCitiesBy" + scope, limit, capital));
+                    }
+                }
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Draws {@code n} requests; popularity rank is shuffled so it is unrelated to scope or limit.
+     */
+    static request[] trace(List<request> universe, int n, long seed) {
+        Random random = new Random(seed);
+        ArrayList<request> ranked = new ArrayList<>(universe);
+        Collections.shuffle(ranked, random);
+        double[] cdf = new double[ranked.size()];
+        double sum = 0;
+        for (int i = 0; i < cdf.length; i++) cdf[i] = sum += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+        request[] trace = new request[n];
+        for (int i = 0; i < n; i++) {
+            int rank = java.util.Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            trace[i] = ranked.get(rank < 0 ? -rank - 1 : rank);
+        }
+        return trace;
+    }
+
+    /**
+     * Replaces the middle fifth of a trace with requests for distinct keys, each asked once.
+     */
+    static request[] withScan(request[] trace, List<request> universe, long seed) {
+        request[] scanned = trace.clone();
+        Random random = new Random(seed);
+        for (int i = trace.length * 2 / 5; i < trace.length * 3 / 5; i++) {
+            request r = universe.get(random.nextInt(universe.size()));
+            scanned[i] = new request(r.key + "#" + i, r.bytes);
+        }
+        return scanned;
+    }
+
+    static String[] names(String type, int count) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) names[i] = type + "(" + type.toLowerCase() + " " + i;
+        return names;
+    }
+
+    static request request(String shape, int limit, Object row) {
+        ArrayList<Object> rows = new ArrayList<>(Collections.nCopies(limit, row));
+        return new request(shape + ", " + limit + ")", resultCache.estimateBytes(rows));
+    }
+
+    /**
+     * A byte-bounded LRU, the baseline.
+     */
+    static final class lru {
+        final long budget;
+        final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+        long weight;
+        long hits;
+        long evictions;
+
+        lru(long budget) {
+            this.budget = budget;
+        }
+
+        void access(request r) {
+            if (entries.get(r.key) != null) {
+                hits++;
+                return;
+            }
+            entries.put(r.key, r.bytes);
+            weight += r.bytes;
+            var it = entries.entrySet().iterator();
+            while (weight > budget && it.hasNext()) {
+                Map.Entry<String, Long> eldest = it.next();
+                weight -= eldest.getValue();
+                it.remove();
+                evictions++;
+            }
+        }
+    }
+}
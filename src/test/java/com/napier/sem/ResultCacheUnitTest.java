@@ -0,0 +1,158 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the DAO result cache and table versions.
+ * These do not require a live database.
+ *
+ * Tests:
+ * Hits return copies of the stored result
+ * Expiry by TTL and invalidation by table version
+ * A table change during the query leaves its result stale
+ * Empty results, eviction and counters
+ * Frequency-based admission keeps popular entries through a scan
+ */
+public class ResultCacheUnitTest {
+
+    @BeforeEach
+    void setUp() {
+        resultCache.setMaxBytes(resultCache.DEFAULT_MAX_BYTES);
+        resultCache.clear();
+        resultCache.setTtl(resultCache.DEFAULT_TTL_MILLIS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        resultCache.setMaxBytes(resultCache.DEFAULT_MAX_BYTES);
+        resultCache.clear();
+        resultCache.setTtl(resultCache.DEFAULT_TTL_MILLIS);
+    }
+
+    private static ArrayList<String> rows(String... values) {
+        return new ArrayList<>(List.of(values));
+    }
+
+    /**
+     * Same shape and parameters hit; different parameters miss; callers get their own list.
+     */
+    @Test
+    void testHitReturnsCopy() {
+        resultCache.key key = resultCache.key("cityReport.getTopCitiesByContinent", "Asia", 10);
+        assertNull(resultCache.lookup(key));
+        ArrayList<String> stored = resultCache.store(key, rows("Mumbai", "Seoul"), tableVersions.CITY);
+
+        ArrayList<String> hit = resultCache.lookup(resultCache.key("cityReport.getTopCitiesByContinent", "Asia", 10));
+        assertEquals(stored, hit);
+        assertNotSame(stored, hit);
+        hit.clear();
+        assertEquals(2, resultCache.<String>lookup(key).size(), "Changing a returned list leaves the cache intact");
+
+        assertNull(resultCache.lookup(resultCache.key("cityReport.getTopCitiesByContinent", "Europe", 10)));
+        assertNull(resultCache.lookup(resultCache.key("cityReport.getTopCitiesByContinent", "Asia", 5)));
+    }
+
+    /**
+     * A table change only evicts results that read that table; the TTL evicts everything.
+     */
+    @Test
+    void testInvalidation() {
+        resultCache.key cities = resultCache.key("cityReport.getTopCitiesInWorld", 10);
+        resultCache.key languages = resultCache.key("languageReport.getAllLanguageReport");
+        resultCache.store(cities, rows("Mumbai"), tableVersions.CITY, tableVersions.COUNTRY);
+        resultCache.store(languages, rows("Chinese"), tableVersions.COUNTRYLANGUAGE, tableVersions.COUNTRY);
+
+        tableVersions.bump(tableVersions.COUNTRYLANGUAGE);
+        assertNotNull(resultCache.lookup(cities), "City results survive a countrylanguage change");
+        assertNull(resultCache.lookup(languages));
+
+        resultCache.store(languages, rows("Chinese"), tableVersions.COUNTRYLANGUAGE, tableVersions.COUNTRY);
+        tableVersions.bump(tableVersions.COUNTRY);
+        assertNull(resultCache.lookup(cities));
+        assertNull(resultCache.lookup(languages));
+
+        resultCache.store(cities, rows("Mumbai"), tableVersions.CITY);
+        resultCache.setTtl(0);
+        assertNull(resultCache.lookup(cities), "Expired entries are not served");
+    }
+
+    /**
+     * A result is stamped with the versions read when its lookup started, so a table change that
+     * lands while the query runs is not hidden behind the stored entry.
+     */
+    @Test
+    void testChangeDuringQuery() {
+        resultCache.key key = resultCache.key("cityReport.getTopCitiesInWorld", 10);
+        assertNull(resultCache.lookup(key));
+        tableVersions.bump(tableVersions.CITY);
+        resultCache.store(key, rows("Mumbai"), tableVersions.CITY, tableVersions.COUNTRY);
+        assertNull(resultCache.lookup(key), "The result predates the change");
+
+        resultCache.store(key, rows("Mumbai"), tableVersions.CITY, tableVersions.COUNTRY);
+        assertNotNull(resultCache.lookup(key), "A query started after the change is cached");
+    }
+
+    /**
+     * Empty results are not cached; a popular entry outlives a burst of one-off entries; the
+     * budget holds; counters add up.
+     */
+    @Test
+    void testEmptyEvictionAndCounters() {
+        resultCache.key empty = resultCache.key("countryReport.getCountriesByRegion", "Nowhere", 42);
+        resultCache.store(empty, new ArrayList<String>(), tableVersions.COUNTRY);
+        assertNull(resultCache.lookup(empty));
+
+        resultCache.setMaxBytes(64 << 10);
+        resultCache.key hot = resultCache.key("q", -1);
+        assertNull(resultCache.lookup(hot));
+        resultCache.store(hot, rows("hot"), tableVersions.CITY);
+        assertNotNull(resultCache.lookup(hot));
+        assertNotNull(resultCache.lookup(hot));
+        for (int i = 0; i < 2_000; i++) {
+            resultCache.store(resultCache.key("q", i), rows("" + i), tableVersions.CITY);
+        }
+        assertNotNull(resultCache.lookup(hot), "A frequently requested result survives the scan");
+        assertNotNull(resultCache.lookup(resultCache.key("q", 1_999)), "The newest result sits in the window");
+        assertTrue(resultCache.weightedSize() <= 64 << 10);
+        assertTrue(resultCache.evictions() > 0);
+
+        assertEquals(4, resultCache.hits());
+        assertEquals(2, resultCache.misses());
+        assertEquals(4 / 6.0, resultCache.hitRate(), 1e-9);
+        assertTrue(resultCache.savedNanos() >= 0);
+        assertTrue(resultCache.summary().startsWith("Result cache: 4 hits, 2 misses (66.7% hit rate)"));
+    }
+
+    /**
+     * Wider rows weigh more; an entry larger than the budget is not stored; promoted entries
+     * are kept over entries that were never requested again.
+     */
+    @Test
+    void testWeightsAndAdmission() {
+        cityReport city = new cityReport("Shanghai", "China", "Shanghai", 0);
+        capitalCityReport capital = new capitalCityReport("Peking", null, 0);
+        assertTrue(resultCache.rowBytes(city) > resultCache.rowBytes(capital));
+        ArrayList<cityReport> cities = new ArrayList<>(List.of(city, city, city));
+        assertEquals(resultCache.estimateBytes(new ArrayList<>()) + 3 * resultCache.rowBytes(city),
+                resultCache.estimateBytes(cities), 16);
+
+        tinyLfuCache<String, String> cache = new tinyLfuCache<>(1_000);
+        assertFalse(cache.put("huge", "x", 1_001));
+        assertEquals(1, cache.rejected());
+        assertEquals(0, cache.size());
+
+        for (int i = 0; i < 8; i++) cache.put("popular" + i, "p", 100);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 8; i++) assertNotNull(cache.get("popular" + i));
+        }
+        for (int i = 0; i < 100; i++) cache.put("scan" + i, "s", 100);
+        for (int i = 0; i < 8; i++) assertNotNull(cache.get("popular" + i), "popular" + i + " was evicted");
+        assertTrue(cache.weightedSize() <= 1_000);
+        assertEquals(98, cache.evictions());
+        assertEquals(9_800, cache.evictedBytes());
+    }
+}
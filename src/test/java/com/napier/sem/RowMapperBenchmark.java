@@ -0,0 +1,90 @@
+package com.napier.sem;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Rows per second mapped into {@link cityReport} by column label (the DAO loops before) and by
+ * the generated {@code cityReportMapper}, over an in-memory result set from {@link queryBatch}
+ * whose label lookup, like the driver's, is case-insensitive.
+ * Not run by Surefire; run manually after {@code mvn test-compile}:
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes com.napier.sem.RowMapperBenchmark [rows] [rounds]
+ * </pre>
+ *
+ * Benchmarks:
+ * Four label lookups per row (before) vs four index reads per row (after)
+ */
+public class RowMapperBenchmark {
+
+    private static final String[] LABELS = {"name", "country_name", "district", "population"};
+
+    public static void main(String[] args) throws SQLException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        queryBatch.buffered data = new queryBatch.buffered(source(rows));
+        System.out.printf("%d rows, %d rounds after %d warm-up rounds%n", rows, rounds, rounds);
+        System.out.println("| Mapper | Rows/sec | Checksum |");
+        System.out.println("| --- | --- | --- |");
+
+        for (int pass = 0; pass < 2; pass++) {
+            boolean print = pass == 1;
+            run("By label", data, rounds, print, false);
+            run("Generated", data, rounds, print, true);
+        }
+    }
+
+    static void run(String mode, queryBatch.buffered data, int rounds, boolean print, boolean generated)
+            throws SQLException {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            ResultSet rset = queryBatch.rows(data);
+            if (generated) {
+                cityReportMapper mapper = new cityReportMapper(rset);
+                while (rset.next()) checksum += mapper.map(rset).population;
+            } else {
+                while (rset.next()) {
+                    cityReport c = new cityReport(rset.getString("name"), rset.getString("country_name"),
+                            rset.getString("district"), rset.getInt("population"));
+                    checksum += c.population;
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (print) System.out.printf("| %s | %,.0f | %d |%n", mode, data.rows.size() * (double) rounds / seconds, checksum);
+    }
+
+    /**
+     * A result set of synthetic city rows to buffer.
+     */
+    static ResultSet source(int rows) {
+        ResultSetMetaData md = (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, (p, m, a) -> {
+                    switch (m.getName()) {
+                        case "getColumnCount": return LABELS.length;
+                        case "getColumnLabel": return LABELS[(Integer) a[0] - 1];
+                        default: return null;
+                    }
+                });
+        int[] at = {-1};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (p, m, a) -> {
+                    switch (m.getName()) {
+                        case "next": return ++at[0] < rows;
+                        case "getMetaData": return md;
+                        case "getObject":
+                            switch ((Integer) a[0]) {
+                                case 1: return "City " + at[0];
+                                case 2: return "Country " + at[0] % 239;
+                                case 3: return "District " + at[0] % 1_367;
+                                default: return rows - at[0];
+                            }
+                        default: return null;
+                    }
+                });
+    }
+}
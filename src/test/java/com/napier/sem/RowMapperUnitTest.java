@@ -0,0 +1,114 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the row mappers generated by {@link rowMapperProcessor}.
+ * These do not require a live database; each result set is a stand-in over fixed rows which
+ * counts label lookups and fails if a getter is called with a label.
+ *
+ * Tests:
+ * Column labels are resolved once per result set, and every cell is read by index
+ * Each report row type gets a mapper for its annotated fields, and a missing column fails fast
+ */
+public class RowMapperUnitTest {
+
+    private int lookups = 0;
+
+    private ResultSet result(List<String> labels, Object[]... rows) {
+        int[] at = {-1};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (r, m, a) -> {
+                    String name = m.getName();
+                    if (name.equals("next")) return ++at[0] < rows.length;
+                    if (name.equals("findColumn")) {
+                        lookups++;
+                        int i = labels.indexOf(((String) a[0]).toLowerCase(Locale.ROOT));
+                        if (i < 0) throw new SQLException("Column '" + a[0] + "' not found");
+                        return i + 1;
+                    }
+                    if (!name.startsWith("get")) return null;
+                    if (!(a[0] instanceof Integer)) fail(name + " was called with label " + a[0]);
+                    Object value = rows[at[0]][(Integer) a[0] - 1];
+                    Class<?> type = m.getReturnType();
+                    if (type == int.class) return ((Number) value).intValue();
+                    if (type == long.class) return ((Number) value).longValue();
+                    if (type == double.class) return ((Number) value).doubleValue();
+                    return value;
+                });
+    }
+
+    /**
+     * Three city rows take four lookups, one per column, and are read by index in SELECT order.
+     */
+    @Test
+    void testLabelsResolvedOnce() throws SQLException {
+        ResultSet rset = result(List.of("name", "country_name", "district", "population"),
+                new Object[]{"Mumbai (Bombay)", "India", "Maharashtra", 10_500_000},
+                new Object[]{"Seoul", "South Korea", "Seoul", 9_981_619},
+                new Object[]{"São Paulo", "Brazil", "São Paulo", 9_968_485});
+        cityReportMapper mapper = new cityReportMapper(rset);
+        ArrayList<cityReport> cities = new ArrayList<>();
+        while (rset.next()) cities.add(mapper.map(rset));
+
+        assertEquals(4, lookups);
+        assertEquals(3, cities.size());
+        cityReport seoul = cities.get(1);
+        assertEquals("Seoul", seoul.name);
+        assertEquals("South Korea", seoul.country);
+        assertEquals("Seoul", seoul.district);
+        assertEquals(9_981_619, seoul.population);
+    }
+
+    /**
+     * Every row type maps its annotated fields by the labels its DAO selects; fields computed by
+     * the DAO are passed to {@code map}, and a SELECT without a mapped column fails before any row is read.
+     */
+    @Test
+    void testEveryRowType() throws SQLException {
+        ResultSet countries = result(List.of("code", "name", "continent", "region", "population", "capital"),
+                new Object[]{"CHN", "China", "Asia", "Eastern Asia", 1_277_558_000, 1891});
+        countries.next();
+        countryReport china = new countryReportMapper(countries).map(countries, "Peking");
+        assertEquals("CHN", china.code);
+        assertEquals("Eastern Asia", china.region);
+        assertEquals(1_277_558_000, china.population);
+        assertEquals("Peking", china.capital, "The capital is resolved by the DAO and passed in");
+
+        ResultSet capitals = result(List.of("name", "country_name", "population"),
+                new Object[]{"Seoul", "South Korea", 9_981_619});
+        capitals.next();
+        assertEquals("South Korea", new capitalCityReportMapper(capitals).map(capitals).country);
+
+        ResultSet populations = result(List.of("name", "totalpopulation", "citypopulation", "citypercentage",
+                        "noncitypopulation", "noncitypercentage"),
+                new Object[]{"Asia", 3_705_025_700L, 697_604_103L, 18.83, 3_007_421_597L, 81.17});
+        populations.next();
+        populationReport asia = new populationReportMapper(populations).map(populations);
+        assertEquals(3_705_025_700L, asia.totalPopulation);
+        assertEquals(81.17, asia.nonCityPercentage);
+
+        ResultSet summary = result(List.of("name", "population", "level"),
+                new Object[]{"World", 6_078_749_450L, "World"});
+        summary.next();
+        assertEquals(6_078_749_450L, new populationSummaryMapper(summary).map(summary).population);
+
+        ResultSet languages = result(List.of("language", "speakers"), new Object[]{"Chinese", 1_191_843_539L});
+        languages.next();
+        languageReport chinese = new languageReportMapper(languages).map(languages, 19.61);
+        assertEquals("Chinese", chinese.language, "Labels match case-insensitively, like the driver's");
+        assertEquals(1_191_843_539L, chinese.speakers);
+        assertEquals(19.61, chinese.percentage, "The percentage is computed by the DAO and passed in");
+
+        ResultSet missing = result(List.of("name", "population"), new Object[]{"Seoul", 9_981_619});
+        assertThrows(SQLException.class, () -> new cityReportMapper(missing));
+    }
+}
@@ -0,0 +1,248 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for streaming report rows with backpressure.
+ * These do not require a live database; the connection is a stand-in whose queries return
+ * {@code rowCount} city rows and which logs fetch sizes, rows read and closes.
+ *
+ * Tests:
+ * Rows are read only as they are requested, and cancelling closes the cursor early
+ * A DAO query streams with the DAO's own SQL and parameters, and fetch sizes start small and stay capped
+ * Capital cities stream from a ranked join, not the DAO's list
+ * Reports built in Java are published from the DAO's list; bad requests fail the subscription
+ */
+public class RowPublisherUnitTest {
+
+    private final ArrayList<String> log = new ArrayList<>();
+    private final ArrayList<Integer> fetchSizes = new ArrayList<>();
+    private int rowCount = 10_000;
+    private int rowsRead = 0;
+    private Connection con;
+
+    @BeforeEach
+    void setUp() {
+        resultCache.clear();
+        scopeRegistry.clear();
+        rowPublisher.resetCounters();
+        adaptiveFetch.clear();
+        con = cityConnection();
+        populationApp.con = con;
+        tableVersions.refresh();
+        log.clear();
+        fetchSizes.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        populationApp.con = null;
+        statementCache.closeAll(con);
+        resultCache.clear();
+        rowPublisher.resetCounters();
+        adaptiveFetch.clear();
+    }
+
+    private Connection cityConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("prepareStatement")) return null;
+                    String sql = (String) args[0];
+                    boolean cities = sql.contains("FROM city");
+                    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                            new Class<?>[]{PreparedStatement.class}, (p, m, a) -> {
+                                switch (m.getName()) {
+                                    case "setFetchSize":
+                                        synchronized (log) { fetchSizes.add((Integer) a[0]); }
+                                        return null;
+                                    case "setObject":
+                                        synchronized (log) { log.add("param " + a[1]); }
+                                        return null;
+                                    case "executeQuery":
+                                        synchronized (log) { log.add("query " + sql.strip().split("\\s+")[1]); }
+                                        return rows(cities ? rowCount : 0);
+                                    case "close":
+                                        synchronized (log) { log.add("close statement"); }
+                                        return null;
+                                    case "isClosed":
+                                        return false;
+                                    default:
+                                        return null;
+                                }
+                            });
+                });
+    }
+
+    private ResultSet rows(int count) {
+        int[] at = {0};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (r, m, a) -> {
+                    switch (m.getName()) {
+                        case "next":
+                            if (at[0] >= count) return false;
+                            at[0]++;
+                            synchronized (log) { rowsRead++; }
+                            return true;
+                        case "setFetchSize":
+                            synchronized (log) { fetchSizes.add((Integer) a[0]); }
+                            return null;
+                        case "findColumn": return 1;
+                        case "getString": return "City " + at[0];
+                        case "getInt": return count - at[0];
+                        case "close":
+                            synchronized (log) { log.add("close cursor"); }
+                            return null;
+                        default: return null;
+                    }
+                });
+    }
+
+    /**
+     * Collects signals; {@code take()} waits for the next one.
+     */
+    static final class collector<T> implements Flow.Subscriber<T> {
+        final LinkedBlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+        Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            subscription = s;
+        }
+
+        @Override
+        public void onNext(T item) {
+            signals.add(item);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            signals.add(t);
+        }
+
+        @Override
+        public void onComplete() {
+            signals.add("complete");
+        }
+
+        Object take() throws InterruptedException {
+            Object signal = signals.poll(10, TimeUnit.SECONDS);
+            assertNotNull(signal, "No signal within 10 s");
+            return signal;
+        }
+    }
+
+    /**
+     * Three rows requested means three rows read, with a fetch size of three; cancelling
+     * closes the cursor with thousands of rows unread.
+     */
+    @Test
+    void testDemandAndCancel() throws Exception {
+        collector<cityReport> c = new collector<>();
+        reportStreams.getAllCities().subscribe(c);
+        Thread.sleep(50);
+        assertTrue(log.isEmpty(), "Nothing is queried before the first request");
+
+        c.subscription.request(3);
+        assertEquals("City 1", ((cityReport) c.take()).name);
+        assertInstanceOf(cityReport.class, c.take());
+        assertInstanceOf(cityReport.class, c.take());
+        Thread.sleep(50);
+        assertNull(c.signals.poll(), "No row beyond the demand");
+        synchronized (log) {
+            assertEquals(3, rowsRead);
+            assertEquals(3, (int) fetchSizes.get(0));
+        }
+
+        c.subscription.request(2);
+        c.take();
+        c.take();
+        c.subscription.cancel();
+        Thread.sleep(100);
+        synchronized (log) {
+            assertEquals(5, rowsRead);
+            assertTrue(log.contains("close cursor"), "Cancelling closed the cursor");
+            assertTrue(log.contains("close statement"));
+        }
+        assertNull(c.signals.poll(), "No signal after cancel");
+        assertEquals(5, rowPublisher.published());
+        assertEquals(1, rowPublisher.cancelled());
+    }
+
+    /**
+     * A DAO query is streamed with the SELECT and parameter the DAO would send; an unbounded
+     * request starts at {@link adaptiveFetch#INITIAL_ROWS} rows per fetch, then follows the
+     * estimate, never above {@link rowPublisher#MAX_FETCH_ROWS}.
+     */
+    @Test
+    void testDaoQueryStreams() throws Exception {
+        rowCount = 42;
+        collector<cityReport> c = new collector<>();
+        reportStreams.getCitiesByRegion("Eastern Asia", 42).subscribe(c);
+        c.subscription.request(Long.MAX_VALUE);
+        cityReport first = (cityReport) c.take();
+        assertEquals("City 1", first.name);
+        assertEquals(41, first.population);
+        for (int i = 1; i < 42; i++) assertInstanceOf(cityReport.class, c.take());
+        assertEquals("complete", c.take());
+        synchronized (log) {
+            assertEquals(List.of("param Eastern Asia", "query city.name,", "close cursor", "close statement"), log);
+            assertEquals(adaptiveFetch.INITIAL_ROWS, (int) fetchSizes.get(0));
+            for (int size : fetchSizes) assertTrue(size >= 1 && size <= rowPublisher.MAX_FETCH_ROWS, "Fetch size " + size);
+        }
+        assertNull(resultCache.lookup(resultCache.key("cityReport.getCitiesByRegion", "Eastern Asia", 42)),
+                "Streamed rows bypass the result cache");
+    }
+
+    /**
+     * Capital cities are read from a cursor as requested, with the capped limit bound to the
+     * query, rather than ranked in full by the DAO first.
+     */
+    @Test
+    void testCapitalsStream() throws Exception {
+        collector<capitalCityReport> c = new collector<>();
+        reportStreams.getCapitalCitiesByContinent("Asia", 100).subscribe(c);
+        c.subscription.request(2);
+        assertEquals("City 1", ((capitalCityReport) c.take()).name);
+        assertInstanceOf(capitalCityReport.class, c.take());
+        Thread.sleep(50);
+        c.subscription.cancel();
+        Thread.sleep(100);
+        synchronized (log) {
+            assertEquals(2, rowsRead, "Only the requested capitals are read");
+            assertEquals(List.of("param Asia", "param 42", "query city.name,", "close cursor", "close statement"), log);
+        }
+    }
+
+    /**
+     * Language percentages are computed in Java, so they are published from the DAO's list;
+     * without a connection that list is empty. A request of zero fails the subscription.
+     */
+    @Test
+    void testListAndBadRequest() throws Exception {
+        populationApp.con = null;
+        collector<languageReport> languages = new collector<>();
+        reportStreams.getAllLanguageReport().subscribe(languages);
+        languages.subscription.request(10);
+        assertEquals("complete", languages.take());
+
+        populationApp.con = con;
+        collector<cityReport> c = new collector<>();
+        reportStreams.getAllCities().subscribe(c);
+        c.subscription.request(0);
+        assertInstanceOf(IllegalArgumentException.class, c.take());
+        synchronized (log) {
+            assertEquals(0, rowsRead, "A failed subscription reads nothing");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the scope-name registry.
+ * These do not require a live database.
+ *
+ * Tests:
+ * Unloaded registry allows every name
+ * Unknown names are rejected and counted
+ * Collation-insensitive matching
+ * The set has no false negatives and no false positives
+ */
+public class ScopeRegistryUnitTest {
+
+    @BeforeEach
+    void setUp() {
+        scopeRegistry.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scopeRegistry.clear();
+    }
+
+    /**
+     * Without a load, DAO methods behave exactly as before.
+     */
+    @Test
+    void testUnloadedAllowsEverything() {
+        long before = scopeRegistry.avoidedQueries();
+        assertTrue(scopeRegistry.mayExist(scopeRegistry.DISTRICT, "Atlantis"));
+        assertEquals(before, scopeRegistry.avoidedQueries(), "Nothing is avoided before loading");
+    }
+
+    /**
+     * Unknown and null names are rejected, and each rejection is counted.
+     */
+    @Test
+    void testUnknownNamesAreCounted() {
+        scopeRegistry.install(scopeRegistry.CONTINENT, List.of("Asia", "Europe"));
+        long before = scopeRegistry.avoidedQueries();
+
+        assertTrue(scopeRegistry.mayExist(scopeRegistry.CONTINENT, "Europe"));
+        assertFalse(scopeRegistry.mayExist(scopeRegistry.CONTINENT, "Atlantis"));
+        assertFalse(scopeRegistry.mayExist(scopeRegistry.CONTINENT, null));
+        assertTrue(scopeRegistry.mayExist(scopeRegistry.REGION, "Atlantis"), "Types without names are not checked");
+
+        assertEquals(before + 2, scopeRegistry.avoidedQueries());
+    }
+
+    /**
+     * Names differing only in case, accents or trailing spaces still match, as they would in MySQL.
+     */
+    @Test
+    void testCollationInsensitiveMatch() {
+        scopeRegistry.install(scopeRegistry.DISTRICT, List.of("São Paulo", "Bavaria"));
+
+        assertTrue(scopeRegistry.mayExist(scopeRegistry.DISTRICT, "sao paulo"));
+        assertTrue(scopeRegistry.mayExist(scopeRegistry.DISTRICT, "BAVARIA  "));
+        assertFalse(scopeRegistry.mayExist(scopeRegistry.DISTRICT, " Bavaria"));
+    }
+
+    /**
+     * Every installed name is found, and no unknown name is let through to the database.
+     */
+    @Test
+    void testExactSet() {
+        ArrayList<String> names = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) names.add("District " + i);
+        scopeRegistry.install(scopeRegistry.DISTRICT, names);
+        long before = scopeRegistry.avoidedQueries();
+
+        for (String name : names) assertTrue(scopeRegistry.mayExist(scopeRegistry.DISTRICT, name), name);
+        for (int i = 0; i < 10_000; i++) {
+            assertFalse(scopeRegistry.mayExist(scopeRegistry.DISTRICT, "Unknown " + i));
+        }
+        assertEquals(before + 10_000, scopeRegistry.avoidedQueries());
+        assertEquals("district 1", scopeRegistry.key("District 1  "), "ASCII names skip decomposition");
+        assertEquals("bavaria", scopeRegistry.key("Bavária"));
+    }
+}
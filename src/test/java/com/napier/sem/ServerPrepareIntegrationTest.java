@@ -0,0 +1,167 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import com.mysql.cj.jdbc.ServerPreparedStatement;
+import com.mysql.cj.jdbc.result.ResultSetImpl;
+import com.mysql.cj.protocol.a.result.ResultsetRowsCursor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for how the driver prepares report statements and fetches their rows on
+ * the application's connection URL.
+ * These tests require a running MySQL
+ */
+public class ServerPrepareIntegrationTest {
+
+    static Connection con;
+
+    @BeforeAll
+    static void init() {
+        try {
+            Class.forName("com.mysql.cj.jdbc.Driver");
+
+            // Same driver options as the application
+            con = DriverManager.getConnection(populationApp.url("localhost:3306"), "root", "example");
+        }
+        catch (Exception e) {
+            fail("Could not connect to database: " + e.getMessage());
+        }
+    }
+
+    @AfterAll
+    static void close() throws Exception {
+        populationApp.con = null;
+        statementCache.closeAll(con);
+        con.close();
+    }
+
+    /**
+     * Every statement a database-only run leases from the statement cache is server-prepared,
+     * despite {@code allowMultiQueries=true} on the URL.
+     */
+    @Test
+    void testReportStatementsAreServerPrepared() throws Exception {
+        ArrayList<String> clientPrepared = new ArrayList<>();
+        ArrayList<String> prepared = new ArrayList<>();
+        populationApp.con = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    try {
+                        Object result = method.invoke(con, args);
+                        if (result instanceof PreparedStatement) {
+                            prepared.add((String) args[0]);
+                            if (!((PreparedStatement) result).isWrapperFor(ServerPreparedStatement.class)) {
+                                clientPrepared.add((String) args[0]);
+                            }
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        resultCache.clear();
+        for (Supplier<?> call : populationApp.databaseReports()) call.get();
+
+        assertFalse(prepared.isEmpty());
+        assertEquals(new ArrayList<String>(), clientPrepared, "Client-prepared statements");
+
+        try (PreparedStatement leased = statementCache.prepare(populationApp.con, "SELECT name FROM city WHERE id = ?")) {
+            assertTrue(leased.isWrapperFor(ServerPreparedStatement.class), "The lease wraps a server-prepared statement");
+        }
+        statementCache.closeAll(populationApp.con);
+        resultCache.clear();
+    }
+
+    /**
+     * A connection whose statements record, for each query, whether its rows came through a
+     * server-side cursor rather than one fully buffered result.
+     */
+    private static Connection cursorRecording(ArrayList<String> cursors, ArrayList<String> buffered) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    try {
+                        Object result = method.invoke(con, args);
+                        if (!(result instanceof PreparedStatement)) return result;
+                        PreparedStatement stmt = (PreparedStatement) result;
+                        String sql = (String) args[0];
+                        return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                                new Class<?>[]{PreparedStatement.class}, (p, m, a) -> {
+                                    try {
+                                        Object r = m.invoke(stmt, a);
+                                        if (r instanceof ResultSet) {
+                                            boolean cursor = ((ResultSet) r).unwrap(ResultSetImpl.class).getRows()
+                                                    instanceof ResultsetRowsCursor;
+                                            (cursor ? cursors : buffered).add(sql);
+                                        }
+                                        return r;
+                                    } catch (InvocationTargetException e) {
+                                        throw e.getCause();
+                                    }
+                                });
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * The population summary (thousands of district and city rows) and a streamed city list
+     * are read through server-side cursors, so their results are never buffered whole.
+     */
+    @Test
+    void testLargeResultsUseServerCursor() throws Exception {
+        ArrayList<String> cursors = new ArrayList<>();
+        ArrayList<String> buffered = new ArrayList<>();
+        populationApp.con = cursorRecording(cursors, buffered);
+        resultCache.clear();
+
+        ArrayList<populationSummary> summary = populationSummary.getAllPopulationSummary();
+        assertTrue(summary.size() > 5_000, "Read " + summary.size() + " summary rows");
+        assertEquals(1, cursors.size(), "Buffered: " + buffered);
+        assertTrue(cursors.get(0).contains("'District' AS level"));
+
+        CountDownLatch received = new CountDownLatch(10);
+        reportStreams.getAllCities().subscribe(new Flow.Subscriber<cityReport>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription = s;
+                s.request(10);
+            }
+
+            @Override
+            public void onNext(cityReport item) {
+                received.countDown();
+                if (received.getCount() == 0) subscription.cancel();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                fail(t);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        assertTrue(received.await(30, TimeUnit.SECONDS));
+        assertEquals(2, cursors.size(), "The stream opened a cursor; buffered: " + buffered);
+
+        statementCache.closeAll(populationApp.con);
+        resultCache.clear();
+    }
+}
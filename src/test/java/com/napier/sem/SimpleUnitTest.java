@@ -42,13 +42,8 @@ public class SimpleUnitTest {
     @Test
     void testOutputCountryReportWithMockData() {
         ArrayList<countryReport> mockCountries = new ArrayList<>();
-        countryReport c = new countryReport();
-        c.code = "GBR";
-        c.name = "United Kingdom";
-        c.continent = "Europe";
-        c.region = "British Isles";
-        c.population = 67000000;
-        c.capital = "London";
+        countryReport c = new countryReport("GBR", "United Kingdom", "Europe", "British Isles",
+                67000000, "London");
         mockCountries.add(c);
 
         countryReport.outputCountryReport(mockCountries, "TestCountryReport.md");
@@ -0,0 +1,196 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for single-flight request coalescing.
+ * These do not require a live database; the connection is a stand-in that counts and
+ * slows down region queries.
+ *
+ * Tests:
+ * A stampede of identical DAO calls runs one query
+ * Followers of a failed leader run the work themselves
+ * Rows of a query that fails part way are returned but never cached or shared
+ */
+public class SingleFlightUnitTest {
+
+    private static final int CALLERS = 10;
+
+    private final AtomicInteger regionQueries = new AtomicInteger();
+
+    private volatile boolean failMidRead = false;
+
+    private Connection con;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        resultCache.clear();
+        scopeRegistry.clear();
+        con = fakeConnection();
+        populationApp.con = con;
+    }
+
+    @AfterEach
+    void tearDown() {
+        populationApp.con = null;
+        statementCache.closeAll(con);
+        diskCache.close();
+        resultCache.clear();
+    }
+
+    /**
+     * A connection whose region query takes 200 ms and returns one city; other queries return no rows.
+     * With {@link #failMidRead} set, the region cursor throws after its first row.
+     */
+    private Connection fakeConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("prepareStatement")) return null;
+                    boolean region = ((String) args[0]).contains("country.region");
+                    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                            new Class<?>[]{PreparedStatement.class}, (p, m, a) -> {
+                                if (!m.getName().equals("executeQuery")) return m.getName().equals("isClosed") ? false : null;
+                                if (region) {
+                                    regionQueries.incrementAndGet();
+                                    Thread.sleep(200);
+                                }
+                                boolean[] read = {!region};
+                                return Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                                        new Class<?>[]{ResultSet.class}, (r, rm, ra) -> {
+                                            switch (rm.getName()) {
+                                                case "next":
+                                                    if (read[0] && region && failMidRead) {
+                                                        throw new SQLException("Lost connection to MySQL server during query");
+                                                    }
+                                                    if (read[0]) return false;
+                                                    read[0] = true;
+                                                    return true;
+                                                case "findColumn": return 1;
+                                                case "getString": return "Shanghai";
+                                                case "getInt": return 9696300;
+                                                default: return null;
+                                            }
+                                        });
+                            });
+                });
+    }
+
+    /**
+     * Ten simultaneous callers for the same region share one database query.
+     */
+    @Test
+    void testStampedeRunsOneQuery() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ArrayList<cityReport>>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return cityReport.getCitiesByRegion("Eastern Asia", 42);
+                }));
+            }
+            start.countDown();
+
+            ArrayList<cityReport> first = results.get(0).get(10, TimeUnit.SECONDS);
+            assertEquals(1, first.size());
+            assertEquals("Shanghai", first.get(0).name);
+            for (Future<ArrayList<cityReport>> f : results) {
+                ArrayList<cityReport> cities = f.get(10, TimeUnit.SECONDS);
+                assertEquals(first, cities);
+                assertEquals(9696300, cities.get(0).population);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, regionQueries.get(), "The database sees exactly one query");
+        assertEquals(CALLERS - 1, resultCache.hits() + resultCache.coalesced());
+        assertEquals(1, resultCache.misses());
+
+        cityReport.getCitiesByRegion("Southeast Asia", 42);
+        assertEquals(2, regionQueries.get(), "A different region is not coalesced");
+    }
+
+    /**
+     * When the leader throws, waiting callers run the work instead of sharing the failure.
+     */
+    @Test
+    void testFailedLeader() throws Exception {
+        singleFlight<String, String> flights = new singleFlight<>();
+        singleFlight.flight<String> leader = flights.begin("Eastern Asia");
+        singleFlight.flight<String> follower = flights.begin("Eastern Asia");
+        assertTrue(leader.leader);
+        assertFalse(follower.leader);
+        assertEquals(1, flights.inFlight());
+        assertEquals(1, flights.shared());
+
+        flights.fail(leader, new IllegalStateException("query failed"));
+        assertNull(follower.await(1000));
+        assertEquals(0, flights.inFlight());
+        assertEquals("Beijing", flights.call("Eastern Asia", () -> "Beijing"));
+        assertThrows(IllegalStateException.class, () -> flights.call("Eastern Asia", () -> {
+            throw new IllegalStateException("query failed");
+        }));
+        assertEquals(0, flights.inFlight(), "A failed call frees its key");
+    }
+
+    /**
+     * A cursor that fails after one row: each caller gets the row read, but a waiting caller
+     * runs the query itself instead of sharing it, and nothing reaches either cache tier.
+     */
+    @Test
+    void testPartialResultNotCached() throws Exception {
+        assertTrue(diskCache.open(dir));
+        long writes = diskCache.writes();
+        failMidRead = true;
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ArrayList<cityReport>>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 2; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return cityReport.getCitiesByRegion("Eastern Asia", 42);
+                }));
+            }
+            start.countDown();
+            for (Future<ArrayList<cityReport>> f : results) {
+                ArrayList<cityReport> cities = f.get(10, TimeUnit.SECONDS);
+                assertEquals(1, cities.size(), "The row read before the failure is returned");
+                assertEquals("Shanghai", cities.get(0).name);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(2, regionQueries.get(), "The waiting caller ran its own query");
+        assertEquals(0, resultCache.coalesced());
+        assertEquals(writes, diskCache.writes(), "A partial result is not written to disk");
+
+        failMidRead = false;
+        assertEquals(1, cityReport.getCitiesByRegion("Eastern Asia", 42).size());
+        assertEquals(3, regionQueries.get(), "A partial result is not served from memory");
+        assertEquals(0, resultCache.hits());
+    }
+}
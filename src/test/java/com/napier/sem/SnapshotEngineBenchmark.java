@@ -0,0 +1,148 @@
+package com.napier.sem;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Throughput benchmarks for the snapshot engine over a synthetic world.
+ * Not run by Surefire; run manually after {@code mvn test-compile}:
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes com.napier.sem.SnapshotEngineBenchmark [cities]
+ * </pre>
+ *
+ * Benchmarks:
+ * Fork/join group-by speedup at 1/2/4/8 threads
+ * Scalar vs vector scan kernels (add {@code --add-modules jdk.incubator.vector} to enable vectors)
+ * Bytes allocated per top-N selection
+ * Per-country k-way merge vs full scan for city top-N
+ */
+public class SnapshotEngineBenchmark {
+
+    static final int WARMUP = 5;
+    static final int RUNS = 10;
+
+    public static void main(String[] args) {
+        int cities = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        worldSnapshot s = syntheticWorld.generate(5_000, cities, 42L);
+        System.out.printf("Synthetic world: %,d countries, %,d cities%n", s.countryCount(), s.cityCount());
+
+        groupByScaling(s);
+        kernels(s);
+        topNAllocation(s);
+        mergeVsScan(s);
+    }
+
+    /**
+     * Compares the k-way merge of per-country city lists with a full scan for top-10 cities.
+     */
+    static void mergeVsScan(worldSnapshot s) {
+        snapshotEngine.snapshot = s;
+        long t0 = System.nanoTime();
+        s.cityIndex();
+        System.out.printf("%nCity index build: %.1f ms%n", (System.nanoTime() - t0) / 1e6);
+        System.out.println("| Scope | Scan ms | Merge ms | Speedup |");
+        System.out.println("| --- | --- | --- | --- |");
+        int[][] scopes = {{snapshotEngine.WORLD, 0}, {snapshotEngine.CONTINENT, 0}, {snapshotEngine.REGION, 0}};
+        String[] names = {"World", "Continent", "Region"};
+        for (int i = 0; i < scopes.length; i++) {
+            int scope = scopes[i][0], id = scopes[i][1];
+            double scan = time(() -> snapshotEngine.scanTopCityRows(scope, id, 10));
+            double merge = time(() -> snapshotEngine.mergeTopCityRows(scope, id, 10));
+            report(names[i], scan, merge);
+        }
+    }
+
+    /**
+     * Measures time and bytes allocated by the heap selection step of a filtered top-N query.
+     * The selection runs over a pre-filtered subset so only {@link topNHeap} is measured.
+     */
+    static void topNAllocation(worldSnapshot s) {
+        com.sun.management.ThreadMXBean mx =
+                (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+        int[] rows = new int[s.cityCount()];
+        int n = populationKernels.active().filterByRange(s.cityPopulation, 0, rows.length, 5_000, 50_000, rows);
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) keys[i] = s.cityPopulation[rows[i]];
+
+        topNHeap heap = topNHeap.forThread();
+        Runnable select = () -> {
+            heap.reset(10);
+            for (int i = 0; i < keys.length; i++) heap.offer(keys[i], rows[i]);
+        };
+        double ms = time(select);
+
+        long tid = Thread.currentThread().getId();
+        long before = mx.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < RUNS; i++) select.run();
+        long bytes = (mx.getThreadAllocatedBytes(tid) - before) / RUNS;
+        System.out.printf("%nTop-10 selection over %,d filtered rows: %.2f ms/op, %d B/op%n", n, ms, bytes);
+    }
+
+    /**
+     * Times each scan kernel with the scalar and the active kernel set on the city population column.
+     */
+    static void kernels(worldSnapshot s) {
+        populationKernels scalar = populationKernels.scalar();
+        populationKernels active = populationKernels.active();
+        System.out.printf("%nActive kernels: %s%n", active.getClass().getSimpleName());
+        System.out.println("| Kernel | Scalar ms/op | Active ms/op | Speedup |");
+        System.out.println("| --- | --- | --- | --- |");
+
+        int rows = s.cityCount();
+        int[] out = new int[rows];
+        // Continents, regions and as many country ids as the world database has
+        for (int level = 0; level < 3; level++) {
+            int[] ids = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                int country = s.cityCountry[i];
+                ids[i] = level == 0 ? s.countryContinent[country] : level == 1 ? s.countryRegion[country] : country % 239;
+            }
+            int groups = level == 0 ? s.continentNames.length : level == 1 ? s.regionNames.length : 239;
+            report("sumByGroup (" + groups + " ids)",
+                    time(() -> scalar.sumByGroup(ids, s.cityPopulation, 0, rows, new long[groups])),
+                    time(() -> active.sumByGroup(ids, s.cityPopulation, 0, rows, new long[groups])));
+        }
+        report("filterByRange",
+                time(() -> scalar.filterByRange(s.cityPopulation, 0, rows, 100_000, 1_000_000, out)),
+                time(() -> active.filterByRange(s.cityPopulation, 0, rows, 100_000, 1_000_000, out)));
+        report("countInRange",
+                time(() -> scalar.countInRange(s.cityPopulation, 0, rows, 100_000, 1_000_000)),
+                time(() -> active.countInRange(s.cityPopulation, 0, rows, 100_000, 1_000_000)));
+    }
+
+    static double time(Runnable op) {
+        for (int i = 0; i < WARMUP; i++) op.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) op.run();
+        return (System.nanoTime() - start) / 1e6 / RUNS;
+    }
+
+    static void report(String name, double scalarMs, double activeMs) {
+        System.out.printf("| %s | %.2f | %.2f | %.2fx |%n", name, scalarMs, activeMs, scalarMs / activeMs);
+    }
+
+    /**
+     * Sums city population per district at 1/2/4/8 threads and reports speedup over 1 thread.
+     */
+    static void groupByScaling(worldSnapshot s) {
+        System.out.println("\n| Threads | ms/op | Mrows/s | Speedup |");
+        System.out.println("| --- | --- | --- | --- |");
+        double baseline = 0;
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+            long sink = 0;
+            for (int i = 0; i < WARMUP; i++) {
+                sink += snapshotAggregator.sumByGroup(pool, s.cityDistrict, s.cityPopulation, s.districtNames.length)[0];
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < RUNS; i++) {
+                sink += snapshotAggregator.sumByGroup(pool, s.cityDistrict, s.cityPopulation, s.districtNames.length)[0];
+            }
+            double ms = (System.nanoTime() - start) / 1e6 / RUNS;
+            if (threads == 1) baseline = ms;
+            System.out.printf("| %d | %.2f | %.1f | %.2fx |%s%n",
+                    threads, ms, s.cityCount() / ms / 1e3, baseline / ms, sink == 42 ? " " : "");
+            if (pool != null) pool.shutdown();
+        }
+    }
+}
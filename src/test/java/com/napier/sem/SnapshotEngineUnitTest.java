@@ -0,0 +1,413 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the in-memory snapshot engine.
+ * These do not require a live database.
+ *
+ * Tests:
+ * Continent/region/country rollups
+ * Population summary group-by
+ * Fork/join aggregation matches sequential aggregation
+ * The default pool has one thread per processor, capped by a system property
+ * Top-N paths for cities, countries, capitals and languages
+ * Language rankings match the DAO on tied and zero totals
+ * K-way merge of per-country city lists matches a full scan
+ * Derived country metrics and their sort orders
+ * A NULL GNP is loaded as NaN and left out of the GNP metrics
+ */
+public class SnapshotEngineUnitTest {
+
+    /**
+     * Two countries in one continent, three cities.
+     */
+    static worldSnapshot mockSnapshot() {
+        worldSnapshot s = new worldSnapshot();
+        s.continentNames = new String[]{"Europe"};
+        s.regionNames = new String[]{"Western Europe", "Eastern Europe"};
+        s.districtNames = new String[]{"Bavaria", "Moscow (City)"};
+        s.countryCode = new String[]{"DEU", "RUS"};
+        s.countryName = new String[]{"Germany", "Russian Federation"};
+        s.countryContinent = new int[]{0, 0};
+        s.countryRegion = new int[]{0, 1};
+        s.countryPopulation = new int[]{1000, 3000};
+        s.countryCapital = new int[]{3, 2};
+        s.cityId = new int[]{1, 2, 3};
+        s.cityName = new String[]{"Munich", "Moscow", "Berlin"};
+        s.cityCountry = new int[]{0, 1, 0};
+        s.cityDistrict = new int[]{0, 1, 0};
+        s.cityPopulation = new int[]{100, 600, 150};
+        s.languageNames = new String[]{"German", "Russian", "Turkish"};
+        s.languageCountry = new int[]{0, 0, 1, 1};
+        s.languageId = new int[]{0, 2, 1, 0};
+        s.languageOfficial = new boolean[]{true, false, true, false};
+        s.languagePercentage = new double[]{90.0, 5.0, 80.0, 1.0};
+        return s;
+    }
+
+    @BeforeEach
+    void setUp() {
+        snapshotEngine.snapshot = mockSnapshot();
+        snapshotEngine.setParallelism(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshotEngine.snapshot = null;
+        snapshotEngine.setParallelism(1);
+    }
+
+    /**
+     * Continent rollup adds both countries and all their cities.
+     */
+    @Test
+    void testPopulationByContinent() {
+        ArrayList<populationReport> pops = snapshotEngine.getPopulationByContinent();
+
+        assertEquals(1, pops.size());
+        populationReport europe = pops.get(0);
+        assertEquals("Europe", europe.name);
+        assertEquals(4000, europe.totalPopulation);
+        assertEquals(850, europe.cityPopulation);
+        assertEquals(3150, europe.nonCityPopulation);
+        assertEquals(21.25, europe.cityPercentage, 0.001);
+    }
+
+    /**
+     * Region and country rollups are ordered by total population.
+     */
+    @Test
+    void testPopulationByRegionAndCountry() {
+        ArrayList<populationReport> regions = snapshotEngine.getPopulationByRegion();
+        assertEquals("Eastern Europe", regions.get(0).name);
+        assertEquals(600, regions.get(0).cityPopulation);
+
+        ArrayList<populationReport> countries = snapshotEngine.getPopulationByCountry();
+        assertEquals("Russian Federation", countries.get(0).name);
+        assertEquals("Germany", countries.get(1).name);
+        assertEquals(250, countries.get(1).cityPopulation);
+    }
+
+    /**
+     * Summary groups cities by district and lists every level.
+     */
+    @Test
+    void testPopulationSummary() {
+        ArrayList<populationSummary> sums = snapshotEngine.getAllPopulationSummary();
+
+        // 1 world + 1 continent + 2 regions + 2 countries + 2 districts + 3 cities
+        assertEquals(11, sums.size());
+        populationSummary bavaria = sums.stream().filter(s -> s.name.equals("Bavaria")).findFirst().orElseThrow();
+        assertEquals("District", bavaria.level);
+        assertEquals(250, bavaria.population);
+        assertEquals("City", sums.get(0).level, "Levels should be ordered alphabetically");
+    }
+
+    /**
+     * Chunked aggregation on a pool gives exactly the sequential totals.
+     */
+    @Test
+    void testParallelMatchesSequential() {
+        snapshotEngine.snapshot = syntheticWorld.generate(200, 300_000, 7L);
+        ArrayList<populationReport> sequential = snapshotEngine.getPopulationByRegion();
+
+        snapshotEngine.setParallelism(4);
+        ArrayList<populationReport> parallel = snapshotEngine.getPopulationByRegion();
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).name, parallel.get(i).name);
+            assertEquals(sequential.get(i).cityPopulation, parallel.get(i).cityPopulation);
+            assertEquals(sequential.get(i).totalPopulation, parallel.get(i).totalPopulation);
+        }
+    }
+
+    /**
+     * The default parallelism follows the processor count and never exceeds the property's cap.
+     */
+    @Test
+    void testDefaultParallelism() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        assertEquals(processors, snapshotEngine.defaultParallelism());
+        try {
+            System.setProperty(snapshotEngine.THREADS_PROPERTY, "2");
+            assertEquals(Math.min(2, processors), snapshotEngine.defaultParallelism());
+            System.setProperty(snapshotEngine.THREADS_PROPERTY, "0");
+            assertEquals(1, snapshotEngine.defaultParallelism(), "At least the caller's thread");
+        } finally {
+            System.clearProperty(snapshotEngine.THREADS_PROPERTY);
+        }
+        snapshotEngine.setParallelism(3);
+        assertEquals("Snapshot engine: 3 aggregation threads", snapshotEngine.summary());
+    }
+
+    /**
+     * City top-N honours scope and cap.
+     */
+    @Test
+    void testTopCities() {
+        ArrayList<cityReport> world = snapshotEngine.getTopCitiesInWorld(50);
+        assertEquals(3, world.size());
+        assertEquals("Moscow", world.get(0).name);
+
+        ArrayList<cityReport> germany = snapshotEngine.getTopCitiesByCountry("Germany", 1);
+        assertEquals(1, germany.size());
+        assertEquals("Berlin", germany.get(0).name);
+        assertEquals("Bavaria", germany.get(0).district);
+
+        assertEquals(2, snapshotEngine.getCitiesByRegion("Western Europe", 42).size());
+        assertEquals(1, snapshotEngine.getCitiesByDistrict("Moscow (City)", 42).size());
+        assertTrue(snapshotEngine.getCitiesByContinent("Atlantis", 42).isEmpty(), "Unknown scopes return no rows");
+    }
+
+    /**
+     * The per-country merge returns exactly the rows of a full scan, ties included.
+     */
+    @Test
+    void testMergeMatchesScan() {
+        snapshotEngine.snapshot = syntheticWorld.generate(300, 200_000, 3L);
+        int[][] scopes = {
+                {snapshotEngine.WORLD, 0},
+                {snapshotEngine.CONTINENT, 1},
+                {snapshotEngine.REGION, 5},
+                {snapshotEngine.COUNTRY, 17}
+        };
+        for (int[] scope : scopes) {
+            for (int n : new int[]{1, 10, 42, 5_000}) {
+                assertArrayEquals(
+                        snapshotEngine.scanTopCityRows(scope[0], scope[1], n),
+                        snapshotEngine.topCityRows(scope[0], scope[1], n),
+                        "Scope " + scope[0] + "/" + scope[1] + ", n=" + n);
+            }
+        }
+    }
+
+    /**
+     * Country and capital top-N resolve capitals by city id.
+     */
+    @Test
+    void testTopCountriesAndCapitals() {
+        ArrayList<countryReport> countries = snapshotEngine.getTopCountriesByContinent("Europe", 10);
+        assertEquals("Russian Federation", countries.get(0).name);
+        assertEquals("Moscow", countries.get(0).capital);
+        assertEquals("Berlin", countries.get(1).capital);
+
+        ArrayList<capitalCityReport> capitals = snapshotEngine.getTopCapitalCitiesByRegion("Western Europe", 10);
+        assertEquals(1, capitals.size());
+        assertEquals("Berlin", capitals.get(0).name);
+        assertEquals(150, capitals.get(0).population);
+    }
+
+    /**
+     * City ids resolve to rows through the dense id array, with gaps left at -1.
+     */
+    @Test
+    void testCityRowById() {
+        worldSnapshot s = snapshotEngine.snapshot;
+        s.cityId = new int[]{1, 5, 3};
+        int[] rows = s.cityRowById();
+
+        assertEquals(6, rows.length);
+        assertEquals(1, rows[5]);
+        assertEquals(-1, rows[4]);
+        assertEquals(2, snapshotEngine.capitalRow(0), "Germany's capital id 3 is row 2");
+    }
+
+    /**
+     * Derived metrics are computed from stored columns and the city rollup; missing values are not ranked.
+     */
+    @Test
+    void testCountryMetrics() {
+        worldSnapshot s = snapshotEngine.snapshot;
+        s.countrySurfaceArea = new double[]{10.0, 300.0};
+        s.countryGnp = new double[]{2.0, 1.5};
+        s.countryLifeExpectancy = new double[]{Double.NaN, 66.0};
+
+        worldSnapshot.metricIndex m = s.metrics();
+        assertEquals(100.0, m.value(countryMetric.DENSITY, 0), 1e-9);
+        assertEquals(2000.0, m.value(countryMetric.GNP_PER_CAPITA, 0), 1e-9);
+        assertEquals(0.25, m.value(countryMetric.URBANISATION, 0), 1e-9);
+        assertEquals(0.2, m.value(countryMetric.URBANISATION, 1), 1e-9);
+        assertEquals(1, m.ranked(countryMetric.LIFE_EXPECTANCY), "Unknown life expectancy is left out");
+        assertEquals(0, m.ranked(countryMetric.INDEPENDENCE_YEAR), "Unloaded column is left out");
+
+        assertEquals("Germany", snapshotEngine.getTopCountriesByMetric(countryMetric.DENSITY, 10).get(0).name);
+        assertEquals("Russian Federation", snapshotEngine.getCountriesByMetric(countryMetric.GNP_PER_CAPITA, false, 42).get(0).name);
+        assertEquals(1, snapshotEngine.getTopCountriesByMetricInRegion(countryMetric.URBANISATION, "Eastern Europe", 10).size());
+        assertTrue(snapshotEngine.getTopCountriesByMetricInContinent(countryMetric.GNP, "Atlantis", 10).isEmpty());
+    }
+
+    /**
+     * A connection whose country query returns {@code countries}, each a map of column label to
+     * value ({@code null} for SQL NULL); the city and language queries return no rows.
+     */
+    private static Connection countryConnection(List<Map<String, Object>> countries) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("prepareStatement")) return null;
+                    List<Map<String, Object>> rows = ((String) args[0]).contains("FROM country") ? countries : List.of();
+                    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                            new Class<?>[]{PreparedStatement.class}, (p, m, a) -> {
+                                if (m.getName().equals("isClosed")) return false;
+                                if (!m.getName().equals("executeQuery")) return null;
+                                int[] at = {-1};
+                                Object[] last = {null};
+                                return Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                                        new Class<?>[]{ResultSet.class}, (r, rm, ra) -> {
+                                            switch (rm.getName()) {
+                                                case "next": return ++at[0] < rows.size();
+                                                case "wasNull": return last[0] == null;
+                                                case "getString": return last[0] = rows.get(at[0]).get((String) ra[0]);
+                                                case "getInt":
+                                                    last[0] = rows.get(at[0]).get((String) ra[0]);
+                                                    return last[0] == null ? 0 : ((Number) last[0]).intValue();
+                                                case "getDouble":
+                                                    last[0] = rows.get(at[0]).get((String) ra[0]);
+                                                    return last[0] == null ? 0.0 : ((Number) last[0]).doubleValue();
+                                                default: return null;
+                                            }
+                                        });
+                            });
+                });
+    }
+
+    /**
+     * One row of the snapshot's country query, with the given GNP ({@code null} for NULL).
+     */
+    private static Map<String, Object> country(String code, int population, Double gnp) {
+        HashMap<String, Object> row = new HashMap<>(Map.of("code", code, "name", code,
+                "continent", "Asia", "region", "Eastern Asia", "population", population,
+                "surfacearea", 1000.0, "lifeexpectancy", 70.0, "indepyear", 1900));
+        row.put("gnp", gnp);
+        return row;
+    }
+
+    /**
+     * A country whose GNP is NULL gets {@code NaN}, not 0, so it is ranked by neither GNP metric.
+     */
+    @Test
+    void testNullGnpIsNotRanked() {
+        // In code order, as the snapshot query sorts them
+        populationApp.con = countryConnection(List.of(country("CHN", 1_000_000, 982_268.0),
+                country("MNG", 2_662_000, 1_043.0), country("PRK", 24_039_193, null)));
+        try {
+            worldSnapshot s = worldSnapshot.load();
+            assertNotNull(s);
+            assertTrue(Double.isNaN(s.countryGnp[2]));
+            worldSnapshot.metricIndex m = s.metrics();
+            assertEquals(2, m.ranked(countryMetric.GNP));
+            assertEquals(2, m.ranked(countryMetric.GNP_PER_CAPITA));
+            snapshotEngine.snapshot = s;
+            ArrayList<countryReport> lowest = snapshotEngine.getCountriesByMetric(countryMetric.GNP, false, 42);
+            assertEquals(List.of("MNG", "CHN"), List.of(lowest.get(0).code, lowest.get(1).code),
+                    "The NULL GNP country does not rank as the poorest");
+        } finally {
+            statementCache.closeAll(populationApp.con);
+            populationApp.con = null;
+        }
+    }
+
+    /**
+     * Walking a metric's sort order within a scope matches sorting that scope directly.
+     */
+    @Test
+    void testMetricOrderMatchesSort() {
+        worldSnapshot s = syntheticWorld.generate(500, 20_000, 5L);
+        snapshotEngine.snapshot = s;
+        worldSnapshot.metricIndex m = s.metrics();
+        int region = 3;
+
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (int row = 0; row < s.countryCount(); row++) {
+            if (s.countryRegion[row] == region && !Double.isNaN(m.value(countryMetric.LIFE_EXPECTANCY, row))) expected.add(row);
+        }
+        expected.sort((a, b) -> {
+            int cmp = Double.compare(m.value(countryMetric.LIFE_EXPECTANCY, b), m.value(countryMetric.LIFE_EXPECTANCY, a));
+            return cmp != 0 ? cmp : a - b;
+        });
+
+        int[] rows = snapshotEngine.countryRowsByMetric(countryMetric.LIFE_EXPECTANCY, snapshotEngine.REGION, region, 10, true);
+        assertEquals(Math.min(10, expected.size()), rows.length);
+        for (int i = 0; i < rows.length; i++) assertEquals((int) expected.get(i), rows[i]);
+    }
+
+    /**
+     * With a dictionary not in name order, tied totals and a language nobody speaks, the engine
+     * ranks exactly like the DAO's tally over the rows its {@code GROUP BY} would return.
+     */
+    @Test
+    void testTopLanguagesMatchDao() {
+        worldSnapshot s = mockSnapshot();
+        s.countryPopulation = new int[]{1000, 1000};
+        s.languageNames = new String[]{"Welsh", "Basque", "Alsatian", "Albanian"};
+        s.languageCountry = new int[]{0, 0, 0, 1};
+        s.languageId = new int[]{0, 1, 2, 3};
+        s.languageOfficial = new boolean[]{true, false, true, true};
+        s.languagePercentage = new double[]{10.0, 10.0, 0.0, 10.0};
+        snapshotEngine.snapshot = s;
+
+        topLanguageReport.languageTally tally = new topLanguageReport.languageTally();
+        tally.add("Europe", "Western Europe", "Welsh", true, 100);
+        tally.add("Europe", "Western Europe", "Basque", false, 100);
+        tally.add("Europe", "Western Europe", "Alsatian", true, 0);
+        tally.add("Europe", "Eastern Europe", "Albanian", true, 100);
+        ArrayList<topLanguageReport> dao = tally.top(topLanguageReport.CONTINENT, 2);
+        dao.addAll(tally.top(topLanguageReport.REGION, 2));
+
+        ArrayList<topLanguageReport> engine = snapshotEngine.getTopLanguagesByContinentAndRegion(2);
+        assertEquals(rows(dao), rows(engine));
+        assertEquals("Albanian", engine.get(0).language, "Ties go to the earlier name");
+        assertEquals("Basque", engine.get(1).language);
+        assertFalse(rows(engine).contains("Alsatian"), "Languages without speakers are not ranked");
+    }
+
+    private static String rows(ArrayList<topLanguageReport> languages) {
+        StringBuilder sb = new StringBuilder();
+        for (topLanguageReport t : languages) {
+            sb.append(t.level).append(' ').append(t.scope).append(' ').append(t.rank).append(' ')
+                    .append(t.language).append(' ').append(t.officialSpeakers).append('/')
+                    .append(t.unofficialSpeakers).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Language top-N splits official and unofficial speakers.
+     */
+    @Test
+    void testTopLanguages() {
+        ArrayList<topLanguageReport> langs = snapshotEngine.getTopLanguagesByContinentAndRegion(2);
+
+        topLanguageReport first = langs.get(0);
+        assertEquals(topLanguageReport.CONTINENT, first.level);
+        assertEquals("Russian", first.language);
+        assertEquals(2400, first.speakers);
+        assertEquals("German", langs.get(1).language);
+        assertEquals(900, langs.get(1).officialSpeakers);
+        assertEquals(30, langs.get(1).unofficialSpeakers);
+        // 1 continent x 2 + Eastern Europe x 2 + Western Europe x 2
+        assertEquals(6, langs.size());
+    }
+
+    /**
+     * Without a snapshot, query methods return empty lists.
+     */
+    @Test
+    void testNoSnapshot() {
+        snapshotEngine.snapshot = null;
+        assertTrue(snapshotEngine.getPopulationByContinent().isEmpty());
+        assertTrue(snapshotEngine.getAllPopulationSummary().isEmpty());
+        assertTrue(snapshotEngine.getTopCitiesInWorld(10).isEmpty());
+    }
+}
@@ -0,0 +1,279 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the typed snapshot query API.
+ * These do not require a live database.
+ *
+ * Tests:
+ * Multi-key sort matches a boxed reference sort
+ * Index plans return the same rows as the sort plan
+ * Limit, offset and projection
+ * Invalid queries
+ * The SQL form selects and joins only what the query uses, and reads columns by index
+ * In-place row sort
+ */
+public class SnapshotQueryUnitTest {
+
+    @BeforeEach
+    void setUp() {
+        snapshotEngine.snapshot = syntheticWorld.generate(500, 50_000, 13L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshotEngine.snapshot = null;
+        populationApp.con = null;
+    }
+
+    /**
+     * A connection whose statements record their SQL and parameters and return {@code rows}.
+     */
+    private static Connection connection(List<String> sql, List<Object> params, Object[]... rows) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("prepareStatement")) return null;
+                    sql.add((String) args[0]);
+                    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                            new Class<?>[]{PreparedStatement.class}, (p, m, a) -> {
+                                switch (m.getName()) {
+                                    case "setObject":
+                                    case "setInt":
+                                        params.add(a[1]);
+                                        return null;
+                                    case "executeQuery": return result(rows);
+                                    case "isClosed": return false;
+                                    default: return null;
+                                }
+                            });
+                });
+    }
+
+    private static ResultSet result(Object[][] rows) {
+        int[] at = {-1};
+        Object[] last = {null};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (r, m, a) -> {
+                    switch (m.getName()) {
+                        case "next": return ++at[0] < rows.length;
+                        case "wasNull": return last[0] == null;
+                        case "getString":
+                        case "getLong":
+                        case "getDouble":
+                            last[0] = rows[at[0]][(Integer) a[0] - 1];
+                            if (m.getName().equals("getString")) return last[0];
+                            Number n = last[0] == null ? 0 : (Number) last[0];
+                            return m.getName().equals("getLong") ? (Object) n.longValue() : (Object) n.doubleValue();
+                        default: return null;
+                    }
+                });
+    }
+
+    /**
+     * Cities by district, then population, match a reference sort.
+     */
+    @Test
+    void testMultiKeySort() {
+        worldSnapshot s = snapshotEngine.snapshot;
+        snapshotQuery.result r = snapshotQuery.cities()
+                .where(snapshotColumn.CONTINENT, snapshotQuery.op.EQ, "Europe")
+                .orderBy(snapshotColumn.DISTRICT, false)
+                .orderBy(snapshotColumn.CITY_POPULATION, true)
+                .select(snapshotColumn.CITY_ID)
+                .limit(42)
+                .run();
+        assertEquals(snapshotQuery.PLAN_SORT, r.plan);
+
+        int europe = s.continentId("Europe");
+        Integer[] expected = new Integer[s.cityCount()];
+        int n = 0;
+        for (int row = 0; row < s.cityCount(); row++) {
+            if (s.countryContinent[s.cityCountry[row]] == europe) expected[n++] = row;
+        }
+        Arrays.sort(expected, 0, n, Comparator.<Integer, String>comparing(row -> s.districtNames[s.cityDistrict[row]])
+                .thenComparing(row -> -s.cityPopulation[row])
+                .thenComparing(row -> row));
+
+        assertEquals(42, r.rows.size());
+        for (int i = 0; i < r.rows.size(); i++) {
+            assertEquals((long) s.cityId[expected[i]], r.rows.get(i)[0]);
+        }
+    }
+
+    /**
+     * The population merge returns what the sort plan returns, with city and country filters.
+     */
+    @Test
+    void testPopulationMergeMatchesSort() {
+        snapshotQuery.result merged = snapshotQuery.cities()
+                .where(snapshotColumn.REGION, snapshotQuery.op.EQ, "Asia Region 2")
+                .where(snapshotColumn.CITY_POPULATION, snapshotQuery.op.LT, 5_000)
+                .orderBy(snapshotColumn.CITY_POPULATION, true)
+                .select(snapshotColumn.CITY_ID)
+                .offset(3)
+                .run();
+        snapshotQuery.result sorted = snapshotQuery.cities()
+                .where(snapshotColumn.REGION, snapshotQuery.op.EQ, "Asia Region 2")
+                .where(snapshotColumn.CITY_POPULATION, snapshotQuery.op.LT, 5_000)
+                .orderBy(snapshotColumn.CITY_POPULATION, true)
+                .orderBy(snapshotColumn.CITY_ID, false)
+                .select(snapshotColumn.CITY_ID)
+                .offset(3)
+                .run();
+
+        assertEquals(snapshotQuery.PLAN_POPULATION_MERGE, merged.plan);
+        assertEquals(snapshotQuery.PLAN_SORT, sorted.plan);
+        assertEquals(42, merged.rows.size());
+        for (int i = 0; i < merged.rows.size(); i++) {
+            assertArrayEquals(sorted.rows.get(i), merged.rows.get(i));
+        }
+    }
+
+    /**
+     * Walking a metric order in either direction matches the sort plan, including rows without a value.
+     */
+    @Test
+    void testMetricIndexMatchesSort() {
+        for (boolean descending : new boolean[]{true, false}) {
+            snapshotQuery.result walked = snapshotQuery.countries()
+                    .orderBy(snapshotColumn.LIFE_EXPECTANCY, descending)
+                    .select(snapshotColumn.COUNTRY_CODE, snapshotColumn.LIFE_EXPECTANCY)
+                    .offset(440)
+                    .run();
+            snapshotQuery.result sorted = snapshotQuery.countries()
+                    .orderBy(snapshotColumn.LIFE_EXPECTANCY, descending)
+                    .orderBy(snapshotColumn.CAPITAL, false)
+                    .select(snapshotColumn.COUNTRY_CODE, snapshotColumn.LIFE_EXPECTANCY)
+                    .offset(440)
+                    .run();
+
+            assertEquals(snapshotQuery.PLAN_METRIC_INDEX, walked.plan);
+            assertEquals(sorted.rows.size(), walked.rows.size());
+            for (int i = 0; i < walked.rows.size(); i++) {
+                assertEquals(sorted.rows.get(i)[1], walked.rows.get(i)[1], "Row " + i);
+            }
+            assertNull(walked.rows.get(walked.rows.size() - 1)[1], "Countries without a value come last");
+        }
+    }
+
+    /**
+     * Limit, offset and projection shape the rows; numbers come back as Long or Double.
+     */
+    @Test
+    void testLimitOffsetProjection() {
+        snapshotEngine.snapshot = SnapshotEngineUnitTest.mockSnapshot();
+        snapshotQuery.result r = snapshotQuery.cities()
+                .orderBy(snapshotColumn.CITY_POPULATION, true)
+                .select(snapshotColumn.CITY_NAME, snapshotColumn.COUNTRY_NAME, snapshotColumn.CITY_POPULATION)
+                .offset(1)
+                .limit(1)
+                .run();
+
+        assertArrayEquals(new String[]{"City", "Country", "City Population"}, r.columns);
+        assertEquals(1, r.rows.size());
+        assertArrayEquals(new Object[]{"Berlin", "Germany", 150L}, r.rows.get(0));
+
+        snapshotQuery.result all = snapshotQuery.countries().where(snapshotColumn.CAPITAL, snapshotQuery.op.EQ, "Moscow").run();
+        assertEquals(1, all.rows.size());
+        assertEquals(snapshotQuery.PLAN_SCAN, all.plan);
+        assertEquals(3, snapshotQuery.cities().limit(1_000).run().rows.size());
+    }
+
+    /**
+     * Invalid queries and a missing snapshot return empty results.
+     */
+    @Test
+    void testInvalidQueries() {
+        assertTrue(snapshotQuery.countries().orderBy(snapshotColumn.CITY_POPULATION, true).run().rows.isEmpty(),
+                "City columns are not available on countries");
+        assertTrue(snapshotQuery.cities().where(snapshotColumn.DISTRICT, snapshotQuery.op.EQ, 5).run().rows.isEmpty(),
+                "Text columns need text values");
+
+        snapshotEngine.snapshot = null;
+        assertTrue(snapshotQuery.cities().run().rows.isEmpty());
+    }
+
+    /**
+     * Only the projected columns are selected and only the joins they need are made; values are
+     * read by index into the same types as the snapshot path returns.
+     */
+    @Test
+    void testDatabaseProjection() {
+        snapshotQuery asia = snapshotQuery.countries()
+                .where(snapshotColumn.CONTINENT, snapshotQuery.op.EQ, "Asia")
+                .orderBy(snapshotColumn.COUNTRY_POPULATION, true)
+                .select(snapshotColumn.COUNTRY_NAME, snapshotColumn.COUNTRY_POPULATION, snapshotColumn.LIFE_EXPECTANCY)
+                .limit(10);
+        assertEquals("""
+                SELECT country.name, country.population, country.lifeexpectancy
+                FROM country
+                WHERE CAST(country.continent AS BINARY) = ?
+                ORDER BY country.population IS NULL, country.population DESC, country.code
+                LIMIT ? OFFSET ?""", asia.sql(new snapshotColumn[]{snapshotColumn.COUNTRY_NAME,
+                snapshotColumn.COUNTRY_POPULATION, snapshotColumn.LIFE_EXPECTANCY}));
+
+        String cityNames = snapshotQuery.cities().sql(new snapshotColumn[]{snapshotColumn.CITY_NAME});
+        assertFalse(cityNames.contains("JOIN"), cityNames);
+        String capitals = snapshotQuery.cities().sql(new snapshotColumn[]{snapshotColumn.CITY_NAME, snapshotColumn.CAPITAL});
+        assertTrue(capitals.contains("JOIN country ") && capitals.contains("LEFT JOIN city capital"), capitals);
+        assertFalse(capitals.contains("urban"), capitals);
+        String urban = snapshotQuery.countries().orderBy(snapshotColumn.URBANISATION, true)
+                .sql(new snapshotColumn[]{snapshotColumn.COUNTRY_CODE});
+        assertTrue(urban.contains("LEFT JOIN (SELECT countrycode") && !urban.contains("capital"), urban);
+
+        ArrayList<String> sql = new ArrayList<>();
+        ArrayList<Object> params = new ArrayList<>();
+        populationApp.con = connection(sql, params,
+                new Object[]{"China", 1_277_558_000L, 71.4}, new Object[]{"East Timor", 885_000L, null});
+        snapshotQuery.result r = asia.runOnDatabase();
+        assertEquals(snapshotQuery.PLAN_SQL, r.plan);
+        assertArrayEquals(new String[]{"Country", "Population", "Life Expectancy"}, r.columns);
+        assertArrayEquals(new Object[]{"China", 1_277_558_000L, 71.4}, r.rows.get(0));
+        assertArrayEquals(new Object[]{"East Timor", 885_000L, null}, r.rows.get(1), "NULL reads as null");
+        assertEquals(List.of("Asia", 10, 0), params);
+        assertEquals(1, sql.size());
+        statementCache.closeAll(populationApp.con);
+
+        assertTrue(snapshotQuery.cities().where(snapshotColumn.CITY_POPULATION, snapshotQuery.op.GT, "big")
+                .runOnDatabase().rows.isEmpty(), "Numeric columns need numeric values");
+        populationApp.con = null;
+        assertTrue(asia.runOnDatabase().rows.isEmpty());
+    }
+
+    /**
+     * The in-place row sort agrees with a reference sort, including inputs deep enough to need heapsort.
+     */
+    @Test
+    void testRowSort() {
+        SplittableRandom rnd = new SplittableRandom(1L);
+        int[] keys = new int[100_000];
+        for (int i = 0; i < keys.length; i++) keys[i] = rnd.nextInt(1_000);
+        int[] rows = new int[keys.length];
+        for (int i = 0; i < rows.length; i++) rows[i] = i;
+
+        rowSort.sort(rows, 0, rows.length, (a, b) -> keys[a] != keys[b] ? Integer.compare(keys[a], keys[b]) : Integer.compare(a, b));
+
+        for (int i = 1; i < rows.length; i++) {
+            int a = rows[i - 1], b = rows[i];
+            assertTrue(keys[a] < keys[b] || (keys[a] == keys[b] && a < b), "Out of order at " + i);
+        }
+
+        // A comparator with no ties on a reversed input
+        int[] reversed = new int[5_000];
+        for (int i = 0; i < reversed.length; i++) reversed[i] = reversed.length - 1 - i;
+        rowSort.sort(reversed, 0, reversed.length, Integer::compare);
+        for (int i = 0; i < reversed.length; i++) assertEquals(i, reversed[i]);
+    }
+}
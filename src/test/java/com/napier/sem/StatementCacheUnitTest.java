@@ -0,0 +1,222 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the prepared statement cache.
+ * These do not require a live database; connections and statements are stand-ins that
+ * count how often they are prepared and closed.
+ *
+ * Tests:
+ * Repeated shapes hit the cache and statements are returned on close
+ * Concurrent leases, failures and use after close
+ * A returned lease does not pass its fetch size on to the next one
+ * LRU eviction and closing a connection's statements
+ * No SQL a report run prepares contains ';', so the driver can server-prepare all of it
+ */
+public class StatementCacheUnitTest {
+
+    /**
+     * Stand-in statements prepared on the fake connection, in order.
+     */
+    private final ArrayList<boolean[]> prepared = new ArrayList<>();
+
+    /**
+     * Fetch sizes set on the stand-in statements, in order.
+     */
+    private final ArrayList<Integer> fetchSizes = new ArrayList<>();
+
+    private Connection con;
+
+    @BeforeEach
+    void setUp() {
+        statementCache.resetCounters();
+        con = fakeConnection();
+    }
+
+    @AfterEach
+    void tearDown() {
+        statementCache.closeAll(con);
+        statementCache.resetCounters();
+        populationApp.con = null;
+        resultCache.clear();
+    }
+
+    private static Object defaultValue(Method m) {
+        Class<?> t = m.getReturnType();
+        if (t == boolean.class) return false;
+        if (t == int.class) return 0;
+        if (t == long.class) return 0L;
+        if (t == double.class) return 0.0;
+        return null;
+    }
+
+    /**
+     * A connection that records the SQL of every statement prepared on it; queries return no rows.
+     */
+    private static Connection recordingConnection(ArrayList<String> sql) {
+        ResultSetMetaData md = (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, (p, m, a) -> defaultValue(m));
+        ResultSet empty = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (r, m, a) -> {
+                    switch (m.getName()) {
+                        case "findColumn": return 1;
+                        case "getMetaData": return md;
+                        default: return defaultValue(m);
+                    }
+                });
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("prepareStatement")) return defaultValue(method);
+                    synchronized (sql) { sql.add((String) args[0]); }
+                    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                            new Class<?>[]{PreparedStatement.class}, (p, m, a) ->
+                                    m.getName().equals("executeQuery") ? empty : defaultValue(m));
+                });
+    }
+
+    /**
+     * A connection whose statements record whether they are closed; executeQuery fails on "FAIL".
+     */
+    private Connection fakeConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("prepareStatement")) return null;
+                    String sql = (String) args[0];
+                    boolean[] closed = {false};
+                    prepared.add(closed);
+                    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                            new Class<?>[]{PreparedStatement.class}, (p, m, a) -> {
+                                switch (m.getName()) {
+                                    case "close": closed[0] = true; return null;
+                                    case "isClosed": return closed[0];
+                                    case "setFetchSize": fetchSizes.add((Integer) a[0]); return null;
+                                    case "executeQuery":
+                                        if (sql.contains("FAIL")) throw new SQLException("failed");
+                                        return Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                                                new Class<?>[]{ResultSet.class}, (r, rm, ra) -> null);
+                                    default: return null;
+                                }
+                            });
+                });
+    }
+
+    /**
+     * The same shape, however indented, is prepared once and reused.
+     */
+    @Test
+    void testHitsAndReuse() throws Exception {
+        try (PreparedStatement s = statementCache.prepare(con, "SELECT name\n    FROM city WHERE id = ?")) {
+            s.setInt(1, 1);
+            s.executeQuery();
+        }
+        for (int i = 0; i < 5; i++) {
+            try (PreparedStatement s = statementCache.prepare(con, "  SELECT name FROM city\tWHERE id = ?")) {
+                s.executeQuery();
+            }
+        }
+
+        assertEquals(1, prepared.size());
+        assertFalse(prepared.get(0)[0], "The cached statement stays open");
+        assertEquals(1, statementCache.misses());
+        assertEquals(5, statementCache.hits());
+        assertEquals(1, statementCache.idleCount(con));
+        assertEquals("SELECT name FROM city WHERE id = ?", statementCache.shape("\n SELECT name\n\tFROM city  WHERE id = ?  "));
+        assertTrue(statementCache.summary().startsWith("Statement cache: 5 hits, 1 misses"));
+    }
+
+    /**
+     * Overlapping leases get separate statements; failed or reused-after-close statements are handled.
+     */
+    @Test
+    void testLeases() throws Exception {
+        PreparedStatement a = statementCache.prepare(con, "SELECT 1");
+        PreparedStatement b = statementCache.prepare(con, "SELECT 1");
+        assertEquals(2, prepared.size(), "A leased statement is not handed out twice");
+        a.close();
+        b.close();
+        assertEquals(1, statementCache.idleCount(con));
+        assertTrue(prepared.get(0)[0] ^ prepared.get(1)[0], "The surplus statement is closed");
+
+        assertTrue(a.isClosed());
+        assertThrows(SQLException.class, a::executeQuery);
+        a.close(); // closing twice is harmless
+        assertEquals(1, statementCache.idleCount(con));
+
+        try (PreparedStatement f = statementCache.prepare(con, "SELECT FAIL")) {
+            assertThrows(SQLException.class, f::executeQuery);
+        }
+        assertTrue(prepared.get(2)[0], "A statement that failed is closed, not cached");
+        assertEquals(1, statementCache.idleCount(con));
+    }
+
+    /**
+     * Every DAO query of a database-only run, and the snapshot, scope and version loads, are
+     * free of ';'. With {@code allowMultiQueries=true} the driver would client-prepare any such
+     * SQL, disabling server-side plans and cursor fetch for it.
+     */
+    @Test
+    void testRunSqlIsServerPreparable() {
+        ArrayList<String> sql = new ArrayList<>();
+        populationApp.con = recordingConnection(sql);
+        resultCache.clear();
+        scopeRegistry.clear();
+        ArrayList<Supplier<?>> calls = new ArrayList<>(populationApp.databaseReports());
+        calls.add(worldSnapshot::load);
+        calls.add(scopeRegistry::load);
+        calls.add(tableVersions::refresh);
+        calls.add(capitalIndex::get);
+        for (Supplier<?> call : calls) call.get();
+        statementCache.closeAll(populationApp.con);
+        scopeRegistry.clear();
+
+        assertTrue(sql.size() >= populationApp.databaseReports().size(), "Recorded " + sql.size() + " statements");
+        for (String s : sql) assertFalse(s.contains(";"), "Client-prepared because of ';': " + s);
+    }
+
+    /**
+     * A fetch size set during a lease, e.g. by {@link adaptiveFetch}, is reset to the driver
+     * default when the statement is returned, so the next lease does not open a cursor.
+     */
+    @Test
+    void testFetchSizeReset() throws Exception {
+        try (PreparedStatement s = statementCache.prepare(con, "SELECT name FROM city")) {
+            s.setFetchSize(500);
+            s.executeQuery();
+        }
+        try (PreparedStatement s = statementCache.prepare(con, "SELECT name FROM city")) {
+            s.executeQuery();
+        }
+        assertEquals(1, prepared.size());
+        assertEquals(List.of(500, 0, 0), fetchSizes, "Reset on each return");
+    }
+
+    /**
+     * Idle statements beyond the per-connection limit are evicted least recently used first.
+     */
+    @Test
+    void testEvictionAndCloseAll() throws Exception {
+        for (int i = 0; i <= statementCache.MAX_PER_CONNECTION; i++) {
+            statementCache.prepare(con, "SELECT " + i).close();
+        }
+        assertEquals(statementCache.MAX_PER_CONNECTION, statementCache.idleCount(con));
+        assertTrue(prepared.get(0)[0], "The least recently used statement is closed");
+        assertFalse(prepared.get(1)[0]);
+
+        statementCache.closeAll(con);
+        assertEquals(0, statementCache.idleCount(con));
+        for (boolean[] closed : prepared) assertTrue(closed[0]);
+    }
+}
@@ -0,0 +1,50 @@
+package com.napier.sem;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+/**
+ * Heap retained by the city set mapped with a copy of every country and district name per row
+ * (before) and with the names pooled by {@link stringPool} (after), read from the
+ * {@code MemoryMXBean} after a full collection while the rows are still referenced.
+ * Not run by Surefire, since heap readings depend on what else the JVM holds; run manually after
+ * {@code mvn test-compile}:
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes com.napier.sem.StringPoolBenchmark [cities]
+ * </pre>
+ *
+ * Benchmarks:
+ * Retained bytes of copied rows vs pooled rows
+ */
+public class StringPoolBenchmark {
+
+    public static void main(String[] args) throws SQLException {
+        int cities = args.length > 0 ? Integer.parseInt(args[0]) : 40_790;
+        worldSnapshot world = syntheticWorld.generate(239, cities, 42L);
+        System.out.printf("%d cities of 239 countries%n", cities);
+        System.out.println("| Names | Retained bytes | Distinct strings |");
+        System.out.println("| --- | --- | --- |");
+
+        long base = heapUsed();
+        ArrayList<cityReport> copies = StringPoolUnitTest.copied(world);
+        long copiesHeap = heapUsed() - base;
+        System.out.printf("| Copied | %,d | %,d |%n", copiesHeap, StringPoolUnitTest.strings(copies));
+        copies = null;
+
+        stringPool.clear();
+        base = heapUsed();
+        ArrayList<cityReport> pooled = StringPoolUnitTest.pooled(world);
+        long pooledHeap = heapUsed() - base;
+        System.out.printf("| Pooled | %,d | %,d |%n", pooledHeap, StringPoolUnitTest.strings(pooled));
+    }
+
+    /**
+     * Heap in use after a full collection.
+     */
+    private static long heapUsed() {
+        for (int i = 0; i < 3; i++) System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
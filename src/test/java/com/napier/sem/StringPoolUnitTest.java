@@ -0,0 +1,159 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the categorical string pool and the footprint of pooled rows.
+ * These do not require a live database; the city rows come from a {@link syntheticWorld} the
+ * size of the sample database, read through a stand-in result set that, like the driver,
+ * decodes a new {@code String} for every cell. Heap use is measured by {@link StringPoolBenchmark}.
+ *
+ * Tests:
+ * Equal strings share one instance, null passes through and a full pool stops growing
+ * Mapping the full city set with pooled country and district names keeps one String per distinct name
+ * Across ten times the city set, every equal country and district name is the same instance
+ */
+public class StringPoolUnitTest {
+
+    @BeforeEach
+    void setUp() {
+        stringPool.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stringPool.clear();
+    }
+
+    /**
+     * Every city row of a synthetic world, with a fresh string per cell.
+     */
+    static ResultSet cities(worldSnapshot s) {
+        List<String> labels = List.of("name", "country_name", "district", "population");
+        int[] at = {-1};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (r, m, a) -> {
+                    switch (m.getName()) {
+                        case "next": return ++at[0] < s.cityName.length;
+                        case "findColumn": return labels.indexOf((String) a[0]) + 1;
+                        case "getInt": return s.cityPopulation[at[0]];
+                        case "getString":
+                            switch ((Integer) a[0]) {
+                                case 1: return new String(s.cityName[at[0]]);
+                                case 2: return new String(s.countryName[s.cityCountry[at[0]]]);
+                                default: return new String(s.districtNames[s.cityDistrict[at[0]]]);
+                            }
+                        default: return null;
+                    }
+                });
+    }
+
+    /**
+     * Every city row of {@code world}, each cell its own {@code String} as the driver returns it.
+     */
+    static ArrayList<cityReport> copied(worldSnapshot world) throws SQLException {
+        ResultSet rset = cities(world);
+        ArrayList<cityReport> rows = new ArrayList<>();
+        while (rset.next()) {
+            rows.add(new cityReport(rset.getString(1), rset.getString(2), rset.getString(3), rset.getInt(4)));
+        }
+        return rows;
+    }
+
+    /**
+     * Every city row of {@code world}, read by the generated mapper, which pools country and district.
+     */
+    static ArrayList<cityReport> pooled(worldSnapshot world) throws SQLException {
+        ResultSet rset = cities(world);
+        cityReportMapper mapper = new cityReportMapper(rset);
+        ArrayList<cityReport> rows = new ArrayList<>();
+        while (rset.next()) rows.add(mapper.map(rset));
+        return rows;
+    }
+
+    /**
+     * Number of distinct {@code String} instances the rows reference, compared by identity.
+     */
+    static int strings(List<cityReport> rows) {
+        Set<String> strings = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (cityReport c : rows) {
+            for (String s : new String[]{c.name, c.country, c.district}) {
+                if (s != null) strings.add(s);
+            }
+        }
+        return strings.size();
+    }
+
+    /**
+     * Equal strings come back as one instance, and a full pool hands strings back unpooled.
+     */
+    @Test
+    void testIntern() {
+        String china = stringPool.intern(new String("China"));
+        assertSame(china, stringPool.intern(new String("China")));
+        assertNull(stringPool.intern(null));
+        assertEquals(1, stringPool.size());
+        assertEquals(1, stringPool.hits());
+        assertEquals("String pool: 1 strings, 1 duplicates shared", stringPool.summary());
+
+        for (int i = 1; i < stringPool.MAX_ENTRIES; i++) stringPool.intern("District " + i);
+        assertEquals(stringPool.MAX_ENTRIES, stringPool.size());
+        String late = new String("Late");
+        assertSame(late, stringPool.intern(late));
+        assertNotSame(late, stringPool.intern(new String("Late")), "A full pool stops adding");
+        assertSame(china, stringPool.intern(new String("China")), "Pooled strings are still shared");
+    }
+
+    /**
+     * The 4,079 cities of 239 countries hold one {@code String} per row for the city name, but only
+     * one per distinct country and district name instead of one per row.
+     */
+    @Test
+    void testFullCitySetFootprint() throws SQLException {
+        worldSnapshot world = syntheticWorld.generate(239, 4_079, 42L);
+        ArrayList<cityReport> copies = copied(world);
+        ArrayList<cityReport> pooled = pooled(world);
+
+        assertEquals(copies.size(), pooled.size());
+        HashSet<String> countries = new HashSet<>();
+        HashSet<String> districts = new HashSet<>();
+        for (cityReport c : pooled) {
+            countries.add(c.country);
+            districts.add(c.district);
+        }
+        assertEquals(3 * copies.size(), strings(copies), "Every cell is its own String");
+        assertEquals(pooled.size() + countries.size() + districts.size(), strings(pooled),
+                "Each country and district name is one String, shared by its rows");
+        assertTrue(stringPool.size() <= 239 + 239 * 20, "Only country and district names are pooled");
+    }
+
+    /**
+     * Across the 40,790 rows of ten times the city set, every row of a country or district points
+     * at the instance the first such row got, so the rows hold no duplicate names.
+     */
+    @Test
+    void testTenTimesCitySet() throws SQLException {
+        ArrayList<cityReport> pooled = pooled(syntheticWorld.generate(239, 40_790, 42L));
+        assertEquals(40_790, pooled.size());
+
+        HashMap<String, String> first = new HashMap<>();
+        for (cityReport c : pooled) {
+            assertSame(first.computeIfAbsent(c.country, k -> c.country), c.country, c.country);
+            assertSame(first.computeIfAbsent(c.district, k -> c.district), c.district, c.district);
+        }
+        assertEquals(pooled.size() + first.size(), strings(pooled),
+                "One String per city name plus one per distinct country and district name");
+    }
+}
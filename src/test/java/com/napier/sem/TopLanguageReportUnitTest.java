@@ -0,0 +1,111 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.io.*;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for topLanguageReport ranking and Markdown output.
+ * These do not require a live database.
+ *
+ * Tests:
+ * Per-group bounded ranking
+ * Official/unofficial split
+ * One file per level
+ * Empty dataset behaviour
+ */
+public class TopLanguageReportUnitTest {
+
+    private ByteArrayOutputStream outContent;
+    private PrintStream originalOut;
+
+    @BeforeEach
+    void setUp() {
+        outContent = new ByteArrayOutputStream();
+        originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    /**
+     * Build a small tally spanning two regions of one continent.
+     */
+    private topLanguageReport.languageTally mockTally() {
+        topLanguageReport.languageTally tally = new topLanguageReport.languageTally();
+        tally.add("Europe", "Western Europe", "German", true, 90);
+        tally.add("Europe", "Western Europe", "French", true, 70);
+        tally.add("Europe", "Western Europe", "Turkish", false, 5);
+        tally.add("Europe", "Eastern Europe", "Russian", true, 100);
+        tally.add("Europe", "Eastern Europe", "German", false, 20);
+        return tally;
+    }
+
+    /**
+     * Continent ranking merges regions and keeps only the top k.
+     */
+    @Test
+    void testContinentRankingMergesRegions() {
+        ArrayList<topLanguageReport> top = mockTally().top(topLanguageReport.CONTINENT, 2);
+
+        assertEquals(2, top.size(), "Expected k languages for the continent");
+        assertEquals("German", top.get(0).language);
+        assertEquals(1, top.get(0).rank);
+        assertEquals(110, top.get(0).speakers);
+        assertEquals(90, top.get(0).officialSpeakers);
+        assertEquals(20, top.get(0).unofficialSpeakers);
+        assertEquals("Russian", top.get(1).language);
+        assertEquals(2, top.get(1).rank);
+    }
+
+    /**
+     * Region ranking is ordered by region name then rank.
+     */
+    @Test
+    void testRegionRanking() {
+        ArrayList<topLanguageReport> top = mockTally().top(topLanguageReport.REGION, 2);
+
+        assertEquals(4, top.size());
+        assertEquals("Eastern Europe", top.get(0).scope);
+        assertEquals("Russian", top.get(0).language);
+        assertEquals("Western Europe", top.get(2).scope);
+        assertEquals("German", top.get(2).language);
+        assertEquals("French", top.get(3).language);
+    }
+
+    /**
+     * Each level is written to its own file.
+     */
+    @Test
+    void testOutputTopLanguageReportPerLevel() throws IOException {
+        topLanguageReport.languageTally tally = mockTally();
+        ArrayList<topLanguageReport> top = tally.top(topLanguageReport.CONTINENT, 3);
+        top.addAll(tally.top(topLanguageReport.REGION, 3));
+
+        topLanguageReport.outputTopLanguageReport(top, topLanguageReport.REGION, "TestTopLanguagesByRegion.md");
+
+        File f = new File("./reports/languageReports/TestTopLanguagesByRegion.md");
+        assertTrue(f.exists(), "Expected region file to be created");
+        String content = new String(java.nio.file.Files.readAllBytes(f.toPath()));
+        assertTrue(content.contains("| Region | Rank |"), "Expected region header");
+        assertTrue(content.contains("Western Europe"), "Expected region rows");
+        assertFalse(content.contains("| Europe |"), "Continent rows belong in the continent file");
+    }
+
+    /**
+     * Test output behaviour for empty data.
+     */
+    @Test
+    void testOutputTopLanguageReportEmpty() {
+        topLanguageReport.outputTopLanguageReport(new ArrayList<>(), topLanguageReport.CONTINENT, "EmptyTopLanguageReport.md");
+
+        String output = outContent.toString();
+        assertTrue(output.contains("No top language data available"),
+                "Expected message indicating no data");
+    }
+}
@@ -0,0 +1,75 @@
+package com.napier.sem;
+
+import org.junit.jupiter.api.*;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the primitive bounded top-N heap.
+ *
+ * Tests:
+ * Selection matches a full sort
+ * Deterministic tie-breaking
+ * Reuse across queries
+ */
+public class TopNHeapUnitTest {
+
+    /**
+     * The heap keeps exactly the n largest keys, largest first.
+     */
+    @Test
+    void testSelectionMatchesSort() {
+        SplittableRandom rnd = new SplittableRandom(11L);
+        long[] keys = new long[5_000];
+        for (int i = 0; i < keys.length; i++) keys[i] = rnd.nextInt(1_000_000);
+
+        topNHeap heap = new topNHeap(4);
+        heap.reset(10);
+        for (int i = 0; i < keys.length; i++) heap.offer(keys[i], i);
+        int[] top = heap.drainDescending();
+
+        long[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        assertEquals(10, top.length);
+        for (int i = 0; i < top.length; i++) {
+            assertEquals(sorted[sorted.length - 1 - i], keys[top[i]], "Rank " + (i + 1) + " should match a full sort");
+        }
+        assertEquals(0, heap.size(), "Draining should empty the heap");
+    }
+
+    /**
+     * Equal keys are resolved in favour of the smaller id.
+     */
+    @Test
+    void testTiesPreferSmallerId() {
+        topNHeap heap = new topNHeap(8);
+        heap.reset(2);
+        heap.offer(5, 9);
+        heap.offer(5, 3);
+        heap.offer(5, 7);
+        heap.offer(1, 0);
+
+        assertArrayEquals(new int[]{3, 7}, heap.drainDescending());
+    }
+
+    /**
+     * A reset heap forgets earlier entries and honours the new bound.
+     */
+    @Test
+    void testResetAndSmallInputs() {
+        topNHeap heap = topNHeap.forThread();
+        heap.reset(3);
+        heap.offer(100, 1);
+        heap.reset(5);
+        heap.offer(7, 2);
+        heap.offer(8, 4);
+
+        assertArrayEquals(new int[]{4, 2}, heap.drainDescending(), "Fewer candidates than the bound");
+
+        heap.reset(0);
+        heap.offer(1, 1);
+        assertEquals(0, heap.drainDescending().length, "A bound of 0 keeps nothing");
+    }
+}